@@ -0,0 +1,310 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.ts.lib.harness;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import com.sun.ts.lib.util.TestUtil;
+
+/**
+ * Keeps track of the test directories whose archives are currently deployed, so
+ * that SuiteSynchronizer can skip undeploying and redeploying a directory whose
+ * archives have not changed. Each directory is keyed by a fingerprint computed
+ * from the content of its archives, its runtime descriptors and the deployment
+ * settings they are combined with. Directories that are not in use are
+ * undeployed in least recently used order once more than the configured number
+ * of directories is deployed.
+ *
+ * The cache can be persisted to a properties file so that a new harness VM can
+ * reuse applications left deployed by the previous one. Entries loaded from the
+ * file are only trusted after SuiteSynchronizer has checked that the
+ * applications are still deployed.
+ */
+public class DeploymentCache {
+
+  public static class Entry {
+    private final String sDir;
+
+    private final String sFingerprint;
+
+    private final String sClientClassPath;
+
+    private final boolean bCommon;
+
+    // false if the entry was read from the cache file and was not yet
+    // checked against the server
+    boolean bVerified;
+
+    Entry(String sDir, String sFingerprint, String sClientClassPath,
+        boolean bCommon, boolean bVerified) {
+      this.sDir = sDir;
+      this.sFingerprint = sFingerprint;
+      this.sClientClassPath = sClientClassPath;
+      this.bCommon = bCommon;
+      this.bVerified = bVerified;
+    }
+
+    public String getDirectory() {
+      return sDir;
+    }
+
+    public String getFingerprint() {
+      return sFingerprint;
+    }
+
+    public String getClientClassPath() {
+      return sClientClassPath;
+    }
+
+    public boolean isCommon() {
+      return bCommon;
+    }
+  }
+
+  // file path + size + modification time -> content digest
+  private static Hashtable htFileDigests = new Hashtable();
+
+  // access ordered, the first entry is the least recently used one
+  private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(
+      16, 0.75f, true);
+
+  private final int iMaxDeployed;
+
+  private final File cacheFile;
+
+  /**
+   * @param iMaxDeployed
+   *          maximum number of non common test directories kept deployed
+   * @param cacheFile
+   *          file the cache is persisted to, or null to keep it in memory only
+   */
+  public DeploymentCache(int iMaxDeployed, File cacheFile) {
+    this.iMaxDeployed = Math.max(1, iMaxDeployed);
+    this.cacheFile = cacheFile;
+    load();
+  }
+
+  /**
+   * Returns the entry for the given directory if its fingerprint matches,
+   * otherwise null.
+   */
+  public synchronized Entry get(String sDir, String sFingerprint) {
+    Entry entry = entries.get(sDir);
+    if (entry != null && entry.getFingerprint().equals(sFingerprint)) {
+      return entry;
+    }
+    return null;
+  }
+
+  /**
+   * Returns true if the cache is persisted to a file, in which case its apps
+   * are meant to stay deployed after the harness VM exits.
+   */
+  public boolean isPersistent() {
+    return cacheFile != null;
+  }
+
+  public synchronized boolean contains(String sDir) {
+    return entries.containsKey(sDir);
+  }
+
+  /**
+   * Records that the archives of a directory have been deployed.
+   *
+   * @return the directories that must be undeployed to stay within the limit
+   */
+  public synchronized List<String> put(String sDir, String sFingerprint,
+      String sClientClassPath, boolean bCommon) {
+    entries.put(sDir,
+        new Entry(sDir, sFingerprint, sClientClassPath, bCommon, true));
+    List<String> evicted = new ArrayList<String>();
+    int iDeployed = 0;
+    for (Entry entry : entries.values()) {
+      if (!entry.isCommon())
+        iDeployed++;
+    }
+    for (Iterator<Entry> it = entries.values().iterator(); it.hasNext()
+        && iDeployed > iMaxDeployed;) {
+      Entry entry = it.next();
+      if (!entry.isCommon() && !entry.getDirectory().equals(sDir)) {
+        evicted.add(entry.getDirectory());
+        it.remove();
+        iDeployed--;
+      }
+    }
+    save();
+    return evicted;
+  }
+
+  public synchronized void remove(String sDir) {
+    if (entries.remove(sDir) != null) {
+      save();
+    }
+  }
+
+  /**
+   * Returns the cached directories, least recently used first.
+   */
+  public synchronized List<String> getDirectories(boolean bCommon) {
+    List<String> dirs = new ArrayList<String>();
+    for (Entry entry : entries.values()) {
+      if (entry.isCommon() == bCommon)
+        dirs.add(entry.getDirectory());
+    }
+    return dirs;
+  }
+
+  /**
+   * Computes the fingerprint of a test directory from its archives, its
+   * runtime descriptors and the deployment settings.
+   *
+   * @param sDir
+   *          dist dir of the test directory
+   * @param sAppJarsArray
+   *          archives that will be deployed from sDir
+   * @param pSettings
+   *          any other values the deployment depends on
+   */
+  public static String getFingerprint(String sDir, String[] sAppJarsArray,
+      Properties pSettings) throws IOException {
+    MessageDigest md = newDigest();
+    File fTestDir = new File(sDir);
+    String[] sRuntimeInfoFilesArray = fTestDir
+        .list(SuiteSynchronizer.RuntimeInfoFilter.getInstance());
+    update(md, fTestDir, sAppJarsArray);
+    update(md, fTestDir, sRuntimeInfoFilesArray);
+    if (pSettings != null) {
+      String[] keys = pSettings.stringPropertyNames().toArray(new String[0]);
+      Arrays.sort(keys);
+      for (int ii = 0; ii < keys.length; ii++) {
+        md.update((keys[ii] + "=" + pSettings.getProperty(keys[ii]) + "\n")
+            .getBytes(StandardCharsets.UTF_8));
+      }
+    }
+    return toHex(md.digest());
+  }
+
+  private static void update(MessageDigest md, File fTestDir, String[] files)
+      throws IOException {
+    if (files == null)
+      return;
+    String[] sorted = (String[]) files.clone();
+    Arrays.sort(sorted);
+    for (int ii = 0; ii < sorted.length; ii++) {
+      md.update((sorted[ii] + "\n").getBytes(StandardCharsets.UTF_8));
+      md.update(getFileDigest(new File(fTestDir, sorted[ii])));
+    }
+  }
+
+  private static byte[] getFileDigest(File file) throws IOException {
+    String sKey = file.getAbsolutePath() + "|" + file.length() + "|"
+        + file.lastModified();
+    byte[] digest = (byte[]) htFileDigests.get(sKey);
+    if (digest == null) {
+      MessageDigest md = newDigest();
+      byte[] buffer = new byte[8192];
+      InputStream in = new FileInputStream(file);
+      try {
+        int len;
+        while ((len = in.read(buffer)) != -1) {
+          md.update(buffer, 0, len);
+        }
+      } finally {
+        in.close();
+      }
+      digest = md.digest();
+      htFileDigests.put(sKey, digest);
+    }
+    return digest;
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  private static String toHex(byte[] bytes) {
+    StringBuffer sb = new StringBuffer(bytes.length * 2);
+    for (int ii = 0; ii < bytes.length; ii++) {
+      sb.append(Character.forDigit((bytes[ii] >> 4) & 0xf, 16));
+      sb.append(Character.forDigit(bytes[ii] & 0xf, 16));
+    }
+    return sb.toString();
+  }
+
+  private void load() {
+    if (cacheFile == null || !cacheFile.isFile())
+      return;
+    Properties p = new Properties();
+    try (FileInputStream in = new FileInputStream(cacheFile)) {
+      p.load(in);
+    } catch (IOException e) {
+      TestUtil.logHarness("Could not read deployment cache file " + cacheFile,
+          e);
+      return;
+    }
+    for (int ii = 0; p.getProperty("dir." + ii) != null; ii++) {
+      String sDir = p.getProperty("dir." + ii);
+      entries.put(sDir,
+          new Entry(sDir, p.getProperty("fingerprint." + ii, ""),
+              p.getProperty("classpath." + ii, ""),
+              Boolean.parseBoolean(p.getProperty("common." + ii)), false));
+    }
+    if (TestUtil.harnessDebug)
+      TestUtil.logHarnessDebug("Loaded " + entries.size()
+          + " deployment cache entries from " + cacheFile);
+  }
+
+  private void save() {
+    if (cacheFile == null)
+      return;
+    Properties p = new Properties();
+    int ii = 0;
+    for (Map.Entry<String, Entry> e : entries.entrySet()) {
+      Entry entry = e.getValue();
+      p.setProperty("dir." + ii, entry.getDirectory());
+      p.setProperty("fingerprint." + ii, entry.getFingerprint());
+      p.setProperty("classpath." + ii, entry.getClientClassPath());
+      p.setProperty("common." + ii, String.valueOf(entry.isCommon()));
+      ii++;
+    }
+    try (FileOutputStream out = new FileOutputStream(cacheFile)) {
+      p.store(out, "TS deployment cache");
+    } catch (IOException e) {
+      TestUtil.logHarness("Could not write deployment cache file " + cacheFile,
+          e);
+    }
+  }
+}
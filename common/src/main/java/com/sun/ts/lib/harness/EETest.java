@@ -26,14 +26,22 @@ import java.io.IOException;
 import java.io.PrintStream;
 import java.io.PrintWriter;
 import java.io.Serializable;
+import java.io.StringWriter;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
 import java.util.Enumeration;
+import java.util.List;
 import java.util.Properties;
 import java.util.Vector;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * This abstract class must be extended by all clients of all J2EE-TS tests. All
@@ -367,42 +375,38 @@ public abstract class EETest implements Serializable {
   protected Status runAllTestCases(String[] argv, Properties p, PrintWriter log,
       PrintWriter err) {
     String[] sTestCases;
+    Status[] testStatuses;
     int iPassedCount = 0;
     int iFailedCount = 0;
     TestUtil.initClient(p);
     try {
-      sTestCases = getAllTestCases(p);
+      sTestCases = getShardTestCases(getAllTestCases(p), p);
     } catch (Exception e) {
       e.printStackTrace();
       return Status
           .failed("An error occurred trying to get all" + "testcase methods.");
     }
-    for (int ii = 0; ii < sTestCases.length; ii++) {
-      sTestCase = sTestCases[ii];
-      p.setProperty("testName", sTestCase);
-      TestUtil.setCurrentTest(sTestCase, log, err);
-      bUtilAlreadyInitialized = true;
-      sTestStatus = Status.passed("");
-      TestUtil.separator2();
-      TestUtil.logMsg("Beginning Test:  " + sTestCases[ii]);
-      TestUtil.separator2();
-      sTestStatus = getPropsReady(argv, p);
-      try {
-        Thread.sleep(iLogDelaySeconds);
-      } catch (InterruptedException e) {
-        logErr("Exception: " + e);
+    int iWorkers = getParallelWorkers(p, sTestCases.length);
+    if (iWorkers > 1) {
+      testStatuses = runTestCasesInParallel(sTestCases, argv, p, log, err,
+          iWorkers);
+    } else {
+      testStatuses = runTestCasesInBatch(sTestCases, argv, p);
+      if (testStatuses == null) {
+        testStatuses = new Status[sTestCases.length];
+        for (int ii = 0; ii < sTestCases.length; ii++) {
+          testStatuses[ii] = runTestCase(sTestCases[ii], argv, p, log, err);
+        }
       }
-      if (sTestStatus.getType() == Status.PASSED) {
+    }
+    for (int ii = 0; ii < sTestCases.length; ii++) {
+      if (testStatuses[ii].getType() == Status.PASSED) {
         sTestCases[ii] += "...........PASSED";
         iPassedCount++;
       } else {
-        TestUtil.logMsg(sTestStatus.getReason());
         sTestCases[ii] += "...........FAILED";
         iFailedCount++;
       }
-      TestUtil.separator2();
-      TestUtil.logMsg("End Test:  " + sTestCases[ii]);
-      TestUtil.separator2();
     }
     TestUtil.separator2();
     TestUtil.logMsg("Completed running " + sTestCases.length + " tests.");
@@ -418,6 +422,201 @@ public abstract class EETest implements Serializable {
       return Status.passed("PASSED");
   }
 
+  /**
+   * Runs all the testcases with one call to the vehicle when the vehicle
+   * supports it. This implementation returns null, so each testcase is run on
+   * its own.
+   *
+   * @return the status of each testcase, or null if the testcases were not run
+   */
+  protected Status[] runTestCasesInBatch(String[] sTestCases, String[] argv,
+      Properties p) {
+    return null;
+  }
+
+  /**
+   * Runs a single testcase (setup, run and cleanup) on this instance and logs
+   * the begin/end banners around it.
+   */
+  private Status runTestCase(String sTest, String[] argv, Properties p,
+      PrintWriter log, PrintWriter err) {
+    sTestCase = sTest;
+    p.setProperty("testName", sTestCase);
+    TestUtil.setCurrentTest(sTestCase, log, err);
+    bUtilAlreadyInitialized = true;
+    sTestStatus = Status.passed("");
+    TestUtil.separator2();
+    TestUtil.logMsg("Beginning Test:  " + sTest);
+    TestUtil.separator2();
+    sTestStatus = getPropsReady(argv, p);
+    try {
+      Thread.sleep(iLogDelaySeconds);
+    } catch (InterruptedException e) {
+      logErr("Exception: " + e);
+    }
+    if (sTestStatus.getType() == Status.PASSED) {
+      TestUtil.separator2();
+      TestUtil.logMsg("End Test:  " + sTest + "...........PASSED");
+    } else {
+      TestUtil.logMsg(sTestStatus.getReason());
+      TestUtil.separator2();
+      TestUtil.logMsg("End Test:  " + sTest + "...........FAILED");
+    }
+    TestUtil.separator2();
+    return sTestStatus;
+  }
+
+  /**
+   * Returns the number of worker threads to use when running all testcases of
+   * this class, as set by the harness.parallel.workers property. The default
+   * of 1 keeps the sequential behavior.
+   */
+  private int getParallelWorkers(Properties p, int iNumTests) {
+    int iWorkers = 1;
+    try {
+      iWorkers = Integer
+          .parseInt(p.getProperty("harness.parallel.workers", "1").trim());
+    } catch (NumberFormatException e) {
+      TestUtil.logErr("Invalid value for harness.parallel.workers,"
+          + " running testcases sequentially");
+    }
+    return Math.max(1, Math.min(iWorkers, iNumTests));
+  }
+
+  /**
+   * Filters the testcases down to the ones owned by this shard when the
+   * harness.shard.count and harness.shard.index properties are set. A testcase
+   * is assigned to a shard from the hash of its name, so every node that runs
+   * with the same shard count gets a disjoint and stable subset.
+   */
+  private String[] getShardTestCases(String[] sTestCases, Properties p)
+      throws SetupException {
+    String sShardCount = p.getProperty("harness.shard.count");
+    if (sShardCount == null || sShardCount.trim().length() == 0)
+      return sTestCases;
+    int iShardCount;
+    int iShardIndex;
+    try {
+      iShardCount = Integer.parseInt(sShardCount.trim());
+      iShardIndex = Integer
+          .parseInt(p.getProperty("harness.shard.index", "0").trim());
+    } catch (NumberFormatException e) {
+      throw new SetupException("Invalid harness.shard.count or "
+          + "harness.shard.index value: ", e);
+    }
+    if (iShardCount < 1 || iShardIndex < 0 || iShardIndex >= iShardCount)
+      throw new SetupException("Invalid shard " + iShardIndex + " of "
+          + iShardCount + " shards");
+    Vector tests = new Vector();
+    for (int ii = 0; ii < sTestCases.length; ii++) {
+      if (Math.floorMod(sTestCases[ii].hashCode(), iShardCount) == iShardIndex)
+        tests.addElement(sTestCases[ii]);
+      else
+        TestUtil.logTrace(sTestCases[ii] + " belongs to another shard.");
+    }
+    String[] shardTests = new String[tests.size()];
+    tests.copyInto(shardTests);
+    TestUtil.logMsg("Running shard " + iShardIndex + " of " + iShardCount
+        + ": " + shardTests.length + " of " + sTestCases.length + " tests.");
+    return shardTests;
+  }
+
+  /**
+   * Runs the testcases on a pool of worker threads. Each worker owns its own
+   * instance of this test class and its own copy of the properties, so the
+   * setup, run and cleanup methods of one testcase never share state with a
+   * testcase running on another worker. Each worker thread also has its own
+   * current test name and log stream in TestUtil. If a worker instance cannot
+   * be created the testcases are run sequentially on this instance instead.
+   */
+  private Status[] runTestCasesInParallel(final String[] sTestCases,
+      final String[] argv, Properties p, final PrintWriter log,
+      final PrintWriter err, int iWorkers) {
+    final Status[] testStatuses = new Status[sTestCases.length];
+    final EETest[] workers = new EETest[iWorkers];
+    try {
+      for (int ii = 0; ii < iWorkers; ii++) {
+        workers[ii] = getClass().getDeclaredConstructor().newInstance();
+        workers[ii].iLogDelaySeconds = iLogDelaySeconds;
+      }
+    } catch (Exception e) {
+      TestUtil.logErr("Could not create a worker instance of "
+          + getClass().getName() + ", running testcases sequentially", e);
+      for (int ii = 0; ii < sTestCases.length; ii++) {
+        testStatuses[ii] = runTestCase(sTestCases[ii], argv, p, log, err);
+      }
+      return testStatuses;
+    }
+    TestUtil.logMsg("Running " + sTestCases.length + " tests on " + iWorkers
+        + " workers.");
+    final AtomicInteger nextTest = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(iWorkers);
+    List<Future<?>> futures = new ArrayList<Future<?>>();
+    for (int ii = 0; ii < iWorkers; ii++) {
+      final EETest worker = workers[ii];
+      final Properties workerProps = (Properties) p.clone();
+      futures.add(executor.submit(new Runnable() {
+        public void run() {
+          TestUtil.isolateCurrentThread();
+          try {
+            int iTest;
+            while ((iTest = nextTest.getAndIncrement()) < sTestCases.length) {
+              testStatuses[iTest] = runTestCaseBuffered(worker,
+                  sTestCases[iTest], argv, workerProps, log);
+            }
+          } finally {
+            TestUtil.releaseCurrentThread();
+          }
+        }
+      }));
+    }
+    executor.shutdown();
+    for (Future<?> future : futures) {
+      try {
+        future.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        executor.shutdownNow();
+        break;
+      } catch (ExecutionException e) {
+        TestUtil.logErr("Worker terminated unexpectedly", e.getCause());
+      }
+    }
+    for (int ii = 0; ii < testStatuses.length; ii++) {
+      if (testStatuses[ii] == null)
+        testStatuses[ii] = Status.failed("Testcase was not run");
+    }
+    return testStatuses;
+  }
+
+  /**
+   * Runs a testcase on a worker of a parallel run. The testcase logs to its
+   * own buffer, which is copied to the log in one piece when the testcase
+   * completes, so the output of testcases running at the same time is not
+   * interleaved.
+   */
+  private static Status runTestCaseBuffered(EETest worker, String sTest,
+      String[] argv, Properties p, PrintWriter log) {
+    StringWriter buffer = new StringWriter();
+    PrintWriter testLog = new PrintWriter(buffer);
+    Status status;
+    try {
+      status = worker.runTestCase(sTest, argv, p, testLog, testLog);
+    } catch (ThreadDeath t) {
+      throw t;
+    } catch (Throwable t) {
+      TestUtil.logErr("Unexpected Throwable: " + t, t);
+      status = Status.failed("Unexpected Throwable: " + t);
+    } finally {
+      testLog.flush();
+      synchronized (log) {
+        log.print(buffer.toString());
+        log.flush();
+      }
+    }
+    return status;
+  }
+
   /**
    * This method is only called from JavaTest to run a single testcase. All
    * properties are determined from the source code tags.
@@ -650,6 +849,12 @@ public abstract class EETest implements Serializable {
         setTestStatus(Status.failed("Unexpected Throwable: " + t), t);
       }
     }
+    // report the batched logging transport of the remote VM, if in use,
+    // once the testcase is done
+    String sLogStats = TestUtil.getRemoteLoggingStatistics();
+    if (sLogStats != null) {
+      TestUtil.logTrace("Remote logging statistics: " + sLogStats);
+    }
     return sTestStatus;
   }
 
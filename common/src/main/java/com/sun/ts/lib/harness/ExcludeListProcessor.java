@@ -16,26 +16,71 @@
 
 package com.sun.ts.lib.harness;
 
-import java.util.Vector;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
 import java.util.StringTokenizer;
 import java.io.File;
 import java.io.FileReader;
 import java.io.BufferedReader;
-import java.io.PrintWriter;
-import java.io.FileWriter;
-import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.FileNotFoundException;
 
+/**
+ * Reads the exclude list and answers whether a test is excluded. The list is
+ * compiled once per VM into a hash set of the excluded test names
+ * (path/File.java#testName) and a prefix trie of the entries without a test
+ * name, which exclude every test of a source file or of a directory. Lookups
+ * therefore do not depend on the size of the exclude list.
+ *
+ * Only the first whitespace separated token of a line is used, so lines in the
+ * JavaTest exclude list format (test, bug ids, platforms, synopsis) are
+ * accepted as well.
+ */
 public class ExcludeListProcessor {
 
   // pass in a string which has the filename#testname
   public static boolean isTestExcluded(String fileName) {
     // check to see if it exists in the exclude list
-    return fileNameList.contains(fileName);
+    CompiledList list = compiledList;
+    return list.testNames.contains(fileName)
+        || list.prefixes.containsPrefixOf(fileName, BOUNDARIES);
+  }
+
+  /**
+   * Reads the given exclude list, unless it was already read and did not change
+   * since. Entries of all lists read in this VM are combined.
+   */
+  public static synchronized void readExcludeList(String fileName) {
+    if (fileName == null) {
+      return;
+    }
+    Long lastModified = Long.valueOf(new File(fileName).lastModified());
+    if (lastModified.equals(filesRead.get(fileName))) {
+      return;
+    }
+    filesRead.put(fileName, lastModified);
+
+    // compile all lists again so that a changed list does not leave stale
+    // entries behind
+    CompiledList list = new CompiledList();
+    for (Iterator<String> it = filesRead.keySet().iterator(); it.hasNext();) {
+      readExcludeList(it.next(), list);
+    }
+    compiledList = list;
+  }
+
+  /**
+   * Returns the number of excluded tests and of excluded files or directories.
+   */
+  public static String getStatistics() {
+    CompiledList list = compiledList;
+    return "tests=" + list.testNames.size() + ", prefixes="
+        + list.prefixes.size();
   }
 
-  public static void readExcludeList(String fileName) {
+  private static void readExcludeList(String fileName, CompiledList list) {
     BufferedReader d = null;
     try {
       d = new BufferedReader(new FileReader(fileName));
@@ -43,8 +88,7 @@ public class ExcludeListProcessor {
       while ((line = d.readLine()) != null) {
         line = line.trim();
         if (line.length() > 0 && !line.startsWith("#")) {
-          String entry = new String(line);
-          fileNameList.addElement(entry.trim());
+          list.add(new StringTokenizer(line).nextToken());
         }
       }
       d.close();
@@ -58,6 +102,27 @@ public class ExcludeListProcessor {
   }
 
   /*----------- Private Members of this class -------------*/
-  private static Vector fileNameList = new Vector();
+
+  // characters that end a path segment in a test name
+  private static final String BOUNDARIES = "/#";
+
+  private static class CompiledList {
+    private final HashSet<String> testNames = new HashSet<String>();
+
+    private final PrefixTrie<Boolean> prefixes = new PrefixTrie<Boolean>();
+
+    void add(String entry) {
+      if (entry.indexOf('#') != -1) {
+        testNames.add(entry);
+      } else {
+        prefixes.put(entry, Boolean.TRUE);
+      }
+    }
+  }
+
+  private static volatile CompiledList compiledList = new CompiledList();
+
+  // exclude list file name -> last modified time when read
+  private static Map<String, Long> filesRead = new HashMap<String, Long>();
 
 }
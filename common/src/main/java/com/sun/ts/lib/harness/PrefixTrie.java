@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.ts.lib.harness;
+
+import java.util.HashMap;
+
+/**
+ * A character trie mapping string prefixes to values. A lookup walks the trie
+ * along the searched string, so its cost depends on the length of the string
+ * and not on the number of prefixes stored.
+ */
+class PrefixTrie<V> {
+
+  private static class Node<V> {
+    private final HashMap<Character, Node<V>> children = new HashMap<Character, Node<V>>(
+        4);
+
+    private V value;
+
+    private boolean bTerminal;
+  }
+
+  private final Node<V> root = new Node<V>();
+
+  private int iSize;
+
+  /**
+   * Maps the given prefix to a value, replacing any previous value.
+   */
+  void put(String sPrefix, V value) {
+    Node<V> node = root;
+    for (int ii = 0; ii < sPrefix.length(); ii++) {
+      Character c = Character.valueOf(sPrefix.charAt(ii));
+      Node<V> child = node.children.get(c);
+      if (child == null) {
+        child = new Node<V>();
+        node.children.put(c, child);
+      }
+      node = child;
+    }
+    if (!node.bTerminal) {
+      iSize++;
+    }
+    node.bTerminal = true;
+    node.value = value;
+  }
+
+  int size() {
+    return iSize;
+  }
+
+  /**
+   * Returns the value of the longest stored prefix of s, or null if no stored
+   * prefix is a prefix of s.
+   */
+  V getLongestPrefixValue(String s) {
+    Node<V> node = root;
+    V result = root.bTerminal ? root.value : null;
+    for (int ii = 0; ii < s.length(); ii++) {
+      node = node.children.get(Character.valueOf(s.charAt(ii)));
+      if (node == null) {
+        break;
+      }
+      if (node.bTerminal) {
+        result = node.value;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns true if a stored prefix of s ends at a boundary of s: either the
+   * prefix itself ends with one of the boundary characters, or it is followed
+   * in s by one of them or by the end of s.
+   */
+  boolean containsPrefixOf(String s, String sBoundaries) {
+    Node<V> node = root;
+    for (int ii = 0; ii < s.length(); ii++) {
+      char c = s.charAt(ii);
+      node = node.children.get(Character.valueOf(c));
+      if (node == null) {
+        return false;
+      }
+      if (node.bTerminal
+          && (sBoundaries.indexOf(c) != -1 || ii + 1 == s.length()
+              || sBoundaries.indexOf(s.charAt(ii + 1)) != -1)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -238,6 +238,41 @@ public abstract class ServiceEETest extends EETest {
     return s;
   }
 
+  /**
+   * Runs all the testcases with one call to the vehicle when the
+   * harness.vehicle.batch property is true and the runner of the vehicle is a
+   * BatchVehicleRunnable. The properties and arguments are then sent once
+   * instead of once per testcase.
+   */
+  protected Status[] runTestCasesInBatch(String[] sTestCases, String[] argv,
+      Properties p) {
+    if (TestUtil.iWhereAreWe != TestUtil.VM_HARNESS
+        || !(this instanceof com.sun.ts.tests.common.vehicle.VehicleClient)
+        || !Boolean.valueOf(
+            p.getProperty("harness.vehicle.batch", "false").trim())
+            .booleanValue())
+      return null;
+    String sVehicle = p.getProperty("vehicle");
+    VehicleRunnable runner = VehicleRunnerFactory.getVehicleRunner(sVehicle);
+    if (!(runner instanceof BatchVehicleRunnable))
+      return null;
+    p.putAll(getVehicleSpecificClientProps(p));
+    TestUtil.logMsg("Running " + sTestCases.length + " tests in one batch in "
+        + sVehicle + " vehicle.");
+    return ((BatchVehicleRunnable) runner).run(argv, p, sTestCases,
+        new BatchVehicleRunnable.StatusListener() {
+          public void completed(String testName, Status status) {
+            TestUtil.separator2();
+            if (status.getType() == Status.PASSED) {
+              TestUtil.logMsg("End Test:  " + testName + "...........PASSED");
+            } else {
+              TestUtil.logMsg(status.getReason());
+              TestUtil.logMsg("End Test:  " + testName + "...........FAILED");
+            }
+          }
+        });
+  }
+
   private String[] getVehicles(Properties p) {
     String[] sReturn = null;
     String sVal = null;
@@ -22,11 +22,21 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.jar.JarFile;
 import java.util.zip.ZipEntry;
 
@@ -35,6 +45,7 @@ import com.sun.ts.lib.deliverable.DeliverableInterface;
 import com.sun.ts.lib.deliverable.PropertyManagerInterface;
 import com.sun.ts.lib.deliverable.PropertyNotSetException;
 import com.sun.ts.lib.porting.DeploymentInfo;
+import com.sun.ts.lib.porting.TSConcurrentDeploymentInterface;
 import com.sun.ts.lib.porting.TSDeployment;
 import com.sun.ts.lib.porting.TSDeploymentException;
 import com.sun.ts.lib.porting.TSDeploymentInterface;
@@ -102,6 +113,20 @@ public class SuiteSynchronizer {
 
   private static boolean bDeployingCommonApps;
 
+  // null unless harness.deployment.cache.size is set
+  private static DeploymentCache deploymentCache;
+
+  // number of archives deployed at the same time by a concurrent deployer
+  private static int iDeploymentThreads = 1;
+
+  // runs prepareDeployment and concurrent deploy calls
+  private static ExecutorService deploymentExecutor;
+
+  // DeploymentInfos built ahead of time by prepareDeployment
+  private static String sPreparedDir;
+
+  private static Future sPreparedInfos;
+
   // deliverable specific settings
   // All info here is retrieved from the active deliverable
   private static DeliverableInterface deliv;
@@ -138,6 +163,41 @@ public class SuiteSynchronizer {
     }
     executionMode = ExecutionMode.getExecutionMode(jteMgr);
     init();
+    initDeploymentCache();
+    initDeploymentThreads();
+  }
+
+  /*
+   * harness.deployment.threads sets how many archives of a directory are
+   * deployed at the same time when the porting implementation implements
+   * TSConcurrentDeploymentInterface. The default of 1 deploys them one after
+   * another.
+   */
+  private void initDeploymentThreads() {
+    if (jteMgr == null)
+      return;
+    try {
+      iDeploymentThreads = Math.max(1, Integer.parseInt(
+          jteMgr.getProperty("harness.deployment.threads", "1").trim()));
+    } catch (NumberFormatException e) {
+      TestUtil.logHarness("Invalid value for harness.deployment.threads,"
+          + " deploying one archive at a time");
+      iDeploymentThreads = 1;
+    }
+  }
+
+  private static synchronized ExecutorService getDeploymentExecutor() {
+    if (deploymentExecutor == null) {
+      deploymentExecutor = Executors.newFixedThreadPool(
+          Math.max(2, iDeploymentThreads), new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+              Thread t = new Thread(r, "TS-deployment");
+              t.setDaemon(true);
+              return t;
+            }
+          });
+    }
+    return deploymentExecutor;
   }
 
   private void init() {
@@ -179,6 +239,36 @@ public class SuiteSynchronizer {
     }
   }
 
+  /*
+   * Enables the deployment cache if harness.deployment.cache.size is set to the
+   * number of test directories that may stay deployed at the same time. If
+   * harness.deployment.cache.file is set, the cache is kept in that file so
+   * that the next harness VM can reuse the deployed applications.
+   */
+  private void initDeploymentCache() {
+    if (deploymentCache != null || jteMgr == null
+        || executionMode != ExecutionMode.DEPLOY_RUN_UNDEPLOY) {
+      return;
+    }
+    int iSize = 0;
+    try {
+      iSize = Integer.parseInt(
+          jteMgr.getProperty("harness.deployment.cache.size", "0").trim());
+    } catch (NumberFormatException e) {
+      TestUtil.logHarness("Invalid value for harness.deployment.cache.size,"
+          + " deployment cache disabled");
+    }
+    if (iSize < 1) {
+      return;
+    }
+    String sCacheFile = jteMgr.getProperty("harness.deployment.cache.file", "")
+        .trim();
+    deploymentCache = new DeploymentCache(iSize,
+        sCacheFile.length() == 0 ? null : new File(sCacheFile));
+    TestUtil.logHarness("Deployment cache enabled, keeping up to " + iSize
+        + " test directories deployed");
+  }
+
   public void setOutputWriter(PrintWriter w) {
     logOut = w;
   }
@@ -215,6 +305,8 @@ public class SuiteSynchronizer {
         testDir = (String) vCommonAppsDeployedThisJVM.elementAt(ii);
         try {
           undeployApps(testDir);
+          if (deploymentCache != null)
+            deploymentCache.remove(testDir);
           TestUtil.logHarness("Undeployed common apps in:  " + testDir);
         } catch (TSDeploymentException de) {
           TestUtil.logHarness("*******************************");
@@ -242,6 +334,32 @@ public class SuiteSynchronizer {
 
   public void doDeployment(String testDirectory, Properties props)
       throws TSDeploymentException, TSJMSAdminException {
+    doDeployment(testDirectory, null, props);
+  }
+
+  /**
+   * Deploys the apps of testDirectory as doDeployment(testDirectory, props)
+   * does. Then, if nextTestDirectory is not null, starts reading the archives
+   * and runtime files of that directory in the background, so that building
+   * its DeploymentInfos overlaps with the tests of testDirectory.
+   *
+   * @param testDirectory
+   *          the src directory of the tests about to run
+   * @param nextTestDirectory
+   *          the src directory of the tests that run after them, or null
+   * @param props
+   *          the deployment properties
+   */
+  public void doDeployment(String testDirectory, String nextTestDirectory,
+      Properties props) throws TSDeploymentException, TSJMSAdminException {
+    deployTestDirectory(testDirectory, props);
+    if (nextTestDirectory != null) {
+      prepareDeployment(nextTestDirectory);
+    }
+  }
+
+  private void deployTestDirectory(String testDirectory, Properties props)
+      throws TSDeploymentException, TSJMSAdminException {
     pDeployProps = props;
     String sCommonTestDir = "";
     testDir = TestUtil.srcToDist(testDirectory);
@@ -275,7 +393,20 @@ public class SuiteSynchronizer {
         // if this app has not been deployed yet in this JVM, and it is
         // already deployed, undeploy it and redeploy it
         if (!vCommonAppsDeployedThisJVM.contains(sCommonTestDir)) {
+          String sFingerprint = null;
+          if (isCacheable(sCommonTestDir)) {
+            sFingerprint = getDeploymentFingerprint(sCommonTestDir);
+            String sCachedPath = getCachedClientClassPath(sCommonTestDir,
+                sFingerprint);
+            if (sCachedPath != null) {
+              sCommonClientClassesPath += sCachedPath + File.pathSeparator;
+              vCommonAppsDeployedThisJVM.addElement(sCommonTestDir);
+              continue;
+            }
+            deploymentCache.remove(sCommonTestDir);
+          }
           try {
+            undeployConflictingCachedApps(sCommonTestDir);
             undeployApps(sCommonTestDir);
             if (TestUtil.harnessDebug)
               TestUtil.logHarnessDebug(
@@ -306,13 +437,15 @@ public class SuiteSynchronizer {
             pDeployProps.put("generateSQL", "true");
           }
           try {
-            sCommonClientClassesPath += deployApps(sCommonTestDir)
-                + File.pathSeparator;
+            String sCommonPath = deployApps(sCommonTestDir);
+            sCommonClientClassesPath += sCommonPath + File.pathSeparator;
             if (TestUtil.harnessDebug)
               TestUtil.logHarnessDebug(
                   "Deployed common apps from - " + sCommonTestDir);
             // save off which common apps we actually deployed during this JVM
             vCommonAppsDeployedThisJVM.addElement(sCommonTestDir);
+            if (sFingerprint != null)
+              cacheDeployment(sCommonTestDir, sFingerprint, sCommonPath, true);
           } catch (TSDeploymentException de) {
             sDeployStatus = "failed";
             TestUtil.logHarness("Deployment of common app(s) from:  "
@@ -346,7 +479,10 @@ public class SuiteSynchronizer {
       // set the state so we can tell later if we are deploying common apps
       bDeployingCommonApps = false;
       try {
-        if (!sLastTestDirectory.equals("none run yet")) {
+        // apps tracked by the deployment cache stay deployed until they are
+        // evicted
+        if (!sLastTestDirectory.equals("none run yet")
+            && !isCached(sLastTestDirectory)) {
           // undeploy the last one
           undeployApps(sLastTestDirectory);
           logOut.println("Undeployed apps from - " + sLastTestDirectory);
@@ -363,7 +499,20 @@ public class SuiteSynchronizer {
         throw new TSDeploymentException(
             "Exception:  Undeployment of previous apps failed", e);
       }
+      String sFingerprint = null;
+      if (isCacheable(testDir)) {
+        sFingerprint = getDeploymentFingerprint(testDir);
+        String sCachedPath = getCachedClientClassPath(testDir, sFingerprint);
+        if (sCachedPath != null) {
+          sClientClassesPath = sCachedPath + File.pathSeparator;
+          sLastTestDirectory = testDir;
+          sDeployStatus = "passed";
+          return;
+        }
+        deploymentCache.remove(testDir);
+      }
       try {
+        undeployConflictingCachedApps(testDir);
         // try to undeploy the current one, just in case
         if (!sLastTestDirectory.equals(testDir)) {
           undeployApps(testDir);
@@ -384,9 +533,12 @@ public class SuiteSynchronizer {
             e);
       }
       try {
-        sClientClassesPath = deployApps(testDir) + File.pathSeparator;
+        String sPath = deployApps(testDir);
+        sClientClassesPath = sPath + File.pathSeparator;
         logOut.println("Deployed apps from - " + testDir);
         sLastTestDirectory = testDir;
+        if (sFingerprint != null)
+          cacheDeployment(testDir, sFingerprint, sPath, false);
       } catch (TSDeploymentException de) {
         sDeployStatus = "failed";
         TestUtil
@@ -449,13 +601,21 @@ public class SuiteSynchronizer {
       throws TSDeploymentException, TSJMSAdminException {
     try {
       if (!sLastTestDirectory.equals("none run yet")) {
-        // undeploy the last app in the test run
-        undeployApps(sLastTestDirectory);
-        logOut.println("Undeployed apps from - " + sLastTestDirectory);
+        // undeploy the last app in the test run, unless the deployment cache
+        // keeps it for the next run
+        if (!isCached(sLastTestDirectory)) {
+          undeployApps(sLastTestDirectory);
+          logOut.println("Undeployed apps from - " + sLastTestDirectory);
+        }
         // reset this string in case we're running the GUI and we rerun the same
         // tests
         sLastTestDirectory = "none run yet";
       }
+      // a cache persisted to a file keeps its apps deployed for the next
+      // harness VM, otherwise nothing would ever undeploy them
+      if (deploymentCache != null && !deploymentCache.isPersistent()) {
+        undeployCachedApps();
+      }
     } catch (TSDeploymentException de) {
       logOut.println("Undeployment of last apps failed.");
       throw de;
@@ -466,6 +626,231 @@ public class SuiteSynchronizer {
     }
   }
 
+  /**
+   * Undeploys the apps of all test directories kept deployed by the deployment
+   * cache, other than common apps. Called by undeployLastApp at the end of a
+   * run unless the cache is persisted with harness.deployment.cache.file.
+   */
+  public void undeployCachedApps()
+      throws TSDeploymentException, TSJMSAdminException {
+    if (deploymentCache == null)
+      return;
+    List<String> dirs = deploymentCache.getDirectories(false);
+    for (int ii = 0; ii < dirs.size(); ii++) {
+      String sDir = dirs.get(ii);
+      if (sDir.equals(sLastTestDirectory))
+        sLastTestDirectory = "none run yet";
+      undeployApps(sDir);
+      deploymentCache.remove(sDir);
+      logOut.println("Undeployed cached apps from - " + sDir);
+    }
+  }
+
+  private boolean isCached(String sDir) {
+    return deploymentCache != null && deploymentCache.contains(sDir);
+  }
+
+  // interop and rebuildable directories swap settings while deploying, so
+  // only plain forward deployments are cached
+  private boolean isCacheable(String sDir) {
+    return deploymentCache != null && !isInteropDir(sDir)
+        && sInteropDirectionWhenTablesWerePopulated.equals("forward");
+  }
+
+  private String getDeploymentFingerprint(String sDir) {
+    Properties pSettings = new Properties();
+    // everything the deployment and the porting replacement tables are built
+    // from, other than the archives and runtime files
+    String[] sKeys = { "deployment_host.1", "deployment_port.1",
+        "deployment_host.2", "deployment_port.2", "javaee.level",
+        "porting.ts.deploy.class.1", "porting.ts.deploy.class.2",
+        "porting.ts.jms.class.1", "porting.ts.jms.class.2", "webServerHost",
+        "webServerPort", "webServerHost.2", "webServerPort.2", "orb.host",
+        "orb.port" };
+    for (int ii = 0; ii < sKeys.length; ii++) {
+      pSettings.setProperty(sKeys[ii], jteMgr.getProperty(sKeys[ii], ""));
+    }
+    try {
+      return DeploymentCache.getFingerprint(sDir,
+          ProfileHelper.getArchives(sDir, "forward"), pSettings);
+    } catch (IOException e) {
+      TestUtil.logHarness("Could not compute the deployment fingerprint of "
+          + sDir + ", redeploying", e);
+      return null;
+    }
+  }
+
+  /*
+   * Returns the client classpath of the apps in sDir if they are deployed and
+   * unchanged, or null if they must be deployed again.
+   */
+  private String getCachedClientClassPath(String sDir, String sFingerprint)
+      throws TSDeploymentException, TSJMSAdminException {
+    if (sFingerprint == null)
+      return null;
+    DeploymentCache.Entry entry = deploymentCache.get(sDir, sFingerprint);
+    if (entry == null)
+      return null;
+    if (!entry.bVerified) {
+      // left over from a previous harness VM, make sure it is still there
+      try {
+        if (!areAppsDeployed(sDir))
+          return null;
+      } catch (Exception e) {
+        TestUtil.logHarness("Could not check the deployment of " + sDir, e);
+        return null;
+      }
+      entry.bVerified = true;
+    }
+    restoreDeploymentState(sDir);
+    addCachedDeploymentInfos(sDir);
+    logOut.println("Reusing unchanged deployment of apps from - " + sDir);
+    return entry.getClientClassPath();
+  }
+
+  private void cacheDeployment(String sDir, String sFingerprint, String sPath,
+      boolean bCommon) throws TSDeploymentException, TSJMSAdminException {
+    List<String> evicted = deploymentCache.put(sDir, sFingerprint, sPath,
+        bCommon);
+    for (int ii = 0; ii < evicted.size(); ii++) {
+      undeployApps(evicted.get(ii), false);
+      logOut.println("Undeployed least recently used apps from - "
+          + evicted.get(ii));
+    }
+  }
+
+  /*
+   * Redoes what deployApps does for sDir outside of the server's deployed
+   * apps: the porting replacement tables are only kept in this VM, and the JMS
+   * queues and topics may have been removed with the apps of another directory
+   * that uses them.
+   */
+  private void restoreDeploymentState(String sDir)
+      throws TSDeploymentException, TSJMSAdminException {
+    String[] sAppJarsArray = ProfileHelper.getArchives(sDir, "forward");
+    swapSettings("forward");
+    populatePortingReplacementTables(sDir, sAppJarsArray);
+    if (!bSupportsAutoJMS || sAppJarsArray == null)
+      return;
+    boolean[] bServers = new boolean[3];
+    for (int ii = 0; ii < sAppJarsArray.length; ii++) {
+      bServers[(sAppJarsArray[ii].indexOf("_j2ee2") != -1
+          || sAppJarsArray[ii].startsWith("vi_built_")) ? 2 : 1] = true;
+    }
+    for (int iServer = 1; iServer <= 2; iServer++) {
+      if (!bServers[iServer])
+        continue;
+      TSJMSAdminInterface ctsJMS = (TSJMSAdminInterface) htTSJMSAdmins
+          .get("cts" + iServer);
+      createJmsConnectionFactories(ctsJMS, sDir, iServer);
+      String[] sQueues = TSJMSAdmin.getQueues(sDir, iServer);
+      String[] sTopics = TSJMSAdmin.getTopics(sDir, iServer);
+      if (sQueues != null) {
+        ctsJMS.createQueues(sQueues);
+      }
+      if (sTopics != null) {
+        ctsJMS.createTopics(sTopics);
+      }
+    }
+  }
+
+  /*
+   * Apps are deployed under the names of their archives, so deploying sDir
+   * replaces the apps of a cached directory that has archives of the same
+   * name. Those directories are undeployed and dropped from the cache first,
+   * so that no entry is left that claims apps which are gone.
+   */
+  private void undeployConflictingCachedApps(String sDir)
+      throws TSDeploymentException, TSJMSAdminException {
+    if (deploymentCache == null)
+      return;
+    String[] sAppJarsArray = ProfileHelper.getArchives(sDir,
+        sInteropDirectionWhenTablesWerePopulated);
+    if (sAppJarsArray == null)
+      return;
+    List<String> names = getArchiveNames(sAppJarsArray);
+    List<String> dirs = deploymentCache.getDirectories(false);
+    dirs.addAll(deploymentCache.getDirectories(true));
+    for (int ii = 0; ii < dirs.size(); ii++) {
+      String sCachedDir = dirs.get(ii);
+      if (sCachedDir.equals(sDir))
+        continue;
+      List<String> cachedNames = getArchiveNames(
+          ProfileHelper.getArchives(sCachedDir, "forward"));
+      if (Collections.disjoint(names, cachedNames))
+        continue;
+      undeployApps(sCachedDir, false);
+      deploymentCache.remove(sCachedDir);
+      vCommonAppsDeployedThisJVM.removeElement(sCachedDir);
+      if (sCachedDir.equals(sLastTestDirectory))
+        sLastTestDirectory = "none run yet";
+      logOut.println("Undeployed cached apps with the same names from - "
+          + sCachedDir);
+    }
+  }
+
+  private static List<String> getArchiveNames(String[] sAppJarsArray) {
+    List<String> names = new ArrayList<String>();
+    for (int ii = 0; sAppJarsArray != null && ii < sAppJarsArray.length; ii++) {
+      names.add(
+          sAppJarsArray[ii].substring(0, sAppJarsArray[ii].lastIndexOf(".")));
+    }
+    return names;
+  }
+
+  /*
+   * Makes the DeploymentInfos of reused apps available to the apps deployed
+   * after them, as continueToDeployApps does for the apps it deploys.
+   */
+  private void addCachedDeploymentInfos(String sDir)
+      throws TSDeploymentException {
+    String[] sAppJarsArray = ProfileHelper.getArchives(sDir, "forward");
+    if (sAppJarsArray == null)
+      return;
+    String[] sRuntimeInfoFilesArray = new File(sDir)
+        .list(RuntimeInfoFilter.getInstance());
+    Arrays.sort(sAppJarsArray);
+    for (int ii = 0; ii < sAppJarsArray.length; ii++) {
+      String earFile = sDir + File.separator + sAppJarsArray[ii];
+      DeploymentInfo deploymentInfo = getDeploymentInfo(earFile,
+          sAppJarsArray[ii],
+          sAppJarsArray[ii].substring(0, sAppJarsArray[ii].lastIndexOf(".")),
+          getValidRuntimeInfoFiles(earFile, sRuntimeInfoFilesArray, sDir, null,
+              false));
+      if (bDeployingCommonApps)
+        vCommonDeploymentInfos.addElement(deploymentInfo);
+      vCurrentDeploymentInfos.addElement(deploymentInfo);
+    }
+  }
+
+  private boolean areAppsDeployed(String sDir)
+      throws TSDeploymentException, PropertyNotSetException {
+    String[] sAppJarsArray = ProfileHelper.getArchives(sDir, "forward");
+    for (int ii = 0; sAppJarsArray != null && ii < sAppJarsArray.length; ii++) {
+      String earFile = sDir + File.separator + sAppJarsArray[ii];
+      String sNumber = (sAppJarsArray[ii].indexOf("_j2ee2") != -1
+          || sAppJarsArray[ii].startsWith("vi_built_")) ? "2" : "1";
+      Properties p = new Properties();
+      p.putAll(pDeployProps);
+      p.setProperty("ear_file", earFile);
+      p.setProperty("deployment_host",
+          jteMgr.getProperty("deployment_host." + sNumber));
+      p.setProperty("deployment_port",
+          jteMgr.getProperty("deployment_port." + sNumber));
+      p.setProperty("deployment.props.number", sNumber);
+      TSDeploymentInterface ctsDeploy = (TSDeploymentInterface) htTSDeployers
+          .get("cts" + sNumber);
+      if (earFile.endsWith(".rar")) {
+        p.setProperty("rar_file", earFile);
+        if (!ctsDeploy.isConnectorDeployed(p))
+          return false;
+      } else if (!ctsDeploy.isDeployed(p)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   private boolean isInteropDir(String sDir) {
     return (sDir.indexOf("interop") != -1);
   }
@@ -784,39 +1169,18 @@ public class SuiteSynchronizer {
 
   private void populatePortingReplacementTables(String sDir,
       String[] sAppJarsArray) throws TSDeploymentException {
-    String sFileNameMinusExtension = "";
-    String[] sValidRuntimeInfoFilesArray = null;
-    String earFile = "";
-    File fTestDir = new File(sDir);
-    // String[] sAppJarsArray = fTestDir.list(ArchiveFilter.getInstance());
-    String[] sRuntimeInfoFilesArray = fTestDir
-        .list(RuntimeInfoFilter.getInstance());
-
     // if there are no archives to deploy, just warn and return
     if (sAppJarsArray == null || sAppJarsArray.length < 1) {
       return;
     }
 
-    DeploymentInfo[] infoArray = new DeploymentInfo[sAppJarsArray.length];
-    for (int ii = 0; ii < sAppJarsArray.length; ii++) {
-      earFile = sDir + File.separator + sAppJarsArray[ii];
-      if (TestUtil.harnessDebug)
-        TestUtil.logHarnessDebug("earFile = " + earFile);
-      sFileNameMinusExtension = sAppJarsArray[ii].substring(0,
-          sAppJarsArray[ii].lastIndexOf("."));
-      // sClientClassPaths = "";
-      // get only those runtime files which go with this
-      // .ear file
-      // also rewrites runtime.xml
-      sValidRuntimeInfoFilesArray = getValidRuntimeInfoFiles(
-          sDir + File.separator + sAppJarsArray[ii], sRuntimeInfoFilesArray,
-          sDir, null, false);
-      infoArray[ii] = getDeploymentInfo(earFile, sAppJarsArray[ii],
-          sFileNameMinusExtension, sValidRuntimeInfoFilesArray);
+    DeploymentInfo[] infoArray = getPreparedDeploymentInfos(sDir,
+        sAppJarsArray);
+    if (infoArray == null) {
+      infoArray = createDeploymentInfos(sDir, sAppJarsArray);
     }
     TSDeploymentInterface ctsDeploy1 = (TSDeploymentInterface) htTSDeployers
         .get("cts1");
-
     // if this is not an interop test, don't use cts2
     TSDeploymentInterface ctsDeploy2;
     if (isInteropDir(sDir))
@@ -848,6 +1212,107 @@ public class SuiteSynchronizer {
       printAllMappings();
   }
 
+  /*
+   * Builds the DeploymentInfos used to populate the porting replacement tables.
+   * This only reads the archives and their runtime files, so it can also run
+   * ahead of time from prepareDeployment.
+   */
+  private DeploymentInfo[] createDeploymentInfos(String sDir,
+      String[] sAppJarsArray) throws TSDeploymentException {
+    String sFileNameMinusExtension = "";
+    String[] sValidRuntimeInfoFilesArray = null;
+    String earFile = "";
+    File fTestDir = new File(sDir);
+    String[] sRuntimeInfoFilesArray = fTestDir
+        .list(RuntimeInfoFilter.getInstance());
+    DeploymentInfo[] infoArray = new DeploymentInfo[sAppJarsArray.length];
+    for (int ii = 0; ii < sAppJarsArray.length; ii++) {
+      earFile = sDir + File.separator + sAppJarsArray[ii];
+      if (TestUtil.harnessDebug)
+        TestUtil.logHarnessDebug("earFile = " + earFile);
+      sFileNameMinusExtension = sAppJarsArray[ii].substring(0,
+          sAppJarsArray[ii].lastIndexOf("."));
+      // sClientClassPaths = "";
+      // get only those runtime files which go with this
+      // .ear file
+      // also rewrites runtime.xml
+      sValidRuntimeInfoFilesArray = getValidRuntimeInfoFiles(
+          sDir + File.separator + sAppJarsArray[ii], sRuntimeInfoFilesArray,
+          sDir, null, false);
+      infoArray[ii] = getDeploymentInfo(earFile, sAppJarsArray[ii],
+          sFileNameMinusExtension, sValidRuntimeInfoFilesArray);
+    }
+    return infoArray;
+  }
+
+  /*
+   * Starts building the DeploymentInfos of the given test directory in the
+   * background, so that scanning its archives and runtime files overlaps with
+   * the tests of the current directory. The result is only used if the same
+   * archives are later deployed from that directory.
+   */
+  private void prepareDeployment(String testDirectory) {
+    final String sDir = TestUtil.srcToDist(testDirectory);
+    if (sDir.equals(sLastTestDirectory) || sDir.equals(sPreparedDir)
+        || isCached(sDir) || executionMode == ExecutionMode.UNDEPLOY
+        || executionMode == ExecutionMode.RUN
+        || executionMode == ExecutionMode.LIST) {
+      return;
+    }
+    final String sDirection = isInteropDir(sDir)
+        ? sInteropDirectionWhenTablesWerePopulated
+        : "forward";
+    if (sDirection.equals("both")) {
+      return;
+    }
+    final String[] sAppJarsArray = ProfileHelper.getArchives(sDir, sDirection);
+    if (sAppJarsArray == null || sAppJarsArray.length < 1) {
+      return;
+    }
+    if (TestUtil.harnessDebug)
+      TestUtil.logHarnessDebug("Preparing deployment of apps from - " + sDir);
+    synchronized (SuiteSynchronizer.class) {
+      sPreparedDir = sDir;
+      sPreparedInfos = getDeploymentExecutor().submit(new Callable() {
+        public Object call() throws Exception {
+          return new Object[] { sAppJarsArray,
+              createDeploymentInfos(sDir, sAppJarsArray) };
+        }
+      });
+    }
+  }
+
+  /*
+   * Returns the DeploymentInfos built by prepareDeployment for this directory
+   * and these archives, or null if they have to be built now.
+   */
+  private DeploymentInfo[] getPreparedDeploymentInfos(String sDir,
+      String[] sAppJarsArray) {
+    Future prepared;
+    synchronized (SuiteSynchronizer.class) {
+      if (sPreparedInfos == null || !sDir.equals(sPreparedDir))
+        return null;
+      prepared = sPreparedInfos;
+      sPreparedDir = null;
+      sPreparedInfos = null;
+    }
+    try {
+      Object[] result = (Object[]) prepared.get();
+      if (Arrays.equals((String[]) result[0], sAppJarsArray)) {
+        if (TestUtil.harnessDebug)
+          TestUtil.logHarnessDebug("Using prepared deployment infos for " + sDir);
+        return (DeploymentInfo[]) result[1];
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      TestUtil.logHarness(
+          "Preparing the deployment of " + sDir + " failed, retrying",
+          e.getCause());
+    }
+    return null;
+  }
+
   private void printAllMappings() {
     String sKey;
 
@@ -894,6 +1359,8 @@ public class SuiteSynchronizer {
     String[] sQueues = null;
     String[] sTopics = null;
     String earFile = "";
+    // deploy calls still running on the deployment executor, in archive order
+    Map pendingDeployments = new LinkedHashMap();
 
     // if there are no archives to deploy, just warn and return
     if (sAppJarsArray == null || sAppJarsArray.length < 1) {
@@ -956,8 +1423,7 @@ public class SuiteSynchronizer {
       vCurrentDeploymentInfos.addElement(deploymentInfo);
       // give the current ear's deployment info access to previosly deployed
       // info objects
-      deploymentInfo.setPreviousInfos((DeploymentInfo[]) vCurrentDeploymentInfos
-          .toArray(new DeploymentInfo[vCurrentDeploymentInfos.size()]));
+      deploymentInfo.setPreviousInfos(getDeployedInfos(pendingDeployments));
       // deploy
       if (!sClientClassPaths.equals(""))
         sClientClassPaths += File.pathSeparator;
@@ -979,42 +1445,7 @@ public class SuiteSynchronizer {
             sQueues = TSJMSAdmin.getQueues(sDir, 2);
             sTopics = TSJMSAdmin.getTopics(sDir, 2);
             // one time creation of connection factories on server 2
-            if (bCreateConnectionFactories2
-                && TSJMSAdmin.requiresJmsFactories(sDir)) {
-              Hashtable htTopicFactories = TSJMSAdmin
-                  .getTopicConnectionFactories(2);
-              int iSize = htTopicFactories.size();
-              sTopicFactories2 = new String[iSize];
-              String[] sTopicFactoryProps = new String[iSize];
-              int jj = 0;
-              for (Enumeration e = htTopicFactories.keys(); e
-                  .hasMoreElements();) {
-                String sElement = (String) e.nextElement();
-                sTopicFactories2[jj] = sElement;
-                sTopicFactoryProps[jj] = (String) htTopicFactories
-                    .get(sElement);
-                jj++;
-              }
-              ctsJMS.createTopicConnectionFactories(sTopicFactories2,
-                  sTopicFactoryProps);
-              Hashtable htQueueFactories = TSJMSAdmin
-                  .getQueueConnectionFactories(2);
-              iSize = htQueueFactories.size();
-              sQueueFactories2 = new String[iSize];
-              String[] sQueueFactoryProps = new String[iSize];
-              jj = 0;
-              for (Enumeration e = htQueueFactories.keys(); e
-                  .hasMoreElements();) {
-                String sElement = (String) e.nextElement();
-                sQueueFactories2[jj] = sElement;
-                sQueueFactoryProps[jj] = (String) htQueueFactories
-                    .get(sElement);
-                jj++;
-              }
-              ctsJMS.createQueueConnectionFactories(sQueueFactories2,
-                  sQueueFactoryProps);
-              bCreateConnectionFactories2 = false;
-            }
+            createJmsConnectionFactories(ctsJMS, sDir, 2);
           }
         } else {
           deploymentInfo.setProperty("deployment_host",
@@ -1029,42 +1460,7 @@ public class SuiteSynchronizer {
             sQueues = TSJMSAdmin.getQueues(sDir, 1);
             sTopics = TSJMSAdmin.getTopics(sDir, 1);
             // one time creation of connection factories on server 1
-            if (bCreateConnectionFactories1
-                && TSJMSAdmin.requiresJmsFactories(sDir)) {
-              Hashtable htTopicFactories = TSJMSAdmin
-                  .getTopicConnectionFactories(1);
-              int iSize = htTopicFactories.size();
-              sTopicFactories1 = new String[iSize];
-              String[] sTopicFactoryProps = new String[iSize];
-              int jj = 0;
-              for (Enumeration e = htTopicFactories.keys(); e
-                  .hasMoreElements();) {
-                String sElement = (String) e.nextElement();
-                sTopicFactories1[jj] = sElement;
-                sTopicFactoryProps[jj] = (String) htTopicFactories
-                    .get(sElement);
-                jj++;
-              }
-              ctsJMS.createTopicConnectionFactories(sTopicFactories1,
-                  sTopicFactoryProps);
-              Hashtable htQueueFactories = TSJMSAdmin
-                  .getQueueConnectionFactories(1);
-              iSize = htQueueFactories.size();
-              sQueueFactories1 = new String[iSize];
-              String[] sQueueFactoryProps = new String[iSize];
-              jj = 0;
-              for (Enumeration e = htQueueFactories.keys(); e
-                  .hasMoreElements();) {
-                String sElement = (String) e.nextElement();
-                sQueueFactories1[jj] = sElement;
-                sQueueFactoryProps[jj] = (String) htQueueFactories
-                    .get(sElement);
-                jj++;
-              }
-              ctsJMS.createQueueConnectionFactories(sQueueFactories1,
-                  sQueueFactoryProps);
-              bCreateConnectionFactories1 = false;
-            }
+            createJmsConnectionFactories(ctsJMS, sDir, 1);
           }
         }
       } catch (PropertyNotSetException e) {
@@ -1083,6 +1479,9 @@ public class SuiteSynchronizer {
       }
       // check to see if we have a connector
       if (earFile.endsWith(".rar")) {
+        // apps deployed before the connector may be needed by it
+        sClientClassPaths += awaitDeployments(pendingDeployments);
+        deploymentInfo.setPreviousInfos(getDeployedInfos(pendingDeployments));
         try {
           Properties connectorProps = new Properties();
           connectorProps.setProperty("rar_file", earFile);
@@ -1099,17 +1498,148 @@ public class SuiteSynchronizer {
           e.printStackTrace();
           throw e;
         }
+      } else if (iDeploymentThreads > 1
+          && ctsDeploy instanceof TSConcurrentDeploymentInterface
+          && ((TSConcurrentDeploymentInterface) ctsDeploy).isIndependent(
+              deploymentInfo, (DeploymentInfo[]) pendingDeployments.keySet()
+                  .toArray(new DeploymentInfo[pendingDeployments.size()]))) {
+        pendingDeployments.put(deploymentInfo,
+            submitDeployment(ctsDeploy, deploymentInfo, earFile));
       } else {
+        // keep the client classpath in archive order, and let the app see
+        // all the apps deployed before it
+        sClientClassPaths += awaitDeployments(pendingDeployments);
+        deploymentInfo.setPreviousInfos(getDeployedInfos(pendingDeployments));
         sClientClassPaths += ctsDeploy.deploy(deploymentInfo);
         if (!sClientClassPaths.endsWith(File.pathSeparator))
           sClientClassPaths += File.pathSeparator;
       }
     }
+    sClientClassPaths += awaitDeployments(pendingDeployments);
+    return sClientClassPaths;
+  }
+
+  /*
+   * Creates the JMS connection factories of server iServer the first time a
+   * test directory that needs them is deployed.
+   */
+  private void createJmsConnectionFactories(TSJMSAdminInterface ctsJMS,
+      String sDir, int iServer) throws TSJMSAdminException {
+    if (!(iServer == 2 ? bCreateConnectionFactories2
+        : bCreateConnectionFactories1)
+        || !TSJMSAdmin.requiresJmsFactories(sDir)) {
+      return;
+    }
+    Hashtable htTopicFactories = TSJMSAdmin
+        .getTopicConnectionFactories(iServer);
+    String[] sTopicFactories = (String[]) htTopicFactories.keySet()
+        .toArray(new String[0]);
+    if (iServer == 2)
+      sTopicFactories2 = sTopicFactories;
+    else
+      sTopicFactories1 = sTopicFactories;
+    ctsJMS.createTopicConnectionFactories(sTopicFactories,
+        getValues(htTopicFactories, sTopicFactories));
+    Hashtable htQueueFactories = TSJMSAdmin
+        .getQueueConnectionFactories(iServer);
+    String[] sQueueFactories = (String[]) htQueueFactories.keySet()
+        .toArray(new String[0]);
+    if (iServer == 2)
+      sQueueFactories2 = sQueueFactories;
+    else
+      sQueueFactories1 = sQueueFactories;
+    ctsJMS.createQueueConnectionFactories(sQueueFactories,
+        getValues(htQueueFactories, sQueueFactories));
+    if (iServer == 2)
+      bCreateConnectionFactories2 = false;
+    else
+      bCreateConnectionFactories1 = false;
+  }
+
+  private static String[] getValues(Hashtable ht, String[] sKeys) {
+    String[] sValues = new String[sKeys.length];
+    for (int ii = 0; ii < sKeys.length; ii++) {
+      sValues[ii] = (String) ht.get(sKeys[ii]);
+    }
+    return sValues;
+  }
+
+  /*
+   * Returns the infos of the apps of this directory and of the common apps,
+   * other than the apps whose deploy calls are still running. A concurrent
+   * deploy must neither see those apps as deployed nor read the infos the
+   * deployer is still working with.
+   */
+  private DeploymentInfo[] getDeployedInfos(Map pendingDeployments) {
+    List infos = new ArrayList(vCurrentDeploymentInfos);
+    infos.removeAll(pendingDeployments.keySet());
+    return (DeploymentInfo[]) infos.toArray(new DeploymentInfo[infos.size()]);
+  }
+
+  private Future submitDeployment(final TSDeploymentInterface ctsDeploy,
+      final DeploymentInfo deploymentInfo, final String earFile) {
+    if (TestUtil.harnessDebug)
+      TestUtil.logHarnessDebug("Deploying concurrently:  " + earFile);
+    return getDeploymentExecutor().submit(new Callable() {
+      public Object call() throws Exception {
+        long start = System.currentTimeMillis();
+        String sPath = ctsDeploy.deploy(deploymentInfo);
+        if (TestUtil.harnessDebug)
+          TestUtil.logHarnessDebug("Deployed " + earFile + " in "
+              + (System.currentTimeMillis() - start) + " ms");
+        return sPath;
+      }
+    });
+  }
+
+  /*
+   * Waits for the given deploy calls and returns their client classpaths in
+   * submission order. All of them are waited for before the first failure is
+   * rethrown.
+   */
+  private String awaitDeployments(Map pendingDeployments)
+      throws TSDeploymentException {
+    String sClientClassPaths = "";
+    TSDeploymentException failure = null;
+    for (Iterator it = pendingDeployments.values().iterator(); it.hasNext();) {
+      try {
+        String sPath = (String) ((Future) it.next()).get();
+        sClientClassPaths += sPath;
+        if (!sClientClassPaths.endsWith(File.pathSeparator))
+          sClientClassPaths += File.pathSeparator;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        if (failure == null)
+          failure = new TSDeploymentException(
+              "Interrupted while waiting for deployments", e);
+      } catch (ExecutionException e) {
+        if (failure == null) {
+          if (e.getCause() instanceof TSDeploymentException)
+            failure = (TSDeploymentException) e.getCause();
+          else
+            failure = new TSDeploymentException("Deployment failed",
+                e.getCause());
+        }
+      }
+    }
+    pendingDeployments.clear();
+    if (failure != null)
+      throw failure;
     return sClientClassPaths;
   }
 
   private void undeployApps(String sDir)
       throws TSDeploymentException, TSJMSAdminException {
+    undeployApps(sDir, true);
+  }
+
+  /*
+   * The JMS queues and topics of a test directory are shared with the other
+   * directories of the same area, so they are left in place when archives are
+   * only undeployed to make room in the deployment cache.
+   */
+  private void undeployApps(String sDir, boolean bRemoveJmsDestinations)
+      throws TSDeploymentException, TSJMSAdminException {
     if (executionMode == ExecutionMode.DEPLOY_RUN_UNDEPLOY
         || executionMode == ExecutionMode.UNDEPLOY) {
       String[] sAppJarsArray;
@@ -1124,7 +1654,7 @@ public class SuiteSynchronizer {
           || sInteropDirections.equals("both")) {
         swapSettings("forward");
         TestUtil.logHarness("Undeploying apps...");
-        continueToUndeployApps(sDir, sAppJarsArray);
+        continueToUndeployApps(sDir, sAppJarsArray, bRemoveJmsDestinations);
       }
       if (sInteropDirections.equals("reverse")
           || sInteropDirections.equals("both")) {
@@ -1132,7 +1662,7 @@ public class SuiteSynchronizer {
         if (isInteropDir(sDir)) {
           swapSettings("reverse");
           TestUtil.logHarness("Deploying apps for reverse run...");
-          continueToUndeployApps(sDir, sAppJarsArray);
+          continueToUndeployApps(sDir, sAppJarsArray, bRemoveJmsDestinations);
 
         } else {
           // This is only for the case that we are a rebuildable test and the
@@ -1148,7 +1678,7 @@ public class SuiteSynchronizer {
 
           if (sInteropDirections.equals("reverse")) {
             TestUtil.logHarness("Undeploying apps for reverse rebuildable...");
-            continueToUndeployApps(sDir, sAppJarsArray);
+            continueToUndeployApps(sDir, sAppJarsArray, bRemoveJmsDestinations);
           }
         }
 
@@ -1161,7 +1691,8 @@ public class SuiteSynchronizer {
     }
   }
 
-  private void continueToUndeployApps(String sDir, String[] sAppJarsArray)
+  private void continueToUndeployApps(String sDir, String[] sAppJarsArray,
+      boolean bRemoveJmsDestinations)
       throws TSDeploymentException, TSJMSAdminException {
     File fTestDir = new File(sDir);
     // String[] sAppJarsArray = fTestDir.list(ArchiveFilter.getInstance());
@@ -1247,7 +1778,7 @@ public class SuiteSynchronizer {
           ctsDeploy.undeploy(pDeployProps);
           logOut.println("Successfully undeployed app:  " + sDir
               + File.separator + sAppJarsArray[ii]);
-          if (bSupportsAutoJMS) {
+          if (bSupportsAutoJMS && bRemoveJmsDestinations) {
             // remove JMS topics/queues here
             // create topics/queues here
             if (sQueues != null) {
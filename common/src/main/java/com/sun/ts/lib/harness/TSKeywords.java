@@ -36,6 +36,9 @@ public class TSKeywords {
 
   private String[] keys; // sorted ascending
 
+  // keyword sets of the mapping, keyed by directory prefix
+  private PrefixTrie<String[]> keywordSets;
+
   private String relativeTestDir;
 
   private boolean loaded;
@@ -58,6 +61,7 @@ public class TSKeywords {
     if (!loaded) {
       mapping = ConfigUtil.loadPropertiesFor(KEYWORD_PROP_FILE_NAME);
       keys = ConfigUtil.loadKeysFrom(mapping);
+      keywordSets = compile(mapping, keys);
       loaded = true;
     }
     if (mapping != null) {
@@ -69,6 +73,11 @@ public class TSKeywords {
    * This method gets the current set of keywords to be used for a given
    * directory path.
    *
+   * The keyword set of the longest directory prefix in keyword.properties
+   * matching the test directory is returned, as done by
+   * ConfigUtil.getMappingValue. The sets are split once when the properties
+   * are loaded; the returned array is shared and must not be modified.
+   *
    * @return a String array of the keywords that this test should be run in
    */
   public String[] getKeywordSet() {
@@ -76,8 +85,19 @@ public class TSKeywords {
       return TestUtil.EMPTY_STRING_ARRAY;
     }
 
-    String[] result = ConfigUtil.getMappingValue(this.mapping, this.keys,
-        this.relativeTestDir);
-    return result;
+    String[] result = keywordSets
+        .getLongestPrefixValue(this.relativeTestDir.replace(File.separator, "/"));
+    return result == null ? TestUtil.EMPTY_STRING_ARRAY : result;
+  }
+
+  private static PrefixTrie<String[]> compile(Properties mapping,
+      String[] keys) {
+    PrefixTrie<String[]> trie = new PrefixTrie<String[]>();
+    if (mapping != null) {
+      for (int i = 0; i < keys.length; i++) {
+        trie.put(keys[i], ConfigUtil.stringToArray(mapping.getProperty(keys[i])));
+      }
+    }
+    return trie;
   }
 }
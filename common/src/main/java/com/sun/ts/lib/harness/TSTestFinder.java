@@ -27,13 +27,16 @@ import com.sun.ts.lib.deliverable.DeliverableFactory;
 
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileFilter;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Hashtable;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Vector;
 
@@ -131,6 +134,12 @@ public class TSTestFinder extends TagTestFinder {
 
   public static Hashtable htTestNamesFound = new Hashtable();
 
+  // parsed test tags of the source files, see harness.finder.index.file
+  private TestFinderIndex index;
+
+  // number of threads parsing source files ahead of the finder
+  private int iFinderThreads = 1;
+
   // ----------------------------------------------------------------
   // Constructors
 
@@ -149,9 +158,34 @@ public class TSTestFinder extends TagTestFinder {
       PropertyManagerInterface propMgr = DeliverableFactory
           .getDeliverableInstance().getPropertyManager();
       executionMode = ExecutionMode.getExecutionMode(propMgr);
+      initIndex(propMgr);
     } catch (Exception e) {
       e.printStackTrace();
     }
+    if (index == null) {
+      index = TestFinderIndex.getInstance(null);
+    }
+  }
+
+  /**
+   * Sets up the index of parsed source files. If harness.finder.index.file is
+   * set in ts.jte, the index is kept in that file so that source files that did
+   * not change since a previous run are not parsed again. If
+   * harness.finder.threads is greater than 1, directories are walked and their
+   * source files parsed by that many threads ahead of the finder.
+   */
+  private void initIndex(PropertyManagerInterface propMgr) {
+    String sIndexFile = propMgr.getProperty("harness.finder.index.file", "")
+        .trim();
+    index = TestFinderIndex
+        .getInstance(sIndexFile.length() == 0 ? null : new File(sIndexFile));
+    try {
+      iFinderThreads = Integer.parseInt(
+          propMgr.getProperty("harness.finder.threads", "1").trim());
+    } catch (NumberFormatException e) {
+      TestUtil.logHarness(
+          "Invalid value for harness.finder.threads, using 1 thread");
+    }
   }
 
   /**
@@ -167,9 +201,57 @@ public class TSTestFinder extends TagTestFinder {
         return;
       }
     }
+    if (iFinderThreads > 1 && file.isDirectory()) {
+      index.prefetch(file, new SourceFilter(), new TestFinderIndex.Parser() {
+        private final ThreadLocal<TSTestFinder> parsers = new ThreadLocal<TSTestFinder>();
+
+        public List<Map> parse(File f) throws Exception {
+          TSTestFinder parser = parsers.get();
+          if (parser == null) {
+            parser = new TSTestFinder();
+            parsers.set(parser);
+          }
+          List<Map> tests = new ArrayList<Map>();
+          // left to the finder, which reports the problem
+          return parser.readTestTags(f, tests) ? tests : null;
+        }
+      }, iFinderThreads);
+    }
     super.scan(file);
   }
 
+  /*
+   * Accepts the directories and source files the finder would scan, used when
+   * walking directories ahead of the finder.
+   */
+  private static class SourceFilter implements FileFilter {
+    public boolean accept(File file) {
+      String name = file.getName();
+      if (file.isDirectory()) {
+        for (int i = 0; i < EXCLUDE_NAMES.length; i++) {
+          if (name.equals(EXCLUDE_NAMES[i])) {
+            return false;
+          }
+        }
+        for (int i = 0; i < NON_TEST_DIRS.length; i++) {
+          if (file.compareTo(NON_TEST_DIRS[i]) == 0) {
+            return false;
+          }
+        }
+        return true;
+      }
+      return isSourceFile(name);
+    }
+  }
+
+  /*
+   * Returns true for the java source files that may contain test descriptions.
+   */
+  private static boolean isSourceFile(String name) {
+    return name.endsWith(".java") && !name.equals("BaseUIComponentClient.java")
+        && !name.equals("DataModelURLClient.java") && name.indexOf('.') != 0;
+  }
+
   public static String getAbsolutePath(String testRootPath, String path) {
     return new File(testRootPath, path).getAbsolutePath();
   }
@@ -235,6 +317,9 @@ public class TSTestFinder extends TagTestFinder {
    * Override the scan method in TagTestFinder since we have to deal with
    * CommentStreams that are valid test tags ( but not a test description object
    * of themselves -- the class.setup_props tag ).
+   *
+   * The tags of a file that did not change since it was last read are taken
+   * from the TestFinderIndex instead of parsing the file again.
    * 
    * @param file
    *          The file to scan
@@ -244,16 +329,51 @@ public class TSTestFinder extends TagTestFinder {
 
     // Return immediately if we don't have a java source file
     // or we have a java file that we know we don't want to scan
-    if (!name.endsWith(".java") || name.equals("BaseUIComponentClient.java")
-        || name.equals("DataModelURLClient.java")) {
+    if (!isSourceFile(name)) {
       return;
     }
 
+    List<Map> tests = index.get(file);
+    if (tests == null) {
+      if (TestUtil.harnessDebug)
+        TestUtil.logHarnessDebug("Scanning " + name);
+      long lLength = file.length();
+      long lLastModified = file.lastModified();
+      tests = new ArrayList<Map>();
+      try {
+        if (readTestTags(file, tests)) {
+          index.put(file, lLength, lLastModified, tests);
+        }
+      } catch (FileNotFoundException e) {
+        String msgs = "can't find file " + file.getPath();
+        e.printStackTrace();
+        TestUtil.logErr(msgs);
+      } catch (IOException e) {
+        String msgs = "problem reading file " + file.getPath();
+        e.printStackTrace();
+        TestUtil.logErr(msgs);
+        error(null, msgs);
+      } catch (Throwable e) {
+        String msgs = "got exception: problem reading file " + file.getPath();
+        e.printStackTrace();
+        TestUtil.logErr(msgs);
+      }
+    }
+    for (int ii = 0; ii < tests.size(); ii++) {
+      foundTestDescription(tests.get(ii), file, 0);
+    }
+  }
+
+  /**
+   * Reads the test description tags of a java source file into the given list,
+   * one map of tag values per test in source order.
+   *
+   * @return false if the file could not be parsed
+   */
+  private boolean readTestTags(File file, List<Map> tests)
+      throws IOException {
+    String name = file.getName();
     int dot = name.indexOf('.');
-    if (dot == 0)
-      return;
-    if (TestUtil.harnessDebug)
-      TestUtil.logHarnessDebug("Scanning " + name);
     String sVal = null;
     String extn = name.substring(dot);
     Class csc = getClassForExtension(extn);
@@ -261,7 +381,7 @@ public class TSTestFinder extends TagTestFinder {
       String[] msgs = { "no parser found for specified file", "file: " + file,
           "extension: " + extn };
       TestUtil.logErr(msgs[0] + msgs[1] + msgs[2]);
-      return;
+      return false;
     }
     CommentStream cs = null;
     try {
@@ -270,13 +390,13 @@ public class TSTestFinder extends TagTestFinder {
       String[] msgs = { "problem instantiating class for extension",
           "extension: " + extn, "class: " + csc.getName() };
       TestUtil.logErr(msgs[0] + msgs[1] + msgs[2]);
-      return;
+      return false;
     } catch (IllegalAccessException e) {
       String[] msgs = {
           "illegal access while instantiating class for extension",
           "extension: " + extn, "class: " + csc.getName() };
       TestUtil.logErr(msgs[0] + msgs[1] + msgs[2]);
-      return;
+      return false;
     }
     try {
       cs.init(new BufferedReader(new FileReader(file)));
@@ -307,22 +427,9 @@ public class TSTestFinder extends TagTestFinder {
               myTagValues.put(KEY_CLASS_TEST_ARGS, sVal);
             }
           }
-          foundTestDescription(myTagValues, file, 0);
+          tests.add(myTagValues);
         }
       }
-    } catch (FileNotFoundException e) {
-      String msgs = "can't find file " + file.getPath();
-      e.printStackTrace();
-      TestUtil.logErr(msgs);
-    } catch (IOException e) {
-      String msgs = "problem reading file " + file.getPath();
-      e.printStackTrace();
-      TestUtil.logErr(msgs);
-      error(null, msgs);
-    } catch (Throwable e) {
-      String msgs = "got exception: problem reading file " + file.getPath();
-      e.printStackTrace();
-      TestUtil.logErr(msgs);
     } finally {
       try {
         if (cs != null)
@@ -331,6 +438,7 @@ public class TSTestFinder extends TagTestFinder {
         TestUtil.logErr(e.getMessage());
       }
     }
+    return true;
   }
 
   protected void foundTestDescription(Map entries, File file, int line) {
@@ -0,0 +1,331 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.ts.lib.harness;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.ts.lib.util.TestUtil;
+
+/**
+ * Caches the test description tags TSTestFinder reads from each java source
+ * file, keyed by the file path and checked against the file's size and
+ * modification time. Files that have not changed since they were last read are
+ * not parsed again, and files without any test are remembered as such.
+ *
+ * The index can be persisted to a file so that later harness VMs start from
+ * it; it is written when the VM exits. For files that are not yet indexed, a
+ * directory tree can be walked and parsed ahead of the finder by a pool of
+ * threads; the finder then picks up the parsed result, or waits for it if the
+ * file is still being parsed.
+ */
+public class TestFinderIndex {
+
+  /**
+   * Reads the test description tags of a java source file.
+   */
+  public interface Parser {
+    /**
+     * @return one map of tag values per test description found in the file,
+     *         in source order, or null if the file could not be parsed, in
+     *         which case it is not indexed
+     */
+    List<Map> parse(File file) throws Exception;
+  }
+
+  private static final int FORMAT_VERSION = 1;
+
+  private static class Entry implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final long lLength;
+
+    private final long lLastModified;
+
+    private final ArrayList<HashMap> tests;
+
+    Entry(long lLength, long lLastModified, ArrayList<HashMap> tests) {
+      this.lLength = lLength;
+      this.lLastModified = lLastModified;
+      this.tests = tests;
+    }
+
+    boolean isCurrent(long lLength, long lLastModified) {
+      return this.lLength == lLength && this.lLastModified == lLastModified;
+    }
+  }
+
+  private static final Map<String, TestFinderIndex> instances = new HashMap<String, TestFinderIndex>();
+
+  private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+
+  // files currently being parsed ahead of the finder
+  private final ConcurrentHashMap<String, Future<List<Map>>> pending = new ConcurrentHashMap<String, Future<List<Map>>>();
+
+  // directories already walked by prefetch
+  private final List<File> prefetched = new ArrayList<File>();
+
+  private final File indexFile;
+
+  private volatile boolean bDirty;
+
+  private int iHits;
+
+  private int iMisses;
+
+  private ExecutorService executor;
+
+  private TestFinderIndex(File indexFile) {
+    this.indexFile = indexFile;
+    load();
+    if (indexFile != null) {
+      Runtime.getRuntime().addShutdownHook(new Thread("TS-finder-index") {
+        public void run() {
+          save();
+        }
+      });
+    }
+  }
+
+  /**
+   * Returns the index persisted to the given file, or the in-memory index if
+   * indexFile is null. There is one instance per file in a VM.
+   */
+  public static synchronized TestFinderIndex getInstance(File indexFile) {
+    String sKey = indexFile == null ? "" : indexFile.getAbsolutePath();
+    TestFinderIndex index = instances.get(sKey);
+    if (index == null) {
+      index = new TestFinderIndex(indexFile);
+      instances.put(sKey, index);
+    }
+    return index;
+  }
+
+  /**
+   * Returns the tests read from the file if the file has not changed since, or
+   * null if the file must be parsed. If the file is being parsed by prefetch,
+   * waits for the result.
+   */
+  public List<Map> get(File file) {
+    String sPath = file.getPath();
+    long lLength = file.length();
+    long lLastModified = file.lastModified();
+    Entry entry = entries.get(sPath);
+    if (entry == null || !entry.isCurrent(lLength, lLastModified)) {
+      Future<List<Map>> future = pending.get(sPath);
+      if (future != null) {
+        try {
+          future.get();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+          // the finder parses the file again and reports the problem
+        }
+        entry = entries.get(sPath);
+      }
+    }
+    if (entry != null && entry.isCurrent(lLength, lLastModified)) {
+      synchronized (this) {
+        iHits++;
+      }
+      return (List) entry.tests;
+    }
+    synchronized (this) {
+      iMisses++;
+    }
+    return null;
+  }
+
+  /**
+   * Records the tests read from a file.
+   */
+  public void put(File file, long lLength, long lLastModified,
+      List<Map> tests) {
+    ArrayList<HashMap> copy = new ArrayList<HashMap>(tests.size());
+    for (Iterator<Map> it = tests.iterator(); it.hasNext();) {
+      copy.add(new HashMap(it.next()));
+    }
+    entries.put(file.getPath(), new Entry(lLength, lLastModified, copy));
+    bDirty = true;
+  }
+
+  /**
+   * Walks the given directory with iThreads threads and parses every java
+   * source file that is not indexed or has changed. Returns immediately; the
+   * results are picked up by {@link #get(File)}. Directories that are below a
+   * directory already walked are ignored.
+   *
+   * @param dir
+   *          directory to walk
+   * @param filter
+   *          accepts the directories to descend into and the files to parse
+   * @param parser
+   *          reads a file; called concurrently from the walker threads
+   * @param iThreads
+   *          number of walker threads
+   */
+  public void prefetch(File dir, FileFilter filter, Parser parser,
+      int iThreads) {
+    if (iThreads < 2 || !dir.isDirectory())
+      return;
+    File absDir = dir.getAbsoluteFile();
+    synchronized (this) {
+      for (File f : prefetched) {
+        if (absDir.getPath().equals(f.getPath())
+            || absDir.getPath().startsWith(f.getPath() + File.separator)) {
+          return;
+        }
+      }
+      prefetched.add(absDir);
+      if (executor == null) {
+        final AtomicInteger count = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(iThreads, new ThreadFactory() {
+          public Thread newThread(Runnable r) {
+            Thread t = new Thread(r,
+                "TS-finder-walker-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+          }
+        });
+      }
+    }
+    if (TestUtil.harnessDebug)
+      TestUtil.logHarnessDebug("Prefetching test descriptions below " + dir
+          + " with " + iThreads + " threads");
+    walk(dir, filter, parser);
+  }
+
+  /**
+   * Returns the number of files served from the index and parsed again.
+   */
+  public synchronized String getStatistics() {
+    return "indexed=" + entries.size() + ", hits=" + iHits + ", misses="
+        + iMisses;
+  }
+
+  private void walk(final File dir, final FileFilter filter,
+      final Parser parser) {
+    executor.execute(new Runnable() {
+      public void run() {
+        File[] files = dir.listFiles(filter);
+        if (files == null)
+          return;
+        for (int ii = 0; ii < files.length; ii++) {
+          if (files[ii].isDirectory()) {
+            walk(files[ii], filter, parser);
+          } else {
+            submitParse(files[ii], parser);
+          }
+        }
+      }
+    });
+  }
+
+  private void submitParse(final File file, final Parser parser) {
+    final String sPath = file.getPath();
+    final long lLength = file.length();
+    final long lLastModified = file.lastModified();
+    Entry entry = entries.get(sPath);
+    if (entry != null && entry.isCurrent(lLength, lLastModified))
+      return;
+    FutureTask<List<Map>> task = new FutureTask<List<Map>>(
+        new Callable<List<Map>>() {
+          public List<Map> call() throws Exception {
+            try {
+              List<Map> tests = parser.parse(file);
+              if (tests != null) {
+                put(file, lLength, lLastModified, tests);
+              }
+              return tests;
+            } finally {
+              pending.remove(sPath);
+            }
+          }
+        });
+    if (pending.putIfAbsent(sPath, task) == null) {
+      executor.execute(task);
+    }
+  }
+
+  private void load() {
+    if (indexFile == null || !indexFile.isFile())
+      return;
+    try (ObjectInputStream in = new ObjectInputStream(
+        new BufferedInputStream(new FileInputStream(indexFile)))) {
+      if (in.readInt() != FORMAT_VERSION) {
+        TestUtil.logHarness("Ignoring test finder index " + indexFile
+            + " written by a different version");
+        return;
+      }
+      entries.putAll((Map<String, Entry>) in.readObject());
+      TestUtil.logHarness("Loaded " + entries.size()
+          + " entries from test finder index " + indexFile);
+    } catch (Exception e) {
+      TestUtil.logHarness("Could not read test finder index " + indexFile, e);
+      entries.clear();
+    }
+  }
+
+  /**
+   * Writes the index to its file if anything was added since it was read.
+   */
+  public synchronized void save() {
+    if (indexFile == null || !bDirty)
+      return;
+    bDirty = false;
+    File tmpFile = new File(indexFile.getPath() + ".tmp");
+    try (ObjectOutputStream out = new ObjectOutputStream(
+        new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+      out.writeInt(FORMAT_VERSION);
+      out.writeObject(new HashMap<String, Entry>(entries));
+    } catch (IOException e) {
+      TestUtil.logHarness("Could not write test finder index " + indexFile,
+          e);
+      tmpFile.delete();
+      return;
+    }
+    if (!tmpFile.renameTo(indexFile)) {
+      indexFile.delete();
+      tmpFile.renameTo(indexFile);
+    }
+    if (TestUtil.harnessDebug)
+      TestUtil.logHarnessDebug(
+          "Wrote test finder index " + indexFile + ": " + getStatistics());
+  }
+}
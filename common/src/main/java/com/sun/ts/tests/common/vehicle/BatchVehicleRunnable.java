@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+/*
+ * $Id$
+ */
+
+package com.sun.ts.tests.common.vehicle;
+
+import java.util.Properties;
+
+import com.sun.ts.lib.harness.Status;
+
+/**
+ * A vehicle runner that can run several testcases of a test class with one
+ * call to the vehicle. The properties and arguments are sent once, followed by
+ * the names of the testcases, and the vehicle returns the status of each
+ * testcase as soon as it completes.
+ */
+public interface BatchVehicleRunnable extends VehicleRunnable {
+
+  /**
+   * Request header sent by the web vehicle runners to ask the vehicle for a
+   * batch of testcases.
+   */
+  public static final String BATCH_HEADER = "X-TS-Vehicle-Batch";
+
+  /**
+   * Runs the testcases in the vehicle.
+   *
+   * @param argv
+   *          an array of arguments that the tests may use
+   * @param p
+   *          user configured properties used by the tests
+   * @param testNames
+   *          the testcases to run, in order
+   * @param listener
+   *          notified of the status of each testcase as it completes, may be
+   *          null
+   * @return the status of each testcase, in the order of testNames. A testcase
+   *         that could not be run has a failed status.
+   */
+  public Status[] run(String[] argv, Properties p, String[] testNames,
+      StatusListener listener);
+
+  /**
+   * Receives the status of each testcase of a batch.
+   */
+  public interface StatusListener {
+    public void completed(String testName, Status status);
+  }
+}
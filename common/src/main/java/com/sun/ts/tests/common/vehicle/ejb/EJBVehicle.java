@@ -82,4 +82,18 @@ public class EJBVehicle {
     }
     return sTestStatus;
   }
+
+  // runs one testcase of a batch on a new instance of the test client,
+  // with the properties and arguments passed to initialize
+  public RemoteStatus runTest(String testName) {
+    properties.setProperty("testName", testName);
+    try {
+      testObj = (EETest) testObj.getClass().newInstance();
+    } catch (Exception e) {
+      TestUtil.logErr("Failed to create the EETest instance in the vehicle", e);
+      return new RemoteStatus(
+          Status.failed("Test running in ejb vehicle failed"));
+    }
+    return runTest();
+  }
 }
@@ -27,5 +27,7 @@ import com.sun.ts.lib.harness.RemoteStatus;
 public interface EJBVehicleRemote {
   public RemoteStatus runTest();
 
+  public RemoteStatus runTest(String testName);
+
   public void initialize(String[] args, Properties p);
 }
@@ -26,11 +26,70 @@ import com.sun.ts.lib.harness.Status;
 import com.sun.ts.lib.porting.TSLoginContext;
 import com.sun.ts.lib.util.TSNamingContext;
 import com.sun.ts.lib.util.TestUtil;
-import com.sun.ts.tests.common.vehicle.VehicleRunnable;
+import com.sun.ts.tests.common.vehicle.BatchVehicleRunnable;
 
-public class EJBVehicleRunner implements VehicleRunnable {
+public class EJBVehicleRunner implements BatchVehicleRunnable {
   public Status run(String[] argv, Properties p) {
 
+    Status sTestStatus = login(p);
+
+    String sEJBVehicleJndiName = "";
+    EJBVehicleRemote ref = null;
+    try {
+      TSNamingContext jc = new TSNamingContext();
+      sEJBVehicleJndiName = "java:comp/env/ejb/EJBVehicle";
+      ref = (EJBVehicleRemote) jc.lookup(sEJBVehicleJndiName,
+          EJBVehicleRemote.class);
+      ref.initialize(argv, p);
+      TestUtil.logTrace("in ejbvehicle: initialize ok; call runTest()");
+      sTestStatus = (ref.runTest()).toStatus();
+    } catch (Exception e) {
+      TestUtil.logErr("Test failed", e);
+      sTestStatus = Status.failed("Test run in ejb vehicle failed");
+    }
+    return sTestStatus;
+  }
+
+  // the properties and arguments are passed to the bean once, then each
+  // testcase is run by name
+  public Status[] run(String[] argv, Properties p, String[] testNames,
+      StatusListener listener) {
+
+    Status[] statuses = new Status[testNames.length];
+    login(p);
+
+    EJBVehicleRemote ref = null;
+    try {
+      TSNamingContext jc = new TSNamingContext();
+      ref = (EJBVehicleRemote) jc.lookup("java:comp/env/ejb/EJBVehicle",
+          EJBVehicleRemote.class);
+      ref.initialize(argv, p);
+      TestUtil.logTrace("in ejbvehicle: initialize ok; run "
+          + testNames.length + " tests");
+    } catch (Exception e) {
+      TestUtil.logErr("Test failed", e);
+      ref = null;
+    }
+
+    for (int i = 0; i < testNames.length; i++) {
+      if (ref == null) {
+        statuses[i] = Status.failed("Test run in ejb vehicle failed");
+      } else {
+        try {
+          statuses[i] = (ref.runTest(testNames[i])).toStatus();
+        } catch (Exception e) {
+          TestUtil.logErr("Test failed", e);
+          statuses[i] = Status.failed("Test run in ejb vehicle failed");
+        }
+      }
+      if (listener != null) {
+        listener.completed(testNames[i], statuses[i]);
+      }
+    }
+    return statuses;
+  }
+
+  private Status login(Properties p) {
     Status sTestStatus = Status.passed("");
     String username = p.getProperty("user");
     String password = p.getProperty("password");
@@ -52,23 +111,6 @@ public class EJBVehicleRunner implements VehicleRunnable {
             + username + " password " + password);
       }
     }
-
-    String sVehicle = p.getProperty("vehicle");
-
-    String sEJBVehicleJndiName = "";
-    EJBVehicleRemote ref = null;
-    try {
-      TSNamingContext jc = new TSNamingContext();
-      sEJBVehicleJndiName = "java:comp/env/ejb/EJBVehicle";
-      ref = (EJBVehicleRemote) jc.lookup(sEJBVehicleJndiName,
-          EJBVehicleRemote.class);
-      ref.initialize(argv, p);
-      TestUtil.logTrace("in ejbvehicle: initialize ok; call runTest()");
-      sTestStatus = (ref.runTest()).toStatus();
-    } catch (Exception e) {
-      TestUtil.logErr("Test failed", e);
-      sTestStatus = Status.failed("Test run in ejb vehicle failed");
-    }
     return sTestStatus;
   }
 }
@@ -92,6 +92,25 @@
             {
                 throw new ServletException("unable to initialize remote logging");
             }
+            if ("true".equals(request.getHeader("X-TS-Vehicle-Batch")))
+            {
+                //a batch: run each testcase on a new instance of the test
+                //client and write its status as soon as it completes
+                String[] testNames = (String[])objInStream.readObject();
+                for (int i = 0; i < testNames.length; i++)
+                {
+                    properties.setProperty("testName", testNames[i]);
+                    testObj = (EETest) c.newInstance();
+                    RemoteStatus testStatus = runTest();
+                    String reason = testStatus.toStatus().getReason();
+                    if (reason == null)
+                        reason = "";
+                    out.println("status=" + testStatus.getType() + ","
+                        + java.net.URLEncoder.encode(reason, "UTF-8"));
+                    out.flush();
+                }
+                return;
+            }
             //now run the test and return the result
             RemoteStatus finalStatus = runTest();
 			// Create properties object
@@ -36,6 +36,7 @@ import com.sun.ts.lib.harness.Status;
 import com.sun.ts.lib.harness.EETest;
 import com.sun.ts.lib.harness.RemoteStatus;
 import com.sun.ts.lib.util.TestUtil;
+import com.sun.ts.tests.common.vehicle.BatchVehicleRunnable;
 
 import jakarta.servlet.ServletConfig;
 import jakarta.servlet.ServletException;
@@ -91,6 +92,21 @@ public class ServletVehicle extends HttpServlet {
       ObjectOutputStream objOutStream = new ObjectOutputStream(
           res.getOutputStream());
       System.out.println("got outputstream");
+      if ("true".equals(req.getHeader(BatchVehicleRunnable.BATCH_HEADER))) {
+        // a batch: run each testcase on a new instance of the test client
+        // and write its status as soon as it completes
+        String[] testNames = (String[]) objInStream.readObject();
+        for (int i = 0; i < testNames.length; i++) {
+          properties.setProperty("testName", testNames[i]);
+          testObj = (EETest) c.newInstance();
+          objOutStream.writeObject(runTest());
+          objOutStream.reset();
+          objOutStream.flush();
+        }
+        TestUtil.logTrace("ServletVehicle - ran " + testNames.length + " tests");
+        objOutStream.close();
+        return;
+      }
       // now run the test and return the result
       RemoteStatus finalStatus = runTest();
       System.out.println("ran test");
@@ -20,21 +20,39 @@
 
 package com.sun.ts.tests.common.vehicle.web;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.net.URLDecoder;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
 
 import com.sun.ts.lib.harness.Status;
 import com.sun.ts.lib.harness.RemoteStatus;
 import com.sun.ts.lib.porting.TSURL;
 import com.sun.ts.lib.util.TestUtil;
-import com.sun.ts.tests.common.vehicle.VehicleRunnable;
+import com.sun.ts.tests.common.vehicle.BatchVehicleRunnable;
 
-public class WebVehicleRunner implements VehicleRunnable {
+public class WebVehicleRunner implements BatchVehicleRunnable {
+
+  /**
+   * When true, the web vehicle runs the jsp while it runs the servlet. Tests
+   * that share server side state, such as database tables or the static log of
+   * TestUtil, can interfere with themselves, so it is false by default.
+   */
+  public static final String CONCURRENT_PROP = "harness.web.vehicle.concurrent";
+
+  private static ExecutorService jspExecutor;
 
   protected String sVehicle = "";
 
@@ -62,18 +80,7 @@ public class WebVehicleRunner implements VehicleRunnable {
     // use this name for the context root or jndi name to eliminate
     // naming conflicts for apps deployed at the same time
     sVehicleArchiveName = p.getProperty("vehicle_archive_name");
-
-    if (sVehicleArchiveName.indexOf("_vehicles") != -1) {
-      contextRootPrefix = sVehicleArchiveName.substring(0,
-          sVehicleArchiveName.indexOf("_vehicles") + 1) + sVehicle
-          + "_vehicle_web";
-    } else {
-      if (sVehicleArchiveName.endsWith("_web")) {
-        contextRootPrefix = sVehicleArchiveName;
-      } else {
-        contextRootPrefix = sVehicleArchiveName + "_web";
-      }
-    }
+    contextRootPrefix = getContextRootPrefix(sVehicleArchiveName, sVehicle);
 
     // default urlSuffix
     urlSuffix = "/" + contextRootPrefix + "/" + sVehicle + "_vehicle";
@@ -81,34 +88,199 @@ public class WebVehicleRunner implements VehicleRunnable {
     return run();
   }// run
 
-  protected Status run() {
-    if (sVehicle.equalsIgnoreCase("web")) {
-      // run in a servlet
-      urlSuffix = "/" + contextRootPrefix + "/servlet_vehicle";
-      sServletStatus = runWebVehicleTest("servlet");
+  /**
+   * Runs the testcases with one request to the vehicle, or with one request to
+   * the servlet and one to the jsp for the web vehicle. Vehicles that cannot
+   * run a batch get one request per testcase.
+   */
+  public Status[] run(String[] argv, Properties p, String[] testNames,
+      StatusListener listener) {
+    String vehicle = p.getProperty("vehicle");
+    String prefix = "/" + getContextRootPrefix(
+        p.getProperty("vehicle_archive_name"), vehicle);
+    Status[] statuses;
 
-      // run in a Jsp
-      urlSuffix = "/" + contextRootPrefix + "/jsp_vehicle";
-      sJspStatus = runWebVehicleTest("jsp");
+    if (vehicle.equalsIgnoreCase("web")) {
+      final String[] fArgv = argv;
+      final Properties fProps = p;
+      final String[] fTestNames = testNames;
+      final String jspSuffix = prefix + "/jsp_vehicle.jsp";
+      final long start = System.currentTimeMillis();
+      final long[] jspMillis = new long[1];
+      FutureTask<Status[]> jspTask = startJsp(p,
+          new Callable<Status[]>() {
+            public Status[] call() {
+              long jspStart = System.currentTimeMillis();
+              Status[] jspStatuses = runWebVehicleTests("jsp", jspSuffix,
+                  fArgv, fProps, fTestNames, null);
+              jspMillis[0] = System.currentTimeMillis() - jspStart;
+              return jspStatuses;
+            }
+          });
+      Status[] servletStatuses = runWebVehicleTests("servlet",
+          prefix + "/servlet_vehicle", argv, p, testNames, null);
+      long servletMillis = System.currentTimeMillis() - start;
+      Status[] jspStatuses = getJspStatus(jspTask);
+      if (jspStatuses == null) {
+        jspStatuses = new Status[testNames.length];
+        failRemaining(testNames, jspStatuses, 0,
+            Status.failed("Test run in jsp vehicle failed"), null);
+      }
+      TestUtil.logMsg("Ran " + testNames.length + " tests in web vehicles"
+          + " (servlet: " + servletMillis + " ms, jsp: " + jspMillis[0]
+          + " ms, total: " + (System.currentTimeMillis() - start) + " ms)");
+      statuses = new Status[testNames.length];
+      for (int i = 0; i < testNames.length; i++) {
+        statuses[i] = getWebStatus(servletStatuses[i], jspStatuses[i]);
+        if (listener != null) {
+          listener.completed(testNames[i], statuses[i]);
+        }
+      }
+    } else if (isBatchVehicle(vehicle)) {
+      String suffix = prefix + "/" + vehicle + "_vehicle";
+      if (vehicle.indexOf("jsp") != -1) {
+        suffix += ".jsp";
+      }
+      statuses = runWebVehicleTests(vehicle, suffix, argv, p, testNames,
+          listener);
+    } else {
+      statuses = new Status[testNames.length];
+      for (int i = 0; i < testNames.length; i++) {
+        p.setProperty("testName", testNames[i]);
+        statuses[i] = run(argv, p);
+        if (listener != null) {
+          listener.completed(testNames[i], statuses[i]);
+        }
+      }
+    }
+    return statuses;
+  }
+
+  /**
+   * Returns true if the servlet or jsp of the vehicle reads the testcase names
+   * of a batch request. ServletVehicle and its subclasses and jsp_vehicle.jsp
+   * do.
+   */
+  protected boolean isBatchVehicle(String vehicle) {
+    return vehicle.equalsIgnoreCase("servlet")
+        || vehicle.equalsIgnoreCase("jsp")
+        || vehicle.equalsIgnoreCase("pmservlet")
+        || vehicle.equalsIgnoreCase("puservlet");
+  }
 
-      TestUtil.logMsg("Test: returning from running in web vehicles");
+  private static String getContextRootPrefix(String vehicleArchiveName,
+      String vehicle) {
+    if (vehicleArchiveName.indexOf("_vehicles") != -1) {
+      return vehicleArchiveName.substring(0,
+          vehicleArchiveName.indexOf("_vehicles") + 1) + vehicle
+          + "_vehicle_web";
+    } else if (vehicleArchiveName.endsWith("_web")) {
+      return vehicleArchiveName;
+    } else {
+      return vehicleArchiveName + "_web";
     }
+  }
+
+  private static synchronized ExecutorService getJspExecutor() {
+    if (jspExecutor == null) {
+      jspExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+          Thread t = new Thread(r, "TS-jsp-vehicle");
+          t.setDaemon(true);
+          return t;
+        }
+      });
+    }
+    return jspExecutor;
+  }
 
-    if (sServletStatus.isPassed() && sJspStatus.isPassed()) {
-      sTestStatus = Status.passed("Test passed in a servlet and in a jsp");
-    } else if (sServletStatus.isFailed() && sServletStatus.isFailed()) {
-      sTestStatus = Status.failed("Test failed in a servlet and in a jsp");
-    } else if (sJspStatus.isFailed()) {
-      sTestStatus = Status
-          .failed("Test passed in a jsp but failed in a servlet");
+  /**
+   * Returns the task that runs the test in the jsp of the web vehicle. It is
+   * started on the jsp executor if CONCURRENT_PROP is true, so that it runs
+   * while the calling thread runs the test in the servlet. Otherwise it runs
+   * in getJspStatus, once the servlet is done. The task logs to the test of
+   * the calling thread either way.
+   */
+  private static <T> FutureTask<T> startJsp(Properties p, Callable<T> task) {
+    FutureTask<T> future = new FutureTask<T>(TestUtil.withCurrentTest(task));
+    if (Boolean.parseBoolean(p.getProperty(CONCURRENT_PROP, "false").trim())) {
+      getJspExecutor().execute(future);
+    }
+    return future;
+  }
+
+  private static <T> T getJspStatus(FutureTask<T> future) {
+    // does nothing if the jsp executor has started the task
+    future.run();
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      TestUtil.logErr("Interrupted while running in a jsp", e);
+    } catch (ExecutionException e) {
+      TestUtil.logErr("Test failed inside a jsp", e.getCause());
+    }
+    return null;
+  }
+
+  private static Status getWebStatus(Status servletStatus, Status jspStatus) {
+    if (servletStatus.isPassed() && jspStatus.isPassed()) {
+      return Status.passed("Test passed in a servlet and in a jsp");
+    } else if (servletStatus.isFailed() && jspStatus.isFailed()) {
+      return Status.failed("Test failed in a servlet and in a jsp");
+    } else if (servletStatus.isFailed()) {
+      return Status.failed("Test passed in a jsp but failed in a servlet");
     } else {
-      sTestStatus = Status
-          .failed("Test passed in a servlet but failed in a jsp");
+      return Status.failed("Test passed in a servlet but failed in a jsp");
+    }
+  }
+
+  protected Status run() {
+    String timing = "";
+    if (sVehicle.equalsIgnoreCase("web")) {
+      // run in a servlet and in a Jsp, at the same time if CONCURRENT_PROP
+      // is true
+      final long start = System.currentTimeMillis();
+      final long[] jspMillis = new long[1];
+      FutureTask<Status> jspTask = startJsp(p,
+          new Callable<Status>() {
+            public Status call() {
+              long jspStart = System.currentTimeMillis();
+              Status status = runWebVehicleTest("jsp",
+                  "/" + contextRootPrefix + "/jsp_vehicle.jsp");
+              jspMillis[0] = System.currentTimeMillis() - jspStart;
+              return status;
+            }
+          });
+      sServletStatus = runWebVehicleTest("servlet",
+          "/" + contextRootPrefix + "/servlet_vehicle");
+      long servletMillis = System.currentTimeMillis() - start;
+      sJspStatus = getJspStatus(jspTask);
+      if (sJspStatus == null) {
+        sJspStatus = Status.failed("Test run in jsp vehicle failed");
+      }
+
+      timing = " (servlet: " + servletMillis + " ms, jsp: " + jspMillis[0]
+          + " ms, total: " + (System.currentTimeMillis() - start) + " ms)";
+      TestUtil.logMsg("Test: returning from running in web vehicles" + timing);
+    }
+
+    sTestStatus = getWebStatus(sServletStatus, sJspStatus);
+    if (timing.length() > 0) {
+      sTestStatus = new Status(sTestStatus.getType(),
+          sTestStatus.getReason() + timing);
     }
     return sTestStatus;
   }
 
   protected Status runWebVehicleTest(String vehicle) {
+    if (vehicle.indexOf("jsp") != -1) {
+      urlSuffix += ".jsp";
+    }
+    return runWebVehicleTest(vehicle, urlSuffix);
+  }
+
+  private Status runWebVehicleTest(String vehicle, String suffix) {
     URLConnection connection = null;
     URL url = null;
     ObjectOutputStream objOut = null;
@@ -116,13 +288,9 @@ public class WebVehicleRunner implements VehicleRunnable {
     Status status;
 
     try {
-      if (vehicle.indexOf("jsp") != -1) {
-        urlSuffix += ".jsp";
-      }
-
       TSURL ctsURL = new TSURL();
       url = ctsURL.getURL("http", p.getProperty("webServerHost"),
-          Integer.parseInt(p.getProperty("webServerPort")), urlSuffix);
+          Integer.parseInt(p.getProperty("webServerPort")), suffix);
       connection = url.openConnection();
       TestUtil.logMsg("Opened connection to " + url);
       connection.setDoOutput(true);
@@ -185,4 +353,132 @@ public class WebVehicleRunner implements VehicleRunnable {
     }
     return status;
   }
+
+  /**
+   * Sends the properties, the arguments and the testcase names of a batch in
+   * one request and reads the status of each testcase as the vehicle writes
+   * it. The testcases after a broken connection get a failed status.
+   */
+  private Status[] runWebVehicleTests(String vehicle, String suffix,
+      String[] argv, Properties p, String[] testNames,
+      StatusListener listener) {
+    Status[] statuses = new Status[testNames.length];
+    ObjectOutputStream objOut = null;
+    ObjectInputStream objIn = null;
+    BufferedReader reader = null;
+    int i = 0;
+
+    try {
+      TSURL ctsURL = new TSURL();
+      URL url = ctsURL.getURL("http", p.getProperty("webServerHost"),
+          Integer.parseInt(p.getProperty("webServerPort")), suffix);
+      URLConnection connection = url.openConnection();
+      TestUtil.logMsg("Opened connection to " + url + " for "
+          + testNames.length + " tests");
+      connection.setDoOutput(true);
+      connection.setDoInput(true);
+      connection.setUseCaches(false);
+      connection.setRequestProperty("Content-Type",
+          "java-internal/" + p.getClass().getName());
+      connection.setRequestProperty(BATCH_HEADER, "true");
+      objOut = new ObjectOutputStream(connection.getOutputStream());
+      objOut.writeObject(p);
+      objOut.writeObject(argv);
+      objOut.writeObject(testNames);
+      TestUtil.logTrace("wrote objects to the " + vehicle + " vehicle");
+      objOut.flush();
+      objOut.close();
+      objOut = null;
+
+      // read the statuses as they come back
+      if (vehicle.indexOf("jsp") != -1) {
+        reader = new BufferedReader(new InputStreamReader(
+            connection.getInputStream(), "UTF-8"));
+        String line;
+        while (i < testNames.length && (line = reader.readLine()) != null) {
+          line = line.trim();
+          if (!line.startsWith("status=")) {
+            continue;
+          }
+          int comma = line.indexOf(',');
+          int type = Integer.parseInt(line.substring(7, comma));
+          String reason = URLDecoder.decode(line.substring(comma + 1),
+              "UTF-8");
+          completed(vehicle, testNames, statuses, i++,
+              new Status(type, reason), listener);
+        }
+      } else {
+        objIn = new ObjectInputStream(connection.getInputStream());
+        while (i < testNames.length) {
+          completed(vehicle, testNames, statuses, i++,
+              ((RemoteStatus) objIn.readObject()).toStatus(), listener);
+        }
+      }
+    } catch (MalformedURLException e) {
+      e.printStackTrace();
+      failRemaining(testNames, statuses, i,
+          Status.failed("Fatal: Improper URL"), listener);
+    } catch (NumberFormatException e) {
+      e.printStackTrace();
+      failRemaining(testNames, statuses, i, Status.failed(
+          "Please set an appropriate value for the property:  webServerPort"),
+          listener);
+    } catch (IOException e) {
+      e.printStackTrace();
+      failRemaining(testNames, statuses, i,
+          Status.failed("Fatal: Problem with connection: " + e), listener);
+    } catch (Exception e) {
+      e.printStackTrace();
+      failRemaining(testNames, statuses, i, Status.failed(
+          "ServiceTest failed inside a " + vehicle + ": " + e.getMessage()),
+          listener);
+    } finally {
+      if (objOut != null) {
+        try {
+          objOut.close();
+        } catch (Exception e) {
+        }
+      }
+
+      if (objIn != null) {
+        try {
+          objIn.close();
+        } catch (Exception e) {
+        }
+      }
+
+      if (reader != null) {
+        try {
+          reader.close();
+        } catch (Exception e) {
+        }
+      }
+    }
+    failRemaining(testNames, statuses, i,
+        Status.failed("No status returned by the " + vehicle + " vehicle"),
+        listener);
+    return statuses;
+  }
+
+  private static void completed(String vehicle, String[] testNames,
+      Status[] statuses, int i, Status status, StatusListener listener) {
+    TestUtil.logMsg("Test status of " + testNames[i] + " from a " + vehicle
+        + ":  " + status.getType() + ":" + status.getReason());
+    statuses[i] = status;
+    if (listener != null) {
+      listener.completed(testNames[i], status);
+    }
+  }
+
+  private static void failRemaining(String[] testNames, Status[] statuses,
+      int from, Status status, StatusListener listener) {
+    for (int i = from; i < testNames.length; i++) {
+      if (statuses[i] == null) {
+        statuses[i] = status;
+        if (listener != null) {
+          listener.completed(testNames[i], status);
+        }
+      }
+    }
+  }
 }
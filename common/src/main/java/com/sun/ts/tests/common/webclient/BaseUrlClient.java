@@ -31,6 +31,7 @@ import com.sun.ts.lib.util.TestUtil;
 import org.apache.commons.httpclient.HttpState;
 
 import com.sun.ts.tests.common.webclient.http.HttpRequest;
+import com.sun.ts.tests.common.webclient.http.PooledHttpConnections;
 
 /**
  * <PRE>
@@ -414,6 +415,15 @@ public abstract class BaseUrlClient extends EETest {
           "[BaseUrlClient] 'tshome' was not set in the " + " ts.jte.");
     }
 
+    String pooling = p.getProperty(PooledHttpConnections.POOLING_PROP);
+    if (!isNullOrEmpty(pooling)) {
+      PooledHttpConnections.setEnabled(Boolean.parseBoolean(pooling.trim()));
+    }
+    String poolSize = p.getProperty(PooledHttpConnections.POOL_SIZE_PROP);
+    if (!isNullOrEmpty(poolSize)) {
+      PooledHttpConnections.setPoolSize(poolSize);
+    }
+
     TestUtil.logMsg("[BaseUrlClient] Test setup OK");
   }
 
@@ -25,11 +25,20 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import com.sun.ts.lib.util.TestUtil;
 
 /**
  * A representation of a Goldenfile that may be used by a particular test case.
+ *
+ * The tokens of a goldenfile are cached once parsed, so that test cases sharing
+ * the same goldenfile do not read and split it again. An entry is reused as
+ * long as the file's length and modification time are unchanged. The number of
+ * cached goldenfiles is set with the <code>webclient.goldenfile.cache.size</code>
+ * system property (default 256, 0 disables the cache).
  */
 
 public class Goldenfile {
@@ -44,6 +53,24 @@ public class Goldenfile {
    */
   private static final byte[] NOPERM = "INSUFFICIENT PERMISSIONS".getBytes();
 
+  /*
+   * System property holding the maximum number of cached goldenfiles.
+   */
+  private static final String CACHE_SIZE_PROP = "webclient.goldenfile.cache.size";
+
+  private static final int CACHE_SIZE = Integer.getInteger(CACHE_SIZE_PROP,
+      256);
+
+  /*
+   * Parsed goldenfiles, keyed by path and encoding, least recently used first.
+   */
+  private static final Map<String, CachedTokens> TOKEN_CACHE = new LinkedHashMap<String, CachedTokens>(
+      16, 0.75f, true) {
+    protected boolean removeEldestEntry(Map.Entry<String, CachedTokens> e) {
+      return size() > CACHE_SIZE;
+    }
+  };
+
   /*
    * Goldenfile represented by this object.
    */
@@ -140,6 +167,45 @@ public class Goldenfile {
     return gf;
   }
 
+  /**
+   * Returns the tokens of the goldenfile, split on whitespace as done by
+   * <code>java.util.StringTokenizer</code>. The file is read through a Reader
+   * using the charset encoding specified in the response from the server, and
+   * the result is cached for later test cases using the same goldenfile. The
+   * returned array is shared and must not be modified.
+   *
+   * @return the goldenfile tokens
+   * @throws IOException
+   *           if an error occurs processing the file.
+   */
+  public String[] getGoldenFileAsTokens() throws IOException {
+    if (_file == null) {
+      return WhitespaceTokenReader.tokenize(
+          new InputStreamReader(new ByteArrayInputStream(_errMessage)));
+    }
+    String key = _file.getAbsolutePath() + '|' + _encoding;
+    long lastModified = _file.lastModified();
+    synchronized (TOKEN_CACHE) {
+      CachedTokens cached = TOKEN_CACHE.get(key);
+      if (cached != null && cached.length == _length
+          && cached.lastModified == lastModified) {
+        TestUtil.logTrace("[Goldenfile] Using cached tokens for goldenfile: "
+            + _file.getPath());
+        return cached.tokens;
+      }
+    }
+    TestUtil.logTrace(
+        "[Goldenfile] Parsing goldenfile using " + "encoding: " + _encoding);
+    String[] tokens = WhitespaceTokenReader
+        .tokenize(new InputStreamReader(new FileInputStream(_file), _encoding));
+    if (CACHE_SIZE > 0) {
+      synchronized (TOKEN_CACHE) {
+        TOKEN_CACHE.put(key, new CachedTokens(_length, lastModified, tokens));
+      }
+    }
+    return tokens;
+  }
+
   /**
    * Returns the goldenfile as an InputStream using the charset encoding
    * specified in the response from the server.
@@ -155,4 +221,22 @@ public class Goldenfile {
       return new ByteArrayInputStream(_errMessage);
     }
   }
+
+  /*
+   * Tokens of a parsed goldenfile along with the file attributes they were
+   * read from.
+   */
+  private static class CachedTokens {
+    private final long length;
+
+    private final long lastModified;
+
+    private final String[] tokens;
+
+    CachedTokens(long length, long lastModified, String[] tokens) {
+      this.length = length;
+      this.lastModified = lastModified;
+      this.tokens = tokens;
+    }
+  }
 }
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.ts.tests.common.webclient;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits the characters of a Reader into tokens as they are read, using the
+ * same delimiters as the default <code>java.util.StringTokenizer</code>
+ * (space, tab, newline, carriage return and form feed). The content never has
+ * to be held in memory as a whole.
+ */
+public final class WhitespaceTokenReader {
+
+  private final Reader _in;
+
+  private final char[] _buf = new char[4096];
+
+  private int _pos = 0;
+
+  private int _len = 0;
+
+  private int _count = 0;
+
+  /**
+   * Creates a new WhitespaceTokenReader reading from the given Reader.
+   *
+   * @param in
+   *          the Reader to tokenize
+   */
+  public WhitespaceTokenReader(Reader in) {
+    _in = in;
+  }
+
+  /**
+   * Returns the next token, or null if there are no more tokens.
+   *
+   * @return the next token
+   * @throws IOException
+   *           if an error occurs reading from the underlying Reader
+   */
+  public String nextToken() throws IOException {
+    int ch;
+    do {
+      ch = read();
+    } while (ch != -1 && isDelimiter((char) ch));
+    if (ch == -1) {
+      return null;
+    }
+    StringBuilder sb = new StringBuilder(32);
+    do {
+      sb.append((char) ch);
+      ch = read();
+    } while (ch != -1 && !isDelimiter((char) ch));
+    _count++;
+    return sb.toString();
+  }
+
+  /**
+   * Returns the number of tokens returned so far.
+   *
+   * @return token count
+   */
+  public int getTokenCount() {
+    return _count;
+  }
+
+  /**
+   * Closes the underlying Reader.
+   */
+  public void close() throws IOException {
+    _in.close();
+  }
+
+  /**
+   * Reads all tokens of the given Reader and closes it.
+   *
+   * @param in
+   *          the Reader to tokenize
+   * @return the tokens
+   * @throws IOException
+   *           if an error occurs reading from the Reader
+   */
+  public static String[] tokenize(Reader in) throws IOException {
+    WhitespaceTokenReader reader = new WhitespaceTokenReader(in);
+    List<String> tokens = new ArrayList<String>();
+    try {
+      for (String token = reader.nextToken(); token != null; token = reader
+          .nextToken()) {
+        tokens.add(token);
+      }
+    } finally {
+      reader.close();
+    }
+    return tokens.toArray(new String[tokens.size()]);
+  }
+
+  /*
+   * private methods
+   * ========================================================================
+   */
+
+  private int read() throws IOException {
+    if (_pos == _len) {
+      _len = _in.read(_buf, 0, _buf.length);
+      _pos = 0;
+      if (_len <= 0) {
+        _len = 0;
+        return -1;
+      }
+    }
+    return _buf[_pos++];
+  }
+
+  private static boolean isDelimiter(char ch) {
+    return ch == ' ' || ch == '\t' || ch == '\n' || ch == '\r' || ch == '\f';
+  }
+}
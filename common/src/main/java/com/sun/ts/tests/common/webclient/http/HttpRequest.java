@@ -25,6 +25,7 @@ import java.util.StringTokenizer;
 
 import org.apache.commons.httpclient.Cookie;
 import org.apache.commons.httpclient.Header;
+import org.apache.commons.httpclient.HostConfiguration;
 import org.apache.commons.httpclient.HttpClient;
 import org.apache.commons.httpclient.HttpConnection;
 import org.apache.commons.httpclient.HttpException;
@@ -135,6 +136,11 @@ public class HttpRequest {
    */
   private boolean _redirect = false;
 
+  /**
+   * Time in milliseconds taken by the last execution of this request.
+   */
+  private long _executionTime = -1;
+
   Header[] _headers = null;
 
   protected HttpClient client = null;
@@ -352,7 +358,9 @@ public class HttpRequest {
     int defaultPort;
     ProtocolSocketFactory factory;
 
-    if (_method.getFollowRedirects()) {
+    if (PooledHttpConnections.isEnabled()) {
+      return executePooled();
+    } else if (_method.getFollowRedirects()) {
       client = new HttpClient();
 
       if (_isSecure) {
@@ -385,7 +393,9 @@ public class HttpRequest {
 
       client.getHostConfiguration().setHost(_host, _port, protocol);
 
+      long start = System.currentTimeMillis();
       client.executeMethod(_method);
+      setExecutionTime(start);
 
       return new HttpResponse(_host, _port, _isSecure, _method, getState());
     } else {
@@ -417,12 +427,26 @@ public class HttpRequest {
       TestUtil.logTrace(
           "########## The real value set: " + _method.getFollowRedirects());
 
+      long start = System.currentTimeMillis();
       _method.execute(getState(), conn);
+      setExecutionTime(start);
 
       return new HttpResponse(_host, _port, _isSecure, _method, getState());
     }
   }
 
+  /**
+   * Returns the time in milliseconds the last call to <code>execute</code>
+   * took to send the request and receive the response headers (and, for
+   * pooled connections, the response body), or -1 if this request has not been
+   * executed.
+   *
+   * @return long execution time in milliseconds
+   */
+  public long getExecutionTime() {
+    return _executionTime;
+  }
+
   /**
    * Returns the current state for this request.
    *
@@ -461,6 +485,47 @@ public class HttpRequest {
    * ========================================================================
    */
 
+  /**
+   * Dispatches the request over a connection from the shared pool. The
+   * response body is read before returning so that the connection goes back
+   * to the pool right away; HttpResponse serves it from the buffered copy.
+   */
+  private HttpResponse executePooled() throws IOException, HttpException {
+    TestUtil.logMsg("[HttpRequest] Dispatching request: '" + _requestLine
+        + "' to target server at '" + _host + ":" + _port
+        + "' over a pooled connection");
+
+    addSupportHeaders();
+    _headers = _method.getRequestHeaders();
+
+    HostConfiguration config = PooledHttpConnections
+        .getHostConfiguration(_host, _port, _isSecure);
+    long start = System.currentTimeMillis();
+    try {
+      if (_method.getFollowRedirects()) {
+        PooledHttpConnections.getClient().executeMethod(config, _method,
+            getState());
+      } else {
+        // as without pooling, the request is sent once, as is, without
+        // answering authentication challenges
+        _method.execute(getState(),
+            PooledHttpConnections.getConnection(config));
+      }
+      _method.getResponseBody();
+    } finally {
+      _method.releaseConnection();
+    }
+    setExecutionTime(start);
+
+    return new HttpResponse(_host, _port, _isSecure, _method, getState());
+  }
+
+  private void setExecutionTime(long start) {
+    _executionTime = System.currentTimeMillis() - start;
+    TestUtil.logTrace("[HttpRequest] Request '" + _requestLine + "' took "
+        + _executionTime + " ms");
+  }
+
   private void createCookie(String cookieHeader) {
     String cookieLine = cookieHeader.substring(cookieHeader.indexOf(':') + 1)
         .trim();
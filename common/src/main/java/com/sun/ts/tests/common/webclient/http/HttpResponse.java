@@ -23,6 +23,9 @@ package com.sun.ts.tests.common.webclient.http;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
 
 import org.apache.commons.httpclient.Header;
 import org.apache.commons.httpclient.HttpMethod;
@@ -199,6 +202,27 @@ public class HttpResponse {
     return new ByteArrayInputStream(getEncodedResponse().getBytes());
   }
 
+  /**
+   * Returns the response body as a Reader using the charset encoding specified
+   * in the server's response. The body is decoded as it is read instead of
+   * being copied into a String first.
+   *
+   * @return response body as a Reader
+   * @throws IOException
+   *           if an error occurs reading from the server
+   */
+  public Reader getResponseBodyAsReader() throws IOException {
+    if (_responseBody != null) {
+      return new StringReader(_responseBody);
+    }
+    byte[] body = _method.getResponseBody();
+    if (body == null) {
+      return new StringReader("");
+    }
+    return new InputStreamReader(new ByteArrayInputStream(body),
+        getResponseEncoding());
+  }
+
   /**
    * Returns the response body as an InputStream without any encoding applied by
    * the client.
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.ts.tests.common.webclient.http;
+
+import java.io.IOException;
+
+import org.apache.commons.httpclient.HostConfiguration;
+import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.HttpConnection;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+import org.apache.commons.httpclient.params.HttpConnectionManagerParams;
+import org.apache.commons.httpclient.protocol.DefaultProtocolSocketFactory;
+import org.apache.commons.httpclient.protocol.Protocol;
+import org.apache.commons.httpclient.protocol.SSLProtocolSocketFactory;
+
+import com.sun.ts.lib.util.TestUtil;
+
+/**
+ * Shared, keep-alive connection pool used by {@link HttpRequest} when
+ * connection pooling is enabled. Connections are kept open per host and port
+ * and reused by later requests to the same target, so consecutive requests of
+ * a test sequence do not pay for a new TCP connection and SSL handshake each
+ * time.
+ *
+ * Pooling is enabled with the <code>webclient.connection.pooling</code>
+ * property, either as a system property or in the properties passed to
+ * <code>BaseUrlClient.setup</code>. The number of connections kept per host is
+ * set the same way with the <code>webclient.connection.pool.size</code>
+ * property (default 20).
+ */
+public final class PooledHttpConnections {
+
+  public static final String POOLING_PROP = "webclient.connection.pooling";
+
+  public static final String POOL_SIZE_PROP = "webclient.connection.pool.size";
+
+  private static final Protocol HTTP = new Protocol("http",
+      new DefaultProtocolSocketFactory(), HttpRequest.DEFAULT_HTTP_PORT);
+
+  private static final Protocol HTTPS = new Protocol("https",
+      new SSLProtocolSocketFactory(), HttpRequest.DEFAULT_SSL_PORT);
+
+  private static final int DEFAULT_POOL_SIZE = 20;
+
+  private static boolean enabled = Boolean.getBoolean(POOLING_PROP);
+
+  private static int poolSize = parsePoolSize(
+      System.getProperty(POOL_SIZE_PROP), DEFAULT_POOL_SIZE);
+
+  private static MultiThreadedHttpConnectionManager manager = null;
+
+  private static HttpClient client = null;
+
+  private PooledHttpConnections() {
+  }
+
+  /**
+   * Returns true if requests should be sent over pooled connections.
+   */
+  public static synchronized boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Enables or disables connection pooling. Disabling it closes all pooled
+   * connections.
+   */
+  public static synchronized void setEnabled(boolean b) {
+    enabled = b;
+    if (!b) {
+      shutdown();
+    }
+  }
+
+  /**
+   * Sets the number of connections kept per host. An invalid value is logged
+   * and leaves the size unchanged.
+   */
+  public static synchronized void setPoolSize(String size) {
+    int newSize = parsePoolSize(size, poolSize);
+    if (newSize == poolSize) {
+      return;
+    }
+    poolSize = newSize;
+    if (manager != null) {
+      setPoolSize(manager.getParams(), poolSize);
+    }
+  }
+
+  private static int parsePoolSize(String size, int current) {
+    if (size == null || size.trim().length() == 0) {
+      return current;
+    }
+    try {
+      int value = Integer.parseInt(size.trim());
+      if (value > 0) {
+        return value;
+      }
+    } catch (NumberFormatException e) {
+      // logged below
+    }
+    TestUtil.logErr("[PooledHttpConnections] Invalid value \"" + size
+        + "\" for " + POOL_SIZE_PROP + ", using " + current);
+    return current;
+  }
+
+  private static void setPoolSize(HttpConnectionManagerParams params,
+      int size) {
+    params.setDefaultMaxConnectionsPerHost(size);
+    params.setMaxTotalConnections(size * 4);
+  }
+
+  /**
+   * Returns the client shared by all pooled requests.
+   */
+  static synchronized HttpClient getClient() {
+    if (client == null) {
+      manager = new MultiThreadedHttpConnectionManager();
+      HttpConnectionManagerParams params = manager.getParams();
+      setPoolSize(params, poolSize);
+      params.setStaleCheckingEnabled(true);
+      client = new HttpClient(manager);
+      TestUtil.logTrace("[PooledHttpConnections] Created connection pool with "
+          + poolSize + " connections per host");
+    }
+    return client;
+  }
+
+  /**
+   * Takes a connection to the given target from the pool, waiting for one to
+   * be released if all of them are in use. The connection is open and goes
+   * back to the pool when the method executed on it releases it.
+   */
+  static HttpConnection getConnection(HostConfiguration config)
+      throws IOException {
+    MultiThreadedHttpConnectionManager pool;
+    synchronized (PooledHttpConnections.class) {
+      getClient();
+      pool = manager;
+    }
+    HttpConnection conn = pool.getConnectionWithTimeout(config, 0);
+    try {
+      conn.closeIfStale();
+      if (!conn.isOpen()) {
+        conn.open();
+      }
+    } catch (IOException e) {
+      conn.releaseConnection();
+      throw e;
+    }
+    return conn;
+  }
+
+  /**
+   * Returns the host configuration used to look up pooled connections for the
+   * given target.
+   */
+  static HostConfiguration getHostConfiguration(String host, int port,
+      boolean secure) {
+    HostConfiguration config = new HostConfiguration();
+    config.setHost(host, port, secure ? HTTPS : HTTP);
+    return config;
+  }
+
+  /**
+   * Closes all pooled connections.
+   */
+  public static synchronized void shutdown() {
+    if (manager != null) {
+      manager.shutdown();
+      manager = null;
+      client = null;
+    }
+  }
+}
@@ -24,18 +24,19 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
-import java.util.StringTokenizer;
+import java.io.StringReader;
 
 import com.sun.ts.lib.util.TestUtil;
 import com.sun.ts.tests.common.webclient.Goldenfile;
 import com.sun.ts.tests.common.webclient.Util;
+import com.sun.ts.tests.common.webclient.WhitespaceTokenReader;
 
 /**
  * <pre>
  * This class provides all of the functionality of the
  * WebValidatorBase class.  Additionally, it will compare
  * the server's response body with the test case's configured
- * goldenfile using a StringTokenizer.
+ * goldenfile token by token, ignoring whitespace.
  * </pre>
  */
 public class TokenizedValidator extends WebValidatorBase {
@@ -58,7 +59,9 @@ public class TokenizedValidator extends WebValidatorBase {
    */
 
   /**
-   * Compare the server response and golenfile using a StringTokenizer.
+   * Compare the server response and golenfile token by token. The response is
+   * tokenized as it is read and the comparison stops at the first token that
+   * does not match. The goldenfile tokens are cached by {@link Goldenfile}.
    *
    * @return true if response and goldenfile are the same.
    * @throws IOException
@@ -66,6 +69,7 @@ public class TokenizedValidator extends WebValidatorBase {
    */
   protected boolean checkGoldenfile() throws IOException {
     String gf = null;
+    String[] gfTokens = null;
     String path = _case.getGoldenfilePath();
     String enc = _res.getResponseEncoding();
 
@@ -77,11 +81,11 @@ public class TokenizedValidator extends WebValidatorBase {
 
     try {
       File goldenFile = new File(_case.getGoldenfilePath());
-      if(goldenFile.exists()){
-        gf = file.getGoldenFileAsString();
-      }
-      else if(_case.getGoldenfileStream()!=null){
+      if (goldenFile.exists() || _case.getGoldenfileStream() == null) {
+        gfTokens = file.getGoldenFileAsTokens();
+      } else {
         gf = Util.getEncodedStringFromStream(_case.getGoldenfileStream(), enc);
+        gfTokens = WhitespaceTokenReader.tokenize(new StringReader(gf));
       }
     } catch (IOException ioe) {
       TestUtil
@@ -90,49 +94,54 @@ public class TokenizedValidator extends WebValidatorBase {
       return false;
     }
 
-    String response = _res.getResponseBodyAsString();
-    StringTokenizer gfTokenizer = new StringTokenizer(gf);
-    StringTokenizer resTokenizer = new StringTokenizer(response);
-    int gfCount = gfTokenizer.countTokens();
-    int resCount = resTokenizer.countTokens();
-
     // Logic to handle the recording of goldenfiles.
-    if (gf.equals("NO GOLDENFILE FOUND") && Boolean.getBoolean(RECORD_GF)) {
+    if (!goldenFileExists(path, gf) && Boolean.getBoolean(RECORD_GF)) {
 
       TestUtil
           .logTrace("[TokenizedValidator][INFO] RECORDING GOLDENFILE: " + path);
       OutputStreamWriter out = new OutputStreamWriter(
           new FileOutputStream(path), enc);
-      out.write(response);
+      out.write(_res.getResponseBodyAsString());
       out.flush();
       out.close();
     }
 
-    // If the token counts are the same, continue checking
-    // each individual token, otherwise, immediately fail.
-    if (gfCount == resCount) {
-      while (gfTokenizer.hasMoreTokens()) {
-        String exp = gfTokenizer.nextToken();
+    WhitespaceTokenReader resTokenizer = new WhitespaceTokenReader(
+        _res.getResponseBodyAsReader());
+    try {
+      for (int i = 0; i < gfTokens.length; i++) {
         String res = resTokenizer.nextToken();
+        if (res == null) {
+          logTokenCountMismatch(resTokenizer.getTokenCount(), gfTokens.length);
+          dumpResponseInfo(_res.getResponseBodyAsString(),
+              gf != null ? gf : file.getGoldenFileAsString());
+          return false;
+        }
+        String exp = gfTokens[i];
         if (!exp.equals(res)) {
           StringBuffer sb = new StringBuffer(255);
           sb.append("[TokenizedValidator]: Server's response and ");
           sb.append("goldenfile to not match!\n");
           sb.append("\n            Goldenfile token: ").append(exp);
           sb.append("\n            Response token:   ").append(res);
+          sb.append("\n            Token number:     ").append(i + 1);
           TestUtil.logErr(sb.toString());
-          dumpResponseInfo(response, gf);
+          dumpResponseInfo(_res.getResponseBodyAsString(),
+              gf != null ? gf : file.getGoldenFileAsString());
           return false;
         }
       }
-    } else {
-      TestUtil
-          .logErr("[TokenizedValidator]: Token count between server response "
-              + "and goldenfile do not match.\n Response Token" + "count: "
-              + resCount + "\nGoldenfile Token count: " + gfCount);
-
-      dumpResponseInfo(response, gf);
-      return false;
+      if (resTokenizer.nextToken() != null) {
+        while (resTokenizer.nextToken() != null) {
+          // count the remaining tokens for the error message
+        }
+        logTokenCountMismatch(resTokenizer.getTokenCount(), gfTokens.length);
+        dumpResponseInfo(_res.getResponseBodyAsString(),
+            gf != null ? gf : file.getGoldenFileAsString());
+        return false;
+      }
+    } finally {
+      resTokenizer.close();
     }
     TestUtil.logTrace("[TokenizedValidator]: Server's response matches the "
         + "configured goldenfile.");
@@ -144,6 +153,20 @@ public class TokenizedValidator extends WebValidatorBase {
    * ========================================================================
    */
 
+  /**
+   * Returns false if the goldenfile could not be found, in which case the
+   * goldenfile content is the "NO GOLDENFILE FOUND" placeholder.
+   */
+  private static boolean goldenFileExists(String path, String gf) {
+    return gf != null || new File(path).exists();
+  }
+
+  private static void logTokenCountMismatch(int resCount, int gfCount) {
+    TestUtil.logErr("[TokenizedValidator]: Token count between server response "
+        + "and goldenfile do not match.\n Response Token" + "count: "
+        + resCount + "\nGoldenfile Token count: " + gfCount);
+  }
+
   /**
    * Dumps the response from the server and the content of the Goldenfile/
    * 
@@ -20,19 +20,14 @@
 package com.sun.ts.tests.jms.common;
 
 import java.util.ArrayList;
-import java.util.Enumeration;
 
 import com.sun.ts.lib.util.TestUtil;
 
 import jakarta.jms.Connection;
 import jakarta.jms.ConnectionFactory;
 import jakarta.jms.Destination;
-import jakarta.jms.Message;
 import jakarta.jms.MessageConsumer;
-import jakarta.jms.MessageProducer;
-import jakarta.jms.ObjectMessage;
 import jakarta.jms.Queue;
-import jakarta.jms.QueueBrowser;
 import jakarta.jms.Session;
 
 public final class Cleanup {
@@ -134,55 +129,18 @@ public final class Cleanup {
    **********************************************************************************/
   public void flushDestination(Destination destination) throws Exception {
     Connection conn = null;
-    MessageConsumer consumer = null;
-    MessageProducer producer = null;
     Session sess = null;
-    ObjectMessage msg = null;
-    int priority = 0;
-    int numMsgsFlushed = 0;
 
     TestUtil.logTrace("Entering flushDestination()");
     try {
-      TestUtil.logTrace(
-          "Create new Connection,Session,MessageProducer,MessageConsumer to flush Destination");
+      TestUtil.logTrace("Create new Connection,Session to flush Destination");
       conn = cf.createConnection(user, pass);
       sess = conn.createSession(false, Session.AUTO_ACKNOWLEDGE);
-      producer = sess.createProducer(destination);
-      consumer = sess.createConsumer(destination);
       conn.start(); // start the connections so that messages may be received.
 
-      // send a low priority message
-      // any other messages on the queue should be received first
-      // and low priority message should signal the end
-      msg = sess.createObjectMessage();
-      msg.setObject("Flush Destination");
-      msg.setStringProperty("COM_SUN_JMS_TESTNAME", "flushDestination");
-      TestUtil.logTrace(
-          "Send low priority message to Destination to signal the last message");
-      producer.send(msg, jakarta.jms.Message.DEFAULT_DELIVERY_MODE, priority,
-          jakarta.jms.Message.DEFAULT_TIME_TO_LIVE);
-
       // flush the Destination
       TestUtil.logTrace("Now flush the Destination");
-      Message rmsg = consumer.receive(5000);
-      while (rmsg != null) {
-        String tname = rmsg.getStringProperty("COM_SUN_JMS_TESTNAME");
-        if (tname != null && tname.equals("flushDestination")) {
-          // Should be last message (try receiveNoWait() to make sure it is)
-          rmsg = consumer.receiveNoWait();
-          while (rmsg != null) {
-            numMsgsFlushed++;
-            rmsg = consumer.receiveNoWait();
-          }
-          break;
-        } else {
-          numMsgsFlushed++;
-          rmsg = consumer.receiveNoWait();
-        }
-      }
-      if (numMsgsFlushed > 0) {
-        TestUtil.logTrace("#######flushed " + numMsgsFlushed + " messages");
-      }
+      new DestinationDrainer().drain(sess, destination);
     } catch (Exception e) {
       TestUtil.logErr("flushDestination exception: " + e.toString());
       TestUtil.printStackTrace(e);
@@ -206,13 +164,8 @@ public final class Cleanup {
    **********************************************************************************/
   public void flushQueue(ArrayList queues) throws Exception {
     Connection qc = null;
-    MessageConsumer qconsumer = null;
     Session qs = null;
-    ObjectMessage msg = null;
-    Enumeration msgs = null;
-    int priority = 0;
-    int numMsgsFlushed = 0;
-    int numMsgs = 0;
+    DestinationDrainer drainer = new DestinationDrainer();
 
     TestUtil.logTrace("Entering flushQueue(Arraylist)");
     try {
@@ -222,44 +175,10 @@ public final class Cleanup {
       qc.start(); // start the connections so that messages may be received.
 
       for (int i = 0; i < queues.size(); i++) {
+        // an empty Queue is only browsed
         TestUtil.logTrace(
-            "Create QueueBrowser to count number of messages left on Queue");
-        QueueBrowser qBrowser = qs.createBrowser((Queue) queues.get(i));
-        // count the number of messages
-        msgs = qBrowser.getEnumeration();
-        while (msgs.hasMoreElements()) {
-          msgs.nextElement();
-          numMsgs++;
-        }
-
-        if (numMsgs == 0) {
-          TestUtil.logTrace("No messages left on Queue "
-              + ((Queue) queues.get(i)).getQueueName());
-        } else {
-          TestUtil.logTrace(numMsgs + " messages left on Queue "
-              + ((Queue) queues.get(i)).getQueueName());
-
-          TestUtil.logTrace(
-              "Create new MessageConsumer to flush messages in Queue");
-          qconsumer = qs.createConsumer((Queue) queues.get(i));
-
-          // flush the queue
-          TestUtil.logTrace("Now flush the Queue");
-          Message rmsg = qconsumer.receive(5000);
-          while (rmsg != null) {
-            numMsgsFlushed++;
-            rmsg = qconsumer.receiveNoWait();
-            if (rmsg == null) {
-              // Should be last message (try receiveNoWait() one more time to
-              // make sure it is)
-              rmsg = qconsumer.receiveNoWait();
-            }
-          }
-
-          if (numMsgsFlushed > 0) {
-            TestUtil.logTrace("Flushed " + numMsgsFlushed + " messages");
-          }
-        }
+            "Now flush Queue " + ((Queue) queues.get(i)).getQueueName());
+        drainer.drain(qs, (Queue) queues.get(i));
       }
     } catch (Exception e) {
       TestUtil.logErr("flushQueue exception: " + e.toString());
@@ -285,44 +204,21 @@ public final class Cleanup {
    *          session the session
    **********************************************************************************/
   public void flushQueue(Queue queue, Session session) throws Exception {
-    int numMsgsFlushed = 0;
-    int numMsgs = 0;
-    Enumeration msgs = null;
+    MessageConsumer consumer = null;
 
     TestUtil.logTrace("Entering flushQueue(Queue, Session)");
     try {
-      QueueBrowser qBrowser = session.createBrowser(queue);
-      MessageConsumer consumer = session.createConsumer(queue);
-      // count the number of messages
-      msgs = qBrowser.getEnumeration();
-      while (msgs.hasMoreElements()) {
-        msgs.nextElement();
-        numMsgs++;
-      }
-
-      if (numMsgs == 0) {
-        TestUtil.logTrace("No messages left on Queue " + queue.getQueueName());
-      } else {
-        TestUtil.logTrace(
-            numMsgs + " messages left on Queue " + queue.getQueueName());
-        if (consumer != null) {
-          // flush the queue
-          Message msg = consumer.receiveNoWait();
-          while (msg != null) {
-            numMsgsFlushed++;
-            msg = consumer.receiveNoWait();
-          }
-          if (numMsgsFlushed > 0) {
-            TestUtil.logTrace("Flushed " + numMsgsFlushed + " messages");
-          }
-
-          // if Session is transacted be sure to commit consumed messages
-          if (numMsgsFlushed > 0 && session.getTransacted()) {
-            session.commit();
-          }
-        }
-      }
+      // the Session belongs to the test, so the Queue is drained
+      // synchronously, and consumed messages are committed if the Session is
+      // transacted.
+      consumer = session.createConsumer(queue);
+      new DestinationDrainer().drain(session, consumer, queue);
     } catch (Exception e) {
+    } finally {
+      try {
+        consumer.close();
+      } catch (Exception e) {
+      }
     }
     TestUtil.logTrace("Leaving flushQueue(Queue, Session)");
   }
@@ -0,0 +1,399 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.ts.tests.jms.common;
+
+import java.util.Enumeration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.ts.lib.util.TestUtil;
+
+import jakarta.jms.Destination;
+import jakarta.jms.JMSConsumer;
+import jakarta.jms.JMSContext;
+import jakarta.jms.JMSException;
+import jakarta.jms.JMSRuntimeException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageConsumer;
+import jakarta.jms.MessageListener;
+import jakarta.jms.MessageProducer;
+import jakarta.jms.ObjectMessage;
+import jakarta.jms.Queue;
+import jakarta.jms.QueueBrowser;
+import jakarta.jms.Session;
+
+/**
+ * Removes the messages left on a destination at cleanup time without waiting
+ * for receive timeouts to expire.
+ *
+ * A queue is browsed first and is not consumed from at all if it is empty.
+ * Otherwise the browsed messages are consumed by a MessageListener which
+ * releases a latch when the last of them has arrived. On a topic, or on a queue
+ * that cannot be browsed, a low priority marker message is sent before the
+ * listener is installed, and the listener releases the latch when it receives
+ * the marker.
+ *
+ * Where the container does not allow message listeners, or where the session
+ * is transacted or shared with the test, the messages are received
+ * synchronously, and receive only blocks while counted messages or the marker
+ * are still expected. All waits are bounded by {@link #DRAIN_TIMEOUT}
+ * milliseconds.
+ */
+public class DestinationDrainer {
+
+  public static final String MARKER_PROPERTY = "COM_SUN_JMS_TESTNAME";
+
+  public static final String MARKER_VALUE = "flushDestination";
+
+  public static final long DRAIN_TIMEOUT = 5000;
+
+  private int iDrained;
+
+  private long lLatency;
+
+  /**
+   * Returns the number of messages removed by the last drain.
+   */
+  public int getDrainedCount() {
+    return iDrained;
+  }
+
+  /**
+   * Returns the time taken by the last drain, in milliseconds.
+   */
+  public long getDrainLatency() {
+    return lLatency;
+  }
+
+  /**
+   * Returns the number of messages on the queue, or -1 if the queue cannot be
+   * browsed.
+   */
+  public static int getDepth(Session session, Queue queue) {
+    QueueBrowser browser = null;
+    try {
+      browser = session.createBrowser(queue);
+      return count(browser.getEnumeration());
+    } catch (JMSException e) {
+      TestUtil.logTrace("Cannot browse " + queue + ": " + e);
+      return -1;
+    } finally {
+      close(browser);
+    }
+  }
+
+  /**
+   * Returns the number of messages on the queue, or -1 if the queue cannot be
+   * browsed.
+   */
+  public static int getDepth(JMSContext context, Queue queue) {
+    QueueBrowser browser = null;
+    try {
+      browser = context.createBrowser(queue);
+      return count(browser.getEnumeration());
+    } catch (JMSException | JMSRuntimeException e) {
+      TestUtil.logTrace("Cannot browse " + queue + ": " + e);
+      return -1;
+    } finally {
+      close(browser);
+    }
+  }
+
+  /**
+   * Drains the destination through a consumer of its own. The session must not
+   * be used by anyone else while the destination is drained, and its connection
+   * must be started.
+   *
+   * @return the number of messages removed
+   */
+  public int drain(Session session, Destination destination)
+      throws JMSException {
+    long lStart = System.currentTimeMillis();
+    iDrained = 0;
+    int iDepth = destination instanceof Queue
+        ? getDepth(session, (Queue) destination)
+        : -1;
+    if (iDepth != 0) {
+      MessageConsumer consumer = session.createConsumer(destination);
+      try {
+        // the session is not used synchronously once it has a listener
+        if (iDepth < 0) {
+          sendMarker(session, destination);
+        }
+        DrainListener listener = new DrainListener(iDepth);
+        boolean bAsync = !session.getTransacted()
+            && setListener(consumer, listener);
+        if (bAsync) {
+          listener.await(destination);
+          // waits for a running onMessage to return
+          consumer.close();
+          consumer = null;
+          iDrained = listener.getCount();
+        } else {
+          iDrained = receive(consumer, iDepth);
+          if (session.getTransacted()) {
+            session.commit();
+          }
+        }
+      } finally {
+        if (consumer != null) {
+          consumer.close();
+        }
+      }
+    }
+    done(destination, lStart);
+    return iDrained;
+  }
+
+  /**
+   * Drains the queue with a consumer the session shares with the test. The
+   * messages are received synchronously, and committed if the session is
+   * transacted.
+   *
+   * @return the number of messages removed
+   */
+  public int drain(Session session, MessageConsumer consumer, Queue queue)
+      throws JMSException {
+    long lStart = System.currentTimeMillis();
+    iDrained = 0;
+    int iDepth = getDepth(session, queue);
+    if (iDepth != 0 && consumer != null) {
+      iDrained = receive(consumer, iDepth);
+      if (iDrained > 0 && session.getTransacted()) {
+        session.commit();
+      }
+    }
+    done(queue, lStart);
+    return iDrained;
+  }
+
+  /**
+   * Drains the destination through a consumer of its own on the given context.
+   * A consumer created now cannot find anything on a topic, so only queues are
+   * drained.
+   *
+   * @return the number of messages removed
+   */
+  public int drain(JMSContext context, Destination destination) {
+    long lStart = System.currentTimeMillis();
+    iDrained = 0;
+    int iDepth = destination instanceof Queue
+        ? getDepth(context, (Queue) destination)
+        : 0;
+    if (iDepth != 0) {
+      JMSConsumer consumer = context.createConsumer(destination);
+      try {
+        // the context is not used synchronously once it has a listener
+        if (iDepth < 0) {
+          ObjectMessage msg = context.createObjectMessage("Flush Destination");
+          try {
+            msg.setStringProperty(MARKER_PROPERTY, MARKER_VALUE);
+          } catch (JMSException e) {
+            throw new JMSRuntimeException(e.getMessage(), e.getErrorCode(), e);
+          }
+          context.createProducer().setPriority(0).send(destination, msg);
+          if (context.getTransacted()) {
+            context.commit();
+          }
+        }
+        DrainListener listener = new DrainListener(iDepth);
+        boolean bAsync = !context.getTransacted()
+            && setListener(consumer, listener);
+        if (bAsync) {
+          listener.await(destination);
+          consumer.close();
+          consumer = null;
+          iDrained = listener.getCount();
+        } else {
+          iDrained = receive(consumer, iDepth);
+          if (context.getTransacted()) {
+            context.commit();
+          }
+        }
+      } finally {
+        if (consumer != null) {
+          consumer.close();
+        }
+      }
+    }
+    done(destination, lStart);
+    return iDrained;
+  }
+
+  private void done(Destination destination, long lStart) {
+    lLatency = System.currentTimeMillis() - lStart;
+    if (iDrained > 0) {
+      TestUtil.logTrace("Flushed " + iDrained + " messages from "
+          + destination + " in " + lLatency + " ms");
+    } else {
+      TestUtil.logTrace("No messages to flush from " + destination + " ("
+          + lLatency + " ms)");
+    }
+  }
+
+  private static void sendMarker(Session session, Destination destination)
+      throws JMSException {
+    // any other message on the destination should be received first
+    ObjectMessage msg = session.createObjectMessage();
+    msg.setObject("Flush Destination");
+    msg.setStringProperty(MARKER_PROPERTY, MARKER_VALUE);
+    TestUtil.logTrace(
+        "Send low priority message to Destination to signal the last message");
+    MessageProducer producer = session.createProducer(destination);
+    try {
+      producer.send(msg, Message.DEFAULT_DELIVERY_MODE, 0,
+          Message.DEFAULT_TIME_TO_LIVE);
+    } finally {
+      producer.close();
+    }
+    if (session.getTransacted()) {
+      session.commit();
+    }
+  }
+
+  // false if the container does not allow message listeners
+  private static boolean setListener(MessageConsumer consumer,
+      MessageListener listener) {
+    try {
+      consumer.setMessageListener(listener);
+      return true;
+    } catch (JMSException e) {
+      TestUtil.logTrace("Receiving synchronously: " + e);
+      return false;
+    }
+  }
+
+  private static boolean setListener(JMSConsumer consumer,
+      MessageListener listener) {
+    try {
+      consumer.setMessageListener(listener);
+      return true;
+    } catch (JMSRuntimeException e) {
+      TestUtil.logTrace("Receiving synchronously: " + e);
+      return false;
+    }
+  }
+
+  /*
+   * Receives iExpected messages, or up to the marker if iExpected is negative,
+   * then whatever else is already there.
+   */
+  private static int receive(MessageConsumer consumer, int iExpected)
+      throws JMSException {
+    int n = 0;
+    Message msg = consumer.receive(DRAIN_TIMEOUT);
+    while (msg != null) {
+      if (iExpected < 0 && isMarker(msg) || ++n == iExpected) {
+        break;
+      }
+      msg = consumer.receive(DRAIN_TIMEOUT);
+    }
+    while ((msg = consumer.receiveNoWait()) != null) {
+      if (iExpected >= 0 || !isMarker(msg)) {
+        n++;
+      }
+    }
+    return n;
+  }
+
+  private static int receive(JMSConsumer consumer, int iExpected) {
+    int n = 0;
+    Message msg = consumer.receive(DRAIN_TIMEOUT);
+    while (msg != null) {
+      if (iExpected < 0 && isMarker(msg) || ++n == iExpected) {
+        break;
+      }
+      msg = consumer.receive(DRAIN_TIMEOUT);
+    }
+    while ((msg = consumer.receiveNoWait()) != null) {
+      if (iExpected >= 0 || !isMarker(msg)) {
+        n++;
+      }
+    }
+    return n;
+  }
+
+  private static boolean isMarker(Message msg) {
+    try {
+      return MARKER_VALUE.equals(msg.getStringProperty(MARKER_PROPERTY));
+    } catch (JMSException e) {
+      return false;
+    }
+  }
+
+  private static int count(Enumeration msgs) {
+    int n = 0;
+    while (msgs.hasMoreElements()) {
+      msgs.nextElement();
+      n++;
+    }
+    return n;
+  }
+
+  private static void close(QueueBrowser browser) {
+    if (browser != null) {
+      try {
+        browser.close();
+      } catch (JMSException e) {
+      }
+    }
+  }
+
+  /*
+   * Counts the messages delivered and releases the latch when the expected
+   * number has arrived, or at the marker if the number is not known.
+   */
+  private static class DrainListener implements MessageListener {
+    private final CountDownLatch done = new CountDownLatch(1);
+
+    private final AtomicInteger count = new AtomicInteger();
+
+    private final int iExpected;
+
+    DrainListener(int iExpected) {
+      this.iExpected = iExpected;
+    }
+
+    public void onMessage(Message msg) {
+      if (iExpected < 0) {
+        if (isMarker(msg)) {
+          done.countDown();
+        } else {
+          count.incrementAndGet();
+        }
+      } else if (count.incrementAndGet() == iExpected) {
+        done.countDown();
+      }
+    }
+
+    void await(Destination destination) {
+      try {
+        if (!done.await(DRAIN_TIMEOUT, TimeUnit.MILLISECONDS)) {
+          TestUtil.logTrace("Stopped waiting for messages from " + destination
+              + " after " + DRAIN_TIMEOUT + " ms");
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    int getCount() {
+      return count.get();
+    }
+  }
+}
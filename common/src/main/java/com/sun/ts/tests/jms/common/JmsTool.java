@@ -20,7 +20,6 @@
 package com.sun.ts.tests.jms.common;
 
 import java.util.ArrayList;
-import java.util.Enumeration;
 
 import com.sun.ts.lib.porting.TSJMSObjects;
 import com.sun.ts.lib.porting.TSJMSObjectsInterface;
@@ -30,15 +29,11 @@ import com.sun.ts.lib.util.TestUtil;
 import jakarta.jms.Connection;
 import jakarta.jms.ConnectionFactory;
 import jakarta.jms.Destination;
-import jakarta.jms.JMSConsumer;
 import jakarta.jms.JMSContext;
 import jakarta.jms.JMSException;
-import jakarta.jms.Message;
 import jakarta.jms.MessageConsumer;
 import jakarta.jms.MessageProducer;
-import jakarta.jms.ObjectMessage;
 import jakarta.jms.Queue;
-import jakarta.jms.QueueBrowser;
 import jakarta.jms.QueueConnection;
 import jakarta.jms.QueueConnectionFactory;
 import jakarta.jms.QueueReceiver;
@@ -1208,12 +1203,7 @@ public class JmsTool {
    **********************************************************************************/
   public void flushDestination() throws Exception {
     Connection cC = null;
-    MessageConsumer receiver = null;
-    MessageProducer sender = null;
     Session sess = null;
-    ObjectMessage msg = null;
-    int priority = 0; // lowest priority
-    int numMsgsFlushed = 0;
 
     try {
       if (conn != null) {
@@ -1226,46 +1216,14 @@ public class JmsTool {
       }
 
       TestUtil.logTrace(
-          "Create new Connection,Session,MessageProducer,MessageConsumer to flush Destination");
+          "Create new Connection,Session to flush Destination");
       cC = createNewConnection(ttype, username, password);
       sess = cC.createSession(false, Session.AUTO_ACKNOWLEDGE);
       cC.start(); // start the connections so that messages may be received.
-      sender = sess.createProducer(testDestination);
-      receiver = sess.createConsumer(testDestination);
-
-      // create and send a low priority message
-      // any other messages on the queue should be received first
-      // and low priority message should signal the end
-      msg = sess.createObjectMessage();
-      msg.setObject("Flush Destination");
-      msg.setStringProperty("COM_SUN_JMS_TESTNAME", "flushDestination");
-      TestUtil.logTrace(
-          "Send low priority message to Destination to signal the last message");
-      sender.send(msg, jakarta.jms.Message.DEFAULT_DELIVERY_MODE, priority,
-          jakarta.jms.Message.DEFAULT_TIME_TO_LIVE);
 
       // flush the Destination
       TestUtil.logTrace("Now flush the Destination");
-      Message rmsg = receiver.receive(5000);
-      while (rmsg != null) {
-        String tname = rmsg.getStringProperty("COM_SUN_JMS_TESTNAME");
-        if (tname != null && tname.equals("flushDestination")) {
-          // Should be last message (try receiveNoWait() one more time to make
-          // sure it is)
-          rmsg = receiver.receiveNoWait();
-          if (rmsg != null)
-            numMsgsFlushed++;
-        } else {
-          numMsgsFlushed++;
-        }
-        rmsg = receiver.receive(1000);
-      }
-
-      if (numMsgsFlushed > 0) {
-        TestUtil.logTrace("Flushed " + numMsgsFlushed + " messages");
-      } else {
-        TestUtil.logTrace("No messages to flush");
-      }
+      new DestinationDrainer().drain(sess, testDestination);
 
     } catch (Exception e) {
       TestUtil.logErr(
@@ -1289,14 +1247,8 @@ public class JmsTool {
    **********************************************************************************/
   public void flushQueue(ArrayList qToFlush) throws Exception {
     QueueConnection qc = null;
-    QueueReceiver qr = null;
     QueueSession qs = null;
-    QueueSender qsndr = null;
-    ObjectMessage msg = null;
-    Enumeration msgs = null;
-    int priority = 0; // lowest priority
-    int numMsgsFlushed = 0;
-    int numMsgs = 0;
+    DestinationDrainer drainer = new DestinationDrainer();
 
     try {
 
@@ -1310,44 +1262,10 @@ public class JmsTool {
       qc.start(); // start the connections so that messages may be received.
 
       for (int i = 0; i < qToFlush.size(); i++) {
+        // an empty Queue is only browsed
         TestUtil.logTrace(
-            "Create QueueBrowser to count number of messages left on Queue");
-        QueueBrowser qBrowser = qs.createBrowser((Queue) qToFlush.get(i));
-        // count the number of messages
-        msgs = qBrowser.getEnumeration();
-        while (msgs.hasMoreElements()) {
-          msgs.nextElement();
-          numMsgs++;
-        }
-
-        if (numMsgs == 0) {
-          TestUtil.logTrace("No Messages left on Queue "
-              + ((Queue) qToFlush.get(i)).getQueueName());
-        } else {
-          TestUtil.logTrace(numMsgs + " Messages left on Queue "
-              + ((Queue) qToFlush.get(i)).getQueueName());
-
-          TestUtil
-              .logTrace("Create new QueueReceiver to flush messages in Queue");
-          qr = qs.createReceiver((Queue) qToFlush.get(i));
-
-          // flush the queue
-          TestUtil.logTrace("Now flush the Queue");
-          Message rmsg = qr.receive(5000);
-          while (rmsg != null) {
-            numMsgsFlushed++;
-            rmsg = qr.receiveNoWait();
-            if (rmsg == null) {
-              // Should be last message (try receive(1000) one more time to make
-              // sure it is)
-              rmsg = qr.receive(1000);
-            }
-          }
-
-          if (numMsgsFlushed > 0) {
-            TestUtil.logTrace("Flushed " + numMsgsFlushed + " messages");
-          }
-        }
+            "Now flush Queue " + ((Queue) qToFlush.get(i)).getQueueName());
+        drainer.drain(qs, (Queue) qToFlush.get(i));
       }
     } catch (Exception e) {
       TestUtil
@@ -1363,51 +1281,12 @@ public class JmsTool {
   }
 
   public void flushQueue() throws Exception {
-    int numMsgsFlushed = 0;
-    int numMsgs = 0;
-    Enumeration msgs = null;
-
     try {
-      TestUtil.logTrace(
-          "Create QueueBrowser to count number of messages left on Queue");
-      QueueBrowser qBrowser = getDefaultQueueSession()
-          .createBrowser(getDefaultQueue());
-      // count the number of messages
-      msgs = qBrowser.getEnumeration();
-      while (msgs.hasMoreElements()) {
-        msgs.nextElement();
-        numMsgs++;
-      }
-
-      if (numMsgs == 0) {
-        TestUtil.logTrace(
-            "No Messages left on Queue " + getDefaultQueue().getQueueName());
-      } else {
-        TestUtil.logTrace(numMsgs + " Messages left on Queue "
-            + getDefaultQueue().getQueueName());
-        if (getDefaultQueueReceiver() != null) {
-          // flush the queue
-          Message msg = getDefaultQueueReceiver().receive(5000);
-          while (msg != null) {
-            numMsgsFlushed++;
-            msg = getDefaultQueueReceiver().receiveNoWait();
-            if (msg == null) {
-              // Should be last message (try receive(1000) one more time to make
-              // sure it is)
-              msg = getDefaultQueueReceiver().receive(1000);
-            }
-          }
-          if (numMsgsFlushed > 0) {
-            TestUtil.logTrace("Flushed " + numMsgsFlushed + " messages");
-          }
-
-          // if default QueueSession is transacted,
-          // be sure to commit consumed messages.
-          if (numMsgsFlushed > 0 && getDefaultQueueSession().getTransacted()) {
-            getDefaultQueueSession().commit();
-          }
-        }
-      }
+      // the default QueueReceiver belongs to the test, so it is drained
+      // synchronously, and consumed messages are committed if the default
+      // QueueSession is transacted.
+      new DestinationDrainer().drain(getDefaultQueueSession(),
+          getDefaultQueueReceiver(), getDefaultQueue());
     } catch (Exception e) {
     }
   }
@@ -1582,9 +1461,7 @@ public class JmsTool {
    * on the queue.
    **********************************************************************************/
   public void flushDestinationJMSContext() throws Exception {
-    JMSConsumer consumer = null;
     JMSContext context = null;
-    int numMsgsFlushed = 0;
 
     try {
       if (getDefaultConnection() != null) {
@@ -1597,34 +1474,16 @@ public class JmsTool {
         }
       }
 
-      TestUtil.logTrace(
-          "Create new JMSContext and JMSConsumer to flush Destination");
+      TestUtil.logTrace("Create new JMSContext to flush Destination");
       context = createNewJMSContext(ttype, username, password);
-      consumer = context.createConsumer(testDestination);
 
       TestUtil.logTrace("Now flush the Destination");
-      Message rmsg = consumer.receive(5000);
-      while (rmsg != null) {
-        numMsgsFlushed++;
-        rmsg = consumer.receiveNoWait();
-        if (rmsg == null) {
-          // Should be last message (try receive(1000) one more time to make
-          // sure it is)
-          rmsg = consumer.receive(1000);
-        }
-      }
-
-      if (numMsgsFlushed > 0) {
-        TestUtil.logTrace("Flushed " + numMsgsFlushed + " messages");
-      } else {
-        TestUtil.logTrace("No messages to flush");
-      }
+      new DestinationDrainer().drain(context, testDestination);
     } catch (Exception e) {
       TestUtil.logErr(
           "Cleanup error attempting to flush Destination: " + e.toString());
     } finally {
       try {
-        consumer.close();
         context.close();
       } catch (Exception e) {
       }
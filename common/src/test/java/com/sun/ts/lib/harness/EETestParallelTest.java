@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.ts.lib.harness;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.ts.lib.util.TestUtil;
+
+/*
+ * Runs all the testcases of a client with harness.parallel.workers set, and
+ * checks that each testcase sees its own name in TestUtil and that its log
+ * lines end up between its own begin and end banners.
+ */
+public class EETestParallelTest {
+
+  private static final int TESTS = 8;
+
+  private static final int WORKERS = 4;
+
+  private String currentDir;
+
+  @BeforeEach
+  void setCurrentDir() {
+    // getAllTestCases builds the exclude list names from the test directory
+    currentDir = System.getProperty("current.dir");
+    System.setProperty("current.dir", "/ts/src/com/sun/ts/tests/harness");
+    ParallelClient.reset();
+  }
+
+  @AfterEach
+  void restoreCurrentDir() {
+    if (currentDir == null) {
+      System.clearProperty("current.dir");
+    } else {
+      System.setProperty("current.dir", currentDir);
+    }
+  }
+
+  @Test
+  void testcasesRunConcurrentlyWithTheirOwnLog() {
+    StringWriter buffer = new StringWriter();
+    PrintWriter log = new PrintWriter(buffer, true);
+    // the shared log, as set by the harness before it runs a client
+    TestUtil.setCurrentTest(null, log, log);
+
+    Status status = new ParallelClient().run(
+        new String[] { "-dharness.parallel.workers=" + WORKERS }, log, log);
+    log.flush();
+
+    assertEquals(Status.PASSED, status.getType(), status.getReason());
+    assertTrue(ParallelClient.maxRunning.get() > 1,
+        "testcases did not run concurrently");
+    assertTrue(ParallelClient.mismatches.isEmpty(),
+        "wrong current test: " + ParallelClient.mismatches);
+
+    List<String> seen = new ArrayList<String>();
+    String current = null;
+    for (String line : buffer.toString().split("\\R")) {
+      int begin = line.indexOf("Beginning Test:  ");
+      int end = line.indexOf("End Test:  ");
+      int message = line.indexOf("message of ");
+      if (begin >= 0) {
+        assertEquals(null, current, "banners of two testcases overlap");
+        current = line.substring(begin + "Beginning Test:  ".length()).trim();
+        seen.add(current);
+      } else if (end >= 0) {
+        assertTrue(line.contains(current + "..........."),
+            "unexpected end banner in the log of " + current + ": " + line);
+        current = null;
+      } else if (message >= 0) {
+        assertEquals(current,
+            line.substring(message + "message of ".length()).trim(),
+            "log line written in the log of another testcase");
+      }
+    }
+    assertEquals(TESTS, seen.size(), "testcases logged: " + seen);
+  }
+
+  public static class ParallelClient extends EETest {
+
+    static final AtomicInteger running = new AtomicInteger();
+
+    static final AtomicInteger maxRunning = new AtomicInteger();
+
+    static final Queue<String> mismatches = new ConcurrentLinkedQueue<String>();
+
+    // released once two testcases are running at the same time
+    static CountDownLatch overlap;
+
+    static void reset() {
+      running.set(0);
+      maxRunning.set(0);
+      mismatches.clear();
+      overlap = new CountDownLatch(2);
+    }
+
+    public void setup(String[] args, Properties p) throws Exception {
+    }
+
+    public void cleanup() throws Exception {
+    }
+
+    public void test1() throws Exception {
+      runTest("test1");
+    }
+
+    public void test2() throws Exception {
+      runTest("test2");
+    }
+
+    public void test3() throws Exception {
+      runTest("test3");
+    }
+
+    public void test4() throws Exception {
+      runTest("test4");
+    }
+
+    public void test5() throws Exception {
+      runTest("test5");
+    }
+
+    public void test6() throws Exception {
+      runTest("test6");
+    }
+
+    public void test7() throws Exception {
+      runTest("test7");
+    }
+
+    public void test8() throws Exception {
+      runTest("test8");
+    }
+
+    private void runTest(String name) throws Exception {
+      int now = running.incrementAndGet();
+      maxRunning.accumulateAndGet(now, Math::max);
+      try {
+        overlap.countDown();
+        overlap.await(10, TimeUnit.SECONDS);
+        for (int i = 0; i < 20; i++) {
+          TestUtil.logMsg("message of " + name);
+          if (!name.equals(TestUtil.getCurrentTest())) {
+            mismatches.add(name + " saw " + TestUtil.getCurrentTest());
+          }
+          Thread.sleep(1);
+        }
+      } finally {
+        running.decrementAndGet();
+      }
+    }
+  }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.ts.lib.harness;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Properties;
+import java.util.Vector;
+
+import com.sun.ts.lib.util.ConfigUtil;
+
+/**
+ * Measures the cost of exclude list and keyword lookups for growing list
+ * sizes, comparing the compiled lookups of ExcludeListProcessor and
+ * TSKeywords with the linear searches they replace. It is not shipped with
+ * the TCK, and is run from the test classes of common:
+ *
+ * <pre>
+ * java -cp target/classes:target/test-classes com.sun.ts.lib.harness.ExcludeListBenchmark [sizes...]
+ * </pre>
+ *
+ * The compiled lookups should take about the same time for every size.
+ */
+public class ExcludeListBenchmark {
+
+  private static final int LOOKUPS = 200000;
+
+  // keeps the JIT from dropping the measured calls
+  private static int iSink;
+
+  public static void main(String[] args) throws IOException {
+    int[] sizes = { 100, 1000, 10000, 100000 };
+    if (args.length > 0) {
+      sizes = new int[args.length];
+      for (int ii = 0; ii < args.length; ii++) {
+        sizes[ii] = Integer.parseInt(args[ii]);
+      }
+    }
+    System.out.println(
+        "entries  exclude compiled ns/op  exclude linear ns/op  keyword compiled ns/op  keyword linear ns/op");
+    for (int ii = 0; ii < sizes.length; ii++) {
+      run(sizes[ii]);
+    }
+  }
+
+  private static void run(int iSize) throws IOException {
+    String[] lookups = new String[1024];
+    for (int ii = 0; ii < lookups.length; ii++) {
+      int n = (ii * 7919) % (iSize * 2);
+      lookups[ii] = testName(n);
+    }
+
+    // exclude list: every other test excluded, every tenth directory
+    File excludeFile = File.createTempFile("ts-exclude", ".jtx");
+    excludeFile.deleteOnExit();
+    Vector linear = new Vector();
+    PrintWriter out = new PrintWriter(excludeFile);
+    for (int ii = 0; ii < iSize; ii++) {
+      String sEntry = ii % 10 == 0 ? directory(ii * 2) : testName(ii * 2);
+      out.println(sEntry + " 1234 generic none");
+      linear.addElement(sEntry + " 1234 generic none");
+    }
+    out.close();
+    ExcludeListProcessor.readExcludeList(excludeFile.getPath());
+
+    long lCompiled = time(new Runnable() {
+      public void run() {
+        for (int ii = 0; ii < LOOKUPS; ii++) {
+          if (ExcludeListProcessor.isTestExcluded(lookups[ii & 1023]))
+            iSink++;
+        }
+      }
+    });
+    long lLinear = time(new Runnable() {
+      public void run() {
+        // the linear search is far slower, so measure fewer lookups
+        for (int ii = 0; ii < LOOKUPS / 100; ii++) {
+          if (linear.contains(lookups[ii & 1023]))
+            iSink++;
+        }
+      }
+    }) * 100;
+
+    // keyword mapping with one entry per directory
+    Properties mapping = new Properties();
+    for (int ii = 0; ii < iSize; ii++) {
+      mapping.setProperty(directory(ii), "kw" + ii + " javaee");
+    }
+    String[] keys = ConfigUtil.loadKeysFrom(mapping);
+    PrefixTrie<String[]> trie = new PrefixTrie<String[]>();
+    for (int ii = 0; ii < keys.length; ii++) {
+      trie.put(keys[ii], ConfigUtil.stringToArray(mapping.getProperty(keys[ii])));
+    }
+    long lKeywordCompiled = time(new Runnable() {
+      public void run() {
+        for (int ii = 0; ii < LOOKUPS; ii++) {
+          String[] result = trie.getLongestPrefixValue(lookups[ii & 1023]);
+          iSink += result == null ? 0 : result.length;
+        }
+      }
+    });
+    long lKeywordLinear = time(new Runnable() {
+      public void run() {
+        for (int ii = 0; ii < LOOKUPS / 100; ii++) {
+          iSink += ConfigUtil.getMappingValue(mapping, keys,
+              lookups[ii & 1023]).length;
+        }
+      }
+    }) * 100;
+
+    System.out.println(pad(iSize, 7) + pad(lCompiled / LOOKUPS, 24)
+        + pad(lLinear / LOOKUPS, 22) + pad(lKeywordCompiled / LOOKUPS, 24)
+        + pad(lKeywordLinear / LOOKUPS, 22));
+  }
+
+  private static String directory(int n) {
+    return "com/sun/ts/tests/area" + (n % 97) + "/dir" + n / 10 + "/";
+  }
+
+  private static String testName(int n) {
+    return directory(n) + "Client.java#test" + n + "_from_servlet";
+  }
+
+  // best of five runs, in nanoseconds
+  private static long time(Runnable r) {
+    long lBest = Long.MAX_VALUE;
+    for (int ii = 0; ii < 5; ii++) {
+      long lStart = System.nanoTime();
+      r.run();
+      lBest = Math.min(lBest, System.nanoTime() - lStart);
+    }
+    return lBest;
+  }
+
+  private static String pad(long l, int iWidth) {
+    StringBuffer sb = new StringBuffer(String.valueOf(l));
+    while (sb.length() < iWidth) {
+      sb.insert(0, ' ');
+    }
+    return sb.toString();
+  }
+}
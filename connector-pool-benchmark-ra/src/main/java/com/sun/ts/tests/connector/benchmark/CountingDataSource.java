@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+/*
+ * $Id$
+ */
+
+package com.sun.ts.tests.connector.benchmark;
+
+import com.sun.ts.tests.common.connector.whitebox.TSConnection;
+import com.sun.ts.tests.common.connector.whitebox.TSEISDataSource;
+
+import jakarta.resource.spi.ConnectionManager;
+import jakarta.resource.spi.ManagedConnectionFactory;
+
+/*
+ * The whitebox data source, counting the connection handles it gives to the
+ * application.
+ */
+public class CountingDataSource extends TSEISDataSource {
+
+  private static final long serialVersionUID = 1L;
+
+  private final PoolCounters counters;
+
+  public CountingDataSource(ManagedConnectionFactory mcf,
+      ConnectionManager cm, PoolCounters counters) {
+    super(mcf, cm);
+    this.counters = counters;
+  }
+
+  @Override
+  public TSConnection getConnection() throws Exception {
+    TSConnection con = super.getConnection();
+    counters.handleOpened();
+    return con;
+  }
+
+  @Override
+  public TSConnection getConnection(String username, String password)
+      throws Exception {
+    TSConnection con = super.getConnection(username, password);
+    counters.handleOpened();
+    return con;
+  }
+}
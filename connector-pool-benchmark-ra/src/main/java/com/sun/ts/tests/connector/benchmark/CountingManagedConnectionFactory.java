@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+/*
+ * $Id$
+ */
+
+package com.sun.ts.tests.connector.benchmark;
+
+import java.util.Set;
+
+import javax.security.auth.Subject;
+
+import com.sun.ts.tests.common.connector.whitebox.Util;
+import com.sun.ts.tests.common.connector.whitebox.XAManagedConnectionFactory;
+
+import jakarta.resource.ResourceException;
+import jakarta.resource.spi.ConnectionManager;
+import jakarta.resource.spi.ConnectionRequestInfo;
+import jakarta.resource.spi.ManagedConnection;
+
+/*
+ * The whitebox XA managed connection factory, counting in PoolCounters how
+ * the connection manager pools its managed connections. The whitebox
+ * managed connections support XA, local and no transactions, so the
+ * transaction support of each connection factory is chosen where it is
+ * defined. The counters of each factory are registered in JMX under its
+ * PoolName property.
+ */
+public class CountingManagedConnectionFactory
+    extends XAManagedConnectionFactory {
+
+  private static final long serialVersionUID = 1L;
+
+  private final PoolCounters counters = new PoolCounters();
+
+  private String poolName;
+
+  public String getPoolName() {
+    return poolName;
+  }
+
+  public void setPoolName(String val) {
+    poolName = val;
+  }
+
+  /*
+   * @name createConnectionFactory
+   *
+   * @desc Creates a new connection factory instance, and registers the pool
+   * counters
+   *
+   * @param ConnectionManager
+   *
+   * @return Object
+   *
+   * @exception ResourceException
+   */
+  @Override
+  public Object createConnectionFactory(ConnectionManager cxManager)
+      throws ResourceException {
+    if (poolName == null) {
+      throw new ResourceException("The PoolName property is not set");
+    }
+    counters.register(poolName);
+    return new CountingDataSource(this, cxManager, counters);
+  }
+
+  @Override
+  public Object createConnectionFactory() throws ResourceException {
+    return new CountingDataSource(this, null, counters);
+  }
+
+  @Override
+  public ManagedConnection createManagedConnection(Subject subject,
+      ConnectionRequestInfo info) throws ResourceException {
+    ManagedConnection mc = super.createManagedConnection(subject, info);
+    mc.addConnectionEventListener(counters);
+    counters.managedConnectionCreated();
+    return mc;
+  }
+
+  @Override
+  public ManagedConnection matchManagedConnections(Set connectionSet,
+      Subject subject, ConnectionRequestInfo info) throws ResourceException {
+    ManagedConnection mc = super.matchManagedConnections(connectionSet,
+        subject, info);
+    counters.managedConnectionMatched(mc != null);
+    return mc;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return obj instanceof CountingManagedConnectionFactory
+        && super.equals(obj) && Util.isEqual(poolName,
+            ((CountingManagedConnectionFactory) obj).getPoolName());
+  }
+
+  @Override
+  public int hashCode() {
+    return super.hashCode();
+  }
+}
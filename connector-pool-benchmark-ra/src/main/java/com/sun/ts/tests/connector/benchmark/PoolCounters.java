@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+/*
+ * $Id$
+ */
+
+package com.sun.ts.tests.connector.benchmark;
+
+import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import jakarta.resource.ResourceException;
+import jakarta.resource.spi.ConnectionEvent;
+import jakarta.resource.spi.ConnectionEventListener;
+
+/*
+ * Counts how the connection manager pools the managed connections of one
+ * CountingManagedConnectionFactory. The counters are atomics updated without
+ * the ConnectorStatus log, so they can be used under load. The handles closed
+ * are counted from the CONNECTION_CLOSED events of the managed connections,
+ * which the counters listen to like the connection manager does.
+ */
+public class PoolCounters
+    implements PoolCountersMXBean, ConnectionEventListener, Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  public static final String DOMAIN = "com.sun.ts.tests.connector.benchmark";
+
+  private final AtomicLong created = new AtomicLong();
+
+  private final AtomicLong matched = new AtomicLong();
+
+  private final AtomicLong unmatched = new AtomicLong();
+
+  private final AtomicLong opened = new AtomicLong();
+
+  private final AtomicLong closed = new AtomicLong();
+
+  /*
+   * @name register
+   *
+   * @desc registers the counters in the platform MBean server under the pool
+   * name, in place of the counters of an earlier deployment
+   *
+   * @param String
+   *
+   * @exception ResourceException
+   */
+  public void register(String poolName) throws ResourceException {
+    try {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      ObjectName name = new ObjectName(
+          DOMAIN + ":type=PoolCounters,name=" + poolName);
+      if (server.isRegistered(name)) {
+        server.unregisterMBean(name);
+      }
+      server.registerMBean(this, name);
+    } catch (Exception e) {
+      ResourceException re = new ResourceException(
+          "Can not register the pool counters of " + poolName);
+      re.initCause(e);
+      throw re;
+    }
+  }
+
+  void managedConnectionCreated() {
+    created.incrementAndGet();
+  }
+
+  void managedConnectionMatched(boolean found) {
+    (found ? matched : unmatched).incrementAndGet();
+  }
+
+  void handleOpened() {
+    opened.incrementAndGet();
+  }
+
+  public long getCreated() {
+    return created.get();
+  }
+
+  public long getMatched() {
+    return matched.get();
+  }
+
+  public long getUnmatched() {
+    return unmatched.get();
+  }
+
+  public long getOpened() {
+    return opened.get();
+  }
+
+  public long getClosed() {
+    return closed.get();
+  }
+
+  public void connectionClosed(ConnectionEvent event) {
+    closed.incrementAndGet();
+  }
+
+  public void localTransactionStarted(ConnectionEvent event) {
+  }
+
+  public void localTransactionCommitted(ConnectionEvent event) {
+  }
+
+  public void localTransactionRolledback(ConnectionEvent event) {
+  }
+
+  public void connectionErrorOccurred(ConnectionEvent event) {
+  }
+}
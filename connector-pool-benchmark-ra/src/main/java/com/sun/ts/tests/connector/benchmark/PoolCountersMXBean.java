@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+/*
+ * $Id$
+ */
+
+package com.sun.ts.tests.connector.benchmark;
+
+/*
+ * The pool counters of one connection factory of the benchmark adapter, as
+ * seen through JMX by the stress, which does not share the classes of the
+ * adapter. They are registered under the name
+ * com.sun.ts.tests.connector.benchmark:type=PoolCounters,name=<PoolName>.
+ */
+public interface PoolCountersMXBean {
+
+  /*
+   * @name getCreated
+   *
+   * @desc returns the managed connections created
+   *
+   * @return long
+   */
+  public long getCreated();
+
+  /*
+   * @name getMatched
+   *
+   * @desc returns the matchManagedConnections calls that returned a managed
+   * connection of the pool
+   *
+   * @return long
+   */
+  public long getMatched();
+
+  /*
+   * @name getUnmatched
+   *
+   * @desc returns the matchManagedConnections calls that returned none
+   *
+   * @return long
+   */
+  public long getUnmatched();
+
+  /*
+   * @name getOpened
+   *
+   * @desc returns the connection handles given to the application
+   *
+   * @return long
+   */
+  public long getOpened();
+
+  /*
+   * @name getClosed
+   *
+   * @desc returns the connection handles closed by the application
+   *
+   * @return long
+   */
+  public long getClosed();
+
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+/*
+ * $Id$
+ */
+
+package com.sun.ts.tests.connector.benchmark;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/*
+ * A snapshot of the counters kept by the benchmark adapter for one
+ * connection factory: the managed connections created and matched, and the
+ * connection handles given to and closed by the application. They are read
+ * through JMX, as the stress does not share the classes of the adapter. A
+ * stress takes a snapshot before and after its workload and looks at the
+ * difference.
+ */
+public class PoolStats {
+
+  public static final String DOMAIN = "com.sun.ts.tests.connector.benchmark";
+
+  private final long created;
+
+  private final long matched;
+
+  private final long unmatched;
+
+  private final long opened;
+
+  private final long closed;
+
+  private PoolStats(long created, long matched, long unmatched, long opened,
+      long closed) {
+    this.created = created;
+    this.matched = matched;
+    this.unmatched = unmatched;
+    this.opened = opened;
+    this.closed = closed;
+  }
+
+  /*
+   * @name snapshot
+   *
+   * @desc returns the current value of the counters of a pool
+   *
+   * @param String
+   *
+   * @return PoolStats
+   *
+   * @exception Exception
+   */
+  public static PoolStats snapshot(String poolName) throws Exception {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = new ObjectName(
+        DOMAIN + ":type=PoolCounters,name=" + poolName);
+    return new PoolStats(getCounter(server, name, "Created"),
+        getCounter(server, name, "Matched"),
+        getCounter(server, name, "Unmatched"),
+        getCounter(server, name, "Opened"), getCounter(server, name, "Closed"));
+  }
+
+  private static long getCounter(MBeanServer server, ObjectName name,
+      String attribute) throws Exception {
+    return ((Long) server.getAttribute(name, attribute)).longValue();
+  }
+
+  /*
+   * @name since
+   *
+   * @desc returns the counts between an earlier snapshot and this one
+   *
+   * @param PoolStats
+   *
+   * @return PoolStats
+   */
+  public PoolStats since(PoolStats earlier) {
+    return new PoolStats(created - earlier.created, matched - earlier.matched,
+        unmatched - earlier.unmatched, opened - earlier.opened,
+        closed - earlier.closed);
+  }
+
+  public long getCreated() {
+    return created;
+  }
+
+  public long getMatched() {
+    return matched;
+  }
+
+  public long getUnmatched() {
+    return unmatched;
+  }
+
+  public long getOpened() {
+    return opened;
+  }
+
+  public long getClosed() {
+    return closed;
+  }
+
+  /*
+   * @name getLeaked
+   *
+   * @desc returns the handles that were given to the application but not
+   * closed by it
+   *
+   * @return long
+   */
+  public long getLeaked() {
+    return opened - closed;
+  }
+
+  public String toString() {
+    return "managed connections created " + created + ", matched " + matched
+        + ", unmatched " + unmatched + "; handles opened " + opened
+        + ", closed " + closed + ", leaked " + getLeaked();
+  }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+/*
+ * $Id$
+ */
+
+package com.sun.ts.tests.connector.benchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.sun.ts.lib.util.TSNamingContext;
+import com.sun.ts.lib.util.TestUtil;
+import com.sun.ts.tests.common.connector.whitebox.TSConnection;
+import com.sun.ts.tests.common.connector.whitebox.TSDataSource;
+
+/*
+ * Stress of the connection pool of a whitebox resource adapter. Several
+ * threads get a connection from the same TSDataSource, use it, and close it,
+ * over and over, so that they contend for the managed connections pooled by
+ * the container's ConnectionManager. The time taken by each getConnection is
+ * recorded, and the pool counters of the benchmark adapter are compared
+ * before and after the run to see how the container matched and created the
+ * managed connections, and whether any connection handle leaked. The threads
+ * come from the default ManagedThreadFactory of the container, as the
+ * components the stress runs in must not create their own.
+ */
+
+public class PoolStress {
+
+  public static final String THREAD_FACTORY = "java:comp/DefaultManagedThreadFactory";
+
+  private final int threads;
+
+  private final int iterations;
+
+  private final long holdMillis;
+
+  public PoolStress(int threads, int iterations, long holdMillis) {
+    this.threads = threads;
+    this.iterations = iterations;
+    this.holdMillis = holdMillis;
+  }
+
+  /*
+   * Runs the stress against the data source of the pool, logs its result, and
+   * throws an Exception if a connection could not be got, used or closed, or
+   * if a connection handle leaked.
+   */
+  public Result run(final TSDataSource ds, String poolName) throws Exception {
+    final long[][] latencies = new long[threads][iterations];
+    final AtomicInteger failures = new AtomicInteger();
+    final AtomicReference<Exception> firstFailure = new AtomicReference<Exception>();
+    final CountDownLatch start = new CountDownLatch(1);
+    ThreadFactory threadFactory = getThreadFactory();
+    Thread[] workers = new Thread[threads];
+
+    for (int i = 0; i < threads; i++) {
+      final long[] latency = latencies[i];
+      // not a sample unless getConnection returns
+      Arrays.fill(latency, -1);
+      workers[i] = threadFactory.newThread(new Runnable() {
+        public void run() {
+          try {
+            start.await();
+          } catch (InterruptedException e) {
+            return;
+          }
+          for (int j = 0; j < iterations; j++) {
+            TSConnection con = null;
+            try {
+              long begin = System.nanoTime();
+              con = ds.getConnection();
+              latency[j] = System.nanoTime() - begin;
+              con.getAutoCommit();
+              if (holdMillis > 0) {
+                Thread.sleep(holdMillis);
+              }
+            } catch (Exception e) {
+              failures.incrementAndGet();
+              firstFailure.compareAndSet(null, e);
+            } finally {
+              if (con != null) {
+                try {
+                  con.close();
+                } catch (Exception e) {
+                  failures.incrementAndGet();
+                  firstFailure.compareAndSet(null, e);
+                }
+              }
+            }
+          }
+        }
+      });
+      workers[i].start();
+    }
+
+    PoolStats before = PoolStats.snapshot(poolName);
+    long begin = System.nanoTime();
+    start.countDown();
+    for (int i = 0; i < threads; i++) {
+      workers[i].join();
+    }
+    long elapsed = System.nanoTime() - begin;
+    PoolStats stats = PoolStats.snapshot(poolName).since(before);
+
+    Result result = new Result(latencies, elapsed, failures.get(), stats);
+    TestUtil.logMsg("PoolStress: " + result);
+    if (firstFailure.get() != null) {
+      throw new Exception(failures.get() + " connections failed, the first: "
+          + firstFailure.get().getMessage(), firstFailure.get());
+    }
+    if (stats.getLeaked() != 0) {
+      throw new Exception(stats.getLeaked() + " connection handles leaked");
+    }
+    return result;
+  }
+
+  /*
+   * Returns the default ManagedThreadFactory. The stress does not run on
+   * unmanaged threads, which would not measure the pool as the container's
+   * components use it.
+   */
+  private static ThreadFactory getThreadFactory() throws Exception {
+    try {
+      return (ThreadFactory) new TSNamingContext().lookup(THREAD_FACTORY);
+    } catch (Exception e) {
+      throw new Exception("No " + THREAD_FACTORY
+          + ", the stress must run in a Jakarta EE component", e);
+    }
+  }
+
+  public class Result {
+
+    private final long[] sorted;
+
+    private final long elapsed;
+
+    private final int failures;
+
+    private final PoolStats stats;
+
+    // the getConnection calls that failed are left out of the latencies
+    Result(long[][] latencies, long elapsed, int failures, PoolStats stats) {
+      long[] samples = new long[threads * iterations];
+      int n = 0;
+      for (int i = 0; i < threads; i++) {
+        for (int j = 0; j < iterations; j++) {
+          if (latencies[i][j] >= 0) {
+            samples[n++] = latencies[i][j];
+          }
+        }
+      }
+      sorted = Arrays.copyOf(samples, n);
+      Arrays.sort(sorted);
+      this.elapsed = elapsed;
+      this.failures = failures;
+      this.stats = stats;
+    }
+
+    public int getFailures() {
+      return failures;
+    }
+
+    public PoolStats getPoolStats() {
+      return stats;
+    }
+
+    /*
+     * Returns the getConnection latency, in microseconds, at the percentile p.
+     */
+    public long getLatency(int p) {
+      if (sorted.length == 0) {
+        return 0;
+      }
+      int i = (int) Math.ceil(sorted.length * p / 100.0) - 1;
+      return sorted[Math.max(0, Math.min(i, sorted.length - 1))] / 1000;
+    }
+
+    public String toString() {
+      long millis = Math.max(1, elapsed / 1000000);
+      return threads + " threads x " + iterations + " connections in "
+          + millis + " ms (" + sorted.length * 1000L / millis
+          + " connections/s), " + failures + " failed; getConnection p50 "
+          + getLatency(50) + " us, p90 " + getLatency(90) + " us, p99 "
+          + getLatency(99) + " us, max " + getLatency(100) + " us; " + stats;
+    }
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+/*
+ * $Id$
+ */
+package com.sun.ts.tests.connector.benchmark;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import com.sun.ts.lib.util.TSNamingContext;
+import com.sun.ts.tests.common.connector.whitebox.TSDataSource;
+
+import jakarta.resource.ConnectionFactoryDefinition;
+import jakarta.resource.ConnectionFactoryDefinitions;
+import jakarta.resource.spi.TransactionSupport.TransactionSupportLevel;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/*
+ * Stress of the connection pools of the container, not part of the TCK.
+ * Deploy connector-pool-benchmark-ra.rar, then connector-pool-benchmark.war,
+ * and request /connector-pool-benchmark/ to stress a pool of the benchmark
+ * adapter with XA, local and no transaction support in turn. The response is
+ * a plain text report of each run, with the status 500 if a run failed. The
+ * load is set by the request parameters threads (16), iterations (500) and
+ * hold (0 millis a connection is held before it is closed).
+ */
+@ConnectionFactoryDefinitions({
+    @ConnectionFactoryDefinition(name = "java:app/eis/pool-benchmark-xa",
+        interfaceName = "com.sun.ts.tests.common.connector.whitebox.TSDataSource",
+        resourceAdapter = PoolStressServlet.RESOURCE_ADAPTER,
+        transactionSupport = TransactionSupportLevel.XATransaction,
+        properties = { "PoolName=xa" }),
+    @ConnectionFactoryDefinition(name = "java:app/eis/pool-benchmark-localtx",
+        interfaceName = "com.sun.ts.tests.common.connector.whitebox.TSDataSource",
+        resourceAdapter = PoolStressServlet.RESOURCE_ADAPTER,
+        transactionSupport = TransactionSupportLevel.LocalTransaction,
+        properties = { "PoolName=localtx" }),
+    @ConnectionFactoryDefinition(name = "java:app/eis/pool-benchmark-notx",
+        interfaceName = "com.sun.ts.tests.common.connector.whitebox.TSDataSource",
+        resourceAdapter = PoolStressServlet.RESOURCE_ADAPTER,
+        transactionSupport = TransactionSupportLevel.NoTransaction,
+        properties = { "PoolName=notx" }) })
+@WebServlet("/")
+public class PoolStressServlet extends HttpServlet {
+
+  private static final long serialVersionUID = 1L;
+
+  static final String RESOURCE_ADAPTER = "connector-pool-benchmark-ra";
+
+  private static final String[] POOLS = { "xa", "localtx", "notx" };
+
+  @Override
+  protected void doGet(HttpServletRequest req, HttpServletResponse resp)
+      throws IOException {
+    PoolStress stress = new PoolStress(getParameter(req, "threads", 16),
+        getParameter(req, "iterations", 500), getParameter(req, "hold", 0));
+    StringWriter report = new StringWriter();
+    PrintWriter out = new PrintWriter(report);
+    boolean failed = false;
+    for (String pool : POOLS) {
+      try {
+        TSDataSource ds = (TSDataSource) new TSNamingContext()
+            .lookup("java:app/eis/pool-benchmark-" + pool);
+        out.println("[Benchmark] " + pool + ": " + stress.run(ds, pool));
+      } catch (Exception e) {
+        failed = true;
+        out.println("[Benchmark] " + pool + ": failed, " + e);
+      }
+    }
+    out.flush();
+    // the status must be set before the report is written
+    if (failed) {
+      resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+    }
+    resp.setContentType("text/plain");
+    resp.getWriter().print(report);
+  }
+
+  private static int getParameter(HttpServletRequest req, String name,
+      int defaultValue) {
+    String value = req.getParameter(name);
+    return value == null ? defaultValue : Integer.parseInt(value);
+  }
+}
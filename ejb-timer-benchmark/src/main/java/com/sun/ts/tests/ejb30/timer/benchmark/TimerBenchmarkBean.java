@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+/*
+ * $Id$
+ */
+package com.sun.ts.tests.ejb30.timer.benchmark;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.sun.ts.tests.ejb30.timer.common.TimerBeanBaseWithoutTimeOutMethod;
+import com.sun.ts.tests.ejb30.timer.common.TimerInfo;
+import com.sun.ts.tests.ejb30.timer.common.TimerUtil;
+
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.Schedule;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Timeout;
+import jakarta.ejb.Timer;
+import jakarta.ejb.TimerConfig;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+
+/**
+ * Creates the timers of the benchmark and records their expirations. The bean
+ * uses bean-managed concurrency so that the timeout methods run in parallel,
+ * as far as the timer service allows, and no transaction, so that each timer
+ * is created or cancelled on its own.
+ */
+@Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+public class TimerBenchmarkBean extends TimerBeanBaseWithoutTimeOutMethod {
+  public static final String AUTOMATIC_PERSISTENT = "automaticPersistent";
+
+  public static final String AUTOMATIC_NON_PERSISTENT = "automaticNonPersistent";
+
+  private static final long AUTOMATIC_INTERVAL_MILLIS = 1000;
+
+  private final Map<String, TimerStats> runs = new ConcurrentHashMap<String, TimerStats>();
+
+  // the scheduled expiration of a programmatic timer is in its TimerInfo
+  @Timeout
+  @Override
+  protected void timeout(Timer timer) {
+    TimerInfo info = (TimerInfo) timer.getInfo();
+    TimerStats stats = runs.get(info.getTestName());
+    if (stats != null) {
+      stats.fired(info.getLongVar());
+    }
+  }
+
+  @Schedule(second = "*", minute = "*", hour = "*", info = AUTOMATIC_PERSISTENT)
+  protected void automaticPersistentTimeout(Timer timer) {
+    automaticTimeout(AUTOMATIC_PERSISTENT, timer);
+  }
+
+  @Schedule(second = "*", minute = "*", hour = "*", persistent = false, info = AUTOMATIC_NON_PERSISTENT)
+  protected void automaticNonPersistentTimeout(Timer timer) {
+    automaticTimeout(AUTOMATIC_NON_PERSISTENT, timer);
+  }
+
+  // automatic timers expire every second, so the expiration being handled
+  // was scheduled one second before the next one. Only the expirations during
+  // a run are recorded.
+  private void automaticTimeout(String name, Timer timer) {
+    TimerStats stats = runs.get(name);
+    if (stats != null) {
+      stats.fired(
+          timer.getNextTimeout().getTime() - AUTOMATIC_INTERVAL_MILLIS);
+    }
+  }
+
+  public TimerStats startRun(String name, int expected) {
+    TimerStats stats = new TimerStats(expected);
+    runs.put(name, stats);
+    return stats;
+  }
+
+  public TimerStats awaitRun(String name, long waitMillis) {
+    TimerStats stats = runs.get(name);
+    stats.await(waitMillis);
+    runs.remove(name);
+    return stats;
+  }
+
+  /**
+   * Creates count timers that all expire delayMillis from now, or at the
+   * first whole second after that for calendar timers, and returns the time
+   * spent creating them, in nanoseconds.
+   */
+  public long createTimers(String name, int count, long delayMillis,
+      boolean persistent, boolean calendar) {
+    Calendar cal = Calendar.getInstance();
+    cal.add(Calendar.MILLISECOND, (int) delayMillis);
+    if (calendar) {
+      cal.add(Calendar.SECOND, 1);
+      cal.set(Calendar.MILLISECOND, 0);
+    }
+    Date expiration = cal.getTime();
+    long start = System.nanoTime();
+    for (int i = 0; i < count; i++) {
+      TimerConfig timerConfig = new TimerConfig(newInfo(name, expiration),
+          persistent);
+      if (calendar) {
+        createTimer(TimerUtil.getPreciseScheduleExpression(cal), timerConfig);
+      } else {
+        createTimer(expiration, timerConfig);
+      }
+    }
+    return System.nanoTime() - start;
+  }
+
+  /**
+   * Creates count timers that expire in the far future, then cancels them.
+   * Returns the time spent creating them and the time spent cancelling them,
+   * in nanoseconds.
+   */
+  public long[] createAndCancelTimers(String name, int count,
+      boolean persistent) {
+    Timer[] timers = new Timer[count];
+    Date expiration = TimerUtil.getCurrentDatePlus(Calendar.YEAR, 1);
+    long start = System.nanoTime();
+    for (int i = 0; i < count; i++) {
+      timers[i] = createTimer(expiration,
+          new TimerConfig(newInfo(name, expiration), persistent));
+    }
+    long created = System.nanoTime();
+    cancelTimer(timers);
+    return new long[] { created - start, System.nanoTime() - created };
+  }
+
+  // cancels the programmatic timers left by an earlier run, but not the
+  // automatic timers
+  public void cancelBenchmarkTimers() {
+    for (Timer timer : getTimers()) {
+      if (timer.getInfo() instanceof TimerInfo) {
+        timer.cancel();
+      }
+    }
+  }
+
+  private static TimerInfo newInfo(String name, Date expiration) {
+    TimerInfo info = new TimerInfo(name);
+    info.setLongVar(expiration.getTime());
+    return info;
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+/*
+ * $Id$
+ */
+package com.sun.ts.tests.ejb30.timer.benchmark;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import com.sun.ts.tests.ejb30.common.helper.Helper;
+
+import jakarta.ejb.EJB;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Benchmark of the timer service, not part of the TCK. Deploy
+ * ejb-timer-benchmark.war and request /ejb-timer-benchmark/ to run every
+ * scenario, persistent and non-persistent, and get a plain text report of the
+ * jitter percentiles and throughput of the timeouts, and of the cost of
+ * creating and cancelling timers. The load is set by the request parameters
+ * timers (1000 timers per scenario), delay (5000 millis before the timers
+ * expire) and samples (10 expirations of the automatic timers).
+ */
+@WebServlet("/")
+public class TimerBenchmarkServlet extends HttpServlet {
+  private static final long serialVersionUID = 1L;
+
+  // time allowed for the timeouts after they are due
+  private static final long WAIT_FOR_TIMEOUTS = 60000;
+
+  @EJB(beanName = "TimerBenchmarkBean")
+  private TimerBenchmarkBean benchmarkBean;
+
+  @Override
+  protected void doGet(HttpServletRequest req, HttpServletResponse resp)
+      throws IOException {
+    int count = getParameter(req, "timers", 1000);
+    int delay = getParameter(req, "delay", 5000);
+    int samples = getParameter(req, "samples", 10);
+    resp.setContentType("text/plain");
+    PrintWriter out = resp.getWriter();
+    benchmarkBean.cancelBenchmarkTimers();
+    for (boolean persistent : new boolean[] { false, true }) {
+      String suffix = persistent ? "Persistent" : "NonPersistent";
+      runTimers(out, "singleActionTimers" + suffix, count, delay, persistent,
+          false);
+      runTimers(out, "calendarTimers" + suffix, count, delay, persistent,
+          true);
+      runCreateCancel(out, "createCancel" + suffix, count, persistent);
+      runAutomatic(out, persistent ? TimerBenchmarkBean.AUTOMATIC_PERSISTENT
+          : TimerBenchmarkBean.AUTOMATIC_NON_PERSISTENT, samples);
+    }
+  }
+
+  private void runTimers(PrintWriter out, String name, int count, long delay,
+      boolean persistent, boolean calendar) {
+    benchmarkBean.startRun(name, count);
+    long nanos = benchmarkBean.createTimers(name, count, delay, persistent,
+        calendar);
+    report(out, name, "created " + count + " timers in " + nanos / 1000000
+        + " ms, " + nanos / 1000 / count + " us per timer");
+    TimerStats stats = benchmarkBean.awaitRun(name, delay + WAIT_FOR_TIMEOUTS);
+    report(out, name, stats.toString());
+    // timers that did not expire in time must not leak into the next run
+    benchmarkBean.cancelBenchmarkTimers();
+  }
+
+  private void runCreateCancel(PrintWriter out, String name, int count,
+      boolean persistent) {
+    long[] nanos = benchmarkBean.createAndCancelTimers(name, count,
+        persistent);
+    report(out, name, "created " + count + " timers in " + nanos[0] / 1000000
+        + " ms, " + nanos[0] / 1000 / count + " us per timer; cancelled them in "
+        + nanos[1] / 1000000 + " ms, " + nanos[1] / 1000 / count
+        + " us per timer");
+  }
+
+  // the automatic timers expire every second as long as the application is
+  // deployed; a run records the next samples of their expirations
+  private void runAutomatic(PrintWriter out, String name, int samples) {
+    benchmarkBean.startRun(name, samples);
+    TimerStats stats = benchmarkBean.awaitRun(name,
+        samples * 1000L + WAIT_FOR_TIMEOUTS);
+    report(out, name, stats.toString());
+  }
+
+  private static int getParameter(HttpServletRequest req, String name,
+      int defaultValue) {
+    String value = req.getParameter(name);
+    return value == null ? defaultValue : Integer.parseInt(value);
+  }
+
+  private static void report(PrintWriter out, String name, String result) {
+    String line = "[Benchmark] " + name + ": " + result;
+    Helper.getLogger().info(line);
+    out.println(line);
+    out.flush();
+  }
+}
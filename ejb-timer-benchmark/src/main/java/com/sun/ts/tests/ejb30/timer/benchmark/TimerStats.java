@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+/*
+ * $Id$
+ */
+package com.sun.ts.tests.ejb30.timer.benchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The expirations of the timers of one benchmark run. Timeout methods, on any
+ * thread, add the jitter of each expiration: the time between the scheduled
+ * expiration and the call of the timeout method.
+ */
+public class TimerStats {
+  private final int expected;
+
+  private final AtomicLongArray jitters;
+
+  private final AtomicInteger count = new AtomicInteger();
+
+  private final CountDownLatch done;
+
+  private long firstMillis = Long.MAX_VALUE;
+
+  private long lastMillis = Long.MIN_VALUE;
+
+  public TimerStats(int expected) {
+    this.expected = expected;
+    this.jitters = new AtomicLongArray(expected);
+    this.done = new CountDownLatch(expected);
+  }
+
+  public void fired(long scheduledMillis) {
+    long now = System.currentTimeMillis();
+    int i = count.getAndIncrement();
+    if (i >= expected) {
+      return;
+    }
+    jitters.set(i, now - scheduledMillis);
+    synchronized (this) {
+      firstMillis = Math.min(firstMillis, now);
+      lastMillis = Math.max(lastMillis, now);
+    }
+    done.countDown();
+  }
+
+  // Waits until all the expected timeouts are recorded, or waitMillis have
+  // passed. Returns false in the latter case.
+  public boolean await(long waitMillis) {
+    try {
+      return done.await(waitMillis, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  public int getCount() {
+    return Math.min(count.get(), expected);
+  }
+
+  public int getExpected() {
+    return expected;
+  }
+
+  @Override
+  public synchronized String toString() {
+    int n = getCount();
+    StringBuilder sb = new StringBuilder().append(n).append(" of ")
+        .append(expected).append(" timeouts");
+    if (n == 0) {
+      return sb.toString();
+    }
+    long[] sorted = new long[n];
+    for (int i = 0; i < n; i++) {
+      sorted[i] = jitters.get(i);
+    }
+    Arrays.sort(sorted);
+    sb.append(", jitter p50 ").append(percentile(sorted, 50))
+        .append(" ms, p90 ").append(percentile(sorted, 90))
+        .append(" ms, p99 ").append(percentile(sorted, 99))
+        .append(" ms, max ").append(sorted[n - 1]).append(" ms");
+    long spanMillis = lastMillis - firstMillis;
+    if (n > 1 && spanMillis > 0) {
+      sb.append(", ").append(n * 1000L / spanMillis)
+          .append(" timeouts/s over ").append(spanMillis).append(" ms");
+    }
+    return sb.toString();
+  }
+
+  private static long percentile(long[] sorted, int p) {
+    int i = (int) Math.ceil(sorted.length * p / 100.0) - 1;
+    return sorted[Math.max(0, Math.min(i, sorted.length - 1))];
+  }
+}
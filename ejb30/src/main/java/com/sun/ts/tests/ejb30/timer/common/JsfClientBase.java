@@ -19,11 +19,9 @@
  */
 package com.sun.ts.tests.ejb30.timer.common;
 
-import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
 
-import com.sun.ts.lib.util.TestUtil;
 import com.sun.ts.tests.ejb30.common.helper.Helper;
 import com.sun.ts.tests.ejb30.common.lite.EJBLiteJsfClientBase;
 
@@ -36,8 +34,6 @@ public class JsfClientBase extends EJBLiteJsfClientBase {
 
   protected static final int NUM_OF_RECURRING_RECORDS = 3;
 
-  protected static final long POLL_INTERVAL = 1000; // millis
-
   protected static final long DEFAULT_DURATION = 100L; // time out after these
                                                        // millisec
 
@@ -102,9 +98,8 @@ public class JsfClientBase extends EJBLiteJsfClientBase {
     // wait again to see if there is any subsequent expiration.
     long waitFor = (waitMillis.length != 0) ? waitMillis[0]
         : WAIT_FOR_TIMEOUT_STATUS;
-    TestUtil.sleepMsec((int) waitFor);
     assertEquals("Check num of expirations", 1,
-        statusSingleton.getRecords(timerName).size());
+        statusSingleton.waitForRecords(timerName, 2, waitFor).size());
   }
 
   // for recurring timers with interval
@@ -126,30 +121,24 @@ public class JsfClientBase extends EJBLiteJsfClientBase {
         NUM_OF_RECURRING_RECORDS - 1);
   }
 
+  // returns as soon as the timeout method sets the status, or adds the
+  // records of a recurring timer
   private Boolean pollTimeoutStatus(String timerName, long waitMillis,
       boolean recurringTimer) {
-    long end = System.currentTimeMillis() + waitMillis;
     Boolean status = null;
-    List<String> records = Collections.emptyList();
     if (recurringTimer) {
-      while (records.size() < NUM_OF_RECURRING_RECORDS
-          && System.currentTimeMillis() < end) {
-        TestUtil.sleepMsec((int) POLL_INTERVAL);
-        records = statusSingleton.getRecords(timerName);
-      }
+      List<String> records = statusSingleton.waitForRecords(timerName,
+          NUM_OF_RECURRING_RECORDS, waitMillis);
       status = statusSingleton.getStatus(timerName);
       if (records.size() < NUM_OF_RECURRING_RECORDS) {
         Helper.getLogger()
-            .fine("Polling recurring Timeout records timed out after "
+            .fine("Waiting for recurring Timeout records timed out after "
                 + waitMillis + " millis for timerName " + timerName);
       }
     } else {
-      while (status == null && System.currentTimeMillis() < end) {
-        TestUtil.sleepMsec((int) POLL_INTERVAL);
-        status = statusSingleton.getStatus(timerName);
-      }
+      status = statusSingleton.waitForStatus(timerName, waitMillis);
       if (status == null) {
-        Helper.getLogger().fine("Polling Timeout status timed out after "
+        Helper.getLogger().fine("Waiting for Timeout status timed out after "
             + waitMillis + " millis for timerName " + timerName);
       }
     }
@@ -27,11 +27,17 @@ import java.util.Map;
 
 import com.sun.ts.tests.ejb30.common.helper.Helper;
 
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
 import jakarta.ejb.Singleton;
 import jakarta.interceptor.ExcludeDefaultInterceptors;
 
+// Bean-managed concurrency, so that a client blocked in waitForStatus or
+// waitForRecords does not hold the container lock that the timeout methods
+// need to set the status and add records.
 @Singleton
 @ExcludeDefaultInterceptors
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
 public class TimeoutStatusBean {
   // to limit the number of records from some calendar-based recurring timers.
   private final static int maxNumOfRecords = 1000;
@@ -41,21 +47,37 @@ public class TimeoutStatusBean {
   private Map<String, Boolean> timeoutStatusMap = new HashMap<String, Boolean>();
 
   // If the status is explicitly set to false, the test must fail.
-  public Boolean getStatus(String testName) {
+  public synchronized Boolean getStatus(String testName) {
     return timeoutStatusMap.get(testName);
   }
 
-  public void removeStatus(String testName) {
+  // Waits until the status of the test is set, or waitMillis have passed.
+  // Returns the status, or null if it is still not set.
+  public synchronized Boolean waitForStatus(String testName,
+      long waitMillis) {
+    long end = System.currentTimeMillis() + waitMillis;
+    Boolean status = timeoutStatusMap.get(testName);
+    long remaining = waitMillis;
+    while (status == null && remaining > 0) {
+      waitForChange(remaining);
+      status = timeoutStatusMap.get(testName);
+      remaining = end - System.currentTimeMillis();
+    }
+    return status;
+  }
+
+  public synchronized void removeStatus(String testName) {
     timeoutStatusMap.remove(testName);
   }
 
-  public void setStatus(String testName, boolean b) {
+  public synchronized void setStatus(String testName, boolean b) {
     timeoutStatusMap.put(testName, b);
     Helper.getLogger()
         .fine("Set timeout status to " + b + ", for test " + testName);
+    notifyAll();
   }
 
-  public void addRecord(String testName, String record) {
+  public synchronized void addRecord(String testName, String record) {
     ArrayList<String> previousRecords = timeoutRecordsMap.get(testName);
     if (previousRecords == null) {
       previousRecords = new ArrayList<String>();
@@ -66,9 +88,10 @@ public class TimeoutStatusBean {
     }
     Helper.getLogger()
         .fine("Added timeout record for test " + testName + ": " + record);
+    notifyAll();
   }
 
-  public List<String> getRecords(String testName) {
+  public synchronized List<String> getRecords(String testName) {
     ArrayList<String> rec = timeoutRecordsMap.get(testName);
     if (rec == null) {
       return Collections.emptyList();
@@ -76,19 +99,50 @@ public class TimeoutStatusBean {
     return Collections.unmodifiableList(rec);
   }
 
-  public boolean containsRecords(String testName) {
+  // Waits until the test has numOfRecords records, or waitMillis have passed.
+  // Returns a copy of the records, which may be fewer than numOfRecords.
+  public synchronized List<String> waitForRecords(String testName,
+      int numOfRecords, long waitMillis) {
+    long end = System.currentTimeMillis() + waitMillis;
+    long remaining = waitMillis;
+    while (numOfRecords(testName) < numOfRecords && remaining > 0) {
+      waitForChange(remaining);
+      remaining = end - System.currentTimeMillis();
+    }
+    ArrayList<String> rec = timeoutRecordsMap.get(testName);
+    if (rec == null) {
+      return Collections.emptyList();
+    }
+    return Collections.unmodifiableList(new ArrayList<String>(rec));
+  }
+
+  public synchronized boolean containsRecords(String testName) {
     return timeoutRecordsMap.containsKey(testName);
   }
 
-  public void clearRecords() {
+  public synchronized void clearRecords() {
     timeoutRecordsMap.clear();
   }
 
-  public void removeRecords(String testName) {
+  public synchronized void removeRecords(String testName) {
     timeoutRecordsMap.remove(testName);
   }
 
-  public int recordsSize() {
+  public synchronized int recordsSize() {
     return timeoutRecordsMap.size();
   }
+
+  private int numOfRecords(String testName) {
+    ArrayList<String> rec = timeoutRecordsMap.get(testName);
+    return rec == null ? 0 : rec.size();
+  }
+
+  private void waitForChange(long millis) {
+    try {
+      wait(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
 }
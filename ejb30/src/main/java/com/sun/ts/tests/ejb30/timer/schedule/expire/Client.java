@@ -408,8 +408,9 @@ public class Client extends ClientBase {
     Timer timer = scheduleBean.createSecondLaterTimer(getTestName(), 2);
     // ScheduleBean's superclass' timeout method may add a positive timeout
     // record. But ScheduleBean's timeout method does additional verification,
-    // which may turn out to be negative.
-    TestUtil.sleepMsec((int) (WAIT_FOR_TIMEOUT_STATUS / 2));
+    // which may turn out to be negative. Together they add 5 records.
+    statusSingleton.waitForRecords(getTestName(), 5,
+        WAIT_FOR_TIMEOUT_STATUS / 2);
     passIfTimeout();
   }
 
@@ -21,7 +21,6 @@ package com.sun.ts.tests.ejb30.timer.schedule.tx;
 
 import java.util.List;
 
-import com.sun.ts.lib.util.TestUtil;
 import com.sun.ts.tests.ejb30.timer.common.TimerInfo;
 
 import jakarta.annotation.Resource;
@@ -81,7 +80,9 @@ abstract public class ClientBase
   public void createRollbackTxPropagation() throws Exception {
     ut.begin();
     Timer timer = scheduleBean.createSecondLaterTimer(getTimerConfig(), 2);
-    TestUtil.sleep(3000); // 3 seconds
+    // let the timer expire inside the tx; a timeout ends the wait early, and
+    // fails in passIfNoTimeout
+    statusSingleton.waitForStatus(getTestName(), 3000); // 3 seconds
     ut.rollback();
     assertEquals("contains the timer? " + timer, false,
         scheduleBean.getTimers().contains(timer));
@@ -96,7 +97,7 @@ abstract public class ClientBase
   public void createRollbackTxPropagationBMT() throws Exception {
     ut.begin();
     scheduleBMTBean.createSecondLaterTimer(getTimerConfig(), 2);
-    TestUtil.sleep(3000); // 3 seconds
+    statusSingleton.waitForStatus(getTestName(), 3000); // 3 seconds
     ut.rollback();
     passIfTimeout();
   }
@@ -233,8 +234,8 @@ abstract public class ClientBase
     appendReason(
         "If the transaction rolls back in timeout method, must retry at least once.");
     Timer timer = b.createSecondLaterTimer(getTimerConfig(), 2);
-    TestUtil.sleep((int) WAIT_FOR_TIMEOUT_STATUS);
-    List<String> a = statusSingleton.getRecords(getTestName());
+    List<String> a = statusSingleton.waitForRecords(getTestName(), 2,
+        WAIT_FOR_TIMEOUT_STATUS);
     appendReason("timeout callback result: ", a);
     assertGreaterThan(null, a.size(), 1);
 
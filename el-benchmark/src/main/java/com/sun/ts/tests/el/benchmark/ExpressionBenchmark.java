@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.ts.tests.el.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import jakarta.el.ELContext;
+import jakarta.el.ELManager;
+import jakarta.el.ELProcessor;
+import jakarta.el.ExpressionFactory;
+import jakarta.el.ValueExpression;
+
+/**
+ * Measures the jakarta.el implementation found on the class path with the
+ * expressions of the EL TCK, one part of the corpus at a time. Every
+ * invocation takes the next expression of the corpus, so the scores are per
+ * expression, averaged over the corpus:
+ *
+ * parse creates a ValueExpression as a page does on every request, and is
+ * served from the parse cache of implementations that have one. parseUncached
+ * appends a distinct literal to the expression so that it is parsed every
+ * time. evaluate calls getValue on ValueExpressions created in the setup.
+ * eval goes through ELProcessor.eval, which parses and evaluates. The lambda
+ * and collection parts of the corpus give the cost of lambda expressions and
+ * stream operators. The main method adds the GC profiler, whose
+ * gc.alloc.rate.norm is the allocation per evaluation.
+ *
+ * The implementation is the one the module is built with, see el.impl.* in
+ * its pom.xml.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ExpressionBenchmark {
+
+  @Param({ ExpressionCorpus.OPERATOR, ExpressionCorpus.COERCION,
+      ExpressionCorpus.LAMBDA, ExpressionCorpus.COLLECTION })
+  public String corpus;
+
+  private ELProcessor elp;
+
+  private ELContext context;
+
+  private ExpressionFactory factory;
+
+  private String[] expressions;
+
+  private String[] sources;
+
+  private ValueExpression[] compiled;
+
+  private int next;
+
+  private long unique;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    elp = ExpressionCorpus.newProcessor();
+    context = elp.getELManager().getELContext();
+    factory = ELManager.getExpressionFactory();
+    expressions = ExpressionCorpus.get(corpus);
+    sources = new String[expressions.length];
+    compiled = new ValueExpression[expressions.length];
+    for (int i = 0; i < expressions.length; i++) {
+      sources[i] = "${" + expressions[i] + "}";
+      compiled[i] = factory.createValueExpression(context, sources[i],
+          Object.class);
+      // an expression the implementation cannot evaluate fails the trial
+      compiled[i].getValue(context);
+    }
+  }
+
+  private int next() {
+    int i = next;
+    next = i + 1 == sources.length ? 0 : i + 1;
+    return i;
+  }
+
+  @Benchmark
+  public ValueExpression parse() {
+    return factory.createValueExpression(context, sources[next()],
+        Object.class);
+  }
+
+  @Benchmark
+  public ValueExpression parseUncached() {
+    return factory.createValueExpression(context,
+        sources[next()] + unique++, Object.class);
+  }
+
+  @Benchmark
+  public Object evaluate() {
+    return compiled[next()].getValue(context);
+  }
+
+  @Benchmark
+  public Object eval() {
+    return elp.eval(expressions[next()]);
+  }
+
+  public static void main(String[] args) throws Exception {
+    OptionsBuilder options = new OptionsBuilder();
+    options.parent(new CommandLineOptions(args));
+    options.addProfiler(GCProfiler.class);
+    new Runner(options.build()).run();
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.ts.tests.el.benchmark;
+
+import com.sun.ts.tests.el.common.util.DataBase;
+import com.sun.ts.tests.el.common.util.TypesBean;
+
+import jakarta.el.ELProcessor;
+
+/**
+ * Expressions taken from the EL TCK, grouped the way the spec tests are, and
+ * the ELProcessor they are evaluated with. The expressions are written without
+ * the enclosing ${}, as ELProcessor.eval takes them.
+ */
+final class ExpressionCorpus {
+
+  static final String OPERATOR = "operator";
+
+  static final String COERCION = "coercion";
+
+  static final String LAMBDA = "lambda";
+
+  static final String COLLECTION = "collection";
+
+  // com.sun.ts.tests.el.spec.binaryoperator, relationaloperator,
+  // conditionaloperator, emptyoperator and unaryoperator
+  private static final String[] OPERATORS = { "a + b", "a - b", "a * b",
+      "a / b", "a div b", "a % b", "a mod b", "a < b", "a gt b", "a <= b",
+      "a ge b", "a == b", "a ne b", "t && f", "t or f", "not t", "-a",
+      "empty a", "a > b ? a : b", "a += b" };
+
+  // com.sun.ts.tests.el.spec.coercion
+  private static final String[] COERCIONS = { "'12' + a",
+      "types.tckLong + '4.5'", "types.tckInteger == '1'",
+      "types.tckShort * types.tckFloat",
+      "types.tckBigInteger + types.tckBigDecimal", "types.tckByte - '1'",
+      "types.tckNull + 1", "'true' and types.tckBoolean",
+      "types.tckBoolean ? 'yes' : 'no'", "'a' < 'b'", "empty types.tckNull" };
+
+  // com.sun.ts.tests.el.spec.lambda
+  private static final String[] LAMBDAS = { "((x, y)-> x + y)(a, b)",
+      "((x, y)-> x * y)(a, b)", "(x->(y->x + y)(a))(b)",
+      "(cond->cond ? a : b)(t)", "z = (x, y)-> x - y; z(a, b)",
+      "fact = n -> n == 0 ? 1 : n * fact(n - 1); fact(10)" };
+
+  // com.sun.ts.tests.el.spec.collectionoperators
+  private static final String[] COLLECTIONS = {
+      "[2,3,1,5].stream().min().get()",
+      "customers.stream().min((x,y)->x.orders.size()-y.orders.size()).get().name",
+      "customers.stream().min(comparing(c->c.orders.size())).get().name",
+      "['xy', 'xyz', 'abc'].stream().max().get()",
+      "[1,2,3,4].stream().filter(i->i > 1).map(i->i*10).toList()",
+      "products.stream().filter(p->p.unitPrice >= 10 && p.unitPrice < 12)"
+          + ".sorted((p,q)->p.unitPrice-q.unitPrice)"
+          + ".map(p->[p.name,p.unitPrice]).toList()",
+      "products.stream().map(p->p.category).distinct().toList()",
+      "orders.stream().filter(o->o.total > 100).count()",
+      "ints.stream().average().get()",
+      "[1,2,3,4,5].stream().reduce(0, (l,r)->l+r)",
+      "products.stream().anyMatch(p->p.unitsInStock > 500)",
+      "customers.stream().flatMap(c->c.orders.stream()).map(o->o.total).toList()" };
+
+  private ExpressionCorpus() {
+  }
+
+  /**
+   * Returns the expressions of one part of the corpus.
+   */
+  static String[] get(String name) {
+    if (OPERATOR.equals(name)) {
+      return OPERATORS.clone();
+    } else if (COERCION.equals(name)) {
+      return COERCIONS.clone();
+    } else if (LAMBDA.equals(name)) {
+      return LAMBDAS.clone();
+    } else if (COLLECTION.equals(name)) {
+      return COLLECTIONS.clone();
+    }
+    throw new IllegalArgumentException("Unknown corpus " + name);
+  }
+
+  /**
+   * Returns an ELProcessor with the beans and variables the corpus refers to,
+   * set up as the spec tests do.
+   */
+  static ELProcessor newProcessor() {
+    ELProcessor elp = new ELProcessor();
+    DataBase database = new DataBase();
+    database.init();
+    elp.defineBean("customers", database.getCustomers());
+    elp.defineBean("products", database.getProducts());
+    elp.defineBean("orders", database.getOrders());
+    elp.defineBean("ints", database.getInts());
+    elp.defineBean("types", new TypesBean());
+    elp.eval("a = types.tckLong");
+    elp.eval("b = types.tckDouble");
+    elp.eval("t = true");
+    elp.eval("f = false");
+    elp.eval("comparing = map->(x,y)->map(x).compareTo(map(y))");
+    return elp;
+  }
+}
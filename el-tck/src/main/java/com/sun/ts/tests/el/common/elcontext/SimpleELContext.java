@@ -53,6 +53,8 @@ public class SimpleELContext extends ELContext {
 
   private VariableELResolver varResolver;
 
+  private ELResolver elResolver;
+
   // Custom ELResolvers.
   public enum Resolver {
 
@@ -74,8 +76,23 @@ public class SimpleELContext extends ELContext {
     this.compResolver = new CompositeELResolver();
   }
 
+  /*
+   * Constructor sharing the ELResolver of a template context, so that the
+   * resolvers are only built once. The new context has no context objects and
+   * no property resolved.
+   */
+  public SimpleELContext(SimpleELContext template) {
+    this.compResolver = template.compResolver;
+    this.myResolver = template.myResolver;
+    this.elResolver = template.getELResolver();
+    this.varResolver = template.varResolver;
+  }
+
   public ELResolver getELResolver() {
-    ELResolver elResolver;
+    // the resolvers are only added to the composite once
+    if (elResolver != null) {
+      return elResolver;
+    }
 
     if (myResolver == null) {
       varResolver = new VariableELResolver();
@@ -21,12 +21,16 @@
 
 package com.sun.ts.tests.el.common.util;
 
+import java.lang.ref.WeakReference;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.math.MathContext;
 import java.math.RoundingMode;
+import java.util.EnumMap;
 import java.util.Enumeration;
 import java.util.Hashtable;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 
 import com.sun.ts.tests.el.common.elcontext.SimpleELContext;
@@ -46,10 +50,53 @@ public final class ExprEval {
 
   private static final Logger logger = System.getLogger(ExprEval.class.getName());
 
+  // ExpressionFactory.newInstance() looks the implementation up through the
+  // ServiceLoader, so one factory is kept per context class loader. The
+  // factory is loaded by that class loader, so it is only weakly referenced,
+  // or the entry would never be removed.
+  private static final Map<ClassLoader, WeakReference<ExpressionFactory>> factories = new WeakHashMap<>();
+
+  // The resolvers of each ResolverType are built once per thread.
+  private static final ThreadLocal<EnumMap<ResolverType, SimpleELContext>> templates = ThreadLocal
+      .withInitial(() -> new EnumMap<>(ResolverType.class));
+
   // Suppress default constructor for non-instantiability
   private ExprEval() {
   }
 
+  /**
+   * Returns the ExpressionFactory of the context class loader, created by
+   * ExpressionFactory.newInstance() on first use.
+   */
+  public static ExpressionFactory getExpressionFactory() {
+    ClassLoader loader = Thread.currentThread().getContextClassLoader();
+    synchronized (factories) {
+      WeakReference<ExpressionFactory> ref = factories.get(loader);
+      ExpressionFactory factory = ref == null ? null : ref.get();
+      if (factory == null) {
+        factory = ExpressionFactory.newInstance();
+        factories.put(loader, new WeakReference<>(factory));
+      }
+      return factory;
+    }
+  }
+
+  /**
+   * Returns a new ELContext using the resolvers of the resolverType, which are
+   * shared with the previous contexts of the calling thread. Variables set by a
+   * previous evaluation are removed.
+   */
+  public static ELContext newELContext(ResolverType resolverType) {
+    EnumMap<ResolverType, SimpleELContext> map = templates.get();
+    SimpleELContext template = map.get(resolverType);
+    if (template == null) {
+      template = new SimpleELContext(resolverType);
+      map.put(resolverType, template);
+    }
+    template.cleanup();
+    return new SimpleELContext(template).getELContext();
+  }
+
   public static String buildElExpr(boolean deferred, String operation) {
 
     String sandwich = null;
@@ -97,10 +144,12 @@ public final class ExprEval {
       PropertyNotWritableException {
 
     // get what we need to create the expression
-    ExpressionFactory expFactory = ExpressionFactory.newInstance();
-    ELContext context = (new SimpleELContext(resolverType)).getELContext();
+    ExpressionFactory expFactory = getExpressionFactory();
+    ELContext context = newELContext(resolverType);
     ELResolver resolver = context.getELResolver();
     ExprEval.cleanup();
+    // the messages are only built when tracing
+    boolean trace = logger.isLoggable(Logger.Level.TRACE);
 
     // set the values of variables to be used in the expression
     if (nameVals == null) {
@@ -113,18 +162,22 @@ public final class ExprEval {
       for (int i = 0; i < nameVals.length; ++i) {
         String name = nameVals[i].getName();
         Object val = nameVals[i].getValue();
-        logger.log(Logger.Level.TRACE, "setting var " + name + " to value " + val);
+        if (trace) {
+          logger.log(Logger.Level.TRACE, "setting var " + name + " to value " + val);
+        }
         resolver.setValue(context, null, name, val);
       }
     }
 
     // create the expression
-    logger.log(Logger.Level.TRACE, "Creating ValueExpression");
-    logger.log(Logger.Level.TRACE, "context is " + context.getClass().toString());
-    logger.log(Logger.Level.TRACE, "exprStr is " + exprStr);
-    logger.log(Logger.Level.TRACE, "expectedClass is " + expectedClass.toString());
-    logger.log(Logger.Level.TRACE, 
-        "resolver is " + context.getELResolver().getClass().toString());
+    if (trace) {
+      logger.log(Logger.Level.TRACE, "Creating ValueExpression");
+      logger.log(Logger.Level.TRACE, "context is " + context.getClass().toString());
+      logger.log(Logger.Level.TRACE, "exprStr is " + exprStr);
+      logger.log(Logger.Level.TRACE, "expectedClass is " + expectedClass.toString());
+      logger.log(Logger.Level.TRACE,
+          "resolver is " + context.getELResolver().getClass().toString());
+    }
     ValueExpression vexp = expFactory.createValueExpression(context, exprStr,
         expectedClass);
 
@@ -183,8 +236,8 @@ public final class ExprEval {
       PropertyNotFoundException, PropertyNotWritableException {
 
     // get what we need to create the expression
-    ExpressionFactory expFactory = ExpressionFactory.newInstance();
-    ELContext context = (new SimpleELContext(resolverType)).getELContext();
+    ExpressionFactory expFactory = getExpressionFactory();
+    ELContext context = newELContext(resolverType);
 
     // create the expression
     MethodExpression mexp = expFactory.createMethodExpression(context, exprStr,
@@ -214,9 +267,8 @@ public final class ExprEval {
       PropertyNotFoundException, PropertyNotWritableException {
 
     // get what we need to create the expression
-    ExpressionFactory expFactory = ExpressionFactory.newInstance();
-    ELContext context = (new SimpleELContext(ResolverType.VARIABLE_ELRESOLVER))
-        .getELContext();
+    ExpressionFactory expFactory = getExpressionFactory();
+    ELContext context = newELContext(ResolverType.VARIABLE_ELRESOLVER);
 
     // create the expression
     ValueExpression vexp = expFactory.createValueExpression(context, exprStr,
@@ -256,9 +308,8 @@ public final class ExprEval {
     boolean result = true;
 
     // get what we need to create the expression
-    ExpressionFactory expFactory = ExpressionFactory.newInstance();
-    ELContext context = (new SimpleELContext(ResolverType.VARIABLE_ELRESOLVER))
-        .getELContext();
+    ExpressionFactory expFactory = getExpressionFactory();
+    ELContext context = newELContext(ResolverType.VARIABLE_ELRESOLVER);
 
     // create the expression
     ValueExpression vexp = expFactory.createValueExpression(context, exprStr,
@@ -275,7 +326,9 @@ public final class ExprEval {
 
       // add the object
       context.putContext(cl, value);
-      logger.log(Logger.Level.TRACE, "Adding value: " + "\"" + value + "\"" + " To Context!");
+      if (logger.isLoggable(Logger.Level.TRACE)) {
+        logger.log(Logger.Level.TRACE, "Adding value: " + "\"" + value + "\"" + " To Context!");
+      }
 
       // test the expression
       if (!(ExprEval.compareValue(exprVal, vexp.getValue(context)))) {
@@ -379,7 +432,11 @@ public final class ExprEval {
   // hashtable used by the SimpleELContext's VariableELResolver.
   // It is meant to be called at the end of a test.
   public static void cleanup() {
-    (new SimpleELContext()).cleanup();
+    SimpleELContext template = templates.get()
+        .get(ResolverType.VARIABLE_ELRESOLVER);
+    if (template != null) {
+      template.cleanup();
+    }
   }
 
 }
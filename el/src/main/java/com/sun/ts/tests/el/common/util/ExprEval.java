@@ -21,12 +21,16 @@
 
 package com.sun.ts.tests.el.common.util;
 
+import java.lang.ref.WeakReference;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.math.MathContext;
 import java.math.RoundingMode;
+import java.util.EnumMap;
 import java.util.Enumeration;
 import java.util.Hashtable;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 import com.sun.ts.lib.util.TestUtil;
 import com.sun.ts.tests.el.common.elcontext.SimpleELContext;
@@ -42,10 +46,53 @@ import jakarta.el.ValueExpression;
 
 public final class ExprEval {
 
+  // ExpressionFactory.newInstance() looks the implementation up through the
+  // ServiceLoader, so one factory is kept per context class loader. The
+  // factory is loaded by that class loader, so it is only weakly referenced,
+  // or the entry would never be removed.
+  private static final Map<ClassLoader, WeakReference<ExpressionFactory>> factories = new WeakHashMap<>();
+
+  // The resolvers of each ResolverType are built once per thread.
+  private static final ThreadLocal<EnumMap<ResolverType, SimpleELContext>> templates = ThreadLocal
+      .withInitial(() -> new EnumMap<>(ResolverType.class));
+
   // Suppress default constructor for non-instantiability
   private ExprEval() {
   }
 
+  /**
+   * Returns the ExpressionFactory of the context class loader, created by
+   * ExpressionFactory.newInstance() on first use.
+   */
+  public static ExpressionFactory getExpressionFactory() {
+    ClassLoader loader = Thread.currentThread().getContextClassLoader();
+    synchronized (factories) {
+      WeakReference<ExpressionFactory> ref = factories.get(loader);
+      ExpressionFactory factory = ref == null ? null : ref.get();
+      if (factory == null) {
+        factory = ExpressionFactory.newInstance();
+        factories.put(loader, new WeakReference<>(factory));
+      }
+      return factory;
+    }
+  }
+
+  /**
+   * Returns a new ELContext using the resolvers of the resolverType, which are
+   * shared with the previous contexts of the calling thread. Variables set by a
+   * previous evaluation are removed.
+   */
+  public static ELContext newELContext(ResolverType resolverType) {
+    EnumMap<ResolverType, SimpleELContext> map = templates.get();
+    SimpleELContext template = map.get(resolverType);
+    if (template == null) {
+      template = new SimpleELContext(resolverType);
+      map.put(resolverType, template);
+    }
+    template.cleanup();
+    return new SimpleELContext(template).getELContext();
+  }
+
   public static String buildElExpr(boolean deferred, String operation) {
 
     String sandwich = null;
@@ -93,10 +140,12 @@ public final class ExprEval {
       PropertyNotWritableException {
 
     // get what we need to create the expression
-    ExpressionFactory expFactory = ExpressionFactory.newInstance();
-    ELContext context = (new SimpleELContext(resolverType)).getELContext();
+    ExpressionFactory expFactory = getExpressionFactory();
+    ELContext context = newELContext(resolverType);
     ELResolver resolver = context.getELResolver();
     ExprEval.cleanup();
+    // the messages are only built when tracing
+    boolean trace = TestUtil.traceflag;
 
     // set the values of variables to be used in the expression
     if (nameVals == null) {
@@ -109,18 +158,22 @@ public final class ExprEval {
       for (int i = 0; i < nameVals.length; ++i) {
         String name = nameVals[i].getName();
         Object val = nameVals[i].getValue();
-        TestUtil.logTrace("setting var " + name + " to value " + val);
+        if (trace) {
+          TestUtil.logTrace("setting var " + name + " to value " + val);
+        }
         resolver.setValue(context, null, name, val);
       }
     }
 
     // create the expression
-    TestUtil.logTrace("Creating ValueExpression");
-    TestUtil.logTrace("context is " + context.getClass().toString());
-    TestUtil.logTrace("exprStr is " + exprStr);
-    TestUtil.logTrace("expectedClass is " + expectedClass.toString());
-    TestUtil.logTrace(
-        "resolver is " + context.getELResolver().getClass().toString());
+    if (trace) {
+      TestUtil.logTrace("Creating ValueExpression");
+      TestUtil.logTrace("context is " + context.getClass().toString());
+      TestUtil.logTrace("exprStr is " + exprStr);
+      TestUtil.logTrace("expectedClass is " + expectedClass.toString());
+      TestUtil.logTrace(
+          "resolver is " + context.getELResolver().getClass().toString());
+    }
     ValueExpression vexp = expFactory.createValueExpression(context, exprStr,
         expectedClass);
 
@@ -179,8 +232,8 @@ public final class ExprEval {
       PropertyNotFoundException, PropertyNotWritableException {
 
     // get what we need to create the expression
-    ExpressionFactory expFactory = ExpressionFactory.newInstance();
-    ELContext context = (new SimpleELContext(resolverType)).getELContext();
+    ExpressionFactory expFactory = getExpressionFactory();
+    ELContext context = newELContext(resolverType);
 
     // create the expression
     MethodExpression mexp = expFactory.createMethodExpression(context, exprStr,
@@ -210,9 +263,8 @@ public final class ExprEval {
       PropertyNotFoundException, PropertyNotWritableException {
 
     // get what we need to create the expression
-    ExpressionFactory expFactory = ExpressionFactory.newInstance();
-    ELContext context = (new SimpleELContext(ResolverType.VARIABLE_ELRESOLVER))
-        .getELContext();
+    ExpressionFactory expFactory = getExpressionFactory();
+    ELContext context = newELContext(ResolverType.VARIABLE_ELRESOLVER);
 
     // create the expression
     ValueExpression vexp = expFactory.createValueExpression(context, exprStr,
@@ -252,9 +304,8 @@ public final class ExprEval {
     boolean result = true;
 
     // get what we need to create the expression
-    ExpressionFactory expFactory = ExpressionFactory.newInstance();
-    ELContext context = (new SimpleELContext(ResolverType.VARIABLE_ELRESOLVER))
-        .getELContext();
+    ExpressionFactory expFactory = getExpressionFactory();
+    ELContext context = newELContext(ResolverType.VARIABLE_ELRESOLVER);
 
     // create the expression
     ValueExpression vexp = expFactory.createValueExpression(context, exprStr,
@@ -271,8 +322,10 @@ public final class ExprEval {
 
       // add the object
       context.putContext(cl, value);
-      TestUtil
-          .logTrace("Adding value: " + "\"" + value + "\"" + " To Context!");
+      if (TestUtil.traceflag) {
+        TestUtil
+            .logTrace("Adding value: " + "\"" + value + "\"" + " To Context!");
+      }
 
       // test the expression
       if (!(ExprEval.compareValue(exprVal, vexp.getValue(context)))) {
@@ -376,7 +429,11 @@ public final class ExprEval {
   // hashtable used by the SimpleELContext's VariableELResolver.
   // It is meant to be called at the end of a test.
   public static void cleanup() {
-    (new SimpleELContext()).cleanup();
+    SimpleELContext template = templates.get()
+        .get(ResolverType.VARIABLE_ELRESOLVER);
+    if (template != null) {
+      template.cleanup();
+    }
   }
 
 }
@@ -37,10 +37,13 @@ import com.sun.ts.lib.implementation.sun.javaee.RuntimeInfo;
  * to/from the V3 autodeploy directory and delegates out to ant build files
  * under bin/xml/glassfish/deploy.xml
  *
+ * Each deploy call runs the build file in its own ant Project, so the harness
+ * may deploy several archives at the same time.
+ *
  * @author Kyle Grucci
  *
  */
-public class AutoDeployment implements TSDeploymentInterface {
+public class AutoDeployment implements TSConcurrentDeploymentInterface {
 
   protected static final String DEPLOYED_MODULES_FILE = "ts-deployed-modules";
 
@@ -69,7 +72,6 @@ public class AutoDeployment implements TSDeploymentInterface {
 
   protected String deployStateFile;
 
-  private String sDepNumber = "1";
   /*
    * 1. Need to handle common apps, we can do this programatically
    * 
@@ -173,18 +175,16 @@ public class AutoDeployment implements TSDeploymentInterface {
 
   private void antSetupFromInfo(DeploymentInfo info, Project p) {
     String archive = info.getEarFile();
-    sDepNumber = info.getProperty("deployment.props.number");
 
     p.setProperty("archive.file", archive);
-    antSetup(archive, p, sDepNumber);
+    antSetup(archive, p, info.getProperty("deployment.props.number"));
   }
 
   private void antSetupFromProps(Properties props, Project p) {
     String archive = props.getProperty("ear_file");
-    sDepNumber = props.getProperty("deployment.props.number");
 
     p.setProperty("archive.file", archive);
-    antSetup(archive, p, sDepNumber);
+    antSetup(archive, p, props.getProperty("deployment.props.number"));
   }
 
   @Override
@@ -231,6 +231,55 @@ public class AutoDeployment implements TSDeploymentInterface {
 
   }
 
+  /**
+   * An application whose runtime descriptors map ejb-refs to JNDI names may
+   * refer to beans of the pending applications, so it is only deployed once
+   * they are. Other applications are deployed right away.
+   */
+  @Override
+  public boolean isIndependent(DeploymentInfo info, DeploymentInfo[] pending) {
+    if (pending.length == 0) {
+      return true;
+    }
+    List resources = info.getAppClientRuntimeDDs();
+    for (int i = 0; resources != null && i < resources.size(); i++) {
+      com.sun.ts.lib.implementation.sun.javaee.runtime.appclient.SunApplicationClient appResource = (com.sun.ts.lib.implementation.sun.javaee.runtime.appclient.SunApplicationClient) resources
+          .get(i);
+      if (hasEjbRefs(appResource.getEjbRef())) {
+        return false;
+      }
+    }
+    resources = info.getWebRuntimeDDs();
+    for (int i = 0; resources != null && i < resources.size(); i++) {
+      com.sun.ts.lib.implementation.sun.javaee.runtime.web.SunWebApp webResource = (com.sun.ts.lib.implementation.sun.javaee.runtime.web.SunWebApp) resources
+          .get(i);
+      if (hasEjbRefs(webResource.getEjbRef())) {
+        return false;
+      }
+    }
+    List ejbJars = info.getEjbRuntimeDDs();
+    for (int y = 0; ejbJars != null && y < ejbJars.size(); y++) {
+      com.sun.ts.lib.implementation.sun.javaee.runtime.ejb.SunEjbJar ejbJar = (com.sun.ts.lib.implementation.sun.javaee.runtime.ejb.SunEjbJar) ejbJars
+          .get(y);
+      if (ejbJar.getEnterpriseBeans() == null) {
+        continue;
+      }
+      resources = ejbJar.getEnterpriseBeans().getEjb();
+      for (int i = 0; resources != null && i < resources.size(); i++) {
+        com.sun.ts.lib.implementation.sun.javaee.runtime.ejb.Ejb ejbResource = (com.sun.ts.lib.implementation.sun.javaee.runtime.ejb.Ejb) resources
+            .get(i);
+        if (hasEjbRefs(ejbResource.getEjbRef())) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private static boolean hasEjbRefs(List ejbRefs) {
+    return ejbRefs != null && !ejbRefs.isEmpty();
+  }
+
   @Override
   public void undeploy(Properties p) throws TSDeploymentException {
     // String sArchive = p.getProperty("ear_file");
@@ -253,7 +302,6 @@ public class AutoDeployment implements TSDeploymentInterface {
   @Override
   public boolean isDeployed(Properties p) throws TSDeploymentException {
 
-    sDepNumber = p.getProperty("deployment.props.number");
     String sArchive = p.getProperty("ear_file");
     TestUtil.logHarness("AutoDeployment.isDeployed()");
     String archiveNameOnly = sArchive
@@ -43,7 +43,11 @@ public class AutoDeploymentSeparateVM extends AutoDeployment {
 
   private Map extraParameters = new HashMap();
 
-  private void getDeploymentServer() throws TSDeploymentException {
+  // deploy may be called from several threads
+  private synchronized void getDeploymentServer()
+      throws TSDeploymentException {
+    if (deploymentServer != null)
+      return;
     String sHost = "";
     String sPort = "2002";
 
@@ -109,8 +113,7 @@ public class AutoDeploymentSeparateVM extends AutoDeployment {
     String classpath = null;
 
     try {
-      if (deploymentServer == null)
-        getDeploymentServer();
+      getDeploymentServer();
 
       // send deploy info across to proxy
       classpath = deploymentServer.deploy(info);
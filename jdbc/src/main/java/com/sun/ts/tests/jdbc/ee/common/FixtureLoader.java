@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package com.sun.ts.tests.jdbc.ee.common;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.zip.CRC32;
+
+import com.sun.ts.lib.util.TestUtil;
+
+/**
+ * The FixtureLoader class populates the tables used by the JDBC tests with
+ * batched statements inside a single local transaction, instead of one
+ * statement per row in autocommit mode. Drivers that do not support batch
+ * updates get the same transaction with one executeUpdate per statement.
+ *
+ * A local transaction is only started when the connection is in autocommit
+ * mode; a connection taking part in a container transaction is used as it is.
+ *
+ * When the jdbc.fixture.reuse property is true, the tables left by a previous
+ * test are kept if their rows still match the fixture, compared through a CRC32
+ * checksum of the rows.
+ */
+public class FixtureLoader {
+
+  public static final String REUSE_PROP = "jdbc.fixture.reuse";
+
+  public static boolean isReuseEnabled(Properties p) {
+    return p != null
+        && Boolean.valueOf(p.getProperty(REUSE_PROP, "false").trim())
+            .booleanValue();
+  }
+
+  public static boolean supportsBatch(Connection conn) {
+    try {
+      return conn.getMetaData().supportsBatchUpdates();
+    } catch (SQLException e) {
+      TestUtil.logTrace("Cannot check batch update support: " + e);
+      return false;
+    }
+  }
+
+  /**
+   * Runs the delete statements, then inserts the rows of each table with its
+   * insert statement, all in one transaction. The parameters of the insert
+   * statements are set from the Integer, Float and String values of the rows.
+   */
+  public static void load(Connection conn, String[] sDeletes,
+      String[] sInserts, Object[][][] rows) throws SQLException {
+    boolean bBatch = supportsBatch(conn);
+    boolean bLocalTx = begin(conn);
+    try {
+      Statement stmt = conn.createStatement();
+      try {
+        for (int i = 0; i < sDeletes.length; i++) {
+          if (bBatch) {
+            stmt.addBatch(sDeletes[i]);
+          } else {
+            stmt.executeUpdate(sDeletes[i]);
+          }
+        }
+        if (bBatch) {
+          stmt.executeBatch();
+        }
+      } finally {
+        stmt.close();
+      }
+      for (int t = 0; t < sInserts.length; t++) {
+        PreparedStatement pStmt = conn.prepareStatement(sInserts[t]);
+        try {
+          for (int i = 0; i < rows[t].length; i++) {
+            setParameters(pStmt, rows[t][i]);
+            if (bBatch) {
+              pStmt.addBatch();
+            } else {
+              pStmt.executeUpdate();
+            }
+          }
+          if (bBatch) {
+            pStmt.executeBatch();
+          }
+        } finally {
+          pStmt.close();
+        }
+      }
+    } catch (SQLException e) {
+      end(conn, bLocalTx, false);
+      throw e;
+    }
+    end(conn, bLocalTx, true);
+    TestUtil.logTrace("Loaded " + sInserts.length + " tables"
+        + (bBatch ? " with batch updates" : ""));
+  }
+
+  /**
+   * Runs the statements in one transaction, as a single batch if the driver
+   * supports batch updates.
+   */
+  public static void execute(Connection conn, String[] sStatements)
+      throws SQLException {
+    load(conn, sStatements, new String[0], new Object[0][][]);
+  }
+
+  /**
+   * Returns true if the table holds exactly the given rows. The rows must be
+   * sorted on their first column.
+   */
+  public static boolean isLoaded(Connection conn, String sTableName,
+      Object[][] rows) {
+    try {
+      Statement stmt = conn.createStatement();
+      try {
+        ResultSet rs = stmt
+            .executeQuery("select * from " + sTableName + " order by 1");
+        CRC32 crc = new CRC32();
+        int n = 0;
+        while (rs.next()) {
+          if (n == rows.length
+              || rs.getMetaData().getColumnCount() != rows[n].length) {
+            return false;
+          }
+          for (int i = 0; i < rows[n].length; i++) {
+            update(crc, getValue(rs, i + 1, rows[n][i]));
+          }
+          n++;
+        }
+        rs.close();
+        return n == rows.length && crc.getValue() == checksum(rows);
+      } finally {
+        stmt.close();
+      }
+    } catch (SQLException e) {
+      TestUtil.logTrace("Cannot read the rows of " + sTableName + ": " + e);
+      return false;
+    }
+  }
+
+  public static long checksum(Object[][] rows) {
+    CRC32 crc = new CRC32();
+    for (int n = 0; n < rows.length; n++) {
+      for (int i = 0; i < rows[n].length; i++) {
+        Object value = rows[n][i];
+        update(crc, value instanceof String ? ((String) value).trim() : value);
+      }
+    }
+    return crc.getValue();
+  }
+
+  private static void update(CRC32 crc, Object value) {
+    crc.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+    crc.update(0);
+  }
+
+  // reads the column with the type of the expected value
+  private static Object getValue(ResultSet rs, int iColumn, Object expected)
+      throws SQLException {
+    if (expected instanceof Integer) {
+      return Integer.valueOf(rs.getInt(iColumn));
+    } else if (expected instanceof Float) {
+      return Float.valueOf(rs.getFloat(iColumn));
+    }
+    String s = rs.getString(iColumn);
+    // CHAR columns come back padded
+    return s == null ? null : s.trim();
+  }
+
+  private static void setParameters(PreparedStatement pStmt, Object[] row)
+      throws SQLException {
+    for (int i = 0; i < row.length; i++) {
+      if (row[i] instanceof Integer) {
+        pStmt.setInt(i + 1, ((Integer) row[i]).intValue());
+      } else if (row[i] instanceof Float) {
+        pStmt.setFloat(i + 1, ((Float) row[i]).floatValue());
+      } else if (row[i] instanceof String) {
+        pStmt.setString(i + 1, (String) row[i]);
+      } else {
+        pStmt.setObject(i + 1, row[i]);
+      }
+    }
+  }
+
+  // returns true if a local transaction was started
+  private static boolean begin(Connection conn) {
+    try {
+      if (conn.getAutoCommit()) {
+        conn.setAutoCommit(false);
+        return true;
+      }
+    } catch (SQLException e) {
+      TestUtil.logTrace("Loading without a local transaction: " + e);
+    }
+    return false;
+  }
+
+  private static void end(Connection conn, boolean bLocalTx, boolean bCommit)
+      throws SQLException {
+    if (!bLocalTx) {
+      return;
+    }
+    try {
+      if (bCommit) {
+        conn.commit();
+      } else {
+        conn.rollback();
+      }
+    } catch (SQLException e) {
+      if (bCommit) {
+        throw e;
+      }
+      TestUtil.logTrace("Rollback failed: " + e);
+    } finally {
+      conn.setAutoCommit(true);
+    }
+  }
+}
@@ -45,6 +45,11 @@ public class dbSchema extends ServiceEETest {
   // used only in dropTable() as properties are not passed as a parameter.
   private Properties props = null;
 
+  // the rows of the ptable and the ftable, when reused across tests
+  private Object[][] typeRows = null;
+
+  private Object[][] coffeeRows = null;
+
   public void createData(Properties p, Connection conn) throws RemoteException {
     TestUtil.logTrace("createData");
 
@@ -67,6 +72,11 @@ public class dbSchema extends ServiceEETest {
 
   public void destroyData(Connection conn) throws RemoteException {
     TestUtil.logTrace("destroyData");
+    if (isLoaded(conn)) {
+      TestUtil.logTrace("Keeping the rows of tables " + pTableName + " and "
+          + fTableName + " for the next test");
+      return;
+    }
     try {
       dropTables(conn);
       TestUtil.logTrace(
@@ -96,16 +106,6 @@ public class dbSchema extends ServiceEETest {
       throws RemoteException {
     TestUtil.logTrace("createTable");
 
-    // Remove all rows from the table
-    try {
-      dropTables(conn);
-      TestUtil.logTrace("Deleted all rows from Tables " + pTableName + " and "
-          + fTableName + " dropped");
-    } catch (Exception e) {
-      TestUtil.logErr("SQLException encountered while deleting rows for Tables "
-          + pTableName + " and " + fTableName, e);
-    }
-
     // Get the size of the table as int
     String strTabSize = testProps.getProperty("cofSize");
     TestUtil.logTrace("strTabSize: " + strTabSize);
@@ -127,6 +127,42 @@ public class dbSchema extends ServiceEETest {
     int tTypeSize = intTabTypeSize.intValue();
     TestUtil.logTrace("tTypeSize: " + tTypeSize);
 
+    Object[][] types = getTypeRows(tTypeSize);
+    Object[][] coffees = getCoffeeRows(tSize);
+    if (FixtureLoader.isReuseEnabled(testProps)) {
+      typeRows = types;
+      coffeeRows = coffees;
+      if (isLoaded(conn)) {
+        TestUtil.logTrace("Reusing the rows of tables " + pTableName + " and "
+            + fTableName);
+        return;
+      }
+    }
+
+    // Replace the rows of both tables in one transaction
+    try {
+      FixtureLoader.load(conn,
+          new String[] { testProps.getProperty("Dbschema_Tab1_Delete", ""),
+              testProps.getProperty("Dbschema_Tab2_Delete", "") },
+          new String[] { testProps.getProperty("Dbschema_Tab2_Insert", ""),
+              testProps.getProperty("Dbschema_Tab1_Insert", "") },
+          new Object[][][] { types, coffees });
+      return;
+    } catch (SQLException e) {
+      TestUtil.logTrace("Could not load the tables in one transaction, "
+          + "adding the rows one by one: " + e.getMessage());
+    }
+
+    // Remove all rows from the table
+    try {
+      dropTables(conn);
+      TestUtil.logTrace("Deleted all rows from Tables " + pTableName + " and "
+          + fTableName + " dropped");
+    } catch (Exception e) {
+      TestUtil.logErr("SQLException encountered while deleting rows for Tables "
+          + pTableName + " and " + fTableName, e);
+    }
+
     try {
 
       // Add the prescribed table rows
@@ -170,6 +206,39 @@ public class dbSchema extends ServiceEETest {
     }
   }
 
+  /*
+   * The rows added to the ptable, as added row by row below.
+   */
+  private Object[][] getTypeRows(int tTypeSize) {
+    Object[][] rows = new Object[tTypeSize][];
+    for (int j = 1; j <= tTypeSize; j++) {
+      rows[j - 1] = new Object[] { Integer.valueOf(j), "Type-" + j };
+    }
+    return rows;
+  }
+
+  /*
+   * The rows added to the ftable, as added row by row below.
+   */
+  private Object[][] getCoffeeRows(int tSize) {
+    Object[][] rows = new Object[tSize][];
+    for (int i = 1; i <= tSize; i++) {
+      int newType = i % 5;
+      if (newType == 0)
+        newType = 5;
+      rows[i - 1] = new Object[] { Integer.valueOf(i), fTableName + "-" + i,
+          Float.valueOf(i + (float) .00), Integer.valueOf(newType) };
+    }
+    return rows;
+  }
+
+  // true if the tables can be reused and still hold the initial rows
+  private boolean isLoaded(Connection conn) {
+    return typeRows != null
+        && FixtureLoader.isLoaded(conn, pTableName, typeRows)
+        && FixtureLoader.isLoaded(conn, fTableName, coffeeRows);
+  }
+
   private void dropTables(Connection conn) throws RemoteException {
     TestUtil.logTrace("dropTables");
     // Delete the fTable
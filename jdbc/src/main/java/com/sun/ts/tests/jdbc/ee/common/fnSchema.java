@@ -47,6 +47,20 @@ public class fnSchema extends ServiceEETest {
 
     TestUtil.logTrace("createTable");
 
+    // Replace the rows of both tables in one transaction
+    try {
+      FixtureLoader.execute(conn,
+          new String[] { props.getProperty("Fnschema_Tab1_Delete", ""),
+              props.getProperty("Fnschema_Tab2_Delete", ""),
+              props.getProperty("Fnschema_Tab1_Insert", ""),
+              props.getProperty("Fnschema_Tab2_Insert", "") });
+      TestUtil.logTrace("Loaded the tables in one transaction");
+      return;
+    } catch (SQLException e) {
+      TestUtil.logTrace("Could not load the tables in one transaction, "
+          + "using separate statements: " + e.getMessage());
+    }
+
     // drop Table if it exists
     try {
       dropTable(props, conn);
@@ -51,9 +51,22 @@ public class rsSchema extends ServiceEETest {
     String createString = null, createString1 = null, createString2 = null;
 
     TestUtil.logTrace("createTab");
+    props = sqlProps;
+
+    // Replace the rows in one transaction
+    try {
+      FixtureLoader.execute(conn,
+          new String[] { props.getProperty(sTableName.concat("_Delete")),
+              getInsertString(sTableName) });
+      logTrace("Rows added to the table " + sTableName);
+      return;
+    } catch (SQLException e) {
+      TestUtil.logTrace("Could not load the table in one transaction, "
+          + "using separate statements: " + e.getMessage());
+    }
+
     // drop table if it exists
     try {
-      props = sqlProps;
       dropTab(sTableName, conn);
       TestUtil.logTrace("deleted rows from table " + sTableName);
     } catch (Exception e) {
@@ -121,6 +134,18 @@ public class rsSchema extends ServiceEETest {
 
   }
 
+  /*
+   * Returns the statement inserting the rows of the table, as chosen below.
+   */
+  private String getInsertString(String sTableName) {
+    if (sTableName.startsWith("Binary_Tab")) {
+      return props.getProperty("Binary_Tab_Insert");
+    } else if (sTableName.startsWith("Varbinary_Tab")) {
+      return props.getProperty("Varbinary_Tab_Insert");
+    }
+    return props.getProperty(sTableName.concat("_Insert"));
+  }
+
   public void dropTab(String sTableName, Connection conn)
       throws RemoteException {
     logTrace("dropTab");
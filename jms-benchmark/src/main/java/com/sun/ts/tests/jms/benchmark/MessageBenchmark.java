@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package com.sun.ts.tests.jms.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.sun.ts.tests.jms.common.DestinationDrainer;
+import com.sun.ts.tests.jms.common.JmsTool;
+
+import jakarta.jms.DeliveryMode;
+import jakarta.jms.Destination;
+import jakarta.jms.Message;
+import jakarta.jms.MessageConsumer;
+import jakarta.jms.MessageProducer;
+import jakarta.jms.Queue;
+import jakarta.jms.Session;
+
+/**
+ * Measures a JMS provider through the default session, producer and consumer
+ * of a JmsTool in standalone mode, for each message type, delivery mode and
+ * session mode:
+ *
+ * roundTrip sends one message and receives it, and reports the latency
+ * percentiles. sendReceive sends {@value #BATCH} messages then receives them,
+ * and reports the throughput in messages per second. The main method adds the
+ * GC profiler, whose gc.alloc.rate.norm is the allocation per message.
+ *
+ * The provider is selected by the porting.ts.jmsObjects.class.1 system
+ * property, and is the in-process provider of the JMS TCK if it is not set.
+ * The user and password system properties default to j2ee. The destination
+ * parameter also accepts topic, and payloadSize any size:
+ * java -jar jms-benchmarks.jar -p destination=topic -p payloadSize=65536
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MessageBenchmark {
+
+	public static final String PORTING_PROP = "porting.ts.jmsObjects.class.1";
+
+	public static final String DEFAULT_PROVIDER = "com.sun.ts.lib.implementation.sun.jms.InVMJMSObjects";
+
+	public static final int BATCH = 100;
+
+	public static final long RECEIVE_TIMEOUT = 10000;
+
+	@Param({ MessageFixtures.BYTES, MessageFixtures.MAP, MessageFixtures.STREAM, MessageFixtures.OBJECT })
+	public String messageType;
+
+	@Param({ "NON_PERSISTENT", "PERSISTENT" })
+	public String deliveryMode;
+
+	@Param({ "AUTO_ACKNOWLEDGE", "TRANSACTED" })
+	public String sessionMode;
+
+	// sends the com.sun.ts.tests.jms.common fixtures instead of native messages
+	@Param({ "false", "true" })
+	public boolean foreign;
+
+	@Param({ "1024" })
+	public int payloadSize;
+
+	@Param({ "queue" })
+	public String destination;
+
+	private JmsTool tool;
+
+	private Session session;
+
+	private MessageProducer producer;
+
+	private MessageConsumer consumer;
+
+	private Message message;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		setDefault(PORTING_PROP, DEFAULT_PROVIDER);
+		setDefault("user", "j2ee");
+		setDefault("password", "j2ee");
+
+		boolean transacted = "TRANSACTED".equals(sessionMode);
+		int type;
+		if ("queue".equals(destination)) {
+			type = transacted ? JmsTool.COMMON_QTX : JmsTool.COMMON_Q;
+		} else if ("topic".equals(destination)) {
+			type = transacted ? JmsTool.COMMON_TTX : JmsTool.COMMON_T;
+		} else {
+			throw new IllegalArgumentException("Unknown destination type " + destination);
+		}
+		tool = new JmsTool(type, System.getProperty("user"), System.getProperty("password"), "standalone");
+		session = tool.getDefaultSession();
+		producer = tool.getDefaultProducer();
+		consumer = tool.getDefaultConsumer();
+		producer.setDeliveryMode(
+				"PERSISTENT".equals(deliveryMode) ? DeliveryMode.PERSISTENT : DeliveryMode.NON_PERSISTENT);
+		message = MessageFixtures.create(session, messageType, payloadSize, foreign);
+		tool.getDefaultConnection().start();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		// messages left by a failed invocation would be received by the next trial
+		Destination dest = tool.getDefaultDestination();
+		if (dest instanceof Queue) {
+			new DestinationDrainer().drain(session, consumer, (Queue) dest);
+		}
+		tool.closeDefaultConnections();
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SampleTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public Message roundTrip() throws Exception {
+		producer.send(message);
+		commit();
+		Message received = receive();
+		commit();
+		return received;
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.SECONDS)
+	@OperationsPerInvocation(BATCH)
+	public void sendReceive(Blackhole blackhole) throws Exception {
+		for (int i = 0; i < BATCH; i++) {
+			producer.send(message);
+		}
+		commit();
+		for (int i = 0; i < BATCH; i++) {
+			blackhole.consume(receive());
+		}
+		commit();
+	}
+
+	private void commit() throws Exception {
+		if (session.getTransacted()) {
+			session.commit();
+		}
+	}
+
+	private Message receive() throws Exception {
+		Message received = consumer.receive(RECEIVE_TIMEOUT);
+		if (received == null) {
+			throw new Exception("No message received within " + RECEIVE_TIMEOUT + " ms");
+		}
+		return received;
+	}
+
+	private static void setDefault(String name, String value) {
+		if (System.getProperty(name) == null) {
+			System.setProperty(name, value);
+		}
+	}
+
+	/**
+	 * Runs the benchmarks with the GC profiler; the arguments are JMH options.
+	 */
+	public static void main(String[] args) throws Exception {
+		OptionsBuilder options = new OptionsBuilder();
+		options.parent(new CommandLineOptions(args));
+		options.addProfiler(GCProfiler.class);
+		new Runner(options.build()).run();
+	}
+}
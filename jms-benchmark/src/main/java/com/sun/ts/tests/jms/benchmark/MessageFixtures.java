@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package com.sun.ts.tests.jms.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.sun.ts.tests.jms.common.BytesMessageTestImpl;
+import com.sun.ts.tests.jms.common.MapMessageTestImpl;
+import com.sun.ts.tests.jms.common.ObjectMessageTestImpl;
+import com.sun.ts.tests.jms.common.StreamMessageTestImpl;
+
+import jakarta.jms.BytesMessage;
+import jakarta.jms.JMSException;
+import jakarta.jms.MapMessage;
+import jakarta.jms.Message;
+import jakarta.jms.ObjectMessage;
+import jakarta.jms.Session;
+import jakarta.jms.StreamMessage;
+
+/**
+ * Builds the messages sent by the benchmarks. Each body holds the values the
+ * foreign message tests send (a boolean, a byte, a char, an int, a Double and a
+ * String) followed by a byte array of the requested size; an ObjectMessage
+ * holds the byte array only. As StreamMessageTestImpl cannot read byte arrays
+ * back with readObject, a StreamMessage carries the payload as Strings of at
+ * most {@value #STREAM_CHUNK} characters instead.
+ *
+ * Foreign messages are the provider independent implementations of
+ * com.sun.ts.tests.jms.common, which the provider has to convert when they are
+ * sent. Native messages are created by the session.
+ */
+final class MessageFixtures {
+
+	static final String BYTES = "bytes";
+
+	static final String MAP = "map";
+
+	static final String STREAM = "stream";
+
+	static final String OBJECT = "object";
+
+	static final boolean TEST_BOOLEAN = true;
+
+	static final byte TEST_BYTE = 100;
+
+	static final char TEST_CHAR = 'a';
+
+	static final int TEST_INT = 10;
+
+	static final Double TEST_OBJECT = Double.valueOf(3.141);
+
+	static final String TEST_STRING = "java";
+
+	static final int STREAM_CHUNK = 1024;
+
+	private MessageFixtures() {
+	}
+
+	static Message create(Session session, String type, int payloadSize, boolean foreign) throws JMSException {
+		byte[] payload = new byte[payloadSize];
+		Arrays.fill(payload, (byte) 'x');
+		Message message;
+		if (BYTES.equals(type)) {
+			BytesMessage bytes = foreign ? new BytesMessageTestImpl() : session.createBytesMessage();
+			bytes.writeBoolean(TEST_BOOLEAN);
+			bytes.writeByte(TEST_BYTE);
+			bytes.writeChar(TEST_CHAR);
+			bytes.writeInt(TEST_INT);
+			bytes.writeObject(TEST_OBJECT);
+			bytes.writeUTF(TEST_STRING);
+			bytes.writeBytes(payload);
+			if (foreign) {
+				// the fixture does not count the bytes written
+				((BytesMessageTestImpl) bytes).setBodyLength(1 + 1 + 2 + 4 + 8 + 2 + TEST_STRING.length() + payloadSize);
+			}
+			message = bytes;
+		} else if (MAP.equals(type)) {
+			MapMessage map = foreign ? new MapMessageTestImpl() : session.createMapMessage();
+			map.setBoolean("TestBoolean", TEST_BOOLEAN);
+			map.setByte("TestByte", TEST_BYTE);
+			map.setChar("TestChar", TEST_CHAR);
+			map.setInt("TestInt", TEST_INT);
+			map.setObject("TestDouble", TEST_OBJECT);
+			map.setString("TestString", TEST_STRING);
+			map.setBytes("TestBytes", payload);
+			message = map;
+		} else if (STREAM.equals(type)) {
+			StreamMessage stream = foreign ? new StreamMessageTestImpl() : session.createStreamMessage();
+			stream.writeBoolean(TEST_BOOLEAN);
+			stream.writeByte(TEST_BYTE);
+			stream.writeChar(TEST_CHAR);
+			stream.writeInt(TEST_INT);
+			stream.writeObject(TEST_OBJECT);
+			stream.writeString(TEST_STRING);
+			String chunk = new String(payload, 0, Math.min(payloadSize, STREAM_CHUNK), StandardCharsets.US_ASCII);
+			for (int n = payloadSize; n > 0; n -= STREAM_CHUNK) {
+				stream.writeString(n >= STREAM_CHUNK ? chunk : chunk.substring(0, n));
+			}
+			message = stream;
+		} else if (OBJECT.equals(type)) {
+			ObjectMessage object = foreign ? new ObjectMessageTestImpl() : session.createObjectMessage();
+			object.setObject(payload);
+			message = object;
+		} else {
+			throw new IllegalArgumentException("Unknown message type " + type);
+		}
+		message.setStringProperty("COM_SUN_JMS_TESTNAME", "MessageBenchmark");
+		return message;
+	}
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package com.sun.ts.lib.implementation.sun.jms;
+
+import java.io.PrintWriter;
+
+import com.sun.ts.lib.implementation.sun.jms.invm.Broker;
+import com.sun.ts.lib.porting.TSJMSAdminException;
+import com.sun.ts.lib.porting.TSJMSAdminInterface;
+
+/**
+ * An implementation of the TSJMSAdminInterface administering the in-process
+ * broker used by {@link InVMJMSObjects}. Connection factory properties are
+ * space separated name=value pairs, of which only ClientId is used.
+ */
+public class InVMJMSAdmin implements TSJMSAdminInterface {
+
+	private PrintWriter log;
+
+	private final Broker broker = Broker.getInstance();
+
+	public void init(PrintWriter writer) {
+		log = writer;
+	}
+
+	private void log(String s) {
+		if (log != null) {
+			log.println(s);
+			log.flush();
+		}
+	}
+
+	public void createQueues(String[] queues) throws TSJMSAdminException {
+		for (String queue : queues) {
+			log("Creating in-process queue " + queue);
+			broker.getQueue(queue);
+		}
+	}
+
+	public void createTopics(String[] topics) throws TSJMSAdminException {
+		for (String topic : topics) {
+			log("Creating in-process topic " + topic);
+			broker.getTopic(topic);
+		}
+	}
+
+	public void removeQueues(String[] queues) throws TSJMSAdminException {
+		for (String queue : queues) {
+			broker.removeQueue(queue);
+		}
+	}
+
+	public void removeTopics(String[] topics) throws TSJMSAdminException {
+		for (String topic : topics) {
+			broker.removeTopic(topic);
+		}
+	}
+
+	public void createQueueConnectionFactories(String[] queueConnectionFactories, String[] props)
+			throws TSJMSAdminException {
+		createConnectionFactories(queueConnectionFactories, props);
+	}
+
+	public void createTopicConnectionFactories(String[] topicConnectionFactories, String[] props)
+			throws TSJMSAdminException {
+		createConnectionFactories(topicConnectionFactories, props);
+	}
+
+	public void createConnectionFactories(String[] connectionFactories, String[] props)
+			throws TSJMSAdminException {
+		for (int i = 0; i < connectionFactories.length; i++) {
+			String clientID = getClientID(props != null && i < props.length ? props[i] : null);
+			log("Creating in-process connection factory " + connectionFactories[i]
+					+ (clientID == null ? "" : " with client id " + clientID));
+			InVMJMSObjects.registerConnectionFactory(connectionFactories[i], clientID);
+		}
+	}
+
+	public void removeJmsConnectionFactories(String[] jmsConnectionFactoryNames) throws TSJMSAdminException {
+		for (String name : jmsConnectionFactoryNames) {
+			InVMJMSObjects.removeConnectionFactory(name);
+		}
+	}
+
+	private static String getClientID(String props) throws TSJMSAdminException {
+		if (props == null) {
+			return null;
+		}
+		for (String prop : props.trim().split("\\s+")) {
+			int i = prop.indexOf('=');
+			if (i < 0 && !prop.isEmpty()) {
+				throw new TSJMSAdminException("Invalid connection factory property: " + prop);
+			}
+			if (i > 0 && prop.substring(0, i).equalsIgnoreCase("ClientId")) {
+				return prop.substring(i + 1);
+			}
+		}
+		return null;
+	}
+}
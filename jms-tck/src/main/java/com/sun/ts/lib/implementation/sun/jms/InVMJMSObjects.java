@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package com.sun.ts.lib.implementation.sun.jms;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.sun.ts.lib.implementation.sun.jms.invm.Broker;
+import com.sun.ts.lib.implementation.sun.jms.invm.InVMConnectionFactory;
+import com.sun.ts.lib.porting.TSJMSObjectsInterface;
+import com.sun.ts.lib.util.TestUtil;
+
+import jakarta.jms.ConnectionFactory;
+import jakarta.jms.Queue;
+import jakarta.jms.QueueConnectionFactory;
+import jakarta.jms.Topic;
+import jakarta.jms.TopicConnectionFactory;
+
+/**
+ * An implementation of the TSJMSObjectsInterface returning the administered
+ * objects of an in-process broker, so that the standalone JMS tests can run
+ * without an application server or a JMS server. It is selected by setting
+ * porting.ts.jmsObjects.class.1 to this class, in ts.jte or as a system
+ * property.
+ *
+ * Queues and topics are created when they are first looked up. The connection
+ * factory named DURABLE_SUB_CONNECTION_FACTORY gives its connections the
+ * client id "cts", as the factory configured for the TCK does. If the user
+ * property is set, the broker only accepts that user and password.
+ */
+public class InVMJMSObjects implements TSJMSObjectsInterface {
+
+	public static final String DURABLE_SUB_CONNECTION_FACTORY = "DURABLE_SUB_CONNECTION_FACTORY";
+
+	public static final String DURABLE_SUB_CLIENT_ID = "cts";
+
+	private static final Map<String, InVMConnectionFactory> factories = new ConcurrentHashMap<>();
+
+	private final Broker broker = Broker.getInstance();
+
+	public InVMJMSObjects() {
+		String user = getProperty("user");
+		if (user != null) {
+			broker.addUser(user, getProperty("password"));
+		}
+	}
+
+	private static String getProperty(String name) {
+		String value = TestUtil.getProperty(name);
+		return value != null ? value : System.getProperty(name);
+	}
+
+	/**
+	 * Registers a connection factory whose connections get the given client id,
+	 * which may be null.
+	 */
+	static void registerConnectionFactory(String name, String clientID) {
+		factories.put(name, new InVMConnectionFactory(clientID));
+	}
+
+	static void removeConnectionFactory(String name) {
+		factories.remove(name);
+	}
+
+	private InVMConnectionFactory getFactory(String name) {
+		return factories.computeIfAbsent(name, n -> new InVMConnectionFactory(
+				DURABLE_SUB_CONNECTION_FACTORY.equals(n) ? DURABLE_SUB_CLIENT_ID : null));
+	}
+
+	/**
+	 * This method allows individual implementation to get the Queue
+	 */
+	public Queue getQueue(String name) throws Exception {
+		return broker.getQueue(name);
+	}
+
+	/**
+	 * This method allows individual implementation to get the Topic
+	 */
+	public Topic getTopic(String name) throws Exception {
+		return broker.getTopic(name);
+	}
+
+	/**
+	 * This method allows individual implementation to get the
+	 * QueueConnectionFactory
+	 */
+	public QueueConnectionFactory getQueueConnectionFactory(String name) throws Exception {
+		return getFactory(name);
+	}
+
+	/**
+	 * This method allows individual implementation to get the
+	 * TopicConnectionFactory
+	 */
+	public TopicConnectionFactory getTopicConnectionFactory(String name) throws Exception {
+		return getFactory(name);
+	}
+
+	/**
+	 * This method allows individual implementation to get the ConnectionFactory
+	 */
+	public ConnectionFactory getConnectionFactory(String name) throws Exception {
+		return getFactory(name);
+	}
+}
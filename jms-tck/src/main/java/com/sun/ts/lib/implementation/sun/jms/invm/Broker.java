@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package com.sun.ts.lib.implementation.sun.jms.invm;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.jms.IllegalStateException;
+import jakarta.jms.InvalidClientIDException;
+import jakarta.jms.InvalidDestinationException;
+import jakarta.jms.JMSException;
+import jakarta.jms.JMSSecurityException;
+
+/**
+ * The in-process broker shared by all connections of the JVM. It holds the
+ * queues and topics, which are created when they are first looked up, the
+ * durable and shared subscriptions, the client identifiers in use and the
+ * users allowed to connect.
+ *
+ * Messages are kept in memory only, so a persistent message does not survive
+ * the JVM; this is enough for tests which run in a single JVM.
+ */
+public final class Broker {
+
+	private static final Broker instance = new Broker();
+
+	private final Map<String, InVMQueue> queues = new ConcurrentHashMap<>();
+
+	private final Map<String, InVMTopic> topics = new ConcurrentHashMap<>();
+
+	private final Map<String, Subscription> durableSubscriptions = new HashMap<>();
+
+	private final Map<String, Subscription> sharedSubscriptions = new HashMap<>();
+
+	private final Set<String> clientIDs = new HashSet<>();
+
+	private final Map<String, String> users = new ConcurrentHashMap<>();
+
+	private final AtomicLong ids = new AtomicLong();
+
+	private Broker() {
+	}
+
+	public static Broker getInstance() {
+		return instance;
+	}
+
+	// ---- destinations
+
+	public InVMQueue getQueue(String name) {
+		return queues.computeIfAbsent(name, InVMQueue::new);
+	}
+
+	public InVMTopic getTopic(String name) {
+		return topics.computeIfAbsent(name, InVMTopic::new);
+	}
+
+	/**
+	 * Removes the queue and the messages on it.
+	 */
+	public void removeQueue(String name) {
+		InVMQueue queue = queues.remove(name);
+		if (queue != null) {
+			queue.store.clear();
+		}
+	}
+
+	public void removeTopic(String name) {
+		topics.remove(name);
+	}
+
+	/**
+	 * Returns the number of messages waiting on the queue.
+	 */
+	public int getQueueDepth(String name) {
+		InVMQueue queue = queues.get(name);
+		return queue == null ? 0 : queue.store.size();
+	}
+
+	// ---- users and clients
+
+	/**
+	 * Registers a user. Until a user is registered any user name and password
+	 * is accepted.
+	 */
+	public void addUser(String user, String password) {
+		users.put(user, password == null ? "" : password);
+	}
+
+	void authenticate(String user, String password) throws JMSSecurityException {
+		if (users.isEmpty() || user == null && password == null) {
+			return;
+		}
+		String expected = user == null ? null : users.get(user);
+		if (expected == null || !expected.equals(password == null ? "" : password)) {
+			throw new JMSSecurityException("Invalid user name or password for user " + user);
+		}
+	}
+
+	synchronized void registerClientID(String clientID) throws InvalidClientIDException {
+		if (clientID == null || clientID.isEmpty()) {
+			throw new InvalidClientIDException("Invalid client id: " + clientID);
+		}
+		if (!clientIDs.add(clientID)) {
+			throw new InvalidClientIDException("Client id " + clientID + " is in use");
+		}
+	}
+
+	synchronized void releaseClientID(String clientID) {
+		clientIDs.remove(clientID);
+	}
+
+	String nextMessageID() {
+		return "ID:InVM-" + ids.incrementAndGet();
+	}
+
+	long nextId() {
+		return ids.incrementAndGet();
+	}
+
+	// ---- subscriptions
+
+	/**
+	 * Returns a new non-durable, unshared subscription.
+	 */
+	Subscription subscribe(InVMTopic topic, String selector, boolean noLocal, long connection)
+			throws JMSException {
+		Subscription s = new Subscription(topic, null, Selector.parse(selector), noLocal, false, false);
+		s.localConnection = connection;
+		synchronized (this) {
+			s.consumers = 1;
+			topic.subscriptions.add(s);
+		}
+		return s;
+	}
+
+	/**
+	 * Returns the durable subscription with the given name, creating it or
+	 * replacing it if the topic, selector or noLocal flag were changed.
+	 *
+	 * @param clientID the client identifier, which may be null only if the
+	 *                 subscription is shared
+	 */
+	synchronized Subscription subscribeDurable(InVMTopic topic, String clientID, String name, String selector,
+			boolean noLocal, boolean shared, long connection) throws JMSException {
+		checkName(name);
+		Selector parsed = Selector.parse(selector);
+		if (clientID == null && !shared) {
+			throw new IllegalStateException("A client id is needed for an unshared durable subscription");
+		}
+		String key = clientID + "|" + name;
+		Subscription s = durableSubscriptions.get(key);
+		if (s != null) {
+			if (s.shared != shared) {
+				throw new JMSException("Durable subscription " + name + " exists and is "
+						+ (s.shared ? "shared" : "not shared"));
+			}
+			if (!s.matches(topic, selector, noLocal)) {
+				if (s.consumers > 0) {
+					throw shared ? new JMSException("Shared durable subscription " + name + " is in use")
+							: new IllegalStateException("Durable subscription " + name + " is in use");
+				}
+				remove(s);
+				s = null;
+			} else if (!shared && s.consumers > 0) {
+				throw new IllegalStateException("Durable subscription " + name + " is in use");
+			}
+		}
+		if (s == null) {
+			s = new Subscription(topic, key, parsed, noLocal, true, shared);
+			durableSubscriptions.put(key, s);
+			topic.subscriptions.add(s);
+		}
+		s.consumers++;
+		s.localConnection = connection;
+		return s;
+	}
+
+	/**
+	 * Returns the shared non-durable subscription with the given name, creating
+	 * it if it has no consumers.
+	 */
+	synchronized Subscription subscribeShared(InVMTopic topic, String clientID, String name, String selector)
+			throws JMSException {
+		checkName(name);
+		Selector parsed = Selector.parse(selector);
+		String key = clientID + "|" + name;
+		if (durableSubscriptions.containsKey(key)) {
+			throw new JMSException("Subscription " + name + " exists and is durable");
+		}
+		Subscription s = sharedSubscriptions.get(key);
+		if (s != null && !s.matches(topic, selector, false)) {
+			throw new JMSException("Shared subscription " + name + " is in use");
+		}
+		if (s == null) {
+			s = new Subscription(topic, key, parsed, false, false, true);
+			sharedSubscriptions.put(key, s);
+			topic.subscriptions.add(s);
+		}
+		s.consumers++;
+		return s;
+	}
+
+	/**
+	 * Called when a consumer of the subscription is closed. A non-durable
+	 * subscription ends with its last consumer.
+	 */
+	synchronized void unsubscribe(Subscription s) {
+		if (--s.consumers == 0 && !s.durable) {
+			if (s.shared) {
+				sharedSubscriptions.remove(s.key);
+			}
+			remove(s);
+		}
+	}
+
+	/**
+	 * Deletes a durable subscription which has no consumers.
+	 */
+	synchronized void deleteDurable(String clientID, String name) throws JMSException {
+		Subscription s = durableSubscriptions.get(clientID + "|" + name);
+		if (s == null) {
+			throw new InvalidDestinationException("No durable subscription named " + name);
+		}
+		if (s.consumers > 0) {
+			throw new IllegalStateException("Durable subscription " + name + " is in use");
+		}
+		durableSubscriptions.remove(s.key);
+		remove(s);
+	}
+
+	private void remove(Subscription s) {
+		s.topic.subscriptions.remove(s);
+		s.store.clear();
+	}
+
+	private static void checkName(String name) throws JMSException {
+		if (name == null || name.isEmpty()) {
+			throw new JMSException("Invalid subscription name: " + name);
+		}
+	}
+}
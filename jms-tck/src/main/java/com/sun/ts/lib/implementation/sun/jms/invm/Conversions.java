@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.ts.lib.implementation.sun.jms.invm;
+
+import jakarta.jms.MessageFormatException;
+
+/**
+ * The value conversions allowed for message properties and for the items of
+ * MapMessage and StreamMessage bodies. A missing or null value converts like
+ * the corresponding valueOf(null) call.
+ */
+final class Conversions {
+
+	private Conversions() {
+	}
+
+	static boolean toBoolean(Object value) throws MessageFormatException {
+		if (value instanceof Boolean) {
+			return ((Boolean) value).booleanValue();
+		}
+		if (value == null || value instanceof String) {
+			return Boolean.valueOf((String) value).booleanValue();
+		}
+		throw invalid(value, "boolean");
+	}
+
+	static byte toByte(Object value) throws MessageFormatException {
+		if (value instanceof Byte) {
+			return ((Byte) value).byteValue();
+		}
+		if (value == null || value instanceof String) {
+			return Byte.valueOf((String) value).byteValue();
+		}
+		throw invalid(value, "byte");
+	}
+
+	static short toShort(Object value) throws MessageFormatException {
+		if (value instanceof Short || value instanceof Byte) {
+			return ((Number) value).shortValue();
+		}
+		if (value == null || value instanceof String) {
+			return Short.valueOf((String) value).shortValue();
+		}
+		throw invalid(value, "short");
+	}
+
+	static char toChar(Object value) throws MessageFormatException {
+		if (value instanceof Character) {
+			return ((Character) value).charValue();
+		}
+		if (value == null) {
+			throw new NullPointerException("null cannot be read as a char");
+		}
+		throw invalid(value, "char");
+	}
+
+	static int toInt(Object value) throws MessageFormatException {
+		if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+			return ((Number) value).intValue();
+		}
+		if (value == null || value instanceof String) {
+			return Integer.valueOf((String) value).intValue();
+		}
+		throw invalid(value, "int");
+	}
+
+	static long toLong(Object value) throws MessageFormatException {
+		if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+			return ((Number) value).longValue();
+		}
+		if (value == null || value instanceof String) {
+			return Long.valueOf((String) value).longValue();
+		}
+		throw invalid(value, "long");
+	}
+
+	static float toFloat(Object value) throws MessageFormatException {
+		if (value instanceof Float) {
+			return ((Float) value).floatValue();
+		}
+		if (value == null || value instanceof String) {
+			return Float.valueOf((String) value).floatValue();
+		}
+		throw invalid(value, "float");
+	}
+
+	static double toDouble(Object value) throws MessageFormatException {
+		if (value instanceof Double || value instanceof Float) {
+			return ((Number) value).doubleValue();
+		}
+		if (value == null || value instanceof String) {
+			return Double.valueOf((String) value).doubleValue();
+		}
+		throw invalid(value, "double");
+	}
+
+	static String toString(Object value) throws MessageFormatException {
+		if (value instanceof byte[]) {
+			throw invalid(value, "String");
+		}
+		return value == null ? null : value.toString();
+	}
+
+	static byte[] toBytes(Object value) throws MessageFormatException {
+		if (value == null || value instanceof byte[]) {
+			return (byte[]) value;
+		}
+		throw invalid(value, "byte[]");
+	}
+
+	/**
+	 * Checks a value passed to setObjectProperty.
+	 */
+	static void checkPropertyValue(Object value) throws MessageFormatException {
+		if (value != null && !(value instanceof Boolean || value instanceof Byte || value instanceof Short
+				|| value instanceof Integer || value instanceof Long || value instanceof Float
+				|| value instanceof Double || value instanceof String)) {
+			throw new MessageFormatException("Invalid property type " + value.getClass().getName());
+		}
+	}
+
+	/**
+	 * Checks a value passed to MapMessage.setObject or StreamMessage.writeObject,
+	 * which also take characters and byte arrays.
+	 */
+	static void checkItemValue(Object value) throws MessageFormatException {
+		if (!(value instanceof Character || value instanceof byte[])) {
+			checkPropertyValue(value);
+		}
+	}
+
+	private static MessageFormatException invalid(Object value, String type) {
+		return new MessageFormatException(
+				"A " + value.getClass().getSimpleName() + " value cannot be read as a " + type);
+	}
+}
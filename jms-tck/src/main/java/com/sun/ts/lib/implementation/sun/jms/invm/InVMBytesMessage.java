@@ -0,0 +1,402 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package com.sun.ts.lib.implementation.sun.jms.invm;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+
+import jakarta.jms.BytesMessage;
+import jakarta.jms.JMSException;
+import jakarta.jms.MessageEOFException;
+import jakarta.jms.MessageFormatException;
+import jakarta.jms.MessageNotReadableException;
+
+/**
+ * The body is written to a byte array in write-only mode; reset and delivery
+ * switch the message to read-only mode, reading from the bytes written.
+ */
+public class InVMBytesMessage extends InVMMessage implements BytesMessage {
+
+	private ByteArrayOutputStream written;
+
+	private DataOutputStream out;
+
+	// the body in read-only mode
+	private byte[] data;
+
+	private DataInputStream in;
+
+	public InVMBytesMessage() {
+		startWriting(null);
+	}
+
+	InVMBytesMessage(byte[] data) {
+		startWriting(data);
+	}
+
+	private void startWriting(byte[] content) {
+		written = new ByteArrayOutputStream();
+		if (content != null) {
+			written.write(content, 0, content.length);
+		}
+		out = new DataOutputStream(written);
+		data = null;
+		in = null;
+	}
+
+	private void startReading(byte[] content) {
+		data = content;
+		in = new DataInputStream(new ByteArrayInputStream(content));
+		written = null;
+		out = null;
+	}
+
+	private byte[] getContent() {
+		return data != null ? data : written.toByteArray();
+	}
+
+	@Override
+	void copyBody() {
+		if (data != null) {
+			startReading(data);
+		} else {
+			startWriting(written.toByteArray());
+		}
+	}
+
+	@Override
+	void prepareForDelivery() {
+		super.prepareForDelivery();
+		startReading(getContent());
+	}
+
+	@Override
+	public void reset() {
+		bodyReadOnly = true;
+		startReading(getContent());
+	}
+
+	@Override
+	public void clearBody() throws JMSException {
+		super.clearBody();
+		startWriting(null);
+	}
+
+	@Override
+	Object getBodyValue() {
+		byte[] content = getContent();
+		return content.length == 0 ? null : content.clone();
+	}
+
+	@Override
+	public long getBodyLength() throws JMSException {
+		checkReadable();
+		return data.length;
+	}
+
+	// ---- reading
+
+	private void checkReadable() throws MessageNotReadableException {
+		if (in == null) {
+			throw new MessageNotReadableException("The message is in write-only mode");
+		}
+	}
+
+	private JMSException readFailed(IOException e) {
+		JMSException jmse = e instanceof EOFException ? new MessageEOFException("Unexpected end of the message body")
+				: new JMSException(e.toString());
+		jmse.setLinkedException(e);
+		return jmse;
+	}
+
+	@Override
+	public boolean readBoolean() throws JMSException {
+		checkReadable();
+		try {
+			return in.readBoolean();
+		} catch (IOException e) {
+			throw readFailed(e);
+		}
+	}
+
+	@Override
+	public byte readByte() throws JMSException {
+		checkReadable();
+		try {
+			return in.readByte();
+		} catch (IOException e) {
+			throw readFailed(e);
+		}
+	}
+
+	@Override
+	public int readUnsignedByte() throws JMSException {
+		checkReadable();
+		try {
+			return in.readUnsignedByte();
+		} catch (IOException e) {
+			throw readFailed(e);
+		}
+	}
+
+	@Override
+	public short readShort() throws JMSException {
+		checkReadable();
+		try {
+			return in.readShort();
+		} catch (IOException e) {
+			throw readFailed(e);
+		}
+	}
+
+	@Override
+	public int readUnsignedShort() throws JMSException {
+		checkReadable();
+		try {
+			return in.readUnsignedShort();
+		} catch (IOException e) {
+			throw readFailed(e);
+		}
+	}
+
+	@Override
+	public char readChar() throws JMSException {
+		checkReadable();
+		try {
+			return in.readChar();
+		} catch (IOException e) {
+			throw readFailed(e);
+		}
+	}
+
+	@Override
+	public int readInt() throws JMSException {
+		checkReadable();
+		try {
+			return in.readInt();
+		} catch (IOException e) {
+			throw readFailed(e);
+		}
+	}
+
+	@Override
+	public long readLong() throws JMSException {
+		checkReadable();
+		try {
+			return in.readLong();
+		} catch (IOException e) {
+			throw readFailed(e);
+		}
+	}
+
+	@Override
+	public float readFloat() throws JMSException {
+		checkReadable();
+		try {
+			return in.readFloat();
+		} catch (IOException e) {
+			throw readFailed(e);
+		}
+	}
+
+	@Override
+	public double readDouble() throws JMSException {
+		checkReadable();
+		try {
+			return in.readDouble();
+		} catch (IOException e) {
+			throw readFailed(e);
+		}
+	}
+
+	@Override
+	public String readUTF() throws JMSException {
+		checkReadable();
+		try {
+			return in.readUTF();
+		} catch (IOException e) {
+			throw readFailed(e);
+		}
+	}
+
+	@Override
+	public int readBytes(byte[] value) throws JMSException {
+		return readBytes(value, value.length);
+	}
+
+	@Override
+	public int readBytes(byte[] value, int length) throws JMSException {
+		if (length < 0 || length > value.length) {
+			throw new IndexOutOfBoundsException("Invalid length " + length);
+		}
+		checkReadable();
+		try {
+			int n = in.read(value, 0, length);
+			return length == 0 && in.available() == 0 ? -1 : n;
+		} catch (IOException e) {
+			throw readFailed(e);
+		}
+	}
+
+	// ---- writing
+
+	private JMSException writeFailed(IOException e) {
+		JMSException jmse = new JMSException(e.toString());
+		jmse.setLinkedException(e);
+		return jmse;
+	}
+
+	@Override
+	public void writeBoolean(boolean value) throws JMSException {
+		checkBodyWriteable();
+		try {
+			out.writeBoolean(value);
+		} catch (IOException e) {
+			throw writeFailed(e);
+		}
+	}
+
+	@Override
+	public void writeByte(byte value) throws JMSException {
+		checkBodyWriteable();
+		try {
+			out.writeByte(value);
+		} catch (IOException e) {
+			throw writeFailed(e);
+		}
+	}
+
+	@Override
+	public void writeShort(short value) throws JMSException {
+		checkBodyWriteable();
+		try {
+			out.writeShort(value);
+		} catch (IOException e) {
+			throw writeFailed(e);
+		}
+	}
+
+	@Override
+	public void writeChar(char value) throws JMSException {
+		checkBodyWriteable();
+		try {
+			out.writeChar(value);
+		} catch (IOException e) {
+			throw writeFailed(e);
+		}
+	}
+
+	@Override
+	public void writeInt(int value) throws JMSException {
+		checkBodyWriteable();
+		try {
+			out.writeInt(value);
+		} catch (IOException e) {
+			throw writeFailed(e);
+		}
+	}
+
+	@Override
+	public void writeLong(long value) throws JMSException {
+		checkBodyWriteable();
+		try {
+			out.writeLong(value);
+		} catch (IOException e) {
+			throw writeFailed(e);
+		}
+	}
+
+	@Override
+	public void writeFloat(float value) throws JMSException {
+		checkBodyWriteable();
+		try {
+			out.writeFloat(value);
+		} catch (IOException e) {
+			throw writeFailed(e);
+		}
+	}
+
+	@Override
+	public void writeDouble(double value) throws JMSException {
+		checkBodyWriteable();
+		try {
+			out.writeDouble(value);
+		} catch (IOException e) {
+			throw writeFailed(e);
+		}
+	}
+
+	@Override
+	public void writeUTF(String value) throws JMSException {
+		checkBodyWriteable();
+		try {
+			out.writeUTF(value);
+		} catch (IOException e) {
+			throw writeFailed(e);
+		}
+	}
+
+	@Override
+	public void writeBytes(byte[] value) throws JMSException {
+		writeBytes(value, 0, value.length);
+	}
+
+	@Override
+	public void writeBytes(byte[] value, int offset, int length) throws JMSException {
+		checkBodyWriteable();
+		try {
+			out.write(value, offset, length);
+		} catch (IOException e) {
+			throw writeFailed(e);
+		}
+	}
+
+	@Override
+	public void writeObject(Object value) throws JMSException {
+		if (value == null) {
+			throw new NullPointerException("Cannot write a null object");
+		}
+		if (value instanceof Boolean) {
+			writeBoolean(((Boolean) value).booleanValue());
+		} else if (value instanceof Byte) {
+			writeByte(((Byte) value).byteValue());
+		} else if (value instanceof Short) {
+			writeShort(((Short) value).shortValue());
+		} else if (value instanceof Character) {
+			writeChar(((Character) value).charValue());
+		} else if (value instanceof Integer) {
+			writeInt(((Integer) value).intValue());
+		} else if (value instanceof Long) {
+			writeLong(((Long) value).longValue());
+		} else if (value instanceof Float) {
+			writeFloat(((Float) value).floatValue());
+		} else if (value instanceof Double) {
+			writeDouble(((Double) value).doubleValue());
+		} else if (value instanceof String) {
+			writeUTF((String) value);
+		} else if (value instanceof byte[]) {
+			writeBytes((byte[]) value);
+		} else {
+			throw new MessageFormatException("Cannot write a " + value.getClass().getName());
+		}
+	}
+}
@@ -0,0 +1,321 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package com.sun.ts.lib.implementation.sun.jms.invm;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import jakarta.jms.ConnectionConsumer;
+import jakarta.jms.ConnectionMetaData;
+import jakarta.jms.Destination;
+import jakarta.jms.ExceptionListener;
+import jakarta.jms.IllegalStateException;
+import jakarta.jms.JMSException;
+import jakarta.jms.Queue;
+import jakarta.jms.QueueConnection;
+import jakarta.jms.QueueSession;
+import jakarta.jms.ServerSessionPool;
+import jakarta.jms.Session;
+import jakarta.jms.TemporaryQueue;
+import jakarta.jms.TemporaryTopic;
+import jakarta.jms.Topic;
+import jakarta.jms.TopicConnection;
+import jakarta.jms.TopicSession;
+
+/**
+ * A connection to the in-process broker. The connection implements both
+ * domain-specific interfaces; a connection created as a QueueConnection or a
+ * TopicConnection only creates sessions of its domain.
+ *
+ * Connection consumers, which are optional, are not supported.
+ */
+public class InVMConnection implements QueueConnection, TopicConnection {
+
+	static final int GENERIC = 0;
+
+	static final int QUEUE = 1;
+
+	static final int TOPIC = 2;
+
+	final Broker broker;
+
+	final long id;
+
+	private final int domain;
+
+	private volatile String clientID;
+
+	// set by the connection factory, so it cannot be changed
+	private final boolean administrativeClientID;
+
+	// set once the connection was used, after which the client id is fixed
+	private volatile boolean used;
+
+	private volatile boolean started;
+
+	private volatile boolean closed;
+
+	private volatile ExceptionListener exceptionListener;
+
+	private final List<InVMSession> sessions = new CopyOnWriteArrayList<>();
+
+	private final List<InVMDestination> temporaries = new CopyOnWriteArrayList<>();
+
+	InVMConnection(Broker broker, int domain, String clientID) throws JMSException {
+		this.broker = broker;
+		this.id = broker.nextId();
+		this.domain = domain;
+		if (clientID != null) {
+			broker.registerClientID(clientID);
+		}
+		this.clientID = clientID;
+		this.administrativeClientID = clientID != null;
+	}
+
+	void checkOpen() throws IllegalStateException {
+		if (closed) {
+			throw new IllegalStateException("The connection is closed");
+		}
+	}
+
+	boolean isStarted() {
+		return started && !closed;
+	}
+
+	boolean isClosed() {
+		return closed;
+	}
+
+	// ---- sessions
+
+	@Override
+	public Session createSession(boolean transacted, int acknowledgeMode) throws JMSException {
+		return createSession(transacted, acknowledgeMode, GENERIC);
+	}
+
+	@Override
+	public Session createSession(int sessionMode) throws JMSException {
+		return createSession(sessionMode == Session.SESSION_TRANSACTED, sessionMode, GENERIC);
+	}
+
+	@Override
+	public Session createSession() throws JMSException {
+		return createSession(false, Session.AUTO_ACKNOWLEDGE, GENERIC);
+	}
+
+	@Override
+	public QueueSession createQueueSession(boolean transacted, int acknowledgeMode) throws JMSException {
+		return createSession(transacted, acknowledgeMode, QUEUE);
+	}
+
+	@Override
+	public TopicSession createTopicSession(boolean transacted, int acknowledgeMode) throws JMSException {
+		return createSession(transacted, acknowledgeMode, TOPIC);
+	}
+
+	private InVMSession createSession(boolean transacted, int acknowledgeMode, int sessionDomain)
+			throws JMSException {
+		checkOpen();
+		checkDomain(sessionDomain);
+		used = true;
+		int mode = transacted ? Session.SESSION_TRANSACTED : acknowledgeMode;
+		if (mode != Session.SESSION_TRANSACTED && mode != Session.AUTO_ACKNOWLEDGE
+				&& mode != Session.CLIENT_ACKNOWLEDGE && mode != Session.DUPS_OK_ACKNOWLEDGE) {
+			throw new JMSException("Invalid acknowledge mode " + acknowledgeMode);
+		}
+		InVMSession session = new InVMSession(this, sessionDomain == GENERIC ? domain : sessionDomain, mode);
+		sessions.add(session);
+		return session;
+	}
+
+	private void checkDomain(int sessionDomain) throws IllegalStateException {
+		if (domain != GENERIC && sessionDomain != GENERIC && domain != sessionDomain) {
+			throw new IllegalStateException("The session does not belong to the domain of the connection");
+		}
+	}
+
+	void removeSession(InVMSession session) {
+		sessions.remove(session);
+	}
+
+	// ---- client id
+
+	@Override
+	public String getClientID() throws JMSException {
+		checkOpen();
+		return clientID;
+	}
+
+	@Override
+	public void setClientID(String clientID) throws JMSException {
+		checkOpen();
+		if (administrativeClientID || this.clientID != null) {
+			throw new IllegalStateException("The client id is already set");
+		}
+		if (used) {
+			throw new IllegalStateException("The client id must be set before the connection is used");
+		}
+		broker.registerClientID(clientID);
+		this.clientID = clientID;
+		used = true;
+	}
+
+	// ---- state
+
+	@Override
+	public ConnectionMetaData getMetaData() throws JMSException {
+		checkOpen();
+		return new InVMConnectionMetaData();
+	}
+
+	@Override
+	public ExceptionListener getExceptionListener() throws JMSException {
+		checkOpen();
+		return exceptionListener;
+	}
+
+	@Override
+	public void setExceptionListener(ExceptionListener listener) throws JMSException {
+		checkOpen();
+		used = true;
+		exceptionListener = listener;
+	}
+
+	@Override
+	public void start() throws JMSException {
+		checkOpen();
+		used = true;
+		if (!started) {
+			started = true;
+			for (InVMSession session : sessions) {
+				session.wakeup();
+			}
+		}
+	}
+
+	/**
+	 * Stops delivery, and returns once the message listeners of the connection
+	 * have returned.
+	 */
+	@Override
+	public void stop() throws JMSException {
+		checkOpen();
+		// allowed in a completion listener
+		if (!InVMSession.isCompletionThread()) {
+			checkNotInCallback("stop");
+		}
+		used = true;
+		started = false;
+		for (InVMSession session : sessions) {
+			session.awaitListenerIdle();
+		}
+	}
+
+	@Override
+	public void close() throws JMSException {
+		if (closed) {
+			return;
+		}
+		checkNotInCallback("close");
+		started = false;
+		for (InVMSession session : sessions) {
+			session.close();
+		}
+		for (InVMDestination temporary : temporaries) {
+			temporary.markDeleted();
+			if (temporary instanceof InVMQueue) {
+				((InVMQueue) temporary).store.clear();
+			}
+		}
+		temporaries.clear();
+		closed = true;
+		if (clientID != null) {
+			broker.releaseClientID(clientID);
+		}
+	}
+
+	private void checkNotInCallback(String operation) throws IllegalStateException {
+		InVMSession session = InVMSession.getCallbackSession();
+		if (session != null && session.connection == this) {
+			throw new IllegalStateException("A listener must not " + operation + " its own connection");
+		}
+	}
+
+	// ---- temporary destinations
+
+	TemporaryQueue createTemporaryQueue() throws JMSException {
+		checkOpen();
+		InVMTemporaryQueue queue = new InVMTemporaryQueue("TempQueue-" + broker.nextId(), this);
+		temporaries.add(queue);
+		return queue;
+	}
+
+	TemporaryTopic createTemporaryTopic() throws JMSException {
+		checkOpen();
+		InVMTemporaryTopic topic = new InVMTemporaryTopic("TempTopic-" + broker.nextId(), this);
+		temporaries.add(topic);
+		return topic;
+	}
+
+	void removeTemporary(InVMDestination temporary) {
+		temporaries.remove(temporary);
+	}
+
+	// ---- connection consumers
+
+	@Override
+	public ConnectionConsumer createConnectionConsumer(Destination destination, String messageSelector,
+			ServerSessionPool sessionPool, int maxMessages) throws JMSException {
+		throw unsupported();
+	}
+
+	@Override
+	public ConnectionConsumer createConnectionConsumer(Queue queue, String messageSelector,
+			ServerSessionPool sessionPool, int maxMessages) throws JMSException {
+		throw unsupported();
+	}
+
+	@Override
+	public ConnectionConsumer createConnectionConsumer(Topic topic, String messageSelector,
+			ServerSessionPool sessionPool, int maxMessages) throws JMSException {
+		throw unsupported();
+	}
+
+	@Override
+	public ConnectionConsumer createSharedConnectionConsumer(Topic topic, String subscriptionName,
+			String messageSelector, ServerSessionPool sessionPool, int maxMessages) throws JMSException {
+		throw unsupported();
+	}
+
+	@Override
+	public ConnectionConsumer createDurableConnectionConsumer(Topic topic, String subscriptionName,
+			String messageSelector, ServerSessionPool sessionPool, int maxMessages) throws JMSException {
+		throw unsupported();
+	}
+
+	@Override
+	public ConnectionConsumer createSharedDurableConnectionConsumer(Topic topic, String subscriptionName,
+			String messageSelector, ServerSessionPool sessionPool, int maxMessages) throws JMSException {
+		throw unsupported();
+	}
+
+	private JMSException unsupported() throws JMSException {
+		checkOpen();
+		return new JMSException("Connection consumers are not supported");
+	}
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package com.sun.ts.lib.implementation.sun.jms.invm;
+
+import jakarta.jms.Connection;
+import jakarta.jms.JMSContext;
+import jakarta.jms.JMSException;
+import jakarta.jms.QueueConnection;
+import jakarta.jms.QueueConnectionFactory;
+import jakarta.jms.TopicConnection;
+import jakarta.jms.TopicConnectionFactory;
+
+/**
+ * A connection factory of the in-process broker, which may give its connections
+ * an administratively configured client id.
+ */
+public class InVMConnectionFactory implements QueueConnectionFactory, TopicConnectionFactory {
+
+	private final Broker broker;
+
+	private final String clientID;
+
+	public InVMConnectionFactory() {
+		this(null);
+	}
+
+	public InVMConnectionFactory(String clientID) {
+		this.broker = Broker.getInstance();
+		this.clientID = clientID;
+	}
+
+	private InVMConnection create(String userName, String password, int domain) throws JMSException {
+		broker.authenticate(userName, password);
+		return new InVMConnection(broker, domain, clientID);
+	}
+
+	@Override
+	public Connection createConnection() throws JMSException {
+		return create(null, null, InVMConnection.GENERIC);
+	}
+
+	@Override
+	public Connection createConnection(String userName, String password) throws JMSException {
+		return create(userName, password, InVMConnection.GENERIC);
+	}
+
+	@Override
+	public QueueConnection createQueueConnection() throws JMSException {
+		return create(null, null, InVMConnection.QUEUE);
+	}
+
+	@Override
+	public QueueConnection createQueueConnection(String userName, String password) throws JMSException {
+		return create(userName, password, InVMConnection.QUEUE);
+	}
+
+	@Override
+	public TopicConnection createTopicConnection() throws JMSException {
+		return create(null, null, InVMConnection.TOPIC);
+	}
+
+	@Override
+	public TopicConnection createTopicConnection(String userName, String password) throws JMSException {
+		return create(userName, password, InVMConnection.TOPIC);
+	}
+
+	@Override
+	public JMSContext createContext() {
+		return createContext(null, null, JMSContext.AUTO_ACKNOWLEDGE);
+	}
+
+	@Override
+	public JMSContext createContext(String userName, String password) {
+		return createContext(userName, password, JMSContext.AUTO_ACKNOWLEDGE);
+	}
+
+	@Override
+	public JMSContext createContext(int sessionMode) {
+		return createContext(null, null, sessionMode);
+	}
+
+	@Override
+	public JMSContext createContext(String userName, String password, int sessionMode) {
+		InVMJMSContext.checkSessionMode(sessionMode);
+		try {
+			return new InVMJMSContext(create(userName, password, InVMConnection.GENERIC), sessionMode);
+		} catch (JMSException e) {
+			throw InVMJMSContext.toRuntimeException(e);
+		}
+	}
+}
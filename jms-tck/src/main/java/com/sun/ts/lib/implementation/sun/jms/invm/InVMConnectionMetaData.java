@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package com.sun.ts.lib.implementation.sun.jms.invm;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+
+import jakarta.jms.ConnectionMetaData;
+
+/**
+ * The metadata of a connection to the in-process broker.
+ */
+final class InVMConnectionMetaData implements ConnectionMetaData {
+
+	@Override
+	public String getJMSVersion() {
+		return "3.1";
+	}
+
+	@Override
+	public int getJMSMajorVersion() {
+		return 3;
+	}
+
+	@Override
+	public int getJMSMinorVersion() {
+		return 1;
+	}
+
+	@Override
+	public String getJMSProviderName() {
+		return "Jakarta Messaging TCK in-process provider";
+	}
+
+	@Override
+	public String getProviderVersion() {
+		return "1.0";
+	}
+
+	@Override
+	public int getProviderMajorVersion() {
+		return 1;
+	}
+
+	@Override
+	public int getProviderMinorVersion() {
+		return 0;
+	}
+
+	@Override
+	public Enumeration getJMSXPropertyNames() {
+		return Collections.enumeration(Arrays.asList(InVMMessage.JMSX_GROUP_ID, InVMMessage.JMSX_GROUP_SEQ,
+				InVMMessage.JMSX_DELIVERY_COUNT));
+	}
+}
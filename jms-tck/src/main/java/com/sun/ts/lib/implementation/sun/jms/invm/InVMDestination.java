@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package com.sun.ts.lib.implementation.sun.jms.invm;
+
+import java.io.Serializable;
+
+import jakarta.jms.Destination;
+import jakarta.jms.InvalidDestinationException;
+
+/**
+ * A queue or topic of the in-process broker. Destinations are serializable so
+ * that they can be carried in messages; a deserialized destination resolves to
+ * the broker's instance.
+ */
+public abstract class InVMDestination implements Destination, Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	final String name;
+
+	private transient volatile boolean deleted;
+
+	InVMDestination(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Makes a message sent to this destination available to its consumers.
+	 */
+	abstract void send(InVMMessage message) throws InvalidDestinationException;
+
+	/**
+	 * Returns true if consumers of the given connection may be created.
+	 */
+	boolean isConsumableBy(InVMConnection connection) {
+		return true;
+	}
+
+	boolean isDeleted() {
+		return deleted;
+	}
+
+	void markDeleted() {
+		deleted = true;
+	}
+
+	void checkNotDeleted() throws InvalidDestinationException {
+		if (deleted) {
+			throw new InvalidDestinationException(this + " has been deleted");
+		}
+	}
+}
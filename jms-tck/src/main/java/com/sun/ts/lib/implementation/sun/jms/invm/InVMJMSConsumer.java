@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package com.sun.ts.lib.implementation.sun.jms.invm;
+
+import jakarta.jms.JMSConsumer;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageListener;
+
+/**
+ * A JMSConsumer, wrapping a message consumer of the session of its context.
+ */
+final class InVMJMSConsumer implements JMSConsumer {
+
+	private final InVMMessageConsumer consumer;
+
+	InVMJMSConsumer(InVMMessageConsumer consumer) {
+		this.consumer = consumer;
+	}
+
+	@Override
+	public String getMessageSelector() {
+		try {
+			return consumer.getMessageSelector();
+		} catch (JMSException e) {
+			throw InVMJMSContext.toRuntimeException(e);
+		}
+	}
+
+	@Override
+	public MessageListener getMessageListener() {
+		try {
+			return consumer.getMessageListener();
+		} catch (JMSException e) {
+			throw InVMJMSContext.toRuntimeException(e);
+		}
+	}
+
+	@Override
+	public void setMessageListener(MessageListener listener) {
+		try {
+			consumer.setMessageListener(listener);
+		} catch (JMSException e) {
+			throw InVMJMSContext.toRuntimeException(e);
+		}
+	}
+
+	@Override
+	public Message receive() {
+		try {
+			return consumer.receive();
+		} catch (JMSException e) {
+			throw InVMJMSContext.toRuntimeException(e);
+		}
+	}
+
+	@Override
+	public Message receive(long timeout) {
+		try {
+			return consumer.receive(timeout);
+		} catch (JMSException e) {
+			throw InVMJMSContext.toRuntimeException(e);
+		}
+	}
+
+	@Override
+	public Message receiveNoWait() {
+		try {
+			return consumer.receiveNoWait();
+		} catch (JMSException e) {
+			throw InVMJMSContext.toRuntimeException(e);
+		}
+	}
+
+	@Override
+	public void close() {
+		try {
+			consumer.close();
+		} catch (JMSException e) {
+			throw InVMJMSContext.toRuntimeException(e);
+		}
+	}
+
+	@Override
+	public <T> T receiveBody(Class<T> c) {
+		return receiveBody(c, 0);
+	}
+
+	@Override
+	public <T> T receiveBody(Class<T> c, long timeout) {
+		try {
+			return consumer.receiveBody(c, timeout);
+		} catch (JMSException e) {
+			throw InVMJMSContext.toRuntimeException(e);
+		}
+	}
+
+	@Override
+	public <T> T receiveBodyNoWait(Class<T> c) {
+		return receiveBody(c, -1);
+	}
+}
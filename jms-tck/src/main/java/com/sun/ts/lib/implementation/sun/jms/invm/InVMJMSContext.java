@@ -0,0 +1,536 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package com.sun.ts.lib.implementation.sun.jms.invm;
+
+import java.io.Serializable;
+
+import jakarta.jms.BytesMessage;
+import jakarta.jms.ConnectionMetaData;
+import jakarta.jms.Destination;
+import jakarta.jms.ExceptionListener;
+import jakarta.jms.IllegalStateException;
+import jakarta.jms.IllegalStateRuntimeException;
+import jakarta.jms.InvalidClientIDException;
+import jakarta.jms.InvalidClientIDRuntimeException;
+import jakarta.jms.InvalidDestinationException;
+import jakarta.jms.InvalidDestinationRuntimeException;
+import jakarta.jms.InvalidSelectorException;
+import jakarta.jms.InvalidSelectorRuntimeException;
+import jakarta.jms.JMSConsumer;
+import jakarta.jms.JMSContext;
+import jakarta.jms.JMSException;
+import jakarta.jms.JMSProducer;
+import jakarta.jms.JMSRuntimeException;
+import jakarta.jms.JMSSecurityException;
+import jakarta.jms.JMSSecurityRuntimeException;
+import jakarta.jms.MapMessage;
+import jakarta.jms.Message;
+import jakarta.jms.MessageFormatException;
+import jakarta.jms.MessageFormatRuntimeException;
+import jakarta.jms.MessageNotWriteableException;
+import jakarta.jms.MessageNotWriteableRuntimeException;
+import jakarta.jms.ObjectMessage;
+import jakarta.jms.Queue;
+import jakarta.jms.QueueBrowser;
+import jakarta.jms.ResourceAllocationException;
+import jakarta.jms.ResourceAllocationRuntimeException;
+import jakarta.jms.StreamMessage;
+import jakarta.jms.TemporaryQueue;
+import jakarta.jms.TemporaryTopic;
+import jakarta.jms.TextMessage;
+import jakarta.jms.Topic;
+import jakarta.jms.TransactionInProgressException;
+import jakarta.jms.TransactionInProgressRuntimeException;
+import jakarta.jms.TransactionRolledBackException;
+import jakarta.jms.TransactionRolledBackRuntimeException;
+
+/**
+ * A JMSContext of the in-process broker. The contexts created from a context
+ * share its connection, which is closed with the last of them; the session of
+ * a context is created when it is first needed.
+ */
+public class InVMJMSContext implements JMSContext {
+
+	private final Shared shared;
+
+	private final int sessionMode;
+
+	private InVMSession session;
+
+	private InVMMessageProducer producer;
+
+	private boolean autoStart = true;
+
+	private volatile boolean closed;
+
+	InVMJMSContext(InVMConnection connection, int sessionMode) {
+		this(new Shared(connection), sessionMode);
+	}
+
+	private InVMJMSContext(Shared shared, int sessionMode) {
+		this.shared = shared;
+		this.sessionMode = sessionMode;
+		synchronized (shared) {
+			shared.references++;
+		}
+	}
+
+	static void checkSessionMode(int sessionMode) {
+		if (sessionMode != SESSION_TRANSACTED && sessionMode != AUTO_ACKNOWLEDGE && sessionMode != CLIENT_ACKNOWLEDGE
+				&& sessionMode != DUPS_OK_ACKNOWLEDGE) {
+			throw new JMSRuntimeException("Invalid session mode " + sessionMode);
+		}
+	}
+
+	/**
+	 * Returns the unchecked exception corresponding to a JMSException.
+	 */
+	static JMSRuntimeException toRuntimeException(JMSException e) {
+		JMSRuntimeException r;
+		if (e instanceof IllegalStateException) {
+			r = new IllegalStateRuntimeException(e.getMessage(), e.getErrorCode(), e);
+		} else if (e instanceof InvalidClientIDException) {
+			r = new InvalidClientIDRuntimeException(e.getMessage(), e.getErrorCode(), e);
+		} else if (e instanceof InvalidDestinationException) {
+			r = new InvalidDestinationRuntimeException(e.getMessage(), e.getErrorCode(), e);
+		} else if (e instanceof InvalidSelectorException) {
+			r = new InvalidSelectorRuntimeException(e.getMessage(), e.getErrorCode(), e);
+		} else if (e instanceof JMSSecurityException) {
+			r = new JMSSecurityRuntimeException(e.getMessage(), e.getErrorCode(), e);
+		} else if (e instanceof MessageFormatException) {
+			r = new MessageFormatRuntimeException(e.getMessage(), e.getErrorCode(), e);
+		} else if (e instanceof MessageNotWriteableException) {
+			r = new MessageNotWriteableRuntimeException(e.getMessage(), e.getErrorCode(), e);
+		} else if (e instanceof ResourceAllocationException) {
+			r = new ResourceAllocationRuntimeException(e.getMessage(), e.getErrorCode(), e);
+		} else if (e instanceof TransactionInProgressException) {
+			r = new TransactionInProgressRuntimeException(e.getMessage(), e.getErrorCode(), e);
+		} else if (e instanceof TransactionRolledBackException) {
+			r = new TransactionRolledBackRuntimeException(e.getMessage(), e.getErrorCode(), e);
+		} else {
+			r = new JMSRuntimeException(e.getMessage(), e.getErrorCode(), e);
+		}
+		return r;
+	}
+
+	private void checkOpen() {
+		if (closed) {
+			throw new IllegalStateRuntimeException("The context is closed");
+		}
+	}
+
+	InVMConnection connection() {
+		checkOpen();
+		return shared.connection;
+	}
+
+	synchronized InVMSession session() {
+		checkOpen();
+		if (session == null) {
+			try {
+				session = (InVMSession) shared.connection.createSession(sessionMode);
+			} catch (JMSException e) {
+				throw toRuntimeException(e);
+			}
+		}
+		return session;
+	}
+
+	synchronized InVMMessageProducer producer() {
+		if (producer == null) {
+			try {
+				producer = (InVMMessageProducer) session().createProducer(null);
+			} catch (JMSException e) {
+				throw toRuntimeException(e);
+			}
+		}
+		return producer;
+	}
+
+	private void autoStart() {
+		if (autoStart) {
+			start();
+		}
+	}
+
+	// ---- contexts
+
+	@Override
+	public JMSContext createContext(int sessionMode) {
+		checkOpen();
+		checkSessionMode(sessionMode);
+		return new InVMJMSContext(shared, sessionMode);
+	}
+
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		if (InVMSession.getCallbackSession() != null
+				&& InVMSession.getCallbackSession().connection == shared.connection) {
+			throw new IllegalStateRuntimeException("A listener must not close its own context");
+		}
+		try {
+			synchronized (this) {
+				if (session != null) {
+					session.close();
+				}
+			}
+			closed = true;
+			boolean last;
+			synchronized (shared) {
+				last = --shared.references == 0;
+			}
+			if (last) {
+				shared.connection.close();
+			}
+		} catch (JMSException e) {
+			throw toRuntimeException(e);
+		}
+	}
+
+	// ---- connection
+
+	@Override
+	public String getClientID() {
+		try {
+			return connection().getClientID();
+		} catch (JMSException e) {
+			throw toRuntimeException(e);
+		}
+	}
+
+	@Override
+	public void setClientID(String clientID) {
+		try {
+			connection().setClientID(clientID);
+		} catch (JMSException e) {
+			throw toRuntimeException(e);
+		}
+	}
+
+	@Override
+	public ConnectionMetaData getMetaData() {
+		try {
+			return connection().getMetaData();
+		} catch (JMSException e) {
+			throw toRuntimeException(e);
+		}
+	}
+
+	@Override
+	public ExceptionListener getExceptionListener() {
+		try {
+			return connection().getExceptionListener();
+		} catch (JMSException e) {
+			throw toRuntimeException(e);
+		}
+	}
+
+	@Override
+	public void setExceptionListener(ExceptionListener listener) {
+		try {
+			connection().setExceptionListener(listener);
+		} catch (JMSException e) {
+			throw toRuntimeException(e);
+		}
+	}
+
+	@Override
+	public void start() {
+		try {
+			connection().start();
+		} catch (JMSException e) {
+			throw toRuntimeException(e);
+		}
+	}
+
+	@Override
+	public void stop() {
+		try {
+			connection().stop();
+		} catch (JMSException e) {
+			throw toRuntimeException(e);
+		}
+	}
+
+	@Override
+	public void setAutoStart(boolean autoStart) {
+		checkOpen();
+		this.autoStart = autoStart;
+	}
+
+	@Override
+	public boolean getAutoStart() {
+		checkOpen();
+		return autoStart;
+	}
+
+	// ---- session
+
+	@Override
+	public int getSessionMode() {
+		checkOpen();
+		return sessionMode;
+	}
+
+	@Override
+	public boolean getTransacted() {
+		checkOpen();
+		return sessionMode == SESSION_TRANSACTED;
+	}
+
+	@Override
+	public void commit() {
+		try {
+			session().commit();
+		} catch (JMSException e) {
+			throw toRuntimeException(e);
+		}
+	}
+
+	@Override
+	public void rollback() {
+		try {
+			session().rollback();
+		} catch (JMSException e) {
+			throw toRuntimeException(e);
+		}
+	}
+
+	@Override
+	public void recover() {
+		try {
+			session().recover();
+		} catch (JMSException e) {
+			throw toRuntimeException(e);
+		}
+	}
+
+	@Override
+	public void acknowledge() {
+		try {
+			session().acknowledgeMessage();
+		} catch (JMSException e) {
+			throw toRuntimeException(e);
+		}
+	}
+
+	// ---- messages
+
+	@Override
+	public BytesMessage createBytesMessage() {
+		session();
+		return new InVMBytesMessage();
+	}
+
+	@Override
+	public MapMessage createMapMessage() {
+		session();
+		return new InVMMapMessage();
+	}
+
+	@Override
+	public Message createMessage() {
+		session();
+		return new InVMMessage();
+	}
+
+	@Override
+	public ObjectMessage createObjectMessage() {
+		session();
+		return new InVMObjectMessage();
+	}
+
+	@Override
+	public ObjectMessage createObjectMessage(Serializable object) {
+		session();
+		try {
+			return new InVMObjectMessage(object);
+		} catch (JMSException e) {
+			throw toRuntimeException(e);
+		}
+	}
+
+	@Override
+	public StreamMessage createStreamMessage() {
+		session();
+		return new InVMStreamMessage();
+	}
+
+	@Override
+	public TextMessage createTextMessage() {
+		session();
+		return new InVMTextMessage();
+	}
+
+	@Override
+	public TextMessage createTextMessage(String text) {
+		session();
+		return new InVMTextMessage(text);
+	}
+
+	// ---- producers and consumers
+
+	@Override
+	public JMSProducer createProducer() {
+		session();
+		return new InVMJMSProducer(this);
+	}
+
+	@Override
+	public JMSConsumer createConsumer(Destination destination) {
+		return createConsumer(destination, null, false);
+	}
+
+	@Override
+	public JMSConsumer createConsumer(Destination destination, String messageSelector) {
+		return createConsumer(destination, messageSelector, false);
+	}
+
+	@Override
+	public JMSConsumer createConsumer(Destination destination, String messageSelector, boolean noLocal) {
+		try {
+			return consumer(session().createConsumer(destination, messageSelector, noLocal));
+		} catch (JMSException e) {
+			throw toRuntimeException(e);
+		}
+	}
+
+	@Override
+	public JMSConsumer createSharedConsumer(Topic topic, String sharedSubscriptionName) {
+		return createSharedConsumer(topic, sharedSubscriptionName, null);
+	}
+
+	@Override
+	public JMSConsumer createSharedConsumer(Topic topic, String sharedSubscriptionName, String messageSelector) {
+		try {
+			return consumer(session().createSharedConsumer(topic, sharedSubscriptionName, messageSelector));
+		} catch (JMSException e) {
+			throw toRuntimeException(e);
+		}
+	}
+
+	@Override
+	public JMSConsumer createDurableConsumer(Topic topic, String name) {
+		return createDurableConsumer(topic, name, null, false);
+	}
+
+	@Override
+	public JMSConsumer createDurableConsumer(Topic topic, String name, String messageSelector, boolean noLocal) {
+		try {
+			return consumer(session().createDurableConsumer(topic, name, messageSelector, noLocal));
+		} catch (JMSException e) {
+			throw toRuntimeException(e);
+		}
+	}
+
+	@Override
+	public JMSConsumer createSharedDurableConsumer(Topic topic, String name) {
+		return createSharedDurableConsumer(topic, name, null);
+	}
+
+	@Override
+	public JMSConsumer createSharedDurableConsumer(Topic topic, String name, String messageSelector) {
+		try {
+			return consumer(session().createSharedDurableConsumer(topic, name, messageSelector));
+		} catch (JMSException e) {
+			throw toRuntimeException(e);
+		}
+	}
+
+	private JMSConsumer consumer(jakarta.jms.MessageConsumer consumer) {
+		autoStart();
+		return new InVMJMSConsumer((InVMMessageConsumer) consumer);
+	}
+
+	@Override
+	public QueueBrowser createBrowser(Queue queue) {
+		return createBrowser(queue, null);
+	}
+
+	@Override
+	public QueueBrowser createBrowser(Queue queue, String messageSelector) {
+		try {
+			return session().createBrowser(queue, messageSelector);
+		} catch (JMSException e) {
+			throw toRuntimeException(e);
+		}
+	}
+
+	@Override
+	public void unsubscribe(String name) {
+		try {
+			session().unsubscribe(name);
+		} catch (JMSException e) {
+			throw toRuntimeException(e);
+		}
+	}
+
+	// ---- destinations
+
+	@Override
+	public Queue createQueue(String queueName) {
+		try {
+			return session().createQueue(queueName);
+		} catch (JMSException e) {
+			throw toRuntimeException(e);
+		}
+	}
+
+	@Override
+	public Topic createTopic(String topicName) {
+		try {
+			return session().createTopic(topicName);
+		} catch (JMSException e) {
+			throw toRuntimeException(e);
+		}
+	}
+
+	@Override
+	public TemporaryQueue createTemporaryQueue() {
+		try {
+			return session().createTemporaryQueue();
+		} catch (JMSException e) {
+			throw toRuntimeException(e);
+		}
+	}
+
+	@Override
+	public TemporaryTopic createTemporaryTopic() {
+		try {
+			return session().createTemporaryTopic();
+		} catch (JMSException e) {
+			throw toRuntimeException(e);
+		}
+	}
+
+	/**
+	 * The connection shared by a context and the contexts created from it.
+	 */
+	private static final class Shared {
+		final InVMConnection connection;
+
+		int references;
+
+		Shared(InVMConnection connection) {
+			this.connection = connection;
+		}
+	}
+}
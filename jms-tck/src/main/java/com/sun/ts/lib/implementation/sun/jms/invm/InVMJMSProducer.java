@@ -0,0 +1,433 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package com.sun.ts.lib.implementation.sun.jms.invm;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import jakarta.jms.BytesMessage;
+import jakarta.jms.CompletionListener;
+import jakarta.jms.DeliveryMode;
+import jakarta.jms.Destination;
+import jakarta.jms.InvalidDestinationException;
+import jakarta.jms.JMSException;
+import jakarta.jms.JMSProducer;
+import jakarta.jms.JMSRuntimeException;
+import jakarta.jms.MapMessage;
+import jakarta.jms.Message;
+import jakarta.jms.MessageFormatException;
+
+/**
+ * A JMSProducer, which sends through the session of its context. The message
+ * properties set on the producer are held by a message of its own.
+ */
+final class InVMJMSProducer implements JMSProducer {
+
+	private final InVMJMSContext context;
+
+	private final InVMMessage properties = new InVMMessage();
+
+	private int deliveryMode = DeliveryMode.PERSISTENT;
+
+	private int priority = Message.DEFAULT_PRIORITY;
+
+	private long timeToLive = Message.DEFAULT_TIME_TO_LIVE;
+
+	private long deliveryDelay = Message.DEFAULT_DELIVERY_DELAY;
+
+	private boolean disableMessageID;
+
+	private boolean disableMessageTimestamp;
+
+	private CompletionListener completionListener;
+
+	private String correlationID;
+
+	private byte[] correlationIDBytes;
+
+	private String type;
+
+	private Destination replyTo;
+
+	InVMJMSProducer(InVMJMSContext context) {
+		this.context = context;
+	}
+
+	// ---- sending
+
+	@Override
+	public JMSProducer send(Destination destination, Message message) {
+		if (message == null) {
+			throw InVMJMSContext.toRuntimeException(new MessageFormatException("The message is null"));
+		}
+		try {
+			for (Map.Entry<String, Object> e : properties.getProperties().entrySet()) {
+				message.setObjectProperty(e.getKey(), e.getValue());
+			}
+			if (correlationIDBytes != null) {
+				message.setJMSCorrelationIDAsBytes(correlationIDBytes);
+			} else if (correlationID != null) {
+				message.setJMSCorrelationID(correlationID);
+			}
+			if (type != null) {
+				message.setJMSType(type);
+			}
+			if (replyTo != null) {
+				message.setJMSReplyTo(replyTo);
+			}
+			if (!(destination instanceof InVMDestination)) {
+				throw new InvalidDestinationException("Invalid destination: " + destination);
+			}
+			context.session().send((InVMDestination) destination, message, deliveryMode, priority, timeToLive,
+					deliveryDelay, disableMessageID, disableMessageTimestamp, completionListener);
+		} catch (JMSException e) {
+			throw InVMJMSContext.toRuntimeException(e);
+		}
+		return this;
+	}
+
+	@Override
+	public JMSProducer send(Destination destination, String body) {
+		return send(destination, context.createTextMessage(body));
+	}
+
+	@Override
+	public JMSProducer send(Destination destination, Map<String, Object> body) {
+		MapMessage message = context.createMapMessage();
+		if (body != null) {
+			try {
+				for (Map.Entry<String, Object> e : body.entrySet()) {
+					message.setObject(e.getKey(), e.getValue());
+				}
+			} catch (JMSException e) {
+				throw InVMJMSContext.toRuntimeException(e);
+			}
+		}
+		return send(destination, message);
+	}
+
+	@Override
+	public JMSProducer send(Destination destination, byte[] body) {
+		BytesMessage message = context.createBytesMessage();
+		if (body != null) {
+			try {
+				message.writeBytes(body);
+			} catch (JMSException e) {
+				throw InVMJMSContext.toRuntimeException(e);
+			}
+		}
+		return send(destination, message);
+	}
+
+	@Override
+	public JMSProducer send(Destination destination, Serializable body) {
+		return send(destination, context.createObjectMessage(body));
+	}
+
+	// ---- message delivery options
+
+	@Override
+	public JMSProducer setDisableMessageID(boolean value) {
+		disableMessageID = value;
+		return this;
+	}
+
+	@Override
+	public boolean getDisableMessageID() {
+		return disableMessageID;
+	}
+
+	@Override
+	public JMSProducer setDisableMessageTimestamp(boolean value) {
+		disableMessageTimestamp = value;
+		return this;
+	}
+
+	@Override
+	public boolean getDisableMessageTimestamp() {
+		return disableMessageTimestamp;
+	}
+
+	@Override
+	public JMSProducer setDeliveryMode(int deliveryMode) {
+		try {
+			InVMMessageProducer.checkDeliveryMode(deliveryMode);
+		} catch (JMSException e) {
+			throw InVMJMSContext.toRuntimeException(e);
+		}
+		this.deliveryMode = deliveryMode;
+		return this;
+	}
+
+	@Override
+	public int getDeliveryMode() {
+		return deliveryMode;
+	}
+
+	@Override
+	public JMSProducer setPriority(int priority) {
+		try {
+			InVMMessageProducer.checkPriority(priority);
+		} catch (JMSException e) {
+			throw InVMJMSContext.toRuntimeException(e);
+		}
+		this.priority = priority;
+		return this;
+	}
+
+	@Override
+	public int getPriority() {
+		return priority;
+	}
+
+	@Override
+	public JMSProducer setTimeToLive(long timeToLive) {
+		this.timeToLive = timeToLive;
+		return this;
+	}
+
+	@Override
+	public long getTimeToLive() {
+		return timeToLive;
+	}
+
+	@Override
+	public JMSProducer setDeliveryDelay(long deliveryDelay) {
+		this.deliveryDelay = deliveryDelay;
+		return this;
+	}
+
+	@Override
+	public long getDeliveryDelay() {
+		return deliveryDelay;
+	}
+
+	@Override
+	public JMSProducer setAsync(CompletionListener completionListener) {
+		this.completionListener = completionListener;
+		return this;
+	}
+
+	@Override
+	public CompletionListener getAsync() {
+		return completionListener;
+	}
+
+	// ---- message properties
+
+	@Override
+	public JMSProducer setProperty(String name, boolean value) {
+		return setProperty(name, (Object) Boolean.valueOf(value));
+	}
+
+	@Override
+	public JMSProducer setProperty(String name, byte value) {
+		return setProperty(name, (Object) Byte.valueOf(value));
+	}
+
+	@Override
+	public JMSProducer setProperty(String name, short value) {
+		return setProperty(name, (Object) Short.valueOf(value));
+	}
+
+	@Override
+	public JMSProducer setProperty(String name, int value) {
+		return setProperty(name, (Object) Integer.valueOf(value));
+	}
+
+	@Override
+	public JMSProducer setProperty(String name, long value) {
+		return setProperty(name, (Object) Long.valueOf(value));
+	}
+
+	@Override
+	public JMSProducer setProperty(String name, float value) {
+		return setProperty(name, (Object) Float.valueOf(value));
+	}
+
+	@Override
+	public JMSProducer setProperty(String name, double value) {
+		return setProperty(name, (Object) Double.valueOf(value));
+	}
+
+	@Override
+	public JMSProducer setProperty(String name, String value) {
+		return setProperty(name, (Object) value);
+	}
+
+	@Override
+	public JMSProducer setProperty(String name, Object value) {
+		try {
+			properties.setObjectProperty(name, value);
+		} catch (JMSException e) {
+			throw InVMJMSContext.toRuntimeException(e);
+		}
+		return this;
+	}
+
+	@Override
+	public JMSProducer clearProperties() {
+		properties.clearProperties();
+		return this;
+	}
+
+	@Override
+	public boolean propertyExists(String name) {
+		return properties.propertyExists(name);
+	}
+
+	@Override
+	public boolean getBooleanProperty(String name) {
+		try {
+			return properties.getBooleanProperty(name);
+		} catch (JMSException e) {
+			throw InVMJMSContext.toRuntimeException(e);
+		}
+	}
+
+	@Override
+	public byte getByteProperty(String name) {
+		try {
+			return properties.getByteProperty(name);
+		} catch (JMSException e) {
+			throw InVMJMSContext.toRuntimeException(e);
+		}
+	}
+
+	@Override
+	public short getShortProperty(String name) {
+		try {
+			return properties.getShortProperty(name);
+		} catch (JMSException e) {
+			throw InVMJMSContext.toRuntimeException(e);
+		}
+	}
+
+	@Override
+	public int getIntProperty(String name) {
+		try {
+			return properties.getIntProperty(name);
+		} catch (JMSException e) {
+			throw InVMJMSContext.toRuntimeException(e);
+		}
+	}
+
+	@Override
+	public long getLongProperty(String name) {
+		try {
+			return properties.getLongProperty(name);
+		} catch (JMSException e) {
+			throw InVMJMSContext.toRuntimeException(e);
+		}
+	}
+
+	@Override
+	public float getFloatProperty(String name) {
+		try {
+			return properties.getFloatProperty(name);
+		} catch (JMSException e) {
+			throw InVMJMSContext.toRuntimeException(e);
+		}
+	}
+
+	@Override
+	public double getDoubleProperty(String name) {
+		try {
+			return properties.getDoubleProperty(name);
+		} catch (JMSException e) {
+			throw InVMJMSContext.toRuntimeException(e);
+		}
+	}
+
+	@Override
+	public String getStringProperty(String name) {
+		try {
+			return properties.getStringProperty(name);
+		} catch (JMSException e) {
+			throw InVMJMSContext.toRuntimeException(e);
+		}
+	}
+
+	@Override
+	public Object getObjectProperty(String name) {
+		return properties.getObjectProperty(name);
+	}
+
+	@Override
+	public Set<String> getPropertyNames() {
+		return Collections.unmodifiableSet(new LinkedHashSet<>(properties.getProperties().keySet()));
+	}
+
+	// ---- message headers
+
+	@Override
+	public JMSProducer setJMSCorrelationIDAsBytes(byte[] correlationID) {
+		if (correlationID == null || correlationID.length == 0) {
+			throw new JMSRuntimeException("The correlation id is empty");
+		}
+		this.correlationIDBytes = correlationID.clone();
+		this.correlationID = null;
+		return this;
+	}
+
+	@Override
+	public byte[] getJMSCorrelationIDAsBytes() {
+		return correlationIDBytes == null ? null : correlationIDBytes.clone();
+	}
+
+	@Override
+	public JMSProducer setJMSCorrelationID(String correlationID) {
+		this.correlationID = correlationID;
+		this.correlationIDBytes = null;
+		return this;
+	}
+
+	@Override
+	public String getJMSCorrelationID() {
+		if (correlationIDBytes != null) {
+			return new String(correlationIDBytes, StandardCharsets.UTF_8);
+		}
+		return correlationID;
+	}
+
+	@Override
+	public JMSProducer setJMSType(String type) {
+		this.type = type;
+		return this;
+	}
+
+	@Override
+	public String getJMSType() {
+		return type;
+	}
+
+	@Override
+	public JMSProducer setJMSReplyTo(Destination replyTo) {
+		this.replyTo = replyTo;
+		return this;
+	}
+
+	@Override
+	public Destination getJMSReplyTo() {
+		return replyTo;
+	}
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package com.sun.ts.lib.implementation.sun.jms.invm;
+
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import jakarta.jms.JMSException;
+import jakarta.jms.MapMessage;
+
+public class InVMMapMessage extends InVMMessage implements MapMessage {
+
+	private LinkedHashMap<String, Object> map = new LinkedHashMap<>();
+
+	@Override
+	void copyBody() {
+		LinkedHashMap<String, Object> copy = new LinkedHashMap<>();
+		for (Map.Entry<String, Object> e : map.entrySet()) {
+			Object value = e.getValue();
+			copy.put(e.getKey(), value instanceof byte[] ? ((byte[]) value).clone() : value);
+		}
+		map = copy;
+	}
+
+	@Override
+	public void clearBody() throws JMSException {
+		super.clearBody();
+		map.clear();
+	}
+
+	@Override
+	Object getBodyValue() {
+		if (map.isEmpty()) {
+			return null;
+		}
+		LinkedHashMap<String, Object> copy = new LinkedHashMap<>(map);
+		copy.replaceAll((name, value) -> value instanceof byte[] ? ((byte[]) value).clone() : value);
+		return copy;
+	}
+
+	@Override
+	public boolean getBoolean(String name) throws JMSException {
+		return Conversions.toBoolean(map.get(name));
+	}
+
+	@Override
+	public byte getByte(String name) throws JMSException {
+		return Conversions.toByte(map.get(name));
+	}
+
+	@Override
+	public short getShort(String name) throws JMSException {
+		return Conversions.toShort(map.get(name));
+	}
+
+	@Override
+	public char getChar(String name) throws JMSException {
+		return Conversions.toChar(map.get(name));
+	}
+
+	@Override
+	public int getInt(String name) throws JMSException {
+		return Conversions.toInt(map.get(name));
+	}
+
+	@Override
+	public long getLong(String name) throws JMSException {
+		return Conversions.toLong(map.get(name));
+	}
+
+	@Override
+	public float getFloat(String name) throws JMSException {
+		return Conversions.toFloat(map.get(name));
+	}
+
+	@Override
+	public double getDouble(String name) throws JMSException {
+		return Conversions.toDouble(map.get(name));
+	}
+
+	@Override
+	public String getString(String name) throws JMSException {
+		return Conversions.toString(map.get(name));
+	}
+
+	@Override
+	public byte[] getBytes(String name) throws JMSException {
+		byte[] value = Conversions.toBytes(map.get(name));
+		return value == null ? null : value.clone();
+	}
+
+	@Override
+	public Object getObject(String name) {
+		Object value = map.get(name);
+		return value instanceof byte[] ? ((byte[]) value).clone() : value;
+	}
+
+	@Override
+	public Enumeration getMapNames() {
+		return Collections.enumeration(map.keySet());
+	}
+
+	@Override
+	public boolean itemExists(String name) {
+		return map.containsKey(name);
+	}
+
+	@Override
+	public void setBoolean(String name, boolean value) throws JMSException {
+		put(name, Boolean.valueOf(value));
+	}
+
+	@Override
+	public void setByte(String name, byte value) throws JMSException {
+		put(name, Byte.valueOf(value));
+	}
+
+	@Override
+	public void setShort(String name, short value) throws JMSException {
+		put(name, Short.valueOf(value));
+	}
+
+	@Override
+	public void setChar(String name, char value) throws JMSException {
+		put(name, Character.valueOf(value));
+	}
+
+	@Override
+	public void setInt(String name, int value) throws JMSException {
+		put(name, Integer.valueOf(value));
+	}
+
+	@Override
+	public void setLong(String name, long value) throws JMSException {
+		put(name, Long.valueOf(value));
+	}
+
+	@Override
+	public void setFloat(String name, float value) throws JMSException {
+		put(name, Float.valueOf(value));
+	}
+
+	@Override
+	public void setDouble(String name, double value) throws JMSException {
+		put(name, Double.valueOf(value));
+	}
+
+	@Override
+	public void setString(String name, String value) throws JMSException {
+		put(name, value);
+	}
+
+	@Override
+	public void setBytes(String name, byte[] value) throws JMSException {
+		put(name, value == null ? null : value.clone());
+	}
+
+	@Override
+	public void setBytes(String name, byte[] value, int offset, int length) throws JMSException {
+		byte[] copy = new byte[length];
+		System.arraycopy(value, offset, copy, 0, length);
+		put(name, copy);
+	}
+
+	@Override
+	public void setObject(String name, Object value) throws JMSException {
+		Conversions.checkItemValue(value);
+		put(name, value instanceof byte[] ? ((byte[]) value).clone() : value);
+	}
+
+	private void put(String name, Object value) throws JMSException {
+		if (name == null || name.isEmpty()) {
+			throw new IllegalArgumentException("Invalid map item name: " + name);
+		}
+		checkBodyWriteable();
+		map.put(name, value);
+	}
+}
@@ -0,0 +1,550 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.ts.lib.implementation.sun.jms.invm;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import jakarta.jms.BytesMessage;
+import jakarta.jms.DeliveryMode;
+import jakarta.jms.Destination;
+import jakarta.jms.JMSException;
+import jakarta.jms.MapMessage;
+import jakarta.jms.Message;
+import jakarta.jms.MessageEOFException;
+import jakarta.jms.MessageFormatException;
+import jakarta.jms.MessageNotWriteableException;
+import jakarta.jms.ObjectMessage;
+import jakarta.jms.StreamMessage;
+import jakarta.jms.TextMessage;
+
+/**
+ * A message without a body, and the base class of the other message types.
+ *
+ * A message that is sent is copied, so that the sender may change or reuse it;
+ * the copy is kept by the destination, and each consumer receives a copy of
+ * its own, with read-only properties and body.
+ */
+public class InVMMessage implements Message, Cloneable {
+
+	static final String JMSX_DELIVERY_COUNT = "JMSXDeliveryCount";
+
+	static final String JMSX_GROUP_ID = "JMSXGroupID";
+
+	static final String JMSX_GROUP_SEQ = "JMSXGroupSeq";
+
+	private String messageID;
+
+	private long timestamp;
+
+	private String correlationID;
+
+	private byte[] correlationIDBytes;
+
+	private Destination replyTo;
+
+	private Destination destination;
+
+	private int deliveryMode = DEFAULT_DELIVERY_MODE;
+
+	private boolean redelivered;
+
+	private String type;
+
+	private long expiration;
+
+	private long deliveryTime;
+
+	private int priority = DEFAULT_PRIORITY;
+
+	private LinkedHashMap<String, Object> properties = new LinkedHashMap<>();
+
+	private boolean propertiesReadOnly;
+
+	protected boolean bodyReadOnly;
+
+	// set on the copies handed to consumers, for acknowledge
+	private InVMSession session;
+
+	// set on sent copies, for noLocal subscriptions
+	long sourceConnection;
+
+	// number of times the sent copy was delivered
+	int deliveryCount;
+
+	// ---- headers
+
+	@Override
+	public String getJMSMessageID() {
+		return messageID;
+	}
+
+	@Override
+	public void setJMSMessageID(String id) {
+		messageID = id;
+	}
+
+	@Override
+	public long getJMSTimestamp() {
+		return timestamp;
+	}
+
+	@Override
+	public void setJMSTimestamp(long timestamp) {
+		this.timestamp = timestamp;
+	}
+
+	@Override
+	public byte[] getJMSCorrelationIDAsBytes() {
+		if (correlationIDBytes != null) {
+			return correlationIDBytes.clone();
+		}
+		return correlationID == null ? null : correlationID.getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public void setJMSCorrelationIDAsBytes(byte[] correlationID) {
+		this.correlationIDBytes = correlationID == null ? null : correlationID.clone();
+		this.correlationID = correlationID == null ? null : new String(correlationID, StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public void setJMSCorrelationID(String correlationID) {
+		this.correlationID = correlationID;
+		this.correlationIDBytes = null;
+	}
+
+	@Override
+	public String getJMSCorrelationID() {
+		return correlationID;
+	}
+
+	@Override
+	public Destination getJMSReplyTo() {
+		return replyTo;
+	}
+
+	@Override
+	public void setJMSReplyTo(Destination replyTo) {
+		this.replyTo = replyTo;
+	}
+
+	@Override
+	public Destination getJMSDestination() {
+		return destination;
+	}
+
+	@Override
+	public void setJMSDestination(Destination destination) {
+		this.destination = destination;
+	}
+
+	@Override
+	public int getJMSDeliveryMode() {
+		return deliveryMode;
+	}
+
+	@Override
+	public void setJMSDeliveryMode(int deliveryMode) {
+		this.deliveryMode = deliveryMode;
+	}
+
+	@Override
+	public boolean getJMSRedelivered() {
+		return redelivered;
+	}
+
+	@Override
+	public void setJMSRedelivered(boolean redelivered) {
+		this.redelivered = redelivered;
+	}
+
+	@Override
+	public String getJMSType() {
+		return type;
+	}
+
+	@Override
+	public void setJMSType(String type) {
+		this.type = type;
+	}
+
+	@Override
+	public long getJMSExpiration() {
+		return expiration;
+	}
+
+	@Override
+	public void setJMSExpiration(long expiration) {
+		this.expiration = expiration;
+	}
+
+	@Override
+	public long getJMSDeliveryTime() {
+		return deliveryTime;
+	}
+
+	@Override
+	public void setJMSDeliveryTime(long deliveryTime) {
+		this.deliveryTime = deliveryTime;
+	}
+
+	@Override
+	public int getJMSPriority() {
+		return priority;
+	}
+
+	@Override
+	public void setJMSPriority(int priority) {
+		this.priority = priority;
+	}
+
+	// ---- properties
+
+	@Override
+	public void clearProperties() {
+		properties.clear();
+		propertiesReadOnly = false;
+	}
+
+	@Override
+	public boolean propertyExists(String name) {
+		return properties.containsKey(name);
+	}
+
+	@Override
+	public boolean getBooleanProperty(String name) throws JMSException {
+		return Conversions.toBoolean(properties.get(name));
+	}
+
+	@Override
+	public byte getByteProperty(String name) throws JMSException {
+		return Conversions.toByte(properties.get(name));
+	}
+
+	@Override
+	public short getShortProperty(String name) throws JMSException {
+		return Conversions.toShort(properties.get(name));
+	}
+
+	@Override
+	public int getIntProperty(String name) throws JMSException {
+		return Conversions.toInt(properties.get(name));
+	}
+
+	@Override
+	public long getLongProperty(String name) throws JMSException {
+		return Conversions.toLong(properties.get(name));
+	}
+
+	@Override
+	public float getFloatProperty(String name) throws JMSException {
+		return Conversions.toFloat(properties.get(name));
+	}
+
+	@Override
+	public double getDoubleProperty(String name) throws JMSException {
+		return Conversions.toDouble(properties.get(name));
+	}
+
+	@Override
+	public String getStringProperty(String name) throws JMSException {
+		return Conversions.toString(properties.get(name));
+	}
+
+	@Override
+	public Object getObjectProperty(String name) {
+		return properties.get(name);
+	}
+
+	@Override
+	public Enumeration getPropertyNames() {
+		return Collections.enumeration(properties.keySet());
+	}
+
+	@Override
+	public void setBooleanProperty(String name, boolean value) throws JMSException {
+		setProperty(name, Boolean.valueOf(value));
+	}
+
+	@Override
+	public void setByteProperty(String name, byte value) throws JMSException {
+		setProperty(name, Byte.valueOf(value));
+	}
+
+	@Override
+	public void setShortProperty(String name, short value) throws JMSException {
+		setProperty(name, Short.valueOf(value));
+	}
+
+	@Override
+	public void setIntProperty(String name, int value) throws JMSException {
+		setProperty(name, Integer.valueOf(value));
+	}
+
+	@Override
+	public void setLongProperty(String name, long value) throws JMSException {
+		setProperty(name, Long.valueOf(value));
+	}
+
+	@Override
+	public void setFloatProperty(String name, float value) throws JMSException {
+		setProperty(name, Float.valueOf(value));
+	}
+
+	@Override
+	public void setDoubleProperty(String name, double value) throws JMSException {
+		setProperty(name, Double.valueOf(value));
+	}
+
+	@Override
+	public void setStringProperty(String name, String value) throws JMSException {
+		setProperty(name, value);
+	}
+
+	@Override
+	public void setObjectProperty(String name, Object value) throws JMSException {
+		setProperty(name, value);
+	}
+
+	private void setProperty(String name, Object value) throws JMSException {
+		if (name == null || name.isEmpty()) {
+			throw new IllegalArgumentException("Invalid property name: " + name);
+		}
+		if (propertiesReadOnly) {
+			throw new MessageNotWriteableException("The message properties are read-only");
+		}
+		Conversions.checkPropertyValue(value);
+		if (JMSX_GROUP_SEQ.equals(name) && !(value instanceof Integer)) {
+			throw new MessageFormatException(JMSX_GROUP_SEQ + " must be an int");
+		}
+		properties.put(name, value);
+	}
+
+	/**
+	 * Returns the properties, for selectors.
+	 */
+	Map<String, Object> getProperties() {
+		return properties;
+	}
+
+	// ---- body
+
+	@Override
+	public void acknowledge() throws JMSException {
+		if (session != null) {
+			session.acknowledgeMessage();
+		}
+	}
+
+	@Override
+	public void clearBody() throws JMSException {
+		bodyReadOnly = false;
+	}
+
+	@Override
+	public <T> T getBody(Class<T> c) throws JMSException {
+		Object body = getBodyValue();
+		if (body == null) {
+			return null;
+		}
+		if (!c.isInstance(body)) {
+			throw new MessageFormatException("The message body cannot be assigned to " + c.getName());
+		}
+		return c.cast(body);
+	}
+
+	@Override
+	public boolean isBodyAssignableTo(Class c) throws JMSException {
+		Object body = getBodyValue();
+		return body == null || c.isInstance(body);
+	}
+
+	/**
+	 * Returns the value returned by getBody, or null if there is no body.
+	 */
+	Object getBodyValue() throws JMSException {
+		return null;
+	}
+
+	protected void checkBodyWriteable() throws MessageNotWriteableException {
+		if (bodyReadOnly) {
+			throw new MessageNotWriteableException("The message body is read-only");
+		}
+	}
+
+	// ---- copies
+
+	/**
+	 * Returns a copy of this message in the same state.
+	 */
+	InVMMessage copy() {
+		try {
+			InVMMessage copy = (InVMMessage) clone();
+			copy.properties = new LinkedHashMap<>(properties);
+			copy.correlationIDBytes = correlationIDBytes == null ? null : correlationIDBytes.clone();
+			copy.copyBody();
+			return copy;
+		} catch (CloneNotSupportedException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Replaces the mutable parts of the body of a fresh clone by copies.
+	 */
+	void copyBody() {
+	}
+
+	/**
+	 * Makes the body of a delivered copy read-only and ready to be read.
+	 */
+	void prepareForDelivery() {
+		bodyReadOnly = true;
+	}
+
+	/**
+	 * Returns the copy of this sent message handed to a consumer of the session.
+	 */
+	InVMMessage deliverTo(InVMSession session) {
+		InVMMessage copy = copy();
+		copy.session = session;
+		copy.redelivered = deliveryCount > 1;
+		copy.properties.put(JMSX_DELIVERY_COUNT, Integer.valueOf(deliveryCount));
+		copy.propertiesReadOnly = true;
+		copy.prepareForDelivery();
+		return copy;
+	}
+
+	/**
+	 * Returns the copy of the message kept by the destination once it is sent.
+	 * Messages of other providers are converted.
+	 */
+	static InVMMessage snapshot(Message message, long sourceConnection) throws JMSException {
+		InVMMessage copy;
+		if (message instanceof InVMMessage) {
+			copy = ((InVMMessage) message).copy();
+			copy.session = null;
+		} else {
+			copy = convert(message);
+		}
+		copy.redelivered = false;
+		copy.deliveryCount = 0;
+		copy.sourceConnection = sourceConnection;
+		copy.properties.remove(JMSX_DELIVERY_COUNT);
+		return copy;
+	}
+
+	private static InVMMessage convert(Message message) throws JMSException {
+		InVMMessage copy;
+		if (message instanceof TextMessage) {
+			copy = new InVMTextMessage(((TextMessage) message).getText());
+		} else if (message instanceof BytesMessage) {
+			BytesMessage bytes = (BytesMessage) message;
+			bytes.reset();
+			byte[] data = new byte[(int) bytes.getBodyLength()];
+			bytes.readBytes(data);
+			copy = new InVMBytesMessage(data);
+		} else if (message instanceof MapMessage) {
+			MapMessage map = (MapMessage) message;
+			InVMMapMessage mapCopy = new InVMMapMessage();
+			for (Enumeration e = map.getMapNames(); e.hasMoreElements();) {
+				String name = (String) e.nextElement();
+				mapCopy.setObject(name, map.getObject(name));
+			}
+			copy = mapCopy;
+		} else if (message instanceof StreamMessage) {
+			StreamMessage stream = (StreamMessage) message;
+			InVMStreamMessage streamCopy = new InVMStreamMessage();
+			stream.reset();
+			try {
+				while (true) {
+					streamCopy.writeObject(stream.readObject());
+				}
+			} catch (MessageEOFException e) {
+				// end of the body
+			}
+			copy = streamCopy;
+		} else if (message instanceof ObjectMessage) {
+			copy = new InVMObjectMessage(((ObjectMessage) message).getObject());
+		} else {
+			copy = new InVMMessage();
+		}
+		copy.messageID = message.getJMSMessageID();
+		copy.timestamp = message.getJMSTimestamp();
+		copy.correlationID = message.getJMSCorrelationID();
+		copy.replyTo = message.getJMSReplyTo();
+		copy.destination = message.getJMSDestination();
+		copy.deliveryMode = message.getJMSDeliveryMode();
+		copy.type = message.getJMSType();
+		copy.expiration = message.getJMSExpiration();
+		copy.deliveryTime = message.getJMSDeliveryTime();
+		copy.priority = message.getJMSPriority();
+		for (Enumeration e = message.getPropertyNames(); e.hasMoreElements();) {
+			String name = (String) e.nextElement();
+			copy.properties.put(name, message.getObjectProperty(name));
+		}
+		copy.bodyReadOnly = false;
+		return copy;
+	}
+
+	/**
+	 * Returns true if the message has expired.
+	 */
+	boolean isExpired(long now) {
+		return expiration != 0 && expiration <= now;
+	}
+
+	/**
+	 * Returns the value of a header field or property for a selector, with
+	 * integral numbers as Long and decimal numbers as Double.
+	 */
+	Object getSelectorValue(String name) {
+		Object value;
+		switch (name) {
+		case "JMSDeliveryMode":
+			return deliveryMode == DeliveryMode.PERSISTENT ? "PERSISTENT" : "NON_PERSISTENT";
+		case "JMSPriority":
+			return Long.valueOf(priority);
+		case "JMSMessageID":
+			return messageID;
+		case "JMSTimestamp":
+			return Long.valueOf(timestamp);
+		case "JMSCorrelationID":
+			return correlationID;
+		case "JMSType":
+			return type;
+		default:
+			value = properties.get(name);
+		}
+		if (value instanceof Byte || value instanceof Short || value instanceof Integer) {
+			return Long.valueOf(((Number) value).longValue());
+		}
+		if (value instanceof Float) {
+			return Double.valueOf(((Float) value).doubleValue());
+		}
+		return value;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[" + messageID + "]";
+	}
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package com.sun.ts.lib.implementation.sun.jms.invm;
+
+import java.util.Collections;
+
+import jakarta.jms.IllegalStateException;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageFormatException;
+import jakarta.jms.MessageListener;
+import jakarta.jms.Queue;
+import jakarta.jms.QueueReceiver;
+import jakarta.jms.Topic;
+import jakarta.jms.TopicSubscriber;
+
+/**
+ * A consumer of a queue, or of a topic subscription. A queue consumer applies
+ * its selector when it takes messages from the queue; the selector of a topic
+ * consumer is applied by its subscription when messages are published.
+ */
+public class InVMMessageConsumer implements QueueReceiver, TopicSubscriber {
+
+	private final InVMSession session;
+
+	private final InVMDestination destination;
+
+	private final String messageSelector;
+
+	private final Selector selector;
+
+	private final boolean noLocal;
+
+	final MessageStore store;
+
+	private final Subscription subscription;
+
+	private volatile MessageListener listener;
+
+	private volatile boolean closed;
+
+	private final MessageStore.Condition receiving = new MessageStore.Condition() {
+		@Override
+		public boolean holds() {
+			return !closed && !session.isClosed();
+		}
+
+		@Override
+		public boolean canReceive() {
+			return session.connection.isStarted();
+		}
+	};
+
+	InVMMessageConsumer(InVMSession session, InVMDestination destination, String messageSelector,
+			Selector selector, boolean noLocal, MessageStore store, Subscription subscription) {
+		this.session = session;
+		this.destination = destination;
+		this.messageSelector = messageSelector;
+		this.selector = selector;
+		this.noLocal = noLocal;
+		this.store = store;
+		this.subscription = subscription;
+	}
+
+	private void checkOpen() throws IllegalStateException {
+		if (closed || session.isClosed()) {
+			throw new IllegalStateException("The consumer is closed");
+		}
+	}
+
+	Selector getSelector() {
+		return selector;
+	}
+
+	MessageListener getListener() {
+		return listener;
+	}
+
+	@Override
+	public String getMessageSelector() throws JMSException {
+		checkOpen();
+		return messageSelector;
+	}
+
+	@Override
+	public MessageListener getMessageListener() throws JMSException {
+		checkOpen();
+		return listener;
+	}
+
+	@Override
+	public void setMessageListener(MessageListener listener) throws JMSException {
+		checkOpen();
+		this.listener = listener;
+		session.listenerChanged(this);
+	}
+
+	@Override
+	public Queue getQueue() throws JMSException {
+		checkOpen();
+		return (Queue) destination;
+	}
+
+	@Override
+	public Topic getTopic() throws JMSException {
+		checkOpen();
+		return (Topic) destination;
+	}
+
+	@Override
+	public boolean getNoLocal() throws JMSException {
+		checkOpen();
+		return noLocal;
+	}
+
+	// ---- synchronous receive
+
+	@Override
+	public Message receive() throws JMSException {
+		return receive(0);
+	}
+
+	@Override
+	public Message receive(long timeout) throws JMSException {
+		InVMMessage stored = poll(timeout);
+		return stored == null ? null : session.delivered(store, stored);
+	}
+
+	@Override
+	public Message receiveNoWait() throws JMSException {
+		return receive(-1);
+	}
+
+	/**
+	 * Takes the next message from the store, waiting up to timeout milliseconds,
+	 * forever if timeout is 0, or not at all if it is negative.
+	 */
+	private InVMMessage poll(long timeout) throws JMSException {
+		checkOpen();
+		if (listener != null) {
+			throw new IllegalStateException("The consumer has a message listener");
+		}
+		if (timeout < 0) {
+			return session.connection.isStarted() ? store.poll(selector) : null;
+		}
+		try {
+			return store.poll(selector, timeout, receiving);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		}
+	}
+
+	/**
+	 * Receives the body of the next message. A message whose body has another
+	 * type is put back in AUTO_ACKNOWLEDGE and DUPS_OK_ACKNOWLEDGE mode, and
+	 * counts as delivered otherwise.
+	 */
+	<T> T receiveBody(Class<T> c, long timeout) throws JMSException {
+		InVMMessage stored = poll(timeout);
+		if (stored == null) {
+			return null;
+		}
+		int mode = session.getAcknowledgeMode();
+		InVMMessage message = stored.deliverTo(session);
+		// a StreamMessage or a message without a body cannot be received this way
+		if (message.getClass() != InVMMessage.class && message.isBodyAssignableTo(c)) {
+			session.delivered(store, stored);
+			return message.getBody(c);
+		}
+		if (mode == InVMSession.AUTO_ACKNOWLEDGE || mode == InVMSession.DUPS_OK_ACKNOWLEDGE) {
+			store.addFirst(Collections.singletonList(stored));
+		} else {
+			session.delivered(store, stored);
+		}
+		throw new MessageFormatException("The message body cannot be assigned to " + c.getName());
+	}
+
+	/**
+	 * Closes the consumer, once a message listener running in another thread has
+	 * returned.
+	 */
+	@Override
+	public void close() throws JMSException {
+		if (closed) {
+			return;
+		}
+		if (!session.isDispatcherThread()) {
+			session.awaitListenerIdle();
+		}
+		closed = true;
+		listener = null;
+		store.wakeup();
+		session.removeConsumer(this);
+		if (subscription != null) {
+			session.connection.broker.unsubscribe(subscription);
+		}
+		if (destination instanceof InVMTemporaryQueue) {
+			((InVMTemporaryQueue) destination).consumers.decrementAndGet();
+		}
+	}
+}
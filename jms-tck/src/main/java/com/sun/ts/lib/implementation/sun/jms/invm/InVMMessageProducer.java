@@ -0,0 +1,306 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package com.sun.ts.lib.implementation.sun.jms.invm;
+
+import jakarta.jms.CompletionListener;
+import jakarta.jms.DeliveryMode;
+import jakarta.jms.Destination;
+import jakarta.jms.IllegalStateException;
+import jakarta.jms.InvalidDestinationException;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageFormatException;
+import jakarta.jms.Queue;
+import jakarta.jms.QueueSender;
+import jakarta.jms.Topic;
+import jakarta.jms.TopicPublisher;
+
+/**
+ * A message producer, with or without a destination of its own.
+ */
+public class InVMMessageProducer implements QueueSender, TopicPublisher {
+
+	private final InVMSession session;
+
+	private final InVMDestination destination;
+
+	private volatile boolean closed;
+
+	private int deliveryMode = DeliveryMode.PERSISTENT;
+
+	private int priority = Message.DEFAULT_PRIORITY;
+
+	private long timeToLive = Message.DEFAULT_TIME_TO_LIVE;
+
+	private long deliveryDelay = Message.DEFAULT_DELIVERY_DELAY;
+
+	private boolean disableMessageID;
+
+	private boolean disableMessageTimestamp;
+
+	InVMMessageProducer(InVMSession session, InVMDestination destination) {
+		this.session = session;
+		this.destination = destination;
+	}
+
+	private void checkOpen() throws IllegalStateException {
+		if (closed || session.isClosed()) {
+			throw new IllegalStateException("The producer is closed");
+		}
+	}
+
+	static void checkDeliveryMode(int deliveryMode) throws JMSException {
+		if (deliveryMode != DeliveryMode.PERSISTENT && deliveryMode != DeliveryMode.NON_PERSISTENT) {
+			throw new JMSException("Invalid delivery mode " + deliveryMode);
+		}
+	}
+
+	static void checkPriority(int priority) throws JMSException {
+		if (priority < 0 || priority > 9) {
+			throw new JMSException("Invalid priority " + priority);
+		}
+	}
+
+	// ---- properties
+
+	@Override
+	public void setDisableMessageID(boolean value) throws JMSException {
+		checkOpen();
+		disableMessageID = value;
+	}
+
+	@Override
+	public boolean getDisableMessageID() throws JMSException {
+		checkOpen();
+		return disableMessageID;
+	}
+
+	@Override
+	public void setDisableMessageTimestamp(boolean value) throws JMSException {
+		checkOpen();
+		disableMessageTimestamp = value;
+	}
+
+	@Override
+	public boolean getDisableMessageTimestamp() throws JMSException {
+		checkOpen();
+		return disableMessageTimestamp;
+	}
+
+	@Override
+	public void setDeliveryMode(int deliveryMode) throws JMSException {
+		checkOpen();
+		checkDeliveryMode(deliveryMode);
+		this.deliveryMode = deliveryMode;
+	}
+
+	@Override
+	public int getDeliveryMode() throws JMSException {
+		checkOpen();
+		return deliveryMode;
+	}
+
+	@Override
+	public void setPriority(int priority) throws JMSException {
+		checkOpen();
+		checkPriority(priority);
+		this.priority = priority;
+	}
+
+	@Override
+	public int getPriority() throws JMSException {
+		checkOpen();
+		return priority;
+	}
+
+	@Override
+	public void setTimeToLive(long timeToLive) throws JMSException {
+		checkOpen();
+		this.timeToLive = timeToLive;
+	}
+
+	@Override
+	public long getTimeToLive() throws JMSException {
+		checkOpen();
+		return timeToLive;
+	}
+
+	@Override
+	public void setDeliveryDelay(long deliveryDelay) throws JMSException {
+		checkOpen();
+		this.deliveryDelay = deliveryDelay;
+	}
+
+	@Override
+	public long getDeliveryDelay() throws JMSException {
+		checkOpen();
+		return deliveryDelay;
+	}
+
+	@Override
+	public Destination getDestination() throws JMSException {
+		checkOpen();
+		return destination;
+	}
+
+	@Override
+	public Queue getQueue() throws JMSException {
+		checkOpen();
+		return destination instanceof Queue ? (Queue) destination : null;
+	}
+
+	@Override
+	public Topic getTopic() throws JMSException {
+		checkOpen();
+		return destination instanceof Topic ? (Topic) destination : null;
+	}
+
+	@Override
+	public void close() throws JMSException {
+		if (closed) {
+			return;
+		}
+		if (InVMSession.isCompletionThread() && InVMSession.getCallbackSession() == session) {
+			throw new IllegalStateException("A completion listener must not close its own producer");
+		}
+		closed = true;
+		session.removeProducer(this);
+	}
+
+	// ---- sending with the destination of the producer
+
+	@Override
+	public void send(Message message) throws JMSException {
+		send(message, deliveryMode, priority, timeToLive);
+	}
+
+	@Override
+	public void send(Message message, int deliveryMode, int priority, long timeToLive) throws JMSException {
+		checkOpen();
+		if (destination == null) {
+			throw new UnsupportedOperationException("The producer has no destination");
+		}
+		doSend(destination, message, deliveryMode, priority, timeToLive, null);
+	}
+
+	@Override
+	public void send(Message message, CompletionListener completionListener) throws JMSException {
+		send(message, deliveryMode, priority, timeToLive, completionListener);
+	}
+
+	@Override
+	public void send(Message message, int deliveryMode, int priority, long timeToLive,
+			CompletionListener completionListener) throws JMSException {
+		checkOpen();
+		if (destination == null) {
+			throw new UnsupportedOperationException("The producer has no destination");
+		}
+		checkCompletionListener(completionListener);
+		doSend(destination, message, deliveryMode, priority, timeToLive, completionListener);
+	}
+
+	@Override
+	public void send(Queue queue, Message message) throws JMSException {
+		send((Destination) queue, message);
+	}
+
+	@Override
+	public void send(Queue queue, Message message, int deliveryMode, int priority, long timeToLive)
+			throws JMSException {
+		send((Destination) queue, message, deliveryMode, priority, timeToLive);
+	}
+
+	@Override
+	public void publish(Message message) throws JMSException {
+		send(message);
+	}
+
+	@Override
+	public void publish(Message message, int deliveryMode, int priority, long timeToLive) throws JMSException {
+		send(message, deliveryMode, priority, timeToLive);
+	}
+
+	@Override
+	public void publish(Topic topic, Message message) throws JMSException {
+		send((Destination) topic, message);
+	}
+
+	@Override
+	public void publish(Topic topic, Message message, int deliveryMode, int priority, long timeToLive)
+			throws JMSException {
+		send((Destination) topic, message, deliveryMode, priority, timeToLive);
+	}
+
+	// ---- sending with a destination per message
+
+	@Override
+	public void send(Destination destination, Message message) throws JMSException {
+		send(destination, message, deliveryMode, priority, timeToLive);
+	}
+
+	@Override
+	public void send(Destination destination, Message message, int deliveryMode, int priority, long timeToLive)
+			throws JMSException {
+		checkOpen();
+		if (this.destination != null) {
+			throw new UnsupportedOperationException("The producer has a destination");
+		}
+		doSend(checkDestination(destination), message, deliveryMode, priority, timeToLive, null);
+	}
+
+	@Override
+	public void send(Destination destination, Message message, CompletionListener completionListener)
+			throws JMSException {
+		send(destination, message, deliveryMode, priority, timeToLive, completionListener);
+	}
+
+	@Override
+	public void send(Destination destination, Message message, int deliveryMode, int priority, long timeToLive,
+			CompletionListener completionListener) throws JMSException {
+		checkOpen();
+		if (this.destination != null) {
+			throw new UnsupportedOperationException("The producer has a destination");
+		}
+		checkCompletionListener(completionListener);
+		doSend(checkDestination(destination), message, deliveryMode, priority, timeToLive, completionListener);
+	}
+
+	private static InVMDestination checkDestination(Destination destination) throws InvalidDestinationException {
+		if (!(destination instanceof InVMDestination)) {
+			throw new InvalidDestinationException("Invalid destination: " + destination);
+		}
+		return (InVMDestination) destination;
+	}
+
+	private static void checkCompletionListener(CompletionListener completionListener) {
+		if (completionListener == null) {
+			throw new IllegalArgumentException("The completion listener is null");
+		}
+	}
+
+	private void doSend(InVMDestination destination, Message message, int deliveryMode, int priority,
+			long timeToLive, CompletionListener completionListener) throws JMSException {
+		if (message == null) {
+			throw new MessageFormatException("The message is null");
+		}
+		checkDeliveryMode(deliveryMode);
+		checkPriority(priority);
+		session.send(destination, message, deliveryMode, priority, timeToLive, deliveryDelay, disableMessageID,
+				disableMessageTimestamp, completionListener);
+	}
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package com.sun.ts.lib.implementation.sun.jms.invm;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+
+import jakarta.jms.JMSException;
+import jakarta.jms.MessageFormatException;
+import jakarta.jms.ObjectMessage;
+
+/**
+ * The object is serialized when it is set, so that later changes to it do not
+ * change the message, and deserialized again by every getObject call.
+ */
+public class InVMObjectMessage extends InVMMessage implements ObjectMessage {
+
+	private byte[] data;
+
+	public InVMObjectMessage() {
+	}
+
+	public InVMObjectMessage(Serializable object) throws JMSException {
+		data = serialize(object);
+	}
+
+	@Override
+	public void setObject(Serializable object) throws JMSException {
+		checkBodyWriteable();
+		data = serialize(object);
+	}
+
+	@Override
+	public Serializable getObject() throws JMSException {
+		if (data == null) {
+			return null;
+		}
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data)) {
+			@Override
+			protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+				// the classes of the object may only be visible to the application
+				ClassLoader loader = Thread.currentThread().getContextClassLoader();
+				if (loader != null) {
+					try {
+						return Class.forName(desc.getName(), false, loader);
+					} catch (ClassNotFoundException e) {
+						// fall back to the default resolution
+					}
+				}
+				return super.resolveClass(desc);
+			}
+		}) {
+			return (Serializable) in.readObject();
+		} catch (IOException | ClassNotFoundException e) {
+			MessageFormatException mfe = new MessageFormatException("Cannot deserialize the object: " + e);
+			mfe.setLinkedException(e);
+			throw mfe;
+		}
+	}
+
+	@Override
+	public void clearBody() throws JMSException {
+		super.clearBody();
+		data = null;
+	}
+
+	@Override
+	Object getBodyValue() throws JMSException {
+		return getObject();
+	}
+
+	private static byte[] serialize(Serializable object) throws JMSException {
+		if (object == null) {
+			return null;
+		}
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(object);
+		} catch (IOException e) {
+			MessageFormatException mfe = new MessageFormatException("Cannot serialize the object: " + e);
+			mfe.setLinkedException(e);
+			throw mfe;
+		}
+		return bytes.toByteArray();
+	}
+}
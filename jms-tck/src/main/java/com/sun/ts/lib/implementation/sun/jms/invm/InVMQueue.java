@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package com.sun.ts.lib.implementation.sun.jms.invm;
+
+import java.io.ObjectStreamException;
+
+import jakarta.jms.InvalidDestinationException;
+import jakarta.jms.Queue;
+
+/**
+ * A queue of the in-process broker.
+ */
+public class InVMQueue extends InVMDestination implements Queue {
+
+	private static final long serialVersionUID = 1L;
+
+	final transient MessageStore store = new MessageStore();
+
+	InVMQueue(String name) {
+		super(name);
+	}
+
+	@Override
+	public String getQueueName() {
+		return name;
+	}
+
+	@Override
+	void send(InVMMessage message) throws InvalidDestinationException {
+		checkNotDeleted();
+		store.add(message);
+	}
+
+	Object readResolve() throws ObjectStreamException {
+		return Broker.getInstance().getQueue(name);
+	}
+
+	@Override
+	public String toString() {
+		return "InVMQueue[" + name + "]";
+	}
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package com.sun.ts.lib.implementation.sun.jms.invm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+import jakarta.jms.IllegalStateException;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.Queue;
+import jakarta.jms.QueueBrowser;
+
+/**
+ * A browser of a queue. Each enumeration is a snapshot of the queue when it was
+ * created.
+ */
+final class InVMQueueBrowser implements QueueBrowser {
+
+	private final InVMSession session;
+
+	private final InVMQueue queue;
+
+	private final String messageSelector;
+
+	private final Selector selector;
+
+	private volatile boolean closed;
+
+	InVMQueueBrowser(InVMSession session, InVMQueue queue, String messageSelector, Selector selector) {
+		this.session = session;
+		this.queue = queue;
+		this.messageSelector = messageSelector;
+		this.selector = selector;
+	}
+
+	private void checkOpen() throws IllegalStateException {
+		if (closed || session.isClosed()) {
+			throw new IllegalStateException("The browser is closed");
+		}
+	}
+
+	@Override
+	public Queue getQueue() throws JMSException {
+		checkOpen();
+		return queue;
+	}
+
+	@Override
+	public String getMessageSelector() throws JMSException {
+		checkOpen();
+		return messageSelector;
+	}
+
+	@Override
+	public Enumeration getEnumeration() throws JMSException {
+		checkOpen();
+		List<Message> messages = new ArrayList<>();
+		for (InVMMessage stored : queue.store.browse(selector)) {
+			messages.add(stored.deliverTo(null));
+		}
+		return Collections.enumeration(messages);
+	}
+
+	@Override
+	public void close() throws JMSException {
+		closed = true;
+		session.removeBrowser(this);
+	}
+}
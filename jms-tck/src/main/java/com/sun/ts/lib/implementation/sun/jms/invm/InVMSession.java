@@ -0,0 +1,807 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package com.sun.ts.lib.implementation.sun.jms.invm;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.jms.BytesMessage;
+import jakarta.jms.CompletionListener;
+import jakarta.jms.Destination;
+import jakarta.jms.IllegalStateException;
+import jakarta.jms.InvalidDestinationException;
+import jakarta.jms.JMSException;
+import jakarta.jms.MapMessage;
+import jakarta.jms.Message;
+import jakarta.jms.MessageConsumer;
+import jakarta.jms.MessageListener;
+import jakarta.jms.MessageProducer;
+import jakarta.jms.ObjectMessage;
+import jakarta.jms.Queue;
+import jakarta.jms.QueueBrowser;
+import jakarta.jms.QueueReceiver;
+import jakarta.jms.QueueSender;
+import jakarta.jms.QueueSession;
+import jakarta.jms.Session;
+import jakarta.jms.StreamMessage;
+import jakarta.jms.TemporaryQueue;
+import jakarta.jms.TemporaryTopic;
+import jakarta.jms.TextMessage;
+import jakarta.jms.Topic;
+import jakarta.jms.TopicPublisher;
+import jakarta.jms.TopicSession;
+import jakarta.jms.TopicSubscriber;
+
+/**
+ * A session of the in-process broker.
+ *
+ * Messages received synchronously in AUTO_ACKNOWLEDGE or DUPS_OK_ACKNOWLEDGE
+ * mode are acknowledged when they are returned; messages delivered to a
+ * listener when the listener returns. Otherwise the delivered messages are
+ * remembered until they are acknowledged or committed, and put back on their
+ * queue or subscription by recover, rollback or close. Messages sent in a
+ * transacted session are held until commit.
+ *
+ * Message listeners are called by a dispatcher thread of the session, one
+ * message at a time, and completion listeners by a completion thread of the
+ * session.
+ */
+public class InVMSession implements QueueSession, TopicSession {
+
+	// a listener whose onMessage throws is not redelivered to forever
+	private static final int MAX_REDELIVERIES = 10;
+
+	private static final ThreadLocal<InVMSession> callbackSession = new ThreadLocal<>();
+
+	private static final ThreadLocal<Boolean> completionThread = new ThreadLocal<>();
+
+	final InVMConnection connection;
+
+	private final int domain;
+
+	private final int mode;
+
+	private volatile boolean closed;
+
+	private MessageListener messageListener;
+
+	private final List<InVMMessageConsumer> consumers = new CopyOnWriteArrayList<>();
+
+	private final List<InVMMessageProducer> producers = new CopyOnWriteArrayList<>();
+
+	private final List<InVMQueueBrowser> browsers = new CopyOnWriteArrayList<>();
+
+	// delivered messages not yet acknowledged or committed, guarded by this
+	private final List<Delivery> unacked = new ArrayList<>();
+
+	// messages sent in the current transaction, guarded by this
+	private final List<Delivery> pending = new ArrayList<>();
+
+	private final Object dispatchLock = new Object();
+
+	private Thread dispatcher;
+
+	private boolean dispatchSignal;
+
+	private boolean inListener;
+
+	private final Runnable wakeup = this::wakeup;
+
+	private ExecutorService completions;
+
+	InVMSession(InVMConnection connection, int domain, int mode) {
+		this.connection = connection;
+		this.domain = domain;
+		this.mode = mode;
+	}
+
+	/**
+	 * Returns the session whose message or completion listener the current
+	 * thread is running, or null.
+	 */
+	static InVMSession getCallbackSession() {
+		return callbackSession.get();
+	}
+
+	static boolean isCompletionThread() {
+		return completionThread.get() != null;
+	}
+
+	void checkOpen() throws IllegalStateException {
+		if (closed || connection.isClosed()) {
+			throw new IllegalStateException("The session is closed");
+		}
+	}
+
+	boolean isClosed() {
+		return closed || connection.isClosed();
+	}
+
+	private void checkDomain(int required, String operation) throws IllegalStateException {
+		if (domain != InVMConnection.GENERIC && domain != required) {
+			throw new IllegalStateException(operation + " is not allowed in a "
+					+ (domain == InVMConnection.QUEUE ? "QueueSession" : "TopicSession"));
+		}
+	}
+
+	private boolean isAutoAcknowledge() {
+		return mode == AUTO_ACKNOWLEDGE || mode == DUPS_OK_ACKNOWLEDGE;
+	}
+
+	// ---- messages
+
+	@Override
+	public BytesMessage createBytesMessage() throws JMSException {
+		checkOpen();
+		return new InVMBytesMessage();
+	}
+
+	@Override
+	public MapMessage createMapMessage() throws JMSException {
+		checkOpen();
+		return new InVMMapMessage();
+	}
+
+	@Override
+	public Message createMessage() throws JMSException {
+		checkOpen();
+		return new InVMMessage();
+	}
+
+	@Override
+	public ObjectMessage createObjectMessage() throws JMSException {
+		checkOpen();
+		return new InVMObjectMessage();
+	}
+
+	@Override
+	public ObjectMessage createObjectMessage(Serializable object) throws JMSException {
+		checkOpen();
+		return new InVMObjectMessage(object);
+	}
+
+	@Override
+	public StreamMessage createStreamMessage() throws JMSException {
+		checkOpen();
+		return new InVMStreamMessage();
+	}
+
+	@Override
+	public TextMessage createTextMessage() throws JMSException {
+		checkOpen();
+		return new InVMTextMessage();
+	}
+
+	@Override
+	public TextMessage createTextMessage(String text) throws JMSException {
+		checkOpen();
+		return new InVMTextMessage(text);
+	}
+
+	// ---- transactions and acknowledgement
+
+	@Override
+	public boolean getTransacted() throws JMSException {
+		checkOpen();
+		return mode == SESSION_TRANSACTED;
+	}
+
+	@Override
+	public int getAcknowledgeMode() throws JMSException {
+		checkOpen();
+		return mode;
+	}
+
+	@Override
+	public void commit() throws JMSException {
+		checkOpen();
+		if (mode != SESSION_TRANSACTED) {
+			throw new IllegalStateException("The session is not transacted");
+		}
+		checkNotInCompletionListener("commit");
+		List<Delivery> sent;
+		synchronized (this) {
+			sent = new ArrayList<>(pending);
+			pending.clear();
+			unacked.clear();
+		}
+		for (Delivery d : sent) {
+			d.destination.send(d.message);
+		}
+	}
+
+	@Override
+	public void rollback() throws JMSException {
+		checkOpen();
+		if (mode != SESSION_TRANSACTED) {
+			throw new IllegalStateException("The session is not transacted");
+		}
+		checkNotInCompletionListener("rollback");
+		synchronized (this) {
+			pending.clear();
+		}
+		redeliverUnacknowledged();
+	}
+
+	@Override
+	public void recover() throws JMSException {
+		checkOpen();
+		if (mode == SESSION_TRANSACTED) {
+			throw new IllegalStateException("The session is transacted");
+		}
+		redeliverUnacknowledged();
+	}
+
+	private void checkNotInCompletionListener(String operation) throws IllegalStateException {
+		if (isCompletionThread() && callbackSession.get() == this) {
+			throw new IllegalStateException("A completion listener must not call " + operation);
+		}
+	}
+
+	/**
+	 * Acknowledges the messages delivered by the session, when one of them is
+	 * acknowledged in CLIENT_ACKNOWLEDGE mode.
+	 */
+	void acknowledgeMessage() throws JMSException {
+		if (isClosed()) {
+			throw new IllegalStateException("The session of the message is closed");
+		}
+		if (mode == CLIENT_ACKNOWLEDGE) {
+			synchronized (this) {
+				unacked.clear();
+			}
+		}
+	}
+
+	private void redeliverUnacknowledged() {
+		List<Delivery> redelivered;
+		synchronized (this) {
+			redelivered = new ArrayList<>(unacked);
+			unacked.clear();
+		}
+		// by store, keeping the delivery order
+		Map<MessageStore, List<InVMMessage>> byStore = new LinkedHashMap<>();
+		for (Delivery d : redelivered) {
+			byStore.computeIfAbsent(d.store, s -> new ArrayList<>()).add(d.message);
+		}
+		for (Map.Entry<MessageStore, List<InVMMessage>> e : byStore.entrySet()) {
+			e.getKey().addFirst(e.getValue());
+		}
+	}
+
+	/**
+	 * Returns the copy of a message taken from a store for a synchronous
+	 * receive, and remembers it until it is acknowledged.
+	 */
+	InVMMessage delivered(MessageStore store, InVMMessage stored) {
+		InVMMessage message = stored.deliverTo(this);
+		if (!isAutoAcknowledge()) {
+			synchronized (this) {
+				unacked.add(new Delivery(store, stored));
+			}
+		}
+		return message;
+	}
+
+	// ---- sending
+
+	/**
+	 * Sets the header fields of the message and sends a copy of it, or holds the
+	 * copy until commit in a transacted session.
+	 */
+	void send(InVMDestination destination, Message message, int deliveryMode, int priority, long timeToLive,
+			long deliveryDelay, boolean disableMessageID, boolean disableTimestamp,
+			CompletionListener completionListener) throws JMSException {
+		checkOpen();
+		long now = System.currentTimeMillis();
+		message.setJMSDestination(destination);
+		message.setJMSDeliveryMode(deliveryMode);
+		message.setJMSPriority(priority);
+		message.setJMSExpiration(timeToLive > 0 ? now + timeToLive : 0);
+		message.setJMSTimestamp(disableTimestamp ? 0 : now);
+		message.setJMSDeliveryTime(now + deliveryDelay);
+		message.setJMSMessageID(disableMessageID ? null : connection.broker.nextMessageID());
+		InVMMessage copy = InVMMessage.snapshot(message, connection.id);
+		if (mode == SESSION_TRANSACTED) {
+			destination.checkNotDeleted();
+			synchronized (this) {
+				pending.add(new Delivery(destination, copy));
+			}
+		} else {
+			destination.send(copy);
+		}
+		if (completionListener != null) {
+			completions().execute(() -> {
+				callbackSession.set(this);
+				completionThread.set(Boolean.TRUE);
+				try {
+					completionListener.onCompletion(message);
+				} finally {
+					callbackSession.remove();
+					completionThread.remove();
+				}
+			});
+		}
+	}
+
+	private synchronized ExecutorService completions() {
+		if (completions == null) {
+			completions = Executors.newSingleThreadExecutor(r -> {
+				Thread t = new Thread(r, "InVM-completion-" + connection.id);
+				t.setDaemon(true);
+				return t;
+			});
+		}
+		return completions;
+	}
+
+	// ---- message listeners
+
+	@Override
+	public MessageListener getMessageListener() throws JMSException {
+		checkOpen();
+		return messageListener;
+	}
+
+	@Override
+	public void setMessageListener(MessageListener listener) throws JMSException {
+		checkOpen();
+		messageListener = listener;
+	}
+
+	@Override
+	public void run() {
+	}
+
+	/**
+	 * Called when the listener of a consumer is set or removed.
+	 */
+	void listenerChanged(InVMMessageConsumer consumer) {
+		if (consumer.getListener() != null) {
+			consumer.store.addWakeup(wakeup);
+			synchronized (dispatchLock) {
+				if (dispatcher == null) {
+					dispatcher = new Thread(this::dispatch, "InVM-dispatcher-" + connection.id);
+					dispatcher.setDaemon(true);
+					dispatcher.start();
+				}
+			}
+			wakeup();
+		} else {
+			consumer.store.removeWakeup(wakeup);
+		}
+	}
+
+	void wakeup() {
+		synchronized (dispatchLock) {
+			dispatchSignal = true;
+			dispatchLock.notifyAll();
+		}
+	}
+
+	private void dispatch() {
+		callbackSession.set(this);
+		while (!isClosed()) {
+			boolean delivered = false;
+			for (InVMMessageConsumer consumer : consumers) {
+				MessageListener listener = consumer.getListener();
+				if (listener == null) {
+					continue;
+				}
+				synchronized (dispatchLock) {
+					if (!connection.isStarted() || closed) {
+						break;
+					}
+					inListener = true;
+				}
+				try {
+					InVMMessage stored = consumer.store.poll(consumer.getSelector());
+					if (stored != null) {
+						deliver(consumer, listener, stored);
+						delivered = true;
+					}
+				} finally {
+					synchronized (dispatchLock) {
+						inListener = false;
+						dispatchLock.notifyAll();
+					}
+				}
+			}
+			if (!delivered) {
+				synchronized (dispatchLock) {
+					try {
+						if (!dispatchSignal) {
+							// bounded, as messages become deliverable without notice
+							dispatchLock.wait(100);
+						}
+					} catch (InterruptedException e) {
+						return;
+					}
+					dispatchSignal = false;
+				}
+			}
+		}
+	}
+
+	private void deliver(InVMMessageConsumer consumer, MessageListener listener, InVMMessage stored) {
+		Delivery delivery = new Delivery(consumer.store, stored);
+		synchronized (this) {
+			unacked.add(delivery);
+		}
+		InVMMessage message = stored.deliverTo(this);
+		try {
+			listener.onMessage(message);
+			if (isAutoAcknowledge()) {
+				synchronized (this) {
+					unacked.remove(delivery);
+				}
+			}
+		} catch (RuntimeException e) {
+			if (isAutoAcknowledge()) {
+				boolean redeliver;
+				synchronized (this) {
+					redeliver = unacked.remove(delivery);
+				}
+				if (redeliver && stored.deliveryCount < MAX_REDELIVERIES) {
+					consumer.store.addFirst(Collections.singletonList(stored));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Waits for a running message listener to return, unless it is the calling
+	 * thread.
+	 */
+	void awaitListenerIdle() {
+		if (Thread.currentThread() == dispatcher) {
+			return;
+		}
+		synchronized (dispatchLock) {
+			while (inListener) {
+				try {
+					dispatchLock.wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+	}
+
+	boolean isDispatcherThread() {
+		return Thread.currentThread() == dispatcher;
+	}
+
+	// ---- consumers and producers
+
+	@Override
+	public MessageProducer createProducer(Destination destination) throws JMSException {
+		return newProducer(destination);
+	}
+
+	@Override
+	public QueueSender createSender(Queue queue) throws JMSException {
+		return newProducer(queue);
+	}
+
+	@Override
+	public TopicPublisher createPublisher(Topic topic) throws JMSException {
+		return newProducer(topic);
+	}
+
+	private InVMMessageProducer newProducer(Destination destination) throws JMSException {
+		checkOpen();
+		if (destination != null && !(destination instanceof InVMDestination)) {
+			throw new InvalidDestinationException("Not a destination of this provider: " + destination);
+		}
+		InVMMessageProducer producer = new InVMMessageProducer(this, (InVMDestination) destination);
+		producers.add(producer);
+		return producer;
+	}
+
+	void removeProducer(InVMMessageProducer producer) {
+		producers.remove(producer);
+	}
+
+	@Override
+	public MessageConsumer createConsumer(Destination destination) throws JMSException {
+		return createConsumer(destination, null, false);
+	}
+
+	@Override
+	public MessageConsumer createConsumer(Destination destination, String messageSelector) throws JMSException {
+		return createConsumer(destination, messageSelector, false);
+	}
+
+	@Override
+	public MessageConsumer createConsumer(Destination destination, String messageSelector, boolean noLocal)
+			throws JMSException {
+		checkOpen();
+		InVMDestination d = checkDestination(destination);
+		Selector selector = Selector.parse(messageSelector);
+		InVMMessageConsumer consumer;
+		if (d instanceof InVMQueue) {
+			consumer = new InVMMessageConsumer(this, d, messageSelector, selector, false, ((InVMQueue) d).store,
+					null);
+			if (d instanceof InVMTemporaryQueue) {
+				((InVMTemporaryQueue) d).consumers.incrementAndGet();
+			}
+		} else {
+			Subscription s = connection.broker.subscribe((InVMTopic) d, messageSelector, noLocal, connection.id);
+			consumer = new InVMMessageConsumer(this, d, messageSelector, null, noLocal, s.store, s);
+		}
+		consumers.add(consumer);
+		return consumer;
+	}
+
+	@Override
+	public QueueReceiver createReceiver(Queue queue) throws JMSException {
+		return createReceiver(queue, null);
+	}
+
+	@Override
+	public QueueReceiver createReceiver(Queue queue, String messageSelector) throws JMSException {
+		checkOpen();
+		if (queue != null && !(queue instanceof InVMQueue)) {
+			throw new InvalidDestinationException("Not a queue of this provider: " + queue);
+		}
+		return (QueueReceiver) createConsumer(queue, messageSelector, false);
+	}
+
+	@Override
+	public TopicSubscriber createSubscriber(Topic topic) throws JMSException {
+		return createSubscriber(topic, null, false);
+	}
+
+	@Override
+	public TopicSubscriber createSubscriber(Topic topic, String messageSelector, boolean noLocal)
+			throws JMSException {
+		checkOpen();
+		if (topic != null && !(topic instanceof InVMTopic)) {
+			throw new InvalidDestinationException("Not a topic of this provider: " + topic);
+		}
+		return (TopicSubscriber) createConsumer(topic, messageSelector, noLocal);
+	}
+
+	@Override
+	public TopicSubscriber createDurableSubscriber(Topic topic, String name) throws JMSException {
+		return createDurableSubscriber(topic, name, null, false);
+	}
+
+	@Override
+	public TopicSubscriber createDurableSubscriber(Topic topic, String name, String messageSelector,
+			boolean noLocal) throws JMSException {
+		return createDurable(topic, name, messageSelector, noLocal, false);
+	}
+
+	@Override
+	public MessageConsumer createDurableConsumer(Topic topic, String name) throws JMSException {
+		return createDurable(topic, name, null, false, false);
+	}
+
+	@Override
+	public MessageConsumer createDurableConsumer(Topic topic, String name, String messageSelector,
+			boolean noLocal) throws JMSException {
+		return createDurable(topic, name, messageSelector, noLocal, false);
+	}
+
+	@Override
+	public MessageConsumer createSharedDurableConsumer(Topic topic, String name) throws JMSException {
+		return createDurable(topic, name, null, false, true);
+	}
+
+	@Override
+	public MessageConsumer createSharedDurableConsumer(Topic topic, String name, String messageSelector)
+			throws JMSException {
+		return createDurable(topic, name, messageSelector, false, true);
+	}
+
+	private InVMMessageConsumer createDurable(Topic topic, String name, String messageSelector, boolean noLocal,
+			boolean shared) throws JMSException {
+		checkOpen();
+		checkDomain(InVMConnection.TOPIC, "A durable subscription");
+		InVMTopic t = checkTopic(topic);
+		if (t instanceof InVMTemporaryTopic) {
+			throw new InvalidDestinationException("A durable subscription cannot use a temporary topic");
+		}
+		Subscription s = connection.broker.subscribeDurable(t, connection.getClientID(), name, messageSelector,
+				noLocal, shared, connection.id);
+		InVMMessageConsumer consumer = new InVMMessageConsumer(this, t, messageSelector, null, noLocal, s.store, s);
+		consumers.add(consumer);
+		return consumer;
+	}
+
+	@Override
+	public MessageConsumer createSharedConsumer(Topic topic, String name) throws JMSException {
+		return createSharedConsumer(topic, name, null);
+	}
+
+	@Override
+	public MessageConsumer createSharedConsumer(Topic topic, String name, String messageSelector)
+			throws JMSException {
+		checkOpen();
+		checkDomain(InVMConnection.TOPIC, "A shared subscription");
+		InVMTopic t = checkTopic(topic);
+		Subscription s = connection.broker.subscribeShared(t, connection.getClientID(), name, messageSelector);
+		InVMMessageConsumer consumer = new InVMMessageConsumer(this, t, messageSelector, null, false, s.store, s);
+		consumers.add(consumer);
+		return consumer;
+	}
+
+	@Override
+	public void unsubscribe(String name) throws JMSException {
+		checkOpen();
+		checkDomain(InVMConnection.TOPIC, "unsubscribe");
+		connection.broker.deleteDurable(connection.getClientID(), name);
+	}
+
+	private InVMDestination checkDestination(Destination destination) throws JMSException {
+		if (!(destination instanceof InVMDestination)) {
+			throw new InvalidDestinationException("Invalid destination: " + destination);
+		}
+		InVMDestination d = (InVMDestination) destination;
+		d.checkNotDeleted();
+		if (!d.isConsumableBy(connection)) {
+			throw new InvalidDestinationException(d + " belongs to another connection");
+		}
+		return d;
+	}
+
+	private InVMTopic checkTopic(Topic topic) throws JMSException {
+		if (!(topic instanceof InVMTopic)) {
+			throw new InvalidDestinationException("Invalid topic: " + topic);
+		}
+		return (InVMTopic) checkDestination(topic);
+	}
+
+	/**
+	 * Called when a consumer is closed.
+	 */
+	void removeConsumer(InVMMessageConsumer consumer) {
+		consumers.remove(consumer);
+		consumer.store.removeWakeup(wakeup);
+	}
+
+	@Override
+	public QueueBrowser createBrowser(Queue queue) throws JMSException {
+		return createBrowser(queue, null);
+	}
+
+	@Override
+	public QueueBrowser createBrowser(Queue queue, String messageSelector) throws JMSException {
+		checkOpen();
+		checkDomain(InVMConnection.QUEUE, "createBrowser");
+		if (!(queue instanceof InVMQueue)) {
+			throw new InvalidDestinationException("Invalid queue: " + queue);
+		}
+		InVMQueueBrowser browser = new InVMQueueBrowser(this, (InVMQueue) queue, messageSelector,
+				Selector.parse(messageSelector));
+		browsers.add(browser);
+		return browser;
+	}
+
+	void removeBrowser(InVMQueueBrowser browser) {
+		browsers.remove(browser);
+	}
+
+	// ---- destinations
+
+	@Override
+	public Queue createQueue(String queueName) throws JMSException {
+		checkOpen();
+		checkDomain(InVMConnection.QUEUE, "createQueue");
+		return connection.broker.getQueue(queueName);
+	}
+
+	@Override
+	public Topic createTopic(String topicName) throws JMSException {
+		checkOpen();
+		checkDomain(InVMConnection.TOPIC, "createTopic");
+		return connection.broker.getTopic(topicName);
+	}
+
+	@Override
+	public TemporaryQueue createTemporaryQueue() throws JMSException {
+		checkOpen();
+		checkDomain(InVMConnection.QUEUE, "createTemporaryQueue");
+		return connection.createTemporaryQueue();
+	}
+
+	@Override
+	public TemporaryTopic createTemporaryTopic() throws JMSException {
+		checkOpen();
+		checkDomain(InVMConnection.TOPIC, "createTemporaryTopic");
+		return connection.createTemporaryTopic();
+	}
+
+	// ---- close
+
+	/**
+	 * Closes the session, after the running message listener and the pending
+	 * completion listeners have returned. Unacknowledged messages are put back.
+	 */
+	@Override
+	public void close() throws JMSException {
+		if (closed) {
+			return;
+		}
+		if (callbackSession.get() == this) {
+			throw new IllegalStateException("A listener must not close its own session");
+		}
+		closed = true;
+		wakeup();
+		awaitListenerIdle();
+		for (InVMMessageConsumer consumer : consumers) {
+			consumer.close();
+		}
+		for (InVMMessageProducer producer : producers) {
+			producer.close();
+		}
+		for (InVMQueueBrowser browser : browsers) {
+			browser.close();
+		}
+		ExecutorService executor;
+		synchronized (this) {
+			executor = completions;
+			pending.clear();
+		}
+		if (executor != null) {
+			executor.shutdown();
+			try {
+				executor.awaitTermination(1, TimeUnit.MINUTES);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		redeliverUnacknowledged();
+		connection.removeSession(this);
+	}
+
+	/**
+	 * A message delivered from a store, or sent to a destination in a
+	 * transaction.
+	 */
+	private static final class Delivery {
+		final MessageStore store;
+
+		final InVMDestination destination;
+
+		final InVMMessage message;
+
+		Delivery(MessageStore store, InVMMessage message) {
+			this.store = store;
+			this.destination = null;
+			this.message = message;
+		}
+
+		Delivery(InVMDestination destination, InVMMessage message) {
+			this.store = null;
+			this.destination = destination;
+			this.message = message;
+		}
+	}
+}
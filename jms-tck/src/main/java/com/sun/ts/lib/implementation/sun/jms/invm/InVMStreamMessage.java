@@ -0,0 +1,277 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package com.sun.ts.lib.implementation.sun.jms.invm;
+
+import java.util.ArrayList;
+
+import jakarta.jms.JMSException;
+import jakarta.jms.MessageEOFException;
+import jakarta.jms.MessageFormatException;
+import jakarta.jms.MessageNotReadableException;
+import jakarta.jms.StreamMessage;
+
+/**
+ * The body is kept as the list of values written. A read that fails to convert
+ * the next value leaves the read position where it was.
+ */
+public class InVMStreamMessage extends InVMMessage implements StreamMessage {
+
+	private ArrayList<Object> items = new ArrayList<>();
+
+	private boolean reading;
+
+	private int position;
+
+	// bytes read from the current byte array item, or -1
+	private int bytesRead = -1;
+
+	@Override
+	void copyBody() {
+		ArrayList<Object> copy = new ArrayList<>(items.size());
+		for (Object item : items) {
+			copy.add(item instanceof byte[] ? ((byte[]) item).clone() : item);
+		}
+		items = copy;
+	}
+
+	@Override
+	void prepareForDelivery() {
+		super.prepareForDelivery();
+		startReading();
+	}
+
+	@Override
+	public void reset() {
+		bodyReadOnly = true;
+		startReading();
+	}
+
+	private void startReading() {
+		reading = true;
+		position = 0;
+		bytesRead = -1;
+	}
+
+	@Override
+	public void clearBody() throws JMSException {
+		super.clearBody();
+		items.clear();
+		reading = false;
+		position = 0;
+		bytesRead = -1;
+	}
+
+	@Override
+	public <T> T getBody(Class<T> c) throws JMSException {
+		throw new MessageFormatException("The body of a StreamMessage cannot be returned");
+	}
+
+	@Override
+	public boolean isBodyAssignableTo(Class c) {
+		return false;
+	}
+
+	// ---- reading
+
+	private Object next() throws JMSException {
+		if (!reading) {
+			throw new MessageNotReadableException("The message is in write-only mode");
+		}
+		if (bytesRead >= 0) {
+			throw new MessageFormatException("The byte array item has not been read completely");
+		}
+		if (position >= items.size()) {
+			throw new MessageEOFException("Unexpected end of the message body");
+		}
+		return items.get(position);
+	}
+
+	@Override
+	public boolean readBoolean() throws JMSException {
+		boolean value = Conversions.toBoolean(next());
+		position++;
+		return value;
+	}
+
+	@Override
+	public byte readByte() throws JMSException {
+		byte value = Conversions.toByte(next());
+		position++;
+		return value;
+	}
+
+	@Override
+	public short readShort() throws JMSException {
+		short value = Conversions.toShort(next());
+		position++;
+		return value;
+	}
+
+	@Override
+	public char readChar() throws JMSException {
+		char value = Conversions.toChar(next());
+		position++;
+		return value;
+	}
+
+	@Override
+	public int readInt() throws JMSException {
+		int value = Conversions.toInt(next());
+		position++;
+		return value;
+	}
+
+	@Override
+	public long readLong() throws JMSException {
+		long value = Conversions.toLong(next());
+		position++;
+		return value;
+	}
+
+	@Override
+	public float readFloat() throws JMSException {
+		float value = Conversions.toFloat(next());
+		position++;
+		return value;
+	}
+
+	@Override
+	public double readDouble() throws JMSException {
+		double value = Conversions.toDouble(next());
+		position++;
+		return value;
+	}
+
+	@Override
+	public String readString() throws JMSException {
+		String value = Conversions.toString(next());
+		position++;
+		return value;
+	}
+
+	@Override
+	public Object readObject() throws JMSException {
+		Object value = next();
+		position++;
+		return value instanceof byte[] ? ((byte[]) value).clone() : value;
+	}
+
+	/**
+	 * Reads the next part of a byte array item. The item is complete once a call
+	 * returns less than the length of the buffer.
+	 */
+	@Override
+	public int readBytes(byte[] value) throws JMSException {
+		byte[] item;
+		if (bytesRead >= 0) {
+			item = (byte[]) items.get(position);
+		} else {
+			Object o = next();
+			if (o == null) {
+				position++;
+				return -1;
+			}
+			if (!(o instanceof byte[])) {
+				throw new MessageFormatException("The next item is not a byte array");
+			}
+			item = (byte[]) o;
+			bytesRead = 0;
+		}
+		int n = Math.min(item.length - bytesRead, value.length);
+		System.arraycopy(item, bytesRead, value, 0, n);
+		bytesRead += n;
+		if (n < value.length) {
+			position++;
+			bytesRead = -1;
+			if (n == 0 && item.length > 0) {
+				return -1;
+			}
+		}
+		return n;
+	}
+
+	// ---- writing
+
+	private void write(Object value) throws JMSException {
+		checkBodyWriteable();
+		items.add(value);
+	}
+
+	@Override
+	public void writeBoolean(boolean value) throws JMSException {
+		write(Boolean.valueOf(value));
+	}
+
+	@Override
+	public void writeByte(byte value) throws JMSException {
+		write(Byte.valueOf(value));
+	}
+
+	@Override
+	public void writeShort(short value) throws JMSException {
+		write(Short.valueOf(value));
+	}
+
+	@Override
+	public void writeChar(char value) throws JMSException {
+		write(Character.valueOf(value));
+	}
+
+	@Override
+	public void writeInt(int value) throws JMSException {
+		write(Integer.valueOf(value));
+	}
+
+	@Override
+	public void writeLong(long value) throws JMSException {
+		write(Long.valueOf(value));
+	}
+
+	@Override
+	public void writeFloat(float value) throws JMSException {
+		write(Float.valueOf(value));
+	}
+
+	@Override
+	public void writeDouble(double value) throws JMSException {
+		write(Double.valueOf(value));
+	}
+
+	@Override
+	public void writeString(String value) throws JMSException {
+		write(value);
+	}
+
+	@Override
+	public void writeBytes(byte[] value) throws JMSException {
+		write(value.clone());
+	}
+
+	@Override
+	public void writeBytes(byte[] value, int offset, int length) throws JMSException {
+		byte[] copy = new byte[length];
+		System.arraycopy(value, offset, copy, 0, length);
+		write(copy);
+	}
+
+	@Override
+	public void writeObject(Object value) throws JMSException {
+		Conversions.checkItemValue(value);
+		write(value instanceof byte[] ? ((byte[]) value).clone() : value);
+	}
+}
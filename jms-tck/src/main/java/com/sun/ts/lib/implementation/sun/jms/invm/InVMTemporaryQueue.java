@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package com.sun.ts.lib.implementation.sun.jms.invm;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.jms.JMSException;
+import jakarta.jms.TemporaryQueue;
+
+/**
+ * A temporary queue, which lives as long as the connection that created it and
+ * can only be consumed from by that connection.
+ */
+public class InVMTemporaryQueue extends InVMQueue implements TemporaryQueue {
+
+	private static final long serialVersionUID = 1L;
+
+	private final transient InVMConnection owner;
+
+	final transient AtomicInteger consumers = new AtomicInteger();
+
+	InVMTemporaryQueue(String name, InVMConnection owner) {
+		super(name);
+		this.owner = owner;
+	}
+
+	@Override
+	boolean isConsumableBy(InVMConnection connection) {
+		return connection == owner;
+	}
+
+	@Override
+	public void delete() throws JMSException {
+		if (consumers.get() > 0) {
+			throw new jakarta.jms.IllegalStateException("The temporary queue has active consumers");
+		}
+		markDeleted();
+		store.clear();
+		owner.removeTemporary(this);
+	}
+
+	@Override
+	Object readResolve() {
+		return this;
+	}
+
+	@Override
+	public String toString() {
+		return "InVMTemporaryQueue[" + name + "]";
+	}
+}
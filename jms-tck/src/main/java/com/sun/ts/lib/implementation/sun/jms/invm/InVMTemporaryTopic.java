@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package com.sun.ts.lib.implementation.sun.jms.invm;
+
+import jakarta.jms.JMSException;
+import jakarta.jms.TemporaryTopic;
+
+/**
+ * A temporary topic, which lives as long as the connection that created it and
+ * can only be subscribed to by that connection.
+ */
+public class InVMTemporaryTopic extends InVMTopic implements TemporaryTopic {
+
+	private static final long serialVersionUID = 1L;
+
+	private final transient InVMConnection owner;
+
+	InVMTemporaryTopic(String name, InVMConnection owner) {
+		super(name);
+		this.owner = owner;
+	}
+
+	@Override
+	boolean isConsumableBy(InVMConnection connection) {
+		return connection == owner;
+	}
+
+	@Override
+	public void delete() throws JMSException {
+		if (!subscriptions.isEmpty()) {
+			throw new jakarta.jms.IllegalStateException("The temporary topic has active subscribers");
+		}
+		markDeleted();
+		owner.removeTemporary(this);
+	}
+
+	@Override
+	Object readResolve() {
+		return this;
+	}
+
+	@Override
+	public String toString() {
+		return "InVMTemporaryTopic[" + name + "]";
+	}
+}
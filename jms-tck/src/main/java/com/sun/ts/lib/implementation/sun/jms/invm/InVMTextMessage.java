@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package com.sun.ts.lib.implementation.sun.jms.invm;
+
+import jakarta.jms.JMSException;
+import jakarta.jms.TextMessage;
+
+public class InVMTextMessage extends InVMMessage implements TextMessage {
+
+	private String text;
+
+	public InVMTextMessage() {
+	}
+
+	public InVMTextMessage(String text) {
+		this.text = text;
+	}
+
+	@Override
+	public void setText(String text) throws JMSException {
+		checkBodyWriteable();
+		this.text = text;
+	}
+
+	@Override
+	public String getText() {
+		return text;
+	}
+
+	@Override
+	public void clearBody() throws JMSException {
+		super.clearBody();
+		text = null;
+	}
+
+	@Override
+	Object getBodyValue() {
+		return text;
+	}
+}
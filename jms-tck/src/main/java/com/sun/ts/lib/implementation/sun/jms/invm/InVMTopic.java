@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package com.sun.ts.lib.implementation.sun.jms.invm;
+
+import java.io.ObjectStreamException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import jakarta.jms.InvalidDestinationException;
+import jakarta.jms.Topic;
+
+/**
+ * A topic of the in-process broker. A message published to the topic is copied
+ * to each of its subscriptions.
+ */
+public class InVMTopic extends InVMDestination implements Topic {
+
+	private static final long serialVersionUID = 1L;
+
+	final transient List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+	InVMTopic(String name) {
+		super(name);
+	}
+
+	@Override
+	public String getTopicName() {
+		return name;
+	}
+
+	@Override
+	void send(InVMMessage message) throws InvalidDestinationException {
+		checkNotDeleted();
+		for (Subscription subscription : subscriptions) {
+			subscription.publish(message);
+		}
+	}
+
+	Object readResolve() throws ObjectStreamException {
+		return Broker.getInstance().getTopic(name);
+	}
+
+	@Override
+	public String toString() {
+		return "InVMTopic[" + name + "]";
+	}
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package com.sun.ts.lib.implementation.sun.jms.invm;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The messages waiting on a queue or topic subscription, in priority order and
+ * first in, first out within a priority. Expired messages are dropped when
+ * they are reached, and messages with a delivery time in the future are
+ * skipped until that time.
+ *
+ * Sessions dispatching to message listeners register a wakeup, which is run
+ * whenever a message is added; synchronous receivers wait on the store itself.
+ */
+final class MessageStore {
+
+	private static final int LEVELS = 10;
+
+	private final List<LinkedList<InVMMessage>> levels = new ArrayList<>(LEVELS);
+
+	private final List<Runnable> wakeups = new CopyOnWriteArrayList<>();
+
+	private int size;
+
+	MessageStore() {
+		for (int i = 0; i < LEVELS; i++) {
+			levels.add(new LinkedList<InVMMessage>());
+		}
+	}
+
+	private LinkedList<InVMMessage> level(InVMMessage message) {
+		return levels.get(Math.max(0, Math.min(LEVELS - 1, message.getJMSPriority())));
+	}
+
+	void add(InVMMessage message) {
+		synchronized (this) {
+			level(message).addLast(message);
+			size++;
+			notifyAll();
+		}
+		wakeup();
+	}
+
+	/**
+	 * Puts messages that were delivered but not acknowledged back in front of
+	 * the others, in their original order.
+	 */
+	void addFirst(List<InVMMessage> messages) {
+		if (messages.isEmpty()) {
+			return;
+		}
+		synchronized (this) {
+			for (int i = messages.size() - 1; i >= 0; i--) {
+				level(messages.get(i)).addFirst(messages.get(i));
+				size++;
+			}
+			notifyAll();
+		}
+		wakeup();
+	}
+
+	/**
+	 * Removes and returns the first deliverable message matching the selector,
+	 * or null if there is none.
+	 */
+	synchronized InVMMessage poll(Selector selector) {
+		long now = System.currentTimeMillis();
+		for (int p = LEVELS - 1; p >= 0; p--) {
+			for (Iterator<InVMMessage> it = levels.get(p).iterator(); it.hasNext();) {
+				InVMMessage message = it.next();
+				if (message.isExpired(now)) {
+					it.remove();
+					size--;
+				} else if (message.getJMSDeliveryTime() <= now
+						&& (selector == null || selector.matches(message))) {
+					it.remove();
+					size--;
+					message.deliveryCount++;
+					return message;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Waits up to timeout milliseconds, or until a message is added if timeout
+	 * is 0, and returns the first deliverable message matching the selector.
+	 * The wait is also ended when the condition becomes false.
+	 */
+	InVMMessage poll(Selector selector, long timeout, Condition condition) throws InterruptedException {
+		long deadline = timeout == 0 ? Long.MAX_VALUE : System.currentTimeMillis() + timeout;
+		synchronized (this) {
+			while (true) {
+				if (!condition.holds()) {
+					return null;
+				}
+				InVMMessage message = condition.canReceive() ? poll(selector) : null;
+				if (message != null) {
+					return message;
+				}
+				long remaining = deadline - System.currentTimeMillis();
+				if (remaining <= 0) {
+					return null;
+				}
+				// bounded, as messages become deliverable without notice
+				wait(Math.min(remaining, 100));
+			}
+		}
+	}
+
+	/**
+	 * Returns the deliverable messages matching the selector, in delivery order.
+	 */
+	synchronized List<InVMMessage> browse(Selector selector) {
+		long now = System.currentTimeMillis();
+		List<InVMMessage> result = new ArrayList<>();
+		for (int p = LEVELS - 1; p >= 0; p--) {
+			for (InVMMessage message : levels.get(p)) {
+				if (!message.isExpired(now) && message.getJMSDeliveryTime() <= now
+						&& (selector == null || selector.matches(message))) {
+					result.add(message);
+				}
+			}
+		}
+		return result;
+	}
+
+	synchronized int size() {
+		return size;
+	}
+
+	synchronized void clear() {
+		for (LinkedList<InVMMessage> level : levels) {
+			level.clear();
+		}
+		size = 0;
+	}
+
+	/**
+	 * Wakes up the threads waiting on this store.
+	 */
+	void wakeup() {
+		synchronized (this) {
+			notifyAll();
+		}
+		for (Runnable wakeup : wakeups) {
+			wakeup.run();
+		}
+	}
+
+	void addWakeup(Runnable wakeup) {
+		wakeups.add(wakeup);
+	}
+
+	void removeWakeup(Runnable wakeup) {
+		wakeups.remove(wakeup);
+	}
+
+	/**
+	 * Tells a waiting receiver whether to go on waiting, and whether it may
+	 * receive, as a stopped connection does not deliver.
+	 */
+	interface Condition {
+		boolean holds();
+
+		boolean canReceive();
+	}
+}
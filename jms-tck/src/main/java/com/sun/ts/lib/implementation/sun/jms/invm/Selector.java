@@ -0,0 +1,869 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package com.sun.ts.lib.implementation.sun.jms.invm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import jakarta.jms.InvalidSelectorException;
+
+/**
+ * A parsed message selector. Selectors are evaluated with the three-valued
+ * logic of the specification: a comparison involving a missing property is
+ * unknown, and a message is selected only if the selector is true.
+ *
+ * Operands whose type is known when the selector is parsed are checked then,
+ * so that, for example, comparing a string literal with &gt; is rejected with
+ * an InvalidSelectorException.
+ */
+final class Selector {
+
+	private static final int UNKNOWN = 0;
+
+	private static final int BOOLEAN = 1;
+
+	private static final int NUMERIC = 2;
+
+	private static final int STRING = 3;
+
+	private static final Set<String> KEYWORDS = new HashSet<>(
+			Arrays.asList("NULL", "TRUE", "FALSE", "NOT", "AND", "OR", "BETWEEN", "LIKE", "IN", "IS", "ESCAPE"));
+
+	private final String text;
+
+	private final Node root;
+
+	private Selector(String text, Node root) {
+		this.text = text;
+		this.root = root;
+	}
+
+	/**
+	 * Returns the parsed selector, or null if the selector is null or blank and
+	 * selects every message.
+	 */
+	static Selector parse(String text) throws InvalidSelectorException {
+		if (text == null || text.trim().isEmpty()) {
+			return null;
+		}
+		Parser parser = new Parser(text);
+		Node root = parser.parseOr();
+		parser.expectEnd();
+		if (root.type() != BOOLEAN && root.type() != UNKNOWN) {
+			throw new InvalidSelectorException("Not a conditional expression: " + text);
+		}
+		return new Selector(text, root);
+	}
+
+	boolean matches(InVMMessage message) {
+		return Boolean.TRUE.equals(root.eval(message));
+	}
+
+	String getText() {
+		return text;
+	}
+
+	@Override
+	public String toString() {
+		return text;
+	}
+
+	// ---- expression nodes
+
+	private abstract static class Node {
+		abstract Object eval(InVMMessage m);
+
+		int type() {
+			return UNKNOWN;
+		}
+	}
+
+	private static final class Literal extends Node {
+		private final Object value;
+
+		Literal(Object value) {
+			this.value = value;
+		}
+
+		@Override
+		Object eval(InVMMessage m) {
+			return value;
+		}
+
+		@Override
+		int type() {
+			return value instanceof Boolean ? BOOLEAN : value instanceof String ? STRING : NUMERIC;
+		}
+	}
+
+	private static final class Identifier extends Node {
+		private final String name;
+
+		Identifier(String name) {
+			this.name = name;
+		}
+
+		@Override
+		Object eval(InVMMessage m) {
+			return m.getSelectorValue(name);
+		}
+	}
+
+	private static final class Not extends Node {
+		private final Node operand;
+
+		Not(Node operand) {
+			this.operand = operand;
+		}
+
+		@Override
+		Object eval(InVMMessage m) {
+			Boolean b = asBoolean(operand.eval(m));
+			return b == null ? null : Boolean.valueOf(!b.booleanValue());
+		}
+
+		@Override
+		int type() {
+			return BOOLEAN;
+		}
+	}
+
+	private static final class And extends Node {
+		private final Node left;
+
+		private final Node right;
+
+		And(Node left, Node right) {
+			this.left = left;
+			this.right = right;
+		}
+
+		@Override
+		Object eval(InVMMessage m) {
+			Boolean l = asBoolean(left.eval(m));
+			if (Boolean.FALSE.equals(l)) {
+				return Boolean.FALSE;
+			}
+			Boolean r = asBoolean(right.eval(m));
+			if (Boolean.FALSE.equals(r)) {
+				return Boolean.FALSE;
+			}
+			return l == null || r == null ? null : Boolean.TRUE;
+		}
+
+		@Override
+		int type() {
+			return BOOLEAN;
+		}
+	}
+
+	private static final class Or extends Node {
+		private final Node left;
+
+		private final Node right;
+
+		Or(Node left, Node right) {
+			this.left = left;
+			this.right = right;
+		}
+
+		@Override
+		Object eval(InVMMessage m) {
+			Boolean l = asBoolean(left.eval(m));
+			if (Boolean.TRUE.equals(l)) {
+				return Boolean.TRUE;
+			}
+			Boolean r = asBoolean(right.eval(m));
+			if (Boolean.TRUE.equals(r)) {
+				return Boolean.TRUE;
+			}
+			return l == null || r == null ? null : Boolean.FALSE;
+		}
+
+		@Override
+		int type() {
+			return BOOLEAN;
+		}
+	}
+
+	private static final class Comparison extends Node {
+		private final String op;
+
+		private final Node left;
+
+		private final Node right;
+
+		Comparison(String op, Node left, Node right) {
+			this.op = op;
+			this.left = left;
+			this.right = right;
+		}
+
+		@Override
+		Object eval(InVMMessage m) {
+			Object l = left.eval(m);
+			Object r = right.eval(m);
+			if (l == null || r == null) {
+				return null;
+			}
+			int c;
+			if (l instanceof Number && r instanceof Number) {
+				c = compare((Number) l, (Number) r);
+			} else if (l.getClass() == r.getClass() && (l instanceof String || l instanceof Boolean)) {
+				if (op.equals("=")) {
+					return Boolean.valueOf(l.equals(r));
+				}
+				if (op.equals("<>")) {
+					return Boolean.valueOf(!l.equals(r));
+				}
+				// strings and booleans are not ordered
+				return null;
+			} else {
+				return Boolean.FALSE;
+			}
+			switch (op) {
+			case "=":
+				return Boolean.valueOf(c == 0);
+			case "<>":
+				return Boolean.valueOf(c != 0);
+			case "<":
+				return Boolean.valueOf(c < 0);
+			case ">":
+				return Boolean.valueOf(c > 0);
+			case "<=":
+				return Boolean.valueOf(c <= 0);
+			default:
+				return Boolean.valueOf(c >= 0);
+			}
+		}
+
+		@Override
+		int type() {
+			return BOOLEAN;
+		}
+	}
+
+	private static final class Arithmetic extends Node {
+		private final char op;
+
+		private final Node left;
+
+		private final Node right;
+
+		Arithmetic(char op, Node left, Node right) {
+			this.op = op;
+			this.left = left;
+			this.right = right;
+		}
+
+		@Override
+		Object eval(InVMMessage m) {
+			Object l = left.eval(m);
+			Object r = right.eval(m);
+			if (!(l instanceof Number) || !(r instanceof Number)) {
+				return null;
+			}
+			if (l instanceof Long && r instanceof Long) {
+				long a = ((Long) l).longValue();
+				long b = ((Long) r).longValue();
+				switch (op) {
+				case '+':
+					return Long.valueOf(a + b);
+				case '-':
+					return Long.valueOf(a - b);
+				case '*':
+					return Long.valueOf(a * b);
+				default:
+					return b == 0 ? null : Long.valueOf(a / b);
+				}
+			}
+			double a = ((Number) l).doubleValue();
+			double b = ((Number) r).doubleValue();
+			switch (op) {
+			case '+':
+				return Double.valueOf(a + b);
+			case '-':
+				return Double.valueOf(a - b);
+			case '*':
+				return Double.valueOf(a * b);
+			default:
+				return Double.valueOf(a / b);
+			}
+		}
+
+		@Override
+		int type() {
+			return NUMERIC;
+		}
+	}
+
+	private static final class Negate extends Node {
+		private final Node operand;
+
+		Negate(Node operand) {
+			this.operand = operand;
+		}
+
+		@Override
+		Object eval(InVMMessage m) {
+			Object v = operand.eval(m);
+			if (v instanceof Long) {
+				return Long.valueOf(-((Long) v).longValue());
+			}
+			if (v instanceof Double) {
+				return Double.valueOf(-((Double) v).doubleValue());
+			}
+			return null;
+		}
+
+		@Override
+		int type() {
+			return NUMERIC;
+		}
+	}
+
+	private static final class Between extends Node {
+		private final Node value;
+
+		private final Node low;
+
+		private final Node high;
+
+		private final boolean not;
+
+		Between(Node value, Node low, Node high, boolean not) {
+			this.value = value;
+			this.low = low;
+			this.high = high;
+			this.not = not;
+		}
+
+		@Override
+		Object eval(InVMMessage m) {
+			Object v = value.eval(m);
+			Object l = low.eval(m);
+			Object h = high.eval(m);
+			if (!(v instanceof Number) || !(l instanceof Number) || !(h instanceof Number)) {
+				return null;
+			}
+			boolean in = compare((Number) l, (Number) v) <= 0 && compare((Number) v, (Number) h) <= 0;
+			return Boolean.valueOf(in != not);
+		}
+
+		@Override
+		int type() {
+			return BOOLEAN;
+		}
+	}
+
+	private static final class Like extends Node {
+		private final Node value;
+
+		private final Pattern pattern;
+
+		private final boolean not;
+
+		Like(Node value, Pattern pattern, boolean not) {
+			this.value = value;
+			this.pattern = pattern;
+			this.not = not;
+		}
+
+		@Override
+		Object eval(InVMMessage m) {
+			Object v = value.eval(m);
+			if (!(v instanceof String)) {
+				return null;
+			}
+			return Boolean.valueOf(pattern.matcher((String) v).matches() != not);
+		}
+
+		@Override
+		int type() {
+			return BOOLEAN;
+		}
+	}
+
+	private static final class In extends Node {
+		private final Node value;
+
+		private final Set<String> values;
+
+		private final boolean not;
+
+		In(Node value, Set<String> values, boolean not) {
+			this.value = value;
+			this.values = values;
+			this.not = not;
+		}
+
+		@Override
+		Object eval(InVMMessage m) {
+			Object v = value.eval(m);
+			if (!(v instanceof String)) {
+				return null;
+			}
+			return Boolean.valueOf(values.contains(v) != not);
+		}
+
+		@Override
+		int type() {
+			return BOOLEAN;
+		}
+	}
+
+	private static final class IsNull extends Node {
+		private final Node value;
+
+		private final boolean not;
+
+		IsNull(Node value, boolean not) {
+			this.value = value;
+			this.not = not;
+		}
+
+		@Override
+		Object eval(InVMMessage m) {
+			return Boolean.valueOf((value.eval(m) == null) != not);
+		}
+
+		@Override
+		int type() {
+			return BOOLEAN;
+		}
+	}
+
+	private static Boolean asBoolean(Object value) {
+		return value instanceof Boolean ? (Boolean) value : null;
+	}
+
+	private static int compare(Number a, Number b) {
+		if (a instanceof Long && b instanceof Long) {
+			return Long.compare(a.longValue(), b.longValue());
+		}
+		return Double.compare(a.doubleValue(), b.doubleValue());
+	}
+
+	// ---- parser
+
+	private static final int IDENT = 0;
+
+	private static final int KEYWORD = 1;
+
+	private static final int STRING_LITERAL = 2;
+
+	private static final int NUMBER_LITERAL = 3;
+
+	private static final int OPERATOR = 4;
+
+	private static final int END = 5;
+
+	private static final class Token {
+		final int kind;
+
+		final String text;
+
+		Token(int kind, String text) {
+			this.kind = kind;
+			this.text = text;
+		}
+	}
+
+	private static final class Parser {
+		private final String selector;
+
+		private final List<Token> tokens = new ArrayList<>();
+
+		private int pos;
+
+		Parser(String selector) throws InvalidSelectorException {
+			this.selector = selector;
+			tokenize();
+		}
+
+		private InvalidSelectorException invalid(String reason) {
+			return new InvalidSelectorException(reason + " in selector: " + selector);
+		}
+
+		private void tokenize() throws InvalidSelectorException {
+			int i = 0;
+			int n = selector.length();
+			while (i < n) {
+				char c = selector.charAt(i);
+				if (Character.isWhitespace(c)) {
+					i++;
+				} else if (c == '\'') {
+					StringBuilder sb = new StringBuilder();
+					i++;
+					while (true) {
+						if (i >= n) {
+							throw invalid("Unterminated string literal");
+						}
+						char s = selector.charAt(i++);
+						if (s == '\'') {
+							if (i < n && selector.charAt(i) == '\'') {
+								sb.append('\'');
+								i++;
+							} else {
+								break;
+							}
+						} else {
+							sb.append(s);
+						}
+					}
+					tokens.add(new Token(STRING_LITERAL, sb.toString()));
+				} else if (Character.isDigit(c) || (c == '.' && i + 1 < n && Character.isDigit(selector.charAt(i + 1)))) {
+					int start = i;
+					if (c == '0' && i + 1 < n && (selector.charAt(i + 1) == 'x' || selector.charAt(i + 1) == 'X')) {
+						i += 2;
+						while (i < n && Character.digit(selector.charAt(i), 16) >= 0) {
+							i++;
+						}
+					} else {
+						while (i < n && (Character.isDigit(selector.charAt(i)) || selector.charAt(i) == '.')) {
+							i++;
+						}
+						if (i < n && (selector.charAt(i) == 'e' || selector.charAt(i) == 'E')) {
+							i++;
+							if (i < n && (selector.charAt(i) == '+' || selector.charAt(i) == '-')) {
+								i++;
+							}
+							while (i < n && Character.isDigit(selector.charAt(i))) {
+								i++;
+							}
+						}
+					}
+					if (i < n && "lLfFdD".indexOf(selector.charAt(i)) >= 0) {
+						i++;
+					}
+					tokens.add(new Token(NUMBER_LITERAL, selector.substring(start, i)));
+				} else if (Character.isJavaIdentifierStart(c)) {
+					int start = i++;
+					while (i < n && Character.isJavaIdentifierPart(selector.charAt(i))) {
+						i++;
+					}
+					String word = selector.substring(start, i);
+					String upper = word.toUpperCase();
+					if (KEYWORDS.contains(upper)) {
+						tokens.add(new Token(KEYWORD, upper));
+					} else {
+						tokens.add(new Token(IDENT, word));
+					}
+				} else if (c == '<' && i + 1 < n && (selector.charAt(i + 1) == '>' || selector.charAt(i + 1) == '=')) {
+					tokens.add(new Token(OPERATOR, selector.substring(i, i + 2)));
+					i += 2;
+				} else if (c == '>' && i + 1 < n && selector.charAt(i + 1) == '=') {
+					tokens.add(new Token(OPERATOR, ">="));
+					i += 2;
+				} else if ("=<>+-*/(),".indexOf(c) >= 0) {
+					tokens.add(new Token(OPERATOR, String.valueOf(c)));
+					i++;
+				} else {
+					throw invalid("Unexpected character '" + c + "'");
+				}
+			}
+			tokens.add(new Token(END, ""));
+		}
+
+		private Token peek() {
+			return tokens.get(pos);
+		}
+
+		private boolean acceptKeyword(String keyword) {
+			Token t = peek();
+			if (t.kind == KEYWORD && t.text.equals(keyword)) {
+				pos++;
+				return true;
+			}
+			return false;
+		}
+
+		private boolean acceptOperator(String op) {
+			Token t = peek();
+			if (t.kind == OPERATOR && t.text.equals(op)) {
+				pos++;
+				return true;
+			}
+			return false;
+		}
+
+		private void expectKeyword(String keyword) throws InvalidSelectorException {
+			if (!acceptKeyword(keyword)) {
+				throw invalid("Expected " + keyword);
+			}
+		}
+
+		private void expectOperator(String op) throws InvalidSelectorException {
+			if (!acceptOperator(op)) {
+				throw invalid("Expected '" + op + "'");
+			}
+		}
+
+		private String expectString() throws InvalidSelectorException {
+			Token t = peek();
+			if (t.kind != STRING_LITERAL) {
+				throw invalid("Expected a string literal");
+			}
+			pos++;
+			return t.text;
+		}
+
+		void expectEnd() throws InvalidSelectorException {
+			if (peek().kind != END) {
+				throw invalid("Unexpected '" + peek().text + "'");
+			}
+		}
+
+		private void checkType(Node node, int type) throws InvalidSelectorException {
+			if (node.type() != UNKNOWN && node.type() != type) {
+				throw invalid("Operand of the wrong type");
+			}
+		}
+
+		Node parseOr() throws InvalidSelectorException {
+			Node left = parseAnd();
+			while (acceptKeyword("OR")) {
+				Node right = parseAnd();
+				checkType(left, BOOLEAN);
+				checkType(right, BOOLEAN);
+				left = new Or(left, right);
+			}
+			return left;
+		}
+
+		private Node parseAnd() throws InvalidSelectorException {
+			Node left = parseNot();
+			while (acceptKeyword("AND")) {
+				Node right = parseNot();
+				checkType(left, BOOLEAN);
+				checkType(right, BOOLEAN);
+				left = new And(left, right);
+			}
+			return left;
+		}
+
+		private Node parseNot() throws InvalidSelectorException {
+			if (acceptKeyword("NOT")) {
+				Node operand = parseNot();
+				checkType(operand, BOOLEAN);
+				return new Not(operand);
+			}
+			return parsePredicate();
+		}
+
+		private Node parsePredicate() throws InvalidSelectorException {
+			Node left = parseAdditive();
+			Token t = peek();
+			if (t.kind == OPERATOR && Arrays.asList("=", "<>", "<", ">", "<=", ">=").contains(t.text)) {
+				pos++;
+				Node right = parseAdditive();
+				if (t.text.equals("=") || t.text.equals("<>")) {
+					if (left.type() != UNKNOWN && right.type() != UNKNOWN && left.type() != right.type()) {
+						throw invalid("Comparison of different types");
+					}
+				} else {
+					checkType(left, NUMERIC);
+					checkType(right, NUMERIC);
+				}
+				return new Comparison(t.text, left, right);
+			}
+			boolean not = false;
+			if (t.kind == KEYWORD && t.text.equals("NOT")) {
+				Token next = tokens.get(pos + 1);
+				if (next.kind == KEYWORD
+						&& (next.text.equals("BETWEEN") || next.text.equals("LIKE") || next.text.equals("IN"))) {
+					pos++;
+					not = true;
+				}
+			}
+			if (acceptKeyword("BETWEEN")) {
+				Node low = parseAdditive();
+				expectKeyword("AND");
+				Node high = parseAdditive();
+				checkType(left, NUMERIC);
+				checkType(low, NUMERIC);
+				checkType(high, NUMERIC);
+				return new Between(left, low, high, not);
+			}
+			if (acceptKeyword("LIKE")) {
+				checkIdentifier(left);
+				String pattern = expectString();
+				Character escape = null;
+				if (acceptKeyword("ESCAPE")) {
+					String e = expectString();
+					if (e.length() != 1) {
+						throw invalid("The escape must be a single character");
+					}
+					escape = Character.valueOf(e.charAt(0));
+				}
+				return new Like(left, toPattern(pattern, escape), not);
+			}
+			if (acceptKeyword("IN")) {
+				checkIdentifier(left);
+				expectOperator("(");
+				Set<String> values = new HashSet<>();
+				values.add(expectString());
+				while (acceptOperator(",")) {
+					values.add(expectString());
+				}
+				expectOperator(")");
+				return new In(left, values, not);
+			}
+			if (acceptKeyword("IS")) {
+				checkIdentifier(left);
+				boolean isNot = acceptKeyword("NOT");
+				expectKeyword("NULL");
+				return new IsNull(left, isNot);
+			}
+			return left;
+		}
+
+		private void checkIdentifier(Node node) throws InvalidSelectorException {
+			if (!(node instanceof Identifier)) {
+				throw invalid("Expected an identifier");
+			}
+		}
+
+		private Pattern toPattern(String like, Character escape) throws InvalidSelectorException {
+			StringBuilder regex = new StringBuilder();
+			for (int i = 0; i < like.length(); i++) {
+				char c = like.charAt(i);
+				if (escape != null && c == escape.charValue()) {
+					if (++i >= like.length()) {
+						throw invalid("Escape character at the end of a pattern");
+					}
+					regex.append(Pattern.quote(String.valueOf(like.charAt(i))));
+				} else if (c == '%') {
+					regex.append(".*");
+				} else if (c == '_') {
+					regex.append('.');
+				} else {
+					regex.append(Pattern.quote(String.valueOf(c)));
+				}
+			}
+			return Pattern.compile(regex.toString(), Pattern.DOTALL);
+		}
+
+		private Node parseAdditive() throws InvalidSelectorException {
+			Node left = parseMultiplicative();
+			while (true) {
+				char op;
+				if (acceptOperator("+")) {
+					op = '+';
+				} else if (acceptOperator("-")) {
+					op = '-';
+				} else {
+					return left;
+				}
+				Node right = parseMultiplicative();
+				checkType(left, NUMERIC);
+				checkType(right, NUMERIC);
+				left = new Arithmetic(op, left, right);
+			}
+		}
+
+		private Node parseMultiplicative() throws InvalidSelectorException {
+			Node left = parseUnary();
+			while (true) {
+				char op;
+				if (acceptOperator("*")) {
+					op = '*';
+				} else if (acceptOperator("/")) {
+					op = '/';
+				} else {
+					return left;
+				}
+				Node right = parseUnary();
+				checkType(left, NUMERIC);
+				checkType(right, NUMERIC);
+				left = new Arithmetic(op, left, right);
+			}
+		}
+
+		private Node parseUnary() throws InvalidSelectorException {
+			if (acceptOperator("-")) {
+				if (peek().kind == NUMBER_LITERAL) {
+					// folded, so that the smallest long can be written
+					return new Literal(parseNumber("-" + tokens.get(pos++).text));
+				}
+				Node operand = parseUnary();
+				checkType(operand, NUMERIC);
+				return new Negate(operand);
+			}
+			if (acceptOperator("+")) {
+				Node operand = parseUnary();
+				checkType(operand, NUMERIC);
+				return operand;
+			}
+			return parsePrimary();
+		}
+
+		private Node parsePrimary() throws InvalidSelectorException {
+			Token t = peek();
+			switch (t.kind) {
+			case OPERATOR:
+				if (t.text.equals("(")) {
+					pos++;
+					Node node = parseOr();
+					expectOperator(")");
+					return node;
+				}
+				break;
+			case STRING_LITERAL:
+				pos++;
+				return new Literal(t.text);
+			case NUMBER_LITERAL:
+				pos++;
+				return new Literal(parseNumber(t.text));
+			case KEYWORD:
+				if (t.text.equals("TRUE") || t.text.equals("FALSE")) {
+					pos++;
+					return new Literal(Boolean.valueOf(t.text.equals("TRUE")));
+				}
+				break;
+			case IDENT:
+				pos++;
+				return new Identifier(t.text);
+			default:
+				break;
+			}
+			throw invalid("Unexpected '" + t.text + "'");
+		}
+
+		private Number parseNumber(String text) throws InvalidSelectorException {
+			try {
+				String lower = text.toLowerCase();
+				boolean hex = lower.startsWith("0x") || lower.startsWith("-0x");
+				if (!hex && (lower.indexOf('.') >= 0 || lower.indexOf('e') >= 0 || lower.endsWith("f")
+						|| lower.endsWith("d"))) {
+					return Double.valueOf(text);
+				}
+				if (lower.endsWith("l")) {
+					text = text.substring(0, text.length() - 1);
+				}
+				return Long.decode(text);
+			} catch (NumberFormatException e) {
+				throw invalid("Invalid number " + text);
+			}
+		}
+	}
+}
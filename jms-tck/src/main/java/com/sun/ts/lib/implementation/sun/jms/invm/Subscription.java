@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package com.sun.ts.lib.implementation.sun.jms.invm;
+
+/**
+ * A subscription to a topic, holding the messages published to the topic since
+ * the subscription was created that match its selector. Durable and shared
+ * subscriptions are registered with the {@link Broker} by name.
+ */
+final class Subscription {
+
+	final InVMTopic topic;
+
+	final String key;
+
+	final Selector selector;
+
+	final boolean noLocal;
+
+	final boolean durable;
+
+	final boolean shared;
+
+	final MessageStore store = new MessageStore();
+
+	// guarded by the broker
+	int consumers;
+
+	// connection of the last consumer, for noLocal
+	volatile long localConnection;
+
+	Subscription(InVMTopic topic, String key, Selector selector, boolean noLocal, boolean durable,
+			boolean shared) {
+		this.topic = topic;
+		this.key = key;
+		this.selector = selector;
+		this.noLocal = noLocal;
+		this.durable = durable;
+		this.shared = shared;
+	}
+
+	void publish(InVMMessage message) {
+		if (noLocal && message.sourceConnection == localConnection) {
+			return;
+		}
+		if (selector != null && !selector.matches(message)) {
+			return;
+		}
+		// each subscription counts deliveries of its own copy
+		store.add(message.copy());
+	}
+
+	/**
+	 * Returns true if a consumer with these parameters may use the subscription
+	 * as it is.
+	 */
+	boolean matches(InVMTopic topic, String selector, boolean noLocal) {
+		String text = this.selector == null ? null : this.selector.getText();
+		String other = selector == null || selector.trim().isEmpty() ? null : selector;
+		return this.topic == topic && this.noLocal == noLocal && (text == null ? other == null : text.equals(other));
+	}
+}
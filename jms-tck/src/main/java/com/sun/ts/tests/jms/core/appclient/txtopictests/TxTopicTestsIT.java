@@ -433,16 +433,17 @@ public class TxTopicTestsIT {
 	@Test
 	public void transactionRollbackOnPublishTopicTest() throws Exception {
 		String lookup = "DURABLE_SUB_CONNECTION_FACTORY";
+		String subscriptionName = "TxTopicTestSubscription";
+		TopicSubscriber tSub = null;
 
 		try {
 			TextMessage messageSent = null;
 			TextMessage messageReceived = null;
-			String subscriptionName = "TxTopicTestSubscription";
 
 			// set up test tool for Topic
 			tool = new JmsTool(JmsTool.DURABLE_TX_TOPIC, jmsUser, jmsPassword, lookup, mode);
 			tool.getDefaultTopicSubscriber().close();
-			TopicSubscriber tSub = tool.getDefaultTopicSession().createDurableSubscriber(tool.getDefaultTopic(),
+			tSub = tool.getDefaultTopicSession().createDurableSubscriber(tool.getDefaultTopic(),
 					subscriptionName);
 			logger.log(Logger.Level.TRACE, "Start connection");
 			tool.getDefaultTopicConnection().start();
@@ -495,6 +496,17 @@ public class TxTopicTestsIT {
 			TestUtil.printStackTrace(e);
 			e.printStackTrace();
 			throw new Exception("transactionRollbackOnPublishTopicTest", e);
+		} finally {
+			// the durable subscription outlives the connection, and the other
+			// tests reuse its name
+			if (tSub != null) {
+				try {
+					tSub.close();
+					tool.getDefaultTopicSession().unsubscribe(subscriptionName);
+				} catch (Exception e) {
+					logger.log(Logger.Level.TRACE, "Cannot unsubscribe " + subscriptionName + ": " + e);
+				}
+			}
 		}
 	}
 
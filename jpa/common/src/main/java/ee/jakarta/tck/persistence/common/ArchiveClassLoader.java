@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package ee.jakarta.tck.persistence.common;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.ArchivePath;
+import org.jboss.shrinkwrap.api.Asset;
+import org.jboss.shrinkwrap.api.Node;
+
+/**
+ * Class loader serving the classes and resources of a ShrinkWrap archive
+ * directly from memory, used in standalone mode instead of exporting the
+ * deployment jar to java.io.tmpdir and loading it through a URLClassLoader.
+ * Like URLClassLoader, it delegates to its parent first.
+ *
+ * Resources are returned as URLs of the "tckarchive" protocol, which can only be
+ * opened through this class loader. The archive root is
+ * tckarchive:/&lt;archive name&gt;/.
+ */
+public class ArchiveClassLoader extends ClassLoader {
+
+    public static final String PROTOCOL = "tckarchive";
+
+    static {
+        registerAsParallelCapable();
+    }
+
+    private final String archiveName;
+
+    // archive path without leading '/' -> asset
+    private final Map<String, Asset> assets = new HashMap<>();
+
+    private final URLStreamHandler handler = new URLStreamHandler() {
+        @Override
+        protected URLConnection openConnection(URL u) throws IOException {
+            String path = u.getPath();
+            String prefix = "/" + archiveName + "/";
+            final Asset asset = path.startsWith(prefix) ? assets.get(path.substring(prefix.length())) : null;
+            if (asset == null) {
+                throw new FileNotFoundException(u.toString());
+            }
+            return new URLConnection(u) {
+                @Override
+                public void connect() {
+                    connected = true;
+                }
+
+                @Override
+                public InputStream getInputStream() {
+                    return asset.openStream();
+                }
+            };
+        }
+    };
+
+    public ArchiveClassLoader(Archive<?> archive, ClassLoader parent) {
+        super(parent);
+        this.archiveName = archive.getName();
+        for (Map.Entry<ArchivePath, Node> e : archive.getContent().entrySet()) {
+            Asset asset = e.getValue().getAsset();
+            if (asset != null) {
+                String path = e.getKey().get();
+                assets.put(path.startsWith("/") ? path.substring(1) : path, asset);
+            }
+        }
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+        Asset asset = assets.get(name.replace('.', '/') + ".class");
+        if (asset == null) {
+            throw new ClassNotFoundException(name);
+        }
+        try (InputStream in = asset.openStream()) {
+            byte[] bytes = in.readAllBytes();
+            return defineClass(name, bytes, 0, bytes.length);
+        } catch (IOException e) {
+            throw new ClassNotFoundException(name, e);
+        }
+    }
+
+    @Override
+    protected URL findResource(String name) {
+        String path = name.startsWith("/") ? name.substring(1) : name;
+        return assets.containsKey(path) ? toURL(path) : null;
+    }
+
+    @Override
+    protected Enumeration<URL> findResources(String name) {
+        URL url = findResource(name);
+        return url == null ? Collections.emptyEnumeration() : Collections.enumeration(Collections.singletonList(url));
+    }
+
+    private URL toURL(String path) {
+        try {
+            return new URL(PROTOCOL, "", -1, "/" + archiveName + "/" + path, handler);
+        } catch (MalformedURLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ArchiveClassLoader[" + archiveName + "]";
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package ee.jakarta.tck.persistence.common;
+
+import java.lang.System.Logger;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Keeps EntityManagerFactory instances open across tests and test classes in
+ * standalone mode, so that the persistence provider is not bootstrapped again
+ * for every test. A factory is shared by the tests that use the same
+ * persistence unit name, the same properties and the same deployment archive
+ * content.
+ *
+ * A factory that was closed by a test is replaced on the next request. Tests
+ * that need a factory of their own call
+ * {@link PMClientBase#invalidateEntityManagerFactory()}, and clients whose
+ * tests change the factory do not use the pool at all, see
+ * {@link PMClientBase#isEntityManagerFactoryPoolable()}. At most
+ * {@value #DEFAULT_POOL_SIZE} factories are kept open unless
+ * {@link #POOL_SIZE_PROP} is set; the least recently used one is closed when
+ * the limit is exceeded.
+ */
+public final class EntityManagerFactoryPool {
+
+    private static final Logger logger = (Logger) System.getLogger(EntityManagerFactoryPool.class.getName());
+
+    /**
+     * Name of the system property enabling the pool in standalone mode.
+     */
+    public static final String POOLING_PROP = "persistence.emf.pooling";
+
+    /**
+     * Name of the system property holding the maximum number of open factories.
+     */
+    public static final String POOL_SIZE_PROP = "persistence.emf.pool.size";
+
+    public static final int DEFAULT_POOL_SIZE = 16;
+
+    private static final EntityManagerFactoryPool instance = new EntityManagerFactoryPool(
+            Integer.getInteger(POOL_SIZE_PROP, DEFAULT_POOL_SIZE));
+
+    private final int maxSize;
+
+    // access ordered, the first entry is the least recently used one
+    private final LinkedHashMap<String, EntityManagerFactory> factories = new LinkedHashMap<>(16, 0.75f, true);
+
+    private int created;
+
+    private int reused;
+
+    private EntityManagerFactoryPool(int maxSize) {
+        this.maxSize = Math.max(1, maxSize);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::closeAll, "TCK-EMF-pool"));
+    }
+
+    public static EntityManagerFactoryPool getInstance() {
+        return instance;
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(POOLING_PROP);
+    }
+
+    /**
+     * Returns the key identifying a factory.
+     *
+     * @param persistenceUnitName name of the persistence unit
+     * @param props               properties passed to
+     *                            Persistence.createEntityManagerFactory, or null
+     * @param deploymentKey       identifies the content of the deployment archive
+     *                            providing persistence.xml, or null
+     */
+    public static String getKey(String persistenceUnitName, Map<?, ?> props, String deploymentKey) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(persistenceUnitName).append('|').append(deploymentKey).append('|');
+        if (props != null) {
+            // sorted, so that equal maps give equal keys
+            Map<String, String> sorted = new TreeMap<>();
+            for (Map.Entry<?, ?> e : props.entrySet()) {
+                sorted.put(String.valueOf(e.getKey()), String.valueOf(e.getValue()));
+            }
+            sb.append(sorted);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns the open factory for the key, or creates one with the given supplier.
+     */
+    public EntityManagerFactory get(String key, Supplier<EntityManagerFactory> factory) {
+        List<EntityManagerFactory> evicted = new ArrayList<>();
+        EntityManagerFactory emf;
+        synchronized (this) {
+            emf = factories.get(key);
+            if (emf != null && emf.isOpen()) {
+                reused++;
+                logger.log(Logger.Level.TRACE, "Reusing pooled EntityManagerFactory for " + key);
+                return emf;
+            }
+            logger.log(Logger.Level.TRACE, "Creating pooled EntityManagerFactory for " + key);
+            emf = factory.get();
+            created++;
+            factories.put(key, emf);
+            for (Iterator<EntityManagerFactory> it = factories.values().iterator(); it.hasNext()
+                    && factories.size() > maxSize;) {
+                evicted.add(it.next());
+                it.remove();
+            }
+        }
+        for (EntityManagerFactory old : evicted) {
+            close(old);
+        }
+        return emf;
+    }
+
+    /**
+     * Returns true if the factory is held by the pool.
+     */
+    public synchronized boolean contains(EntityManagerFactory emf) {
+        return factories.containsValue(emf);
+    }
+
+    /**
+     * Removes the factory from the pool and closes it if it is still open.
+     */
+    public void invalidate(EntityManagerFactory emf) {
+        synchronized (this) {
+            factories.values().removeIf(f -> f == emf);
+        }
+        close(emf);
+    }
+
+    public synchronized String getStatistics() {
+        return "open=" + factories.size() + ", created=" + created + ", reused=" + reused;
+    }
+
+    private void closeAll() {
+        List<EntityManagerFactory> all;
+        synchronized (this) {
+            all = new ArrayList<>(factories.values());
+            factories.clear();
+        }
+        logger.log(Logger.Level.TRACE, "Closing EntityManagerFactory pool: " + getStatistics());
+        for (EntityManagerFactory emf : all) {
+            close(emf);
+        }
+    }
+
+    private static void close(EntityManagerFactory emf) {
+        try {
+            if (emf.isOpen()) {
+                emf.close();
+            }
+        } catch (Exception e) {
+            logger.log(Logger.Level.INFO, "Unexpected exception closing pooled EntityManagerFactory:", e);
+        }
+    }
+}
@@ -17,6 +17,7 @@
 package ee.jakarta.tck.persistence.common;
 
 import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
@@ -44,6 +45,7 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import javax.xml.parsers.DocumentBuilder;
@@ -91,6 +93,10 @@ abstract public class PMClientBase implements UseEntityManager, UseEntityManager
     // not used when running tests in JakartaEE environment
     transient private EntityManagerFactory emf;
 
+    // identifies the archive built by createDeploymentJar, part of the key of
+    // pooled EntityManagerFactory instances
+    transient private String deploymentKey;
+
     EntityManagerFactory jakartaEEemf;
 
     public boolean cachingSupported = true;
@@ -150,6 +156,13 @@ abstract public class PMClientBase implements UseEntityManager, UseEntityManager
 
     transient public static final String PERSISTENCE_SECOND_LEVEL_CACHING_SUPPORTED = "persistence.second.level.caching.supported";
 
+    /**
+     * Name of the system property that makes createDeploymentJar serve the test
+     * archive from memory in standalone mode, instead of exporting it to
+     * java.io.tmpdir.
+     */
+    transient public static final String IN_MEMORY_ARCHIVE_PROP = "persistence.archive.inmemory";
+
     /**
      * The current test mode. The only valid non-null value is "standalone".
      */
@@ -290,8 +303,44 @@ abstract public class PMClientBase implements UseEntityManager, UseEntityManager
             }
 
             if (getEntityManagerFactory() != null && getEntityManagerFactory().isOpen()) {
-                getEntityManagerFactory().close();
+                if (EntityManagerFactoryPool.getInstance().contains(getEntityManagerFactory())) {
+                    logger.log(Logger.Level.TRACE, "Keeping pooled EMF open");
+                } else {
+                    getEntityManagerFactory().close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns true if the tests of this client may share an EntityManagerFactory
+     * from the EntityManagerFactoryPool with other tests. Clients whose tests
+     * change the factory, for instance with addNamedQuery or
+     * addNamedEntityGraph, return false so that each test creates and closes a
+     * factory of its own.
+     */
+    protected boolean isEntityManagerFactoryPoolable() {
+        return true;
+    }
+
+    /**
+     * In Java SE environment, closes the EntityManager and the
+     * EntityManagerFactory and makes sure the factory is not handed out again by
+     * the EntityManagerFactoryPool, so that the next call to getEntityManager
+     * creates a new factory. Tests that need a fresh factory, or that leave the
+     * factory in a state other tests must not see, call this method.
+     */
+    public void invalidateEntityManagerFactory() {
+        if (isStandAloneMode()) {
+            if (this.em != null && this.em.isOpen()) {
+                this.em.close();
+            }
+            if (this.emf != null) {
+                EntityManagerFactoryPool.getInstance().invalidate(this.emf);
             }
+            this.em = null;
+            this.et = null;
+            this.emf = null;
         }
     }
 
@@ -476,7 +525,13 @@ abstract public class PMClientBase implements UseEntityManager, UseEntityManager
     protected void initEntityManager(String persistenceUnitName, boolean useProps) {
         if (isStandAloneMode()) {
             logger.log(Logger.Level.TRACE, "in initEntityManager(String, boolean): " + persistenceUnitName);
-            if (useProps) {
+            if (useProps && EntityManagerFactoryPool.isEnabled() && isEntityManagerFactoryPoolable()) {
+                Properties propsMap = getPersistenceUnitProperties();
+                logger.log(Logger.Level.TRACE, "createEntityManagerFactory(String,Map) from pool");
+                emf = EntityManagerFactoryPool.getInstance().get(
+                        EntityManagerFactoryPool.getKey(persistenceUnitName, propsMap, deploymentKey),
+                        () -> Persistence.createEntityManagerFactory(persistenceUnitName, propsMap));
+            } else if (useProps) {
                 Properties propsMap = getPersistenceUnitProperties();
                 logger.log(Logger.Level.TRACE, "createEntityManagerFactory(String,Map)");
                 emf = Persistence.createEntityManagerFactory(persistenceUnitName, propsMap);
@@ -1098,16 +1153,67 @@ abstract public class PMClientBase implements UseEntityManager, UseEntityManager
     public static final String ORM_XML = "orm.xml";
     public static final String MAPPING_FILE_XML = "myMappingFile.xml";
 
+    // generated persistence.xml content, keyed by template, classes and mapping
+    // files
+    private static final Map<String, String> generatedPersistenceXmls = new ConcurrentHashMap<>();
+
     public JavaArchive createDeploymentJar(String jarName, String packageName, String[] classes, String persistenceFile,
                                            String[] xmlFiles) throws Exception {
 
         JavaArchive archive = ShrinkWrap.create(JavaArchive.class, jarName);
+        deploymentKey = jarName + ":" + packageName + ":" + persistenceFile + ":" + Arrays.toString(classes) + ":"
+                + Arrays.toString(xmlFiles);
 
         for (int j = 0; j < classes.length; j++) {
             archive.addClass(classes[j]);
         }
 
         if (persistenceFile.equals(STANDALONE_PERSISTENCE_XML) || persistenceFile.equals(EE_PERSISTENCE_XML)) {
+            archive.addAsManifestResource(new StringAsset(getGeneratedPersistenceXml(persistenceFile, classes, xmlFiles)),
+                    PERSISTENCE_XML);
+        } else {
+            InputStream xmlFileStream = Thread.currentThread().getContextClassLoader()
+                    .getResourceAsStream(packageName.replace('.', '/') + "/" + persistenceFile);
+            archive.addAsManifestResource(new ByteArrayAsset(xmlFileStream), PERSISTENCE_XML);
+        }
+        for (int i = 0; i < xmlFiles.length; i++) {
+            if (ORM_XML.equalsIgnoreCase(xmlFiles[i])) {
+                InputStream xmlFileStream = Thread.currentThread().getContextClassLoader()
+                        .getResourceAsStream(packageName.replace('.', '/') + "/" + xmlFiles[i]);
+                archive.addAsManifestResource(new ByteArrayAsset(xmlFileStream), xmlFiles[i]);
+            } else {
+                archive.addAsResource(packageName.replace('.', '/') + "/" + xmlFiles[i], xmlFiles[i]);
+            }
+        }
+
+        if (STANDALONE_MODE.equalsIgnoreCase(mode)) {
+            ClassLoader currentThreadClassLoader = Thread.currentThread().getContextClassLoader();
+            if (Boolean.getBoolean(IN_MEMORY_ARCHIVE_PROP)) {
+                Thread.currentThread().setContextClassLoader(new ArchiveClassLoader(archive, currentThreadClassLoader));
+            } else {
+                archive.as(ZipExporter.class).exportTo(new File(TEMP_DIR + File.separator + jarName), true);
+                URLClassLoader urlClassLoader = new URLClassLoader(
+                        new URL[]{new File(TEMP_DIR + File.separator + jarName).toURL()}, currentThreadClassLoader);
+                Thread.currentThread().setContextClassLoader(urlClassLoader);
+            }
+            testArtifactDeployed = true;
+        }
+
+        return archive;
+
+    }
+
+    /**
+     * Returns the persistence.xml template with the given mapping files and
+     * classes added to each persistence unit. The result is cached, so the
+     * template is only parsed and transformed once per set of classes and mapping
+     * files.
+     */
+    private static String getGeneratedPersistenceXml(String persistenceFile, String[] classes, String[] xmlFiles)
+            throws Exception {
+        String key = persistenceFile + ":" + Arrays.toString(classes) + ":" + Arrays.toString(xmlFiles);
+        String xml = generatedPersistenceXmls.get(key);
+        if (xml == null) {
             DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
             DocumentBuilder db = dbf.newDocumentBuilder();
             TransformerFactory tf = TransformerFactory.newInstance();
@@ -1136,33 +1242,10 @@ abstract public class PMClientBase implements UseEntityManager, UseEntityManager
             }
             StringWriter writer = new StringWriter();
             transformer.transform(new DOMSource(document), new StreamResult(writer));
-            archive.addAsManifestResource(new StringAsset(writer.getBuffer().toString()), PERSISTENCE_XML);
-        } else {
-            InputStream xmlFileStream = Thread.currentThread().getContextClassLoader()
-                    .getResourceAsStream(packageName.replace('.', '/') + "/" + persistenceFile);
-            archive.addAsManifestResource(new ByteArrayAsset(xmlFileStream), PERSISTENCE_XML);
+            xml = writer.getBuffer().toString();
+            generatedPersistenceXmls.put(key, xml);
         }
-        for (int i = 0; i < xmlFiles.length; i++) {
-            if (ORM_XML.equalsIgnoreCase(xmlFiles[i])) {
-                InputStream xmlFileStream = Thread.currentThread().getContextClassLoader()
-                        .getResourceAsStream(packageName.replace('.', '/') + "/" + xmlFiles[i]);
-                archive.addAsManifestResource(new ByteArrayAsset(xmlFileStream), xmlFiles[i]);
-            } else {
-                archive.addAsResource(packageName.replace('.', '/') + "/" + xmlFiles[i], xmlFiles[i]);
-            }
-        }
-
-        if (STANDALONE_MODE.equalsIgnoreCase(mode)) {
-            archive.as(ZipExporter.class).exportTo(new File(TEMP_DIR + File.separator + jarName), true);
-            ClassLoader currentThreadClassLoader = Thread.currentThread().getContextClassLoader();
-            URLClassLoader urlClassLoader = new URLClassLoader(
-                    new URL[]{new File(TEMP_DIR + File.separator + jarName).toURL()}, currentThreadClassLoader);
-            Thread.currentThread().setContextClassLoader(urlClassLoader);
-            testArtifactDeployed = true;
-        }
-
-        return archive;
-
+        return xml;
     }
 
     public JavaArchive createDeploymentJar(String jarName, String packageName, String[] classes, String[] xmlFiles)
@@ -1178,9 +1261,11 @@ abstract public class PMClientBase implements UseEntityManager, UseEntityManager
 
     public void removeTestJarFromCP() throws Exception {
         if (testArtifactDeployed && STANDALONE_MODE.equalsIgnoreCase(mode)) {
-            URLClassLoader currentThreadClassLoader = (URLClassLoader) Thread.currentThread().getContextClassLoader();
+            ClassLoader currentThreadClassLoader = Thread.currentThread().getContextClassLoader();
             Thread.currentThread().setContextClassLoader(currentThreadClassLoader.getParent());
-            currentThreadClassLoader.close();
+            if (currentThreadClassLoader instanceof Closeable) {
+                ((Closeable) currentThreadClassLoader).close();
+            }
             testArtifactDeployed = false;
         }
     }
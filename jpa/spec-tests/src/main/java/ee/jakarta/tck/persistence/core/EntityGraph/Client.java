@@ -45,6 +45,12 @@ public class Client extends PMClientBase {
 	public Client() {
 	}
 
+	// the tests add named entity graphs to the factory
+	@Override
+	protected boolean isEntityManagerFactoryPoolable() {
+		return false;
+	}
+
 	public JavaArchive createDeployment() throws Exception {
 
 		String pkgNameWithoutSuffix = Client.class.getPackageName();
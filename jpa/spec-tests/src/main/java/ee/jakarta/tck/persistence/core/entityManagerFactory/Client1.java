@@ -43,6 +43,12 @@ public class Client1 extends PMClientBase {
 	public Client1() {
 	}
 
+	// the tests add named queries to the factory
+	@Override
+	protected boolean isEntityManagerFactoryPoolable() {
+		return false;
+	}
+
 	public JavaArchive createDeployment() throws Exception {
 
 		String pkgNameWithoutSuffix = Client1.class.getPackageName();
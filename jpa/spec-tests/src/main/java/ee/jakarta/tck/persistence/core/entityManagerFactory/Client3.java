@@ -42,6 +42,12 @@ public class Client3 extends PMClientBase {
 	public Client3() {
 	}
 
+	// the tests add named queries to the factory
+	@Override
+	protected boolean isEntityManagerFactoryPoolable() {
+		return false;
+	}
+
 	public JavaArchive createDeployment() throws Exception {
 
 		String pkgNameWithoutSuffix = Client3.class.getPackageName();
@@ -71,6 +71,9 @@ public class Client extends PMClientBase {
 	}
 
 	public void nullCleanup() throws Exception {
+		// the test closed the EntityManagerFactory, make sure a pooled one is not
+		// handed out again
+		invalidateEntityManagerFactory();
 	}
 
 	/*
@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.ts.tests.jsonp.api.stresstests;
+
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+
+import jakarta.json.stream.JsonGenerator;
+
+// $Id$
+/**
+ * A JSON document of any size, generated while it is read so that it is never
+ * held in memory. The document is either an array of elements or an object
+ * whose members are the elements under the keys {@code e0}, {@code e1}, and so
+ * on. Element {@code n} has the id {@code n} and the same text, which holds
+ * escapes and characters outside of the BMP, so the count and the sum of the
+ * ids and the text check a parse of the whole document.
+ */
+public class LargeDocument {
+
+  /** Value of the text member of each element. */
+  static final String TEXT = "caf\u00e9 \u4e2d\u6587 \uD83D\uDE00 \"q\" \\ \t";
+
+  /** The text member as it is written in the document. */
+  private static final String TEXT_JSON = "\"caf\u00e9 \u4e2d\u6587 \uD83D\uDE00 \\\"q\\\" \\\\ \\t\"";
+
+  /** Number of elements generated at a time. */
+  private static final int CHUNK = 64;
+
+  /** Number of elements. */
+  private final long count;
+
+  /** Object document, or array document. */
+  private final boolean object;
+
+  /**
+   * Creates a document of about {@code chars} characters.
+   *
+   * @param chars
+   *          Size of the document, in characters.
+   * @param object
+   *          Value of {@code true} for an object document or {@code false} for
+   *          an array document.
+   */
+  LargeDocument(final long chars, final boolean object) {
+    final StringBuilder sb = new StringBuilder();
+    appendElement(sb, chars / 200, object);
+    this.count = Math.max(1, chars / (sb.length() + 1));
+    this.object = object;
+  }
+
+  /**
+   * Number of elements of the document.
+   */
+  long getCount() {
+    return count;
+  }
+
+  /**
+   * Sum of the ids of all the elements.
+   */
+  long getIdSum() {
+    return count * (count - 1) / 2;
+  }
+
+  /**
+   * Key of element {@code n} in an object document.
+   */
+  static String key(final long n) {
+    return "e" + n;
+  }
+
+  /**
+   * Opens a stream of the document encoded with {@code charset}.
+   */
+  DocumentInputStream open(final Charset charset) {
+    return new DocumentInputStream(charset);
+  }
+
+  /**
+   * Writes element {@code n} with {@code generator}, as a member of an object
+   * document or an item of an array document.
+   */
+  void writeElement(final JsonGenerator generator, final long n) {
+    if (object) {
+      generator.writeStartObject(key(n));
+    } else {
+      generator.writeStartObject();
+    }
+    generator.write("id", n);
+    generator.write("name", "element " + n);
+    generator.write("text", TEXT);
+    generator.write("price", BigDecimal.valueOf(n, 2));
+    generator.writeStartArray("flags").write(true).write(false).writeNull()
+        .writeEnd();
+    generator.writeStartObject("nested").write("depth", 1)
+        .writeStartArray("values").write(n).write(n + 1).write(n + 2)
+        .writeEnd().writeEnd();
+    generator.writeEnd();
+  }
+
+  private static void appendElement(final StringBuilder sb, final long n,
+      final boolean object) {
+    if (object) {
+      sb.append('"').append(key(n)).append("\":");
+    }
+    sb.append("{\"id\":").append(n);
+    sb.append(",\"name\":\"element ").append(n).append('"');
+    sb.append(",\"text\":").append(TEXT_JSON);
+    sb.append(",\"price\":").append(BigDecimal.valueOf(n, 2));
+    sb.append(",\"flags\":[true,false,null]");
+    sb.append(",\"nested\":{\"depth\":1,\"values\":[").append(n).append(',')
+        .append(n + 1).append(',').append(n + 2).append("]}}");
+  }
+
+  /**
+   * The encoded document, generated {@value #CHUNK} elements at a time.
+   */
+  class DocumentInputStream extends InputStream {
+
+    private final CharsetEncoder encoder;
+
+    private final ByteBuffer bytes = ByteBuffer.allocate(8192);
+
+    private CharBuffer chars = CharBuffer.allocate(0);
+
+    private long next = 0;
+
+    private boolean endOfInput = false;
+
+    private boolean flushed = false;
+
+    private long read = 0;
+
+    private DocumentInputStream(final Charset charset) {
+      this.encoder = charset.newEncoder();
+      bytes.flip();
+    }
+
+    /**
+     * Number of bytes read from this stream.
+     */
+    long getBytesRead() {
+      return read;
+    }
+
+    @Override
+    public int read() {
+      final byte[] b = new byte[1];
+      return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) {
+      if (len == 0) {
+        return 0;
+      }
+      while (!bytes.hasRemaining()) {
+        if (flushed) {
+          return -1;
+        }
+        bytes.clear();
+        if (chars.hasRemaining() || !endOfInput) {
+          if (!chars.hasRemaining()) {
+            chars = CharBuffer.wrap(nextChunk());
+          }
+          encoder.encode(chars, bytes, endOfInput);
+        } else if (encoder.flush(bytes).isUnderflow()) {
+          flushed = true;
+        }
+        bytes.flip();
+      }
+      final int n = Math.min(len, bytes.remaining());
+      bytes.get(b, off, n);
+      read += n;
+      return n;
+    }
+
+    @Override
+    public void close() {
+      // nothing to release
+    }
+
+    private String nextChunk() {
+      final StringBuilder sb = new StringBuilder(CHUNK * 256);
+      if (next == 0) {
+        sb.append(object ? '{' : '[');
+      }
+      for (int i = 0; i < CHUNK && next < count; i++, next++) {
+        if (next > 0) {
+          sb.append(',');
+        }
+        appendElement(sb, next, object);
+      }
+      if (next == count) {
+        sb.append(object ? '}' : ']');
+        endOfInput = true;
+      }
+      return sb.toString();
+    }
+
+  }
+
+}
@@ -0,0 +1,391 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.ts.tests.jsonp.api.stresstests;
+
+import java.io.OutputStream;
+import java.lang.System.Logger;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.ts.tests.jsonp.api.common.TestResult;
+import com.sun.ts.tests.jsonp.common.JSONP_Util;
+
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonValue;
+import jakarta.json.stream.JsonGenerator;
+import jakarta.json.stream.JsonGeneratorFactory;
+import jakarta.json.stream.JsonParser;
+import jakarta.json.stream.JsonParserFactory;
+
+// $Id$
+/**
+ * Streaming of large documents through {@link JsonParser} and
+ * {@link JsonGenerator}. Every test checks, after a garbage collection at each
+ * eighth of the document, that the heap does not grow by more than the limit,
+ * and logs the throughput.
+ */
+public class StreamingStress {
+
+  private static final Logger logger = System.getLogger(StreamingStress.class.getName());
+
+  /** Encodings of the parser and generator tests. */
+  private static final Charset[] CHARSETS = { JSONP_Util.UTF_8,
+      JSONP_Util.UTF_16, JSONP_Util.UTF_16BE, JSONP_Util.UTF_16LE,
+      JSONP_Util.UTF_32BE, JSONP_Util.UTF_32LE };
+
+  /** Bytes a lazy stream may read for its first element. */
+  private static final long LAZY_LIMIT = 1024 * 1024;
+
+  private static final long MB = 1024 * 1024;
+
+  /** Size of the documents, in characters. */
+  private final long chars;
+
+  /** Allowed growth of the heap, in bytes. */
+  private final long heapLimit;
+
+  private final JsonParserFactory parserFactory = Json
+      .createParserFactory(null);
+
+  private final JsonGeneratorFactory generatorFactory = Json
+      .createGeneratorFactory(null);
+
+  /**
+   * Creates an instance of the streaming stress tests.
+   *
+   * @param chars
+   *          Size of the documents, in characters.
+   * @param heapLimit
+   *          Allowed growth of the heap, in bytes.
+   */
+  StreamingStress(final long chars, final long heapLimit) {
+    this.chars = chars;
+    this.heapLimit = heapLimit;
+  }
+
+  /**
+   * Test {@link JsonParser} events over an array document, in each encoding.
+   *
+   * @return Result of the tests.
+   */
+  TestResult testParser() {
+    final TestResult result = new TestResult("JsonParser streaming");
+    for (Charset charset : CHARSETS) {
+      final String name = "JsonParser " + charset;
+      logger.log(Logger.Level.INFO, " - " + name);
+      final LargeDocument doc = new LargeDocument(chars, false);
+      final ElementCheck check = new ElementCheck(name);
+      final HeapCheck heap = new HeapCheck(name);
+      final long interval = checkInterval(doc);
+      final long start = System.nanoTime();
+      try (LargeDocument.DocumentInputStream in = doc.open(charset);
+          JsonParser parser = parserFactory.createParser(in, charset)) {
+        long id = -1;
+        while (parser.hasNext()) {
+          if (parser.next() != JsonParser.Event.KEY_NAME) {
+            continue;
+          }
+          final String key = parser.getString();
+          if ("id".equals(key)) {
+            parser.next();
+            id = parser.getLong();
+          } else if ("text".equals(key)) {
+            parser.next();
+            check.add(id, parser.getString());
+            if (check.count % interval == 0) {
+              heap.check(result);
+            }
+          }
+        }
+        check.verify(result, doc);
+        report(name, in.getBytesRead(), System.nanoTime() - start, heap,
+            check.count);
+      } catch (RuntimeException e) {
+        result.fail(name, "Parser failed with " + e);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Test {@link JsonGenerator} writing an array document, in each encoding.
+   * The output must reach the stream while the document is written.
+   *
+   * @return Result of the tests.
+   */
+  TestResult testGenerator() {
+    final TestResult result = new TestResult("JsonGenerator streaming");
+    for (Charset charset : CHARSETS) {
+      final String name = "JsonGenerator " + charset;
+      logger.log(Logger.Level.INFO, " - " + name);
+      final LargeDocument doc = new LargeDocument(chars, false);
+      final HeapCheck heap = new HeapCheck(name);
+      final long interval = checkInterval(doc);
+      final CountingOutputStream out = new CountingOutputStream();
+      final long start = System.nanoTime();
+      try (JsonGenerator generator = generatorFactory.createGenerator(out,
+          charset)) {
+        long written = 0;
+        generator.writeStartArray();
+        for (long n = 0; n < doc.getCount(); n++) {
+          doc.writeElement(generator, n);
+          if ((n + 1) % interval == 0) {
+            heap.check(result);
+            if (out.count == written) {
+              result.fail(name, "Nothing was written for " + interval
+                  + " elements, the document is buffered");
+            }
+            written = out.count;
+          }
+        }
+        generator.writeEnd();
+      } catch (RuntimeException e) {
+        result.fail(name, "Generator failed with " + e);
+        return result;
+      }
+      report(name, out.count, System.nanoTime() - start, heap,
+          doc.getCount());
+    }
+    return result;
+  }
+
+  /**
+   * Test {@link JsonParser#getArrayStream()} over an array document. The
+   * first element must be available before the parser reads more than
+   * {@link #LAZY_LIMIT} bytes.
+   *
+   * @return Result of the tests.
+   */
+  TestResult testArrayStream() {
+    final String name = "JsonParser#getArrayStream()";
+    final TestResult result = new TestResult(name + " streaming");
+    logger.log(Logger.Level.INFO, " - " + name);
+    final LargeDocument doc = new LargeDocument(chars, false);
+    final ElementCheck check = new ElementCheck(name);
+    final HeapCheck heap = new HeapCheck(name);
+    final long interval = checkInterval(doc);
+    final long start = System.nanoTime();
+    try (LargeDocument.DocumentInputStream in = doc.open(JSONP_Util.UTF_8);
+        JsonParser parser = parserFactory.createParser(in,
+            JSONP_Util.UTF_8)) {
+      if (parser.next() != JsonParser.Event.START_ARRAY) {
+        result.fail(name, "Document does not start with an array");
+        return result;
+      }
+      final Iterator<JsonValue> values = parser.getArrayStream().iterator();
+      while (values.hasNext()) {
+        check.add(values.next().asJsonObject());
+        if (check.count == 1) {
+          checkLazy(result, name, in.getBytesRead());
+        }
+        if (check.count % interval == 0) {
+          heap.check(result);
+        }
+      }
+      check.verify(result, doc);
+      report(name, in.getBytesRead(), System.nanoTime() - start, heap,
+          check.count);
+    } catch (RuntimeException e) {
+      result.fail(name, "Stream failed with " + e);
+    }
+    return result;
+  }
+
+  /**
+   * Test {@link JsonParser#getObjectStream()} over an object document. The
+   * first member must be available before the parser reads more than
+   * {@link #LAZY_LIMIT} bytes.
+   *
+   * @return Result of the tests.
+   */
+  TestResult testObjectStream() {
+    final String name = "JsonParser#getObjectStream()";
+    final TestResult result = new TestResult(name + " streaming");
+    logger.log(Logger.Level.INFO, " - " + name);
+    final LargeDocument doc = new LargeDocument(chars, true);
+    final ElementCheck check = new ElementCheck(name);
+    final HeapCheck heap = new HeapCheck(name);
+    final long interval = checkInterval(doc);
+    final long start = System.nanoTime();
+    try (LargeDocument.DocumentInputStream in = doc.open(JSONP_Util.UTF_8);
+        JsonParser parser = parserFactory.createParser(in,
+            JSONP_Util.UTF_8)) {
+      if (parser.next() != JsonParser.Event.START_OBJECT) {
+        result.fail(name, "Document does not start with an object");
+        return result;
+      }
+      final Iterator<Map.Entry<String, JsonValue>> members = parser
+          .getObjectStream().iterator();
+      while (members.hasNext()) {
+        final Map.Entry<String, JsonValue> member = members.next();
+        final JsonObject element = member.getValue().asJsonObject();
+        check.add(element);
+        if (!LargeDocument.key(element.getJsonNumber("id").longValue())
+            .equals(member.getKey())) {
+          check.bad++;
+        }
+        if (check.count == 1) {
+          checkLazy(result, name, in.getBytesRead());
+        }
+        if (check.count % interval == 0) {
+          heap.check(result);
+        }
+      }
+      check.verify(result, doc);
+      report(name, in.getBytesRead(), System.nanoTime() - start, heap,
+          check.count);
+    } catch (RuntimeException e) {
+      result.fail(name, "Stream failed with " + e);
+    }
+    return result;
+  }
+
+  private static long checkInterval(final LargeDocument doc) {
+    return Math.max(1, doc.getCount() / 8);
+  }
+
+  private static void checkLazy(final TestResult result, final String name,
+      final long read) {
+    if (read > LAZY_LIMIT) {
+      result.fail(name, "Read " + read + " bytes for the first element, "
+          + "the stream is not lazy");
+    }
+  }
+
+  private static void report(final String name, final long bytes,
+      final long nanos, final HeapCheck heap, final long elements) {
+    final double seconds = (nanos - heap.paused)
+        / (double) TimeUnit.SECONDS.toNanos(1);
+    logger.log(Logger.Level.INFO, String.format(
+        "[Stress] %s: %d MB in %.1f s, %.1f MB/s, %.0f elements/s, "
+            + "heap growth %d MB",
+        name, bytes / MB, seconds, bytes / (double) MB / seconds,
+        elements / seconds, heap.max / MB));
+  }
+
+  /**
+   * Heap used after a garbage collection, in bytes.
+   */
+  private static long usedMemory() {
+    final Runtime runtime = Runtime.getRuntime();
+    System.gc();
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  /**
+   * Growth of the heap from the start of a test.
+   */
+  private final class HeapCheck {
+
+    private final String name;
+
+    private final long baseline;
+
+    /** Largest growth, in bytes. */
+    private long max = 0;
+
+    /** Time spent in the checks, in nanoseconds. */
+    private long paused = 0;
+
+    private boolean failed = false;
+
+    private HeapCheck(final String name) {
+      this.name = name;
+      this.baseline = usedMemory();
+    }
+
+    private void check(final TestResult result) {
+      final long start = System.nanoTime();
+      final long growth = usedMemory() - baseline;
+      max = Math.max(max, growth);
+      if (growth > heapLimit && !failed) {
+        result.fail(name, "Heap grew by " + growth / MB + " MB, the limit is "
+            + heapLimit / MB + " MB");
+        failed = true;
+      }
+      paused += System.nanoTime() - start;
+    }
+
+  }
+
+  /**
+   * Count, sum of the ids and text of the elements read.
+   */
+  private static final class ElementCheck {
+
+    private final String name;
+
+    private long count = 0;
+
+    private long idSum = 0;
+
+    /** Elements with a wrong text or key. */
+    private long bad = 0;
+
+    private ElementCheck(final String name) {
+      this.name = name;
+    }
+
+    private void add(final long id, final String text) {
+      count++;
+      idSum += id;
+      if (!LargeDocument.TEXT.equals(text)) {
+        bad++;
+      }
+    }
+
+    private void add(final JsonObject element) {
+      add(element.getJsonNumber("id").longValue(), element.getString("text"));
+    }
+
+    private void verify(final TestResult result, final LargeDocument doc) {
+      if (count != doc.getCount() || idSum != doc.getIdSum()) {
+        result.fail(name,
+            "Read " + count + " elements with ids summing to " + idSum
+                + ", expected " + doc.getCount() + " summing to "
+                + doc.getIdSum());
+      }
+      if (bad != 0) {
+        result.fail(name, bad + " elements have a wrong text or key");
+      }
+    }
+
+  }
+
+  /**
+   * Counts and drops the bytes written.
+   */
+  private static final class CountingOutputStream extends OutputStream {
+
+    private long count = 0;
+
+    @Override
+    public void write(final int b) {
+      count++;
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) {
+      count += len;
+    }
+
+  }
+
+}
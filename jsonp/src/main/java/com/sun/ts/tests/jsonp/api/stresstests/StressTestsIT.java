@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.ts.tests.jsonp.api.stresstests;
+
+import java.lang.System.Logger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+// $Id$
+/*
+ * Stress tests of the JSON-P implementation on the test class path with
+ * documents of hundreds of MB, not part of the TCK. They only run with
+ * -Djsonp_stress=true. The documents have jsonp_stress_mb (256) MB of
+ * characters, and the heap may grow by jsonp_stress_heap_mb (64) MB while one is
+ * streamed.
+ */
+@EnabledIfSystemProperty(named = "jsonp_stress", matches = "true")
+public class StressTestsIT {
+
+  private static final Logger logger = System.getLogger(StressTestsIT.class.getName());
+
+  private static final long MB = 1024 * 1024;
+
+  @BeforeEach
+  void logStartTest(TestInfo testInfo) {
+      logger.log(Logger.Level.INFO, "STARTING TEST : " + testInfo.getDisplayName());
+  }
+
+  @AfterEach
+  void logFinishTest(TestInfo testInfo) {
+      logger.log(Logger.Level.INFO, "FINISHED TEST : " + testInfo.getDisplayName());
+  }
+
+  /**
+   * @testName: parserStressTest
+   *
+   * @test_Strategy: Parse a large array document with JsonParser in each
+   * encoding of JSONP_Util, check the elements read and that the heap stays
+   * bounded.
+   */
+  @Test
+  public void parserStressTest() throws Exception {
+    createStress().testParser().eval();
+  }
+
+  /**
+   * @testName: generatorStressTest
+   *
+   * @test_Strategy: Write a large array document with JsonGenerator in each
+   * encoding of JSONP_Util, check that the output is written while the
+   * document is generated and that the heap stays bounded.
+   */
+  @Test
+  public void generatorStressTest() throws Exception {
+    createStress().testGenerator().eval();
+  }
+
+  /**
+   * @testName: arrayStreamStressTest
+   *
+   * @test_Strategy: Read a large array document through
+   * JsonParser.getArrayStream(), check that the first element is read without
+   * reading the document and that the heap stays bounded.
+   */
+  @Test
+  public void arrayStreamStressTest() throws Exception {
+    createStress().testArrayStream().eval();
+  }
+
+  /**
+   * @testName: objectStreamStressTest
+   *
+   * @test_Strategy: Read a large object document through
+   * JsonParser.getObjectStream(), check that the first member is read without
+   * reading the document and that the heap stays bounded.
+   */
+  @Test
+  public void objectStreamStressTest() throws Exception {
+    createStress().testObjectStream().eval();
+  }
+
+  private static StreamingStress createStress() {
+    return new StreamingStress(getProperty("jsonp_stress_mb", 256) * MB,
+        getProperty("jsonp_stress_heap_mb", 64) * MB);
+  }
+
+  private static long getProperty(final String name, final long defaultValue) {
+    final String value = System.getProperty(name);
+    return value == null || value.trim().isEmpty() ? defaultValue
+        : Long.parseLong(value.trim());
+  }
+
+}
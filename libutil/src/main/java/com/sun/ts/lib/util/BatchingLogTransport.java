@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.ts.lib.util;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Remote logging transport used by TestUtil on the VM under test when
+ * harness.log.transport is set to "batched". Logging threads publish
+ * TestReportInfo records into a bounded lock-free ring buffer and return
+ * immediately; a single background thread drains the ring in batches and
+ * writes them to the harness with a length-prefixed binary framing instead of
+ * Java serialization.
+ *
+ * The stream starts with {@link #MAGIC}, followed by one frame per record:
+ *
+ * <pre>
+ *   int  length of the rest of the frame
+ *   byte stream (TestUtil.OUTPUT_STREAM or TestUtil.ERROR_STREAM)
+ *   byte level  (TestUtil.DEBUG_OUTPUT_LEVEL or TestUtil.NORMAL_OUTPUT_LEVEL)
+ *   byte[] message, UTF-8 encoded
+ * </pre>
+ *
+ * If the ring is full, logging threads wait for the writer to free a slot and
+ * the stall is recorded in the statistics. Records that cannot be written
+ * because the harness went away are kept and resent once a new connection is
+ * established, as the object stream transport does.
+ */
+final class BatchingLogTransport {
+
+  /** First four bytes of a batched logging stream ("TSL1"). */
+  static final int MAGIC = 0x54534C31;
+
+  private final AtomicReferenceArray<TestReportInfo> ring;
+
+  private final int mask;
+
+  private final int batchSize;
+
+  private final long flushIntervalNanos;
+
+  // next slot to be claimed by a producer
+  private final AtomicLong tail = new AtomicLong();
+
+  // next slot to be read by the writer thread, only written by that thread
+  private volatile long head;
+
+  // number of records that have been written or set aside for resend
+  private final AtomicLong completed = new AtomicLong();
+
+  private final AtomicLong batches = new AtomicLong();
+
+  private final AtomicLong bytesWritten = new AtomicLong();
+
+  private final AtomicLong producerStalls = new AtomicLong();
+
+  private final AtomicLong producerStallNanos = new AtomicLong();
+
+  private volatile long highWaterMark;
+
+  private volatile DataOutputStream out;
+
+  private volatile boolean closed;
+
+  // only touched by the writer thread
+  private final List<TestReportInfo> unsent = new ArrayList<TestReportInfo>();
+
+  private final Thread writer;
+
+  /**
+   * @param capacity
+   *          number of records the ring can hold, rounded up to a power of two
+   * @param batchSize
+   *          maximum number of records written before the stream is flushed
+   * @param flushIntervalMillis
+   *          how long the writer thread sleeps when the ring is empty
+   */
+  BatchingLogTransport(int capacity, int batchSize, long flushIntervalMillis) {
+    int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+    this.ring = new AtomicReferenceArray<TestReportInfo>(size);
+    this.mask = size - 1;
+    this.batchSize = Math.max(1, batchSize);
+    this.flushIntervalNanos = Math.max(1, flushIntervalMillis) * 1000000L;
+    this.writer = new Thread(new Runnable() {
+      public void run() {
+        writeLoop();
+      }
+    }, "TestUtil-log-writer");
+    this.writer.setDaemon(true);
+    this.writer.start();
+  }
+
+  /**
+   * Switches the transport to a new connection to the harness. Records that
+   * could not be delivered over the previous connection are sent first.
+   */
+  void connect(OutputStream os) throws IOException {
+    DataOutputStream dos = new DataOutputStream(
+        new BufferedOutputStream(os, 8192));
+    dos.writeInt(MAGIC);
+    dos.flush();
+    out = dos;
+    LockSupport.unpark(writer);
+  }
+
+  /**
+   * Queues a record for delivery. Only blocks if the ring is full.
+   */
+  void send(TestReportInfo tri) {
+    long stallStart = 0;
+    long t;
+    while (true) {
+      t = tail.get();
+      long depth = t - head;
+      if (depth <= mask) {
+        if (tail.compareAndSet(t, t + 1)) {
+          if (depth >= highWaterMark) {
+            highWaterMark = depth + 1;
+          }
+          break;
+        }
+      } else {
+        if (closed) {
+          return;
+        }
+        if (stallStart == 0) {
+          stallStart = System.nanoTime();
+          producerStalls.incrementAndGet();
+        }
+        LockSupport.unpark(writer);
+        Thread.yield();
+      }
+    }
+    ring.lazySet((int) (t & mask), tri);
+    if (stallStart != 0) {
+      producerStallNanos.addAndGet(System.nanoTime() - stallStart);
+    }
+  }
+
+  /**
+   * Waits until every record queued so far has been handed to the connection,
+   * or until the timeout expires.
+   */
+  void flush(long timeoutMillis) {
+    long target = tail.get();
+    long deadline = System.nanoTime() + timeoutMillis * 1000000L;
+    while (completed.get() < target && System.nanoTime() < deadline) {
+      LockSupport.unpark(writer);
+      LockSupport.parkNanos(this, 1000000L);
+    }
+  }
+
+  /**
+   * Flushes the pending records and stops the writer thread.
+   */
+  void close(long timeoutMillis) {
+    flush(timeoutMillis);
+    closed = true;
+    LockSupport.unpark(writer);
+  }
+
+  String getStatistics() {
+    long queued = tail.get();
+    return "queued=" + queued + ", written=" + (completed.get() - unsentCount())
+        + ", pending=" + (queued - completed.get()) + ", batches="
+        + batches.get() + ", bytes=" + bytesWritten.get() + ", highWaterMark="
+        + highWaterMark + "/" + (mask + 1) + ", producerStalls="
+        + producerStalls.get() + ", producerStallMillis="
+        + producerStallNanos.get() / 1000000L;
+  }
+
+  private int unsentCount() {
+    synchronized (unsent) {
+      return unsent.size();
+    }
+  }
+
+  private void writeLoop() {
+    List<TestReportInfo> batch = new ArrayList<TestReportInfo>(batchSize);
+    while (!closed || head != tail.get()) {
+      drain(batch);
+      DataOutputStream dos = out;
+      if (dos != null && !unsent.isEmpty()) {
+        synchronized (unsent) {
+          if (write(dos, unsent)) {
+            unsent.clear();
+          }
+        }
+      }
+      if (batch.isEmpty()) {
+        LockSupport.parkNanos(this, flushIntervalNanos);
+        continue;
+      }
+      synchronized (unsent) {
+        if (dos == null || !unsent.isEmpty() || !write(dos, batch)) {
+          unsent.addAll(batch);
+        }
+      }
+      completed.addAndGet(batch.size());
+      batch.clear();
+    }
+  }
+
+  private void drain(List<TestReportInfo> batch) {
+    long h = head;
+    while (batch.size() < batchSize) {
+      int index = (int) (h & mask);
+      TestReportInfo tri = ring.get(index);
+      if (tri == null) {
+        // either empty or the producer has not published its slot yet
+        break;
+      }
+      ring.lazySet(index, null);
+      batch.add(tri);
+      h++;
+    }
+    head = h;
+  }
+
+  private boolean write(DataOutputStream dos, List<TestReportInfo> records) {
+    try {
+      int size = dos.size();
+      for (TestReportInfo tri : records) {
+        String s = tri.sOutput;
+        if (tri.exception != null) {
+          s = s + TestUtil.NEW_LINE
+              + TestUtil.printStackTraceToString(tri.exception);
+        }
+        byte[] bytes = (s == null ? "" : s).getBytes(StandardCharsets.UTF_8);
+        dos.writeInt(bytes.length + 2);
+        dos.writeByte(tri.iStream);
+        dos.writeByte(tri.iDebugLevel);
+        dos.write(bytes);
+      }
+      dos.flush();
+      batches.incrementAndGet();
+      bytesWritten.addAndGet(dos.size() - size);
+      return true;
+    } catch (IOException e) {
+      // the harness went away; hold on to the records until reconnected
+      if (out == dos) {
+        out = null;
+      }
+      return false;
+    }
+  }
+
+  /**
+   * Reads the next frame written by this transport.
+   *
+   * @return the record, or null at the end of the stream
+   */
+  static TestReportInfo readRecord(DataInputStream in) throws IOException {
+    int length;
+    try {
+      length = in.readInt();
+    } catch (java.io.EOFException e) {
+      return null;
+    }
+    int stream = in.readByte();
+    int level = in.readByte();
+    byte[] bytes = new byte[length - 2];
+    in.readFully(bytes);
+    return new TestReportInfo(new String(bytes, StandardCharsets.UTF_8),
+        stream, level, null);
+  }
+}
@@ -24,6 +24,7 @@ import java.io.*;
 import java.util.*;
 import java.net.*;
 import java.text.SimpleDateFormat;
+import java.util.concurrent.Callable;
 
 /**
  * TestUtil is a final utility class responsible for implementing logging across
@@ -66,6 +67,11 @@ public final class TestUtil {
 
   private static PrintWriter additionalWriter = null;
 
+  // set on the worker threads of a parallel run, so that each worker logs to
+  // the stream of its own testcase. Threads started by a testcase share the
+  // context of their worker.
+  private static final InheritableThreadLocal<TestContext> threadContext = new InheritableThreadLocal<TestContext>();
+
   private static ObjectOutputStream objectOutputStream = null;
 
   private static ObjectOutputStream objectInputStream = null;
@@ -82,6 +88,9 @@ public final class TestUtil {
 
   private static Vector vBuffereredOutput = new Vector();
 
+  // set when harness.log.transport=batched, replaces objectOutputStream
+  private static BatchingLogTransport logTransport = null;
+
   // Transaction Attribute Value Mapping Table
   private static final String UNRECOGNIZED_STATUS = "UNRECOGNIZED_STATUS";
 
@@ -103,8 +112,10 @@ public final class TestUtil {
   // hang onto the props that are passed in during logging init calls
   private static Properties testProps = null;
 
-  private static SimpleDateFormat df = new SimpleDateFormat(
-      "MM-dd-yyyy HH:mm:ss");
+  // SimpleDateFormat is not thread safe, and the workers of a parallel run log
+  // to different streams at the same time
+  private static final ThreadLocal<SimpleDateFormat> df = ThreadLocal
+      .withInitial(() -> new SimpleDateFormat("MM-dd-yyyy HH:mm:ss"));
 
   static {
     harnessDebug = Boolean.getBoolean("cts.harness.debug");
@@ -133,7 +144,7 @@ public final class TestUtil {
    */
   public static void logHarness(String s, Throwable t) {
     synchronized (System.out) {
-      System.out.println(df.format(new Date()) + ":  Harness - " + s);
+      System.out.println(df.get().format(new Date()) + ":  Harness - " + s);
       logToAdditionalWriter(s, t);
       if (t != null) {
         t.printStackTrace();
@@ -263,6 +274,11 @@ public final class TestUtil {
   }
 
   public static void flushStream() {
+    BatchingLogTransport transport = logTransport;
+    if (transport != null) {
+      transport.flush(LOG_FLUSH_TIMEOUT_MILLIS);
+      return;
+    }
     synchronized (socketMutex) {
       try {
         objectOutputStream.flush();
@@ -274,6 +290,12 @@ public final class TestUtil {
   }
 
   public static void writeObject(TestReportInfo info) {
+    BatchingLogTransport transport = logTransport;
+    if (transport != null) {
+      // does not take the socketMutex, the transport is lock free
+      transport.send(info);
+      return;
+    }
     synchronized (socketMutex) {
       flushStream();
       try {
@@ -317,6 +339,70 @@ public final class TestUtil {
     }
   }
 
+  /**
+   * Returns the counters of the batched remote logging transport (records
+   * queued and written, batches, ring high-water mark and how often logging
+   * threads had to wait for a free slot), or null if the object stream
+   * transport is in use. EETest logs them at the end of each testcase run in
+   * a remote VM.
+   *
+   * @return the transport statistics
+   */
+  public static String getRemoteLoggingStatistics() {
+    BatchingLogTransport transport = logTransport;
+    return transport == null ? null : transport.getStatistics();
+  }
+
+  private static final long LOG_FLUSH_TIMEOUT_MILLIS = 10000;
+
+  /*
+   * Opens the socket back to the harness host and sets up the logging
+   * transport selected by harness.log.transport: "object" (the default) sends
+   * one serialized TestReportInfo per log call, "batched" hands the log calls
+   * to a BatchingLogTransport.
+   */
+  private static void openLogStream(Properties p) throws Exception {
+    socketOnRemoteVM = new Socket(hostOfHarness, portOfHarness);
+    String transport = p.getProperty("harness.log.transport", "object").trim();
+    if (transport.equalsIgnoreCase("batched")) {
+      if (logTransport == null) {
+        logTransport = new BatchingLogTransport(
+            getIntProperty(p, "harness.log.buffersize", 8192),
+            getIntProperty(p, "harness.log.batchsize", 256),
+            getIntProperty(p, "harness.log.flushmillis", 50));
+      }
+      objectOutputStream = null;
+      logTransport.connect(socketOnRemoteVM.getOutputStream());
+      synchronized (vBuffereredOutput) {
+        for (int ii = 0; ii < vBuffereredOutput.size(); ii++) {
+          logTransport.send((TestReportInfo) vBuffereredOutput.elementAt(ii));
+        }
+        vBuffereredOutput.removeAllElements();
+      }
+    } else {
+      if (logTransport != null) {
+        logTransport.close(LOG_FLUSH_TIMEOUT_MILLIS);
+        logTransport = null;
+      }
+      objectOutputStream = new ObjectOutputStream(
+          socketOnRemoteVM.getOutputStream());
+      sendBufferedData();
+    }
+  }
+
+  private static int getIntProperty(Properties p, String key,
+      int defaultValue) {
+    try {
+      return Integer.parseInt(
+          p.getProperty(key, Integer.toString(defaultValue)).trim());
+    } catch (NumberFormatException e) {
+      // buffered until the log stream is open
+      logErr("Invalid value \"" + p.getProperty(key) + "\" for " + key
+          + ", using the default value " + defaultValue);
+      return defaultValue;
+    }
+  }
+
   private static final String PROPS_FILE_NAME = "-cts-props.txt";
 
   private static final String PROPS_FILE;
@@ -388,6 +474,9 @@ public final class TestUtil {
               "Init: Error - Empty properties object passed to TestUtil.init");
         }
         NEW_LINE = p.getProperty("line.separator");
+        if (logTransport != null) {
+          logTransport.flush(LOG_FLUSH_TIMEOUT_MILLIS);
+        }
         if (socketOnRemoteVM != null) {
           socketOnRemoteVM.close();
         }
@@ -404,10 +493,7 @@ public final class TestUtil {
             throw new RemoteLoggingInitException(
                 "Init: Error while trying to getProperty(harness.host) - returned null");
           }
-          socketOnRemoteVM = new Socket(hostOfHarness, portOfHarness);
-          objectOutputStream = new ObjectOutputStream(
-              socketOnRemoteVM.getOutputStream());
-          sendBufferedData();
+          openLogStream(p);
           // logMsg("socketOnRemoteVM=null, renewed everything");
         } else {
           // we'll never get here now...
@@ -441,10 +527,7 @@ public final class TestUtil {
                 "Init: Error while trying to getProperty(harness.host) - returned null");
           }
           socketOnRemoteVM.close();
-          socketOnRemoteVM = new Socket(hostOfHarness, portOfHarness);
-          objectOutputStream = new ObjectOutputStream(
-              socketOnRemoteVM.getOutputStream());
-          sendBufferedData();
+          openLogStream(p);
           // logMsg("caught IOException from flush(), renewed everything");
         } catch (IOException e2) {
           e2.printStackTrace();
@@ -588,11 +671,92 @@ public final class TestUtil {
    */
   public static void setCurrentTest(String testName, PrintWriter outStream,
       PrintWriter errStream) {
+    TestContext context = threadContext.get();
+    if (context != null) {
+      context.testName = testName;
+      context.out = outStream;
+      return;
+    }
     sTestName = testName;
     out = outStream;
     err = outStream;
   }
 
+  /**
+   * Gives the current thread its own test name and log stream, so that
+   * setCurrentTest and the logging methods called on this thread, or on the
+   * threads it starts, no longer touch the ones shared by the other threads.
+   * Used by the workers of a parallel run. Messages sent by remote VMs are
+   * still printed to the shared log stream.
+   */
+  public static void isolateCurrentThread() {
+    TestContext context = new TestContext();
+    context.testName = sTestName;
+    context.out = out;
+    threadContext.set(context);
+  }
+
+  /**
+   * Makes the current thread use the test name and log stream shared by all
+   * threads again.
+   */
+  public static void releaseCurrentThread() {
+    threadContext.remove();
+  }
+
+  /**
+   * Returns a task that runs with the test name and log stream of the calling
+   * thread, for a thread pool whose threads were not started by the caller and
+   * so did not inherit them. The thread's own test name and log stream are
+   * restored when the task returns.
+   */
+  public static <T> Callable<T> withCurrentTest(final Callable<T> task) {
+    final TestContext callerContext = threadContext.get();
+    return new Callable<T>() {
+      public T call() throws Exception {
+        TestContext context = threadContext.get();
+        setContext(callerContext);
+        try {
+          return task.call();
+        } finally {
+          setContext(context);
+        }
+      }
+    };
+  }
+
+  private static void setContext(TestContext context) {
+    if (context == null) {
+      threadContext.remove();
+    } else {
+      threadContext.set(context);
+    }
+  }
+
+  /**
+   * Returns the name of the test running on the current thread.
+   */
+  public static String getCurrentTest() {
+    TestContext context = threadContext.get();
+    return context != null ? context.testName : sTestName;
+  }
+
+  private static PrintWriter getOut() {
+    TestContext context = threadContext.get();
+    return context != null ? context.out : out;
+  }
+
+  private static PrintWriter getErr() {
+    TestContext context = threadContext.get();
+    return context != null ? context.out : err;
+  }
+
+  private static final class TestContext {
+    volatile String testName;
+
+    volatile PrintWriter out;
+  }
+
   /**
    * prints a string to the log stream. All tests should use this method for
    * standard logging messages
@@ -604,9 +768,10 @@ public final class TestUtil {
     if (iWhereAreWe == VM_JAVATEST) {
       logHarness(s);
     } else if (iWhereAreWe == VM_HARNESS) {
+      PrintWriter out = getOut();
       synchronized (out) {
         // just print to the appropriate stream
-        out.println(df.format(new Date()) + ":  " + s);
+        out.println(df.get().format(new Date()) + ":  " + s);
         out.flush();
       }
     } else {
@@ -646,9 +811,10 @@ public final class TestUtil {
       }
     } else {
       if (iWhereAreWe == VM_HARNESS) {
+        PrintWriter out = getOut();
         synchronized (out) {
           // just print to the appropriate stream
-          out.println(df.format(new Date()) + ":  " + s);
+          out.println(df.get().format(new Date()) + ":  " + s);
           out.flush();
         }
       } else {
@@ -703,12 +869,13 @@ public final class TestUtil {
         logHarnessDebug(s);
       } else {
         if (iWhereAreWe == VM_HARNESS) {
+          PrintWriter out = getOut();
           synchronized (out) {
             // just print to the appropriate stream
             if (s != null && s.startsWith("SVR-TRACE"))
-              out.println(df.format(new Date()) + ":  " + s);
+              out.println(df.get().format(new Date()) + ":  " + s);
             else
-              out.println(df.format(new Date()) + ":  TRACE: " + s);
+              out.println(df.get().format(new Date()) + ":  TRACE: " + s);
           }
         } else {
           TestReportInfo tri = new TestReportInfo("SVR-TRACE: " + s,
@@ -739,12 +906,13 @@ public final class TestUtil {
       }
     } else {
       if (iWhereAreWe == VM_HARNESS) {
+        PrintWriter err = getErr();
         synchronized (err) {
           // just print to the appropriate stream
           if (s != null && s.startsWith("SVR-ERROR"))
-            err.println(df.format(new Date()) + ":  " + s);
+            err.println(df.get().format(new Date()) + ":  " + s);
           else
-            err.println(df.format(new Date()) + ":  ERROR: " + s);
+            err.println(df.get().format(new Date()) + ":  ERROR: " + s);
         }
       } else {
         TestReportInfo tri = new TestReportInfo("SVR-ERROR: " + s, ERROR_STREAM,
@@ -1091,13 +1259,30 @@ class SocketReader extends Thread {
   }
 
   public void run() {
-    ObjectInputStream objIn;
+    ObjectInputStream objIn = null;
+    DataInputStream dataIn = null;
     TestReportInfo tri = null;
     try {
-      objIn = new ObjectInputStream(outputSocket.getInputStream());
+      // the remote VM either starts a Java serialization stream or, if it
+      // uses the batched transport, a length-prefixed binary stream
+      BufferedInputStream in = new BufferedInputStream(
+          outputSocket.getInputStream());
+      in.mark(4);
+      dataIn = new DataInputStream(in);
+      if (dataIn.readInt() != BatchingLogTransport.MAGIC) {
+        in.reset();
+        dataIn = null;
+        objIn = new ObjectInputStream(in);
+      }
       // while((tri = (TestReportInfo)objIn.readObject()) != null)
       while (true) {
-        tri = (TestReportInfo) objIn.readObject();
+        if (dataIn != null) {
+          tri = BatchingLogTransport.readRecord(dataIn);
+          if (tri == null)
+            break;
+        } else {
+          tri = (TestReportInfo) objIn.readObject();
+        }
         if (tri.iDebugLevel == TestUtil.DEBUG_OUTPUT_LEVEL) {
           // System.out.println("about to call logTrace");
           TestUtil.logTrace(tri.sOutput);
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.ts.lib.porting;
+
+/**
+ * A TSDeploymentInterface implementation may implement this interface to
+ * declare that its deploy method can be called from several threads at the
+ * same time for different archives. When harness.deployment.threads is set to
+ * a value greater than 1 in ts.jte, the test harness then deploys the
+ * applications of a test directory in parallel, as long as isIndependent
+ * reports that they do not need each other. Connectors are still deployed one
+ * at a time, after all applications that precede them in the directory have
+ * been deployed.
+ *
+ * Implementations that do not implement this interface are only ever called
+ * from one thread at a time.
+ */
+public interface TSConcurrentDeploymentInterface extends TSDeploymentInterface {
+
+  /**
+   * Returns true if the application described by info can be deployed while
+   * the applications described by pending are still being deployed, that is
+   * if deploying it does not depend on any of them, for instance to resolve
+   * its references. Otherwise the harness waits for the pending deployments
+   * to complete before it deploys this application.
+   *
+   * The previous infos of info only contain the applications whose deployment
+   * has completed.
+   *
+   * @param info
+   *          object containing the information needed to deploy the
+   *          application
+   * @param pending
+   *          the applications of the same directory still being deployed, in
+   *          archive order
+   * @return true if the application can be deployed now
+   */
+  public boolean isIndependent(DeploymentInfo info, DeploymentInfo[] pending);
+}
@@ -25,7 +25,8 @@ import com.sun.ts.lib.util.*;
 /**
  * This is a factory class for creating instances of TSJMSObjectsInterface. The
  * implementation classes used are determined by the values of the porting
- * package properties in TS_HOME/bin/ts.jte.
+ * package properties in TS_HOME/bin/ts.jte, or by the system property of the
+ * same name if it is not set there.
  *
  */
 public class TSJMSObjects {
@@ -44,6 +45,10 @@ public class TSJMSObjects {
       // class
       TestUtil.logMsg("TSJMSObjects.getJMSObjectsInstance()");
       portingClass = TestUtil.getProperty(portingPropName);
+      if (portingClass == null) {
+        // the JUnit runs of the standalone tests have no ts.jte
+        portingClass = System.getProperty(portingPropName);
+      }
       if (portingClass == null) {
         portingClass = DEFAULT_PORTING_CLASS;
         TestUtil.logMsg("Property " + portingPropName + " not set. "
@@ -0,0 +1,345 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.ts.tests.signaturetest;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * <p>
+ * An index of the class files found on a signature test classpath, built by
+ * listing every jar and directory of the classpath once.
+ * </p>
+ *
+ * <p>
+ * The signature test framework lists the whole classpath on every run. With
+ * the index, a run for one package or class only gets the classpath entries
+ * holding that package or class and the entries holding their superclasses
+ * and superinterfaces, read from the class file headers. Instances are safe
+ * for use by concurrent runs.
+ * </p>
+ */
+public class ClasspathIndex implements Closeable {
+
+  private static final String CLASS_EXT = ".class";
+
+  private final String classpath;
+
+  private final List<String> entries = new ArrayList<String>();
+
+  private final List<ZipFile> zipFiles = new ArrayList<ZipFile>();
+
+  /* class name -> index of the first classpath entry holding the class */
+  private final NavigableMap<String, Integer> classes = new TreeMap<String, Integer>();
+
+  private final Map<String, String[]> superTypes = new ConcurrentHashMap<String, String[]>();
+
+  // ------------------------------------------------------------ Constructors
+
+  /**
+   * Lists the class files of each entry of the classpath.
+   *
+   * @param classpath
+   *          the entries, separated by the platform path separator
+   *
+   * @throws IOException
+   *           if a jar of the classpath cannot be read
+   */
+  public ClasspathIndex(String classpath) throws IOException {
+
+    this.classpath = classpath;
+    String[] paths = classpath.split(File.pathSeparator);
+    try {
+      for (int i = 0; i < paths.length; i++) {
+        String path = paths[i].trim();
+        if (path.length() == 0) {
+          continue;
+        }
+        File file = new File(path);
+        int entry = entries.size();
+        entries.add(path);
+        if (file.isDirectory()) {
+          zipFiles.add(null);
+          indexDirectory(file, "", entry);
+        } else if (file.isFile()) {
+          ZipFile zip = new ZipFile(file);
+          zipFiles.add(zip);
+          indexZip(zip, entry);
+        } else {
+          zipFiles.add(null);
+        }
+      }
+    } catch (IOException e) {
+      close();
+      throw e;
+    }
+
+  } // END ClasspathIndex
+
+  // ---------------------------------------------------------- Public Methods
+
+  /**
+   * Returns the number of classes in the index.
+   */
+  public int getClassCount() {
+
+    return classes.size();
+
+  } // END getClassCount
+
+  /**
+   * Returns true if a class of the package, not counting its sub-packages, is
+   * on the classpath.
+   */
+  public boolean containsPackage(String packageName) {
+
+    String prefix = packageName + '.';
+    for (String name : classes.subMap(prefix, prefix + Character.MAX_VALUE)
+        .keySet()) {
+      if (name.indexOf('.', prefix.length()) < 0) {
+        return true;
+      }
+    }
+    return false;
+
+  } // END containsPackage
+
+  /**
+   * Returns the classpath entries holding the classes of the package, or the
+   * class and its nested classes, and the entries holding their supertypes, in
+   * classpath order. The whole classpath is returned when the package or class
+   * is not in the index, so that the run reports it the usual way.
+   *
+   * @param packageOrClassName
+   *          the package, including its sub-packages, or the class
+   */
+  public String getClasspath(String packageOrClassName) throws IOException {
+
+    Deque<String> pending = new ArrayDeque<String>();
+    if (classes.containsKey(packageOrClassName)) {
+      pending.add(packageOrClassName);
+    }
+    addClasses(packageOrClassName + '.', pending);
+    addClasses(packageOrClassName + '$', pending);
+    if (pending.isEmpty()) {
+      return classpath;
+    }
+
+    BitSet used = new BitSet(entries.size());
+    Set<String> visited = new HashSet<String>(pending);
+    while (!pending.isEmpty()) {
+      String name = pending.remove();
+      Integer entry = classes.get(name);
+      if (entry == null) {
+        // e.g. a JDK class when the JDK modules are not on the classpath
+        continue;
+      }
+      used.set(entry.intValue());
+      String[] supers = getSuperTypes(name, entry.intValue());
+      for (int i = 0; i < supers.length; i++) {
+        if (visited.add(supers[i])) {
+          pending.add(supers[i]);
+        }
+      }
+    }
+
+    StringBuilder buf = new StringBuilder();
+    for (int i = used.nextSetBit(0); i >= 0; i = used.nextSetBit(i + 1)) {
+      if (buf.length() > 0) {
+        buf.append(File.pathSeparatorChar);
+      }
+      buf.append(entries.get(i));
+    }
+    return buf.toString();
+
+  } // END getClasspath
+
+  public void close() {
+
+    for (ZipFile zip : zipFiles) {
+      try {
+        if (zip != null) {
+          zip.close();
+        }
+      } catch (Throwable t) {
+        // do nothing
+      }
+    }
+
+  } // END close
+
+  // --------------------------------------------------------- Private Methods
+
+  private void addClasses(String prefix, Deque<String> pending) {
+
+    pending.addAll(
+        classes.subMap(prefix, prefix + Character.MAX_VALUE).keySet());
+
+  } // END addClasses
+
+  private void indexDirectory(File dir, String prefix, int entry) {
+
+    File[] files = dir.listFiles();
+    if (files == null) {
+      return;
+    }
+    for (int i = 0; i < files.length; i++) {
+      String name = files[i].getName();
+      if (files[i].isDirectory()) {
+        if (prefix.length() > 0 || !name.equals("META-INF")) {
+          indexDirectory(files[i], prefix + name + '/', entry);
+        }
+      } else {
+        addClass(prefix + name, entry);
+      }
+    }
+
+  } // END indexDirectory
+
+  private void indexZip(ZipFile zip, int entry) {
+
+    for (Enumeration<? extends ZipEntry> e = zip.entries(); e
+        .hasMoreElements();) {
+      String name = e.nextElement().getName();
+      if (!name.startsWith("META-INF/")) {
+        addClass(name, entry);
+      }
+    }
+
+  } // END indexZip
+
+  private void addClass(String path, int entry) {
+
+    if (!path.endsWith(CLASS_EXT) || path.endsWith("module-info.class")
+        || path.endsWith("package-info.class")) {
+      return;
+    }
+    String name = path.substring(0, path.length() - CLASS_EXT.length())
+        .replace('/', '.');
+    if (!classes.containsKey(name)) {
+      classes.put(name, Integer.valueOf(entry));
+    }
+
+  } // END addClass
+
+  private String[] getSuperTypes(String name, int entry) throws IOException {
+
+    String[] supers = superTypes.get(name);
+    if (supers == null) {
+      String path = name.replace('.', '/') + CLASS_EXT;
+      ZipFile zip = zipFiles.get(entry);
+      InputStream in = zip != null ? zip.getInputStream(zip.getEntry(path))
+          : new FileInputStream(new File(entries.get(entry), path));
+      try {
+        supers = readSuperTypes(
+            new DataInputStream(new BufferedInputStream(in)));
+      } finally {
+        in.close();
+      }
+      superTypes.put(name, supers);
+    }
+    return supers;
+
+  } // END getSuperTypes
+
+  /*
+   * Reads the superclass and the superinterfaces from the header of a class
+   * file, skipping over the constant pool.
+   */
+  private static String[] readSuperTypes(DataInputStream in)
+      throws IOException {
+
+    in.readInt(); // magic
+    in.readUnsignedShort(); // minor_version
+    in.readUnsignedShort(); // major_version
+    int count = in.readUnsignedShort();
+    String[] utf8 = new String[count];
+    int[] classRefs = new int[count];
+    for (int i = 1; i < count; i++) {
+      int tag = in.readUnsignedByte();
+      switch (tag) {
+      case 1: // Utf8
+        utf8[i] = in.readUTF();
+        break;
+      case 7: // Class
+        classRefs[i] = in.readUnsignedShort();
+        break;
+      case 8: // String
+      case 16: // MethodType
+      case 19: // Module
+      case 20: // Package
+        in.readUnsignedShort();
+        break;
+      case 15: // MethodHandle
+        in.readUnsignedByte();
+        in.readUnsignedShort();
+        break;
+      case 3: // Integer
+      case 4: // Float
+      case 9: // Fieldref
+      case 10: // Methodref
+      case 11: // InterfaceMethodref
+      case 12: // NameAndType
+      case 17: // Dynamic
+      case 18: // InvokeDynamic
+        in.readInt();
+        break;
+      case 5: // Long
+      case 6: // Double
+        in.readLong();
+        i++;
+        break;
+      default:
+        throw new IOException("Unknown constant pool tag " + tag);
+      }
+    }
+    in.readUnsignedShort(); // access_flags
+    in.readUnsignedShort(); // this_class
+    int superClass = in.readUnsignedShort();
+    int interfaces = in.readUnsignedShort();
+
+    List<String> supers = new ArrayList<String>(interfaces + 1);
+    if (superClass != 0) {
+      supers.add(utf8[classRefs[superClass]].replace('/', '.'));
+    }
+    for (int i = 0; i < interfaces; i++) {
+      supers.add(utf8[classRefs[in.readUnsignedShort()]].replace('/', '.'));
+    }
+    return supers.toArray(new String[supers.size()]);
+
+  } // END readSuperTypes
+
+} // END ClasspathIndex
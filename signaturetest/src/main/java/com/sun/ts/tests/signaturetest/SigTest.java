@@ -246,6 +246,7 @@ public abstract class SigTest {
     
 
     try {
+      getSigTestDriver().setThreads(testInfo.getSigTestThreads());
       results = getSigTestDriver().executeSigTest(packageFile, mapFile,
           repositoryDir, packages, classes, testClasspath,
           unlistedTechnologyPkgs, optionalPkgToIgnore);
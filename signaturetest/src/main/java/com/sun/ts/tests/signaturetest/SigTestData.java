@@ -74,6 +74,11 @@ public class SigTestData {
     return props.getProperty("jtaJarClasspath", "");
   }
 
+  public int getSigTestThreads() {
+    String threads = props.getProperty("sigTestThreads", "").trim();
+    return threads.length() == 0 ? 1 : Integer.parseInt(threads);
+  }
+
   public String getJImageDir() {
     return props.getProperty("jimage.dir", "");
   }
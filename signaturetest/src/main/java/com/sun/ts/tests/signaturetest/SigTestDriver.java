@@ -18,8 +18,12 @@ package com.sun.ts.tests.signaturetest;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.security.CodeSource;
 import java.util.ArrayList;
 import java.util.List;
 import java.lang.System.Logger;
@@ -35,6 +39,8 @@ public class SigTestDriver extends SignatureTestDriver {
 
   private static final Logger logger = System.getLogger(SigTestDriver.class.getName());
 
+  private static final String SIGTEST_CLASS = "com.sun.tdk.signaturetest.SignatureTest";
+
   private static final String CLASSPATH_FLAG = "-Classpath";
 
   private static final String FILENAME_FLAG = "-FileName";
@@ -82,6 +88,13 @@ public class SigTestDriver extends SignatureTestDriver {
           "java.lang.Thread",
           "java.lang.Enum"
   };
+
+  // the framework keeps its options in static fields, so each thread of the
+  // concurrent mode loads its own copy of it
+  private final ThreadLocal<Class> sigTestClasses = new ThreadLocal<Class>();
+
+  // the class loaders of those copies, closed once the threads are done
+  private final List<SigTestClassLoader> sigTestLoaders = new ArrayList<SigTestClassLoader>();
           
   // ---------------------------------------- Methods from SignatureTestDriver
 
@@ -163,8 +176,7 @@ public class SigTestDriver extends SignatureTestDriver {
   protected boolean runSignatureTest(String packageOrClassName,
       String[] testArguments) throws Exception {
 
-    Class sigTestClass = Class
-        .forName("com.sun.tdk.signaturetest.SignatureTest");
+    Class sigTestClass = getSignatureTestClass();
     Object sigTestInstance = sigTestClass.newInstance();
 
     ByteArrayOutputStream output = new ByteArrayOutputStream();
@@ -203,8 +215,7 @@ public class SigTestDriver extends SignatureTestDriver {
   protected boolean runPackageSearch(String packageOrClassName,
       String[] testArguments) throws Exception {
 
-    Class sigTestClass = Class
-        .forName("com.sun.tdk.signaturetest.SignatureTest");
+    Class sigTestClass = getSignatureTestClass();
     Object sigTestInstance = sigTestClass.newInstance();
 
     ByteArrayOutputStream output = new ByteArrayOutputStream();
@@ -242,6 +253,31 @@ public class SigTestDriver extends SignatureTestDriver {
     return sigTestInstance.toString().substring(7).startsWith("Passed.");
   }
 
+  @Override
+  protected boolean supportsConcurrentRuns() {
+    return true;
+  }
+
+  @Override
+  protected void concurrentRunsDone() throws Exception {
+    List<SigTestClassLoader> loaders;
+    synchronized (sigTestLoaders) {
+      loaders = new ArrayList<SigTestClassLoader>(sigTestLoaders);
+      sigTestLoaders.clear();
+    }
+    IOException failure = null;
+    for (SigTestClassLoader loader : loaders) {
+      try {
+        loader.close();
+      } catch (IOException e) {
+        failure = e;
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
   /*
    * @return This returns true if javax.transaction.xa is not found in the
    * JTA API jar
@@ -293,4 +329,57 @@ public class SigTestDriver extends SignatureTestDriver {
 
     return sigTestInstance.toString().substring(7).startsWith("Passed.");
   }
+
+  // --------------------------------------------------------- Private Methods
+
+  private Class getSignatureTestClass() throws Exception {
+    Class sigTestClass = Class.forName(SIGTEST_CLASS);
+    if (getThreads() <= 1) {
+      return sigTestClass;
+    }
+    Class isolated = sigTestClasses.get();
+    if (isolated == null) {
+      CodeSource source = sigTestClass.getProtectionDomain().getCodeSource();
+      if (source == null || source.getLocation() == null) {
+        return sigTestClass;
+      }
+      SigTestClassLoader loader = new SigTestClassLoader(source.getLocation(),
+          sigTestClass.getClassLoader());
+      synchronized (sigTestLoaders) {
+        sigTestLoaders.add(loader);
+      }
+      isolated = loader.loadClass(SIGTEST_CLASS);
+      sigTestClasses.set(isolated);
+    }
+    return isolated;
+  }
+
+  /**
+   * Loads the classes of the framework from its own jar, and all others from
+   * the parent, which also loads the classes under test in reflective mode.
+   */
+  private static class SigTestClassLoader extends URLClassLoader {
+
+    SigTestClassLoader(URL location, ClassLoader parent) {
+      super(new URL[] { location }, parent);
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve)
+        throws ClassNotFoundException {
+      if (!name.startsWith("com.sun.tdk.")) {
+        return super.loadClass(name, resolve);
+      }
+      synchronized (getClassLoadingLock(name)) {
+        Class<?> c = findLoadedClass(name);
+        if (c == null) {
+          c = findClass(name);
+        }
+        if (resolve) {
+          resolveClass(c);
+        }
+        return c;
+      }
+    }
+  }
 }
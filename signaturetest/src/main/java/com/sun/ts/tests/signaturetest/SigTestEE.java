@@ -282,6 +282,7 @@ public abstract class SigTestEE extends ServiceEETest {
     }
 
     try {
+      getSigTestDriver().setThreads(testInfo.getSigTestThreads());
       results = getSigTestDriver().executeSigTest(packageFile, mapFile,
           repositoryDir, packages, classes, testClasspath,
           unlistedTechnologyPkgs, optionalPkgToIgnore);
@@ -67,6 +67,21 @@ public class SigTestResult implements Serializable {
 
   } // END addPassedClass
 
+  /**
+   * Adds the packages and classes of another result, after those of this
+   * result.
+   */
+  public synchronized void merge(SigTestResult other) {
+
+    synchronized (other) {
+      failedPkgs.addAll(other.failedPkgs);
+      passedPkgs.addAll(other.passedPkgs);
+      failedClasses.addAll(other.failedClasses);
+      passedClasses.addAll(other.passedClasses);
+    }
+
+  } // END merge
+
   public String toString() {
 
     String delim = "******************************************************"
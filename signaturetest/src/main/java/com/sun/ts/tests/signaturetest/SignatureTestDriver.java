@@ -23,7 +23,13 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Enumeration;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import com.sun.ts.lib.util.TestUtil;
 
@@ -37,8 +43,31 @@ public abstract class SignatureTestDriver {
 
   private static final String SIG_FILE_VER_SEP = "_";
 
+  private int threads = 1;
+
   // ---------------------------------------------------------- Public Methods
 
+  /**
+   * Sets the number of packages and classes verified at the same time by
+   * {@link #executeSigTest}. With more than one thread, and a driver that
+   * supports concurrent runs, the classpath is indexed once and each run only
+   * gets the entries holding its package or class and their supertypes.
+   *
+   * @param threads
+   *          the number of threads, 1 for the sequential mode
+   */
+  public void setThreads(int threads) {
+
+    this.threads = Math.max(1, threads);
+
+  } // END setThreads
+
+  public int getThreads() {
+
+    return threads;
+
+  } // END getThreads
+
   /**
    * Implementation of the getPackageFile method defined in both the SigTest and
    * SigTestEE class.
@@ -135,7 +164,9 @@ public abstract class SignatureTestDriver {
    * <p>
    * Execute the signature test. By default, this method passes the result of
    * {@link #createTestArguments(String, String, String, String, String)} and
-   * passes the result to {@link #runSignatureTest(String, String[])}.
+   * passes the result to {@link #runSignatureTest(String, String[])}. The
+   * packages and classes are verified concurrently when more than one thread
+   * is set with {@link #setThreads(int)}.
    *
    * @param packageListFile
    *          - file containing the packages/classes that are to be verified
@@ -174,60 +205,19 @@ public abstract class SignatureTestDriver {
       arrayOptionalPkgsToIgnore = optionalPkgToIgnore.split(",");
     }
 
+    if (threads > 1 && supportsConcurrentRuns()) {
+      executeConcurrently(packageListFile, mapFile, signatureRepositoryDir,
+          packagesUnderTest, classesUnderTest, classpath, unaccountedTechPkgs,
+          arrayOptionalPkgsToIgnore, result);
+      return result;
+    }
+
     if (packagesUnderTest != null && packagesUnderTest.length > 0) {
       TestUtil.logMsg("********** BEGIN PACKAGE LEVEL SIGNATURE "
           + "VALIDATION **********\n\n");
       for (int i = 0; i < packagesUnderTest.length; i++) {
-
-        String packageName = packagesUnderTest[i];
-
-        TestUtil.logMsg("********** BEGIN VALIDATE PACKAGE '"
-            + packagesUnderTest[i] + "' **********\n");
-
-        TestUtil.logMsg(
-            "********** VALIDATE IN STATIC MODE - TO CHECK CONSANT VALUES ****");
-        TestUtil
-            .logMsg("Static mode supports checks of static constants values ");
-
-        String[] args = createTestArguments(packageListFile, mapFile,
-            signatureRepositoryDir, packageName, classpath, true);
-        dumpTestArguments(args);
-
-        if (runSignatureTest(packageName, args)) {
-          TestUtil.logMsg("********** Package '" + packageName
-              + "' - PASSED (STATIC MODE) **********");
-          result.addPassedPkg(packageName + "(static mode)");
-        } else {
-          result.addFailedPkg(packageName + "(static mode)");
-          TestUtil.logMsg("********** Package '" + packageName
-              + "' - FAILED (STATIC MODE) **********");
-        }
-
-        TestUtil.logMsg("\n\n");
-        TestUtil.logMsg("********** VALIDATE IN REFLECTIVE MODE  ****");
-        TestUtil.logMsg(
-            "Reflective mode supports verification within containers (ie ejb, servlet, etc)");
-
-        String[] args2 = createTestArguments(packageListFile, mapFile,
-            signatureRepositoryDir, packageName, classpath, false);
-        dumpTestArguments(args2);
-
-        if (runSignatureTest(packageName, args2)) {
-          TestUtil.logMsg("********** Package '" + packageName
-              + "' - PASSED (REFLECTION MODE) **********");
-          result.addPassedPkg(packageName + "(reflection mode)");
-        } else {
-          result.addFailedPkg(packageName + "(reflection mode)");
-          TestUtil.logMsg("********** Package '" + packageName
-              + "' - FAILED (REFLECTION MODE) **********");
-        }
-
-        TestUtil.logMsg("********** END VALIDATE PACKAGE '"
-            + packagesUnderTest[i] + "' **********\n");
-
-        TestUtil.logMsg("\n");
-        TestUtil.logMsg("\n");
-
+        validatePackage(packageListFile, mapFile, signatureRepositoryDir,
+            packagesUnderTest[i], classpath, classpath, result);
       }
     }
 
@@ -236,56 +226,8 @@ public abstract class SignatureTestDriver {
           + "VALIDATION **********\n\n");
 
       for (int i = 0; i < classesUnderTest.length; i++) {
-
-        String className = classesUnderTest[i];
-
-        TestUtil.logMsg("********** BEGIN VALIDATE CLASS '"
-            + classesUnderTest[i] + "' **********\n");
-
-        TestUtil.logMsg(
-            "********** VALIDATE IN STATIC MODE - TO CHECK CONSANT VALUES ****");
-        TestUtil
-            .logMsg("Static mode supports checks of static constants values ");
-
-        String[] args = createTestArguments(packageListFile, mapFile,
-            signatureRepositoryDir, className, classpath, true);
-        dumpTestArguments(args);
-
-        if (runSignatureTest(className, args)) {
-          TestUtil.logMsg("********** Class '" + className
-              + "' - PASSED (STATIC MODE) **********");
-          result.addPassedClass(className + "(static mode)");
-        } else {
-          TestUtil.logMsg("********** Class '" + className
-              + "' - FAILED (STATIC MODE) **********");
-          result.addFailedClass(className + "(static mode)");
-        }
-
-        TestUtil.logMsg("\n\n");
-        TestUtil.logMsg("********** VALIDATE IN REFLECTIVE MODE  ****");
-        TestUtil.logMsg(
-            "Reflective mode supports verification within containers (ie ejb, servlet, etc)");
-
-        String[] args2 = createTestArguments(packageListFile, mapFile,
-            signatureRepositoryDir, className, classpath, false);
-        dumpTestArguments(args2);
-
-        if (runSignatureTest(className, args2)) {
-          TestUtil.logMsg("********** Class '" + className
-              + "' - PASSED (REFLECTION MODE) **********");
-          result.addPassedClass(className + "(reflection mode)");
-        } else {
-          TestUtil.logMsg("********** Class '" + className
-              + "' - FAILED (REFLECTION MODE) **********");
-          result.addFailedClass(className + "(reflection mode)");
-        }
-
-        TestUtil.logMsg("********** END VALIDATE CLASS '" + classesUnderTest[i]
-            + "' **********\n");
-
-        TestUtil.logMsg("\n");
-        TestUtil.logMsg("\n");
-
+        validateClass(packageListFile, mapFile, signatureRepositoryDir,
+            classesUnderTest[i], classpath, classpath, result);
       }
     }
 
@@ -319,47 +261,8 @@ public abstract class SignatureTestDriver {
           continue;
         }
 
-        TestUtil.logMsg("\n\n");
-        TestUtil.logMsg(
-            "********** CHECK IF OPTIONAL TECHNOLOGIES EXIST IN REFLECTIVE MODE  ****");
-        TestUtil.logMsg(
-            "Reflective mode supports verification within containers (ie ejb, servlet, etc)");
-
-        String[] args3 = createTestArguments(packageListFile, mapFile,
-            signatureRepositoryDir, packageName, classpath, false);
-        dumpTestArguments(args3);
-
-        // - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
-        // - - - -
-        // NOTE: this is the opposite of above in that *if* we find that an
-        // undeclared
-        // optional technology package exists - then we want to raise a red
-        // flag.
-        // The user would have to either remove the technology from the impl if
-        // they do not want to include it in their impl -OR- they must
-        // explicitly
-        // set javaee.level (in ts.jte) to include that Optional Technology AND
-        // after setting this property, they have to pass all related TCK tests.
-        if (runPackageSearch(packageName, args3)) {
-          // if this passed we have an issue because it should not exist - thus
-          // should NOT pass.
-          TestUtil.logMsg("********** Package '" + packageName
-              + "' - WAS FOUND BUT SHOULD NOT BE (REFLECTION MODE) **********");
-          String err = "ERROR:  An area of concern has been identified.  ";
-          err += "You must run sigtests with (ts.jte) javaee.level set to ";
-          err += "include all optional technology keywords.  Whole and/or ";
-          err += "partial implementations of Optional Technologies ";
-          err += "must be implemented according to the specs AND must pass ";
-          err += "all related TCK tests.  To properly pass the ";
-          err += "signature tests - you must identify all Optional Technology ";
-          err += "areas (via javaee.level) that you wish to pass signature tests for.";
-          TestUtil.logMsg(err);
-          result.addFailedPkg(packageName
-              + " (Undeclared Optional Technology package found in reflection mode)");
-        } else {
-          TestUtil.logMsg("********** Undeclared Optional Technology package '"
-              + packageName + "' - PASSED (REFLECTION MODE) **********");
-        }
+        checkUnaccountedPackage(packageListFile, mapFile,
+            signatureRepositoryDir, packageName, classpath, result);
       }
     }
 
@@ -406,6 +309,28 @@ public abstract class SignatureTestDriver {
   protected abstract boolean runSignatureTest(String packageOrClassName,
       String[] testArguments) throws Exception;
 
+  /**
+   * Returns true if {@link #runSignatureTest(String, String[])} and
+   * {@link #runPackageSearch(String, String[])} may be called by several
+   * threads at the same time. The default implementation returns
+   * <code>false</code>, and {@link #executeSigTest} then ignores the number of
+   * threads.
+   */
+  protected boolean supportsConcurrentRuns() {
+
+    return false;
+
+  } // END supportsConcurrentRuns
+
+  /**
+   * Called once the threads of a concurrent verification are done, to release
+   * what the runs of those threads kept. The default implementation does
+   * nothing.
+   */
+  protected void concurrentRunsDone() throws Exception {
+
+  } // END concurrentRunsDone
+
   /**
    * This checks if a class exists or not within the impl.
    *
@@ -587,6 +512,274 @@ public abstract class SignatureTestDriver {
 
   // --------------------------------------------------------- Private Methods
 
+  /*
+   * Verifies the packages, the classes and the unaccounted packages on a pool
+   * of 'threads' threads. The runs share one index of the classpath, each run
+   * gets the part of the classpath its package or class needs, and the results
+   * are merged in the order of the sequential mode. The log of the runs is
+   * interleaved.
+   */
+  private void executeConcurrently(final String packageListFile,
+      final String mapFile, final String signatureRepositoryDir,
+      String[] packagesUnderTest, String[] classesUnderTest,
+      final String classpath, ArrayList<String> unaccountedTechPkgs,
+      String[] arrayOptionalPkgsToIgnore, SigTestResult result)
+      throws Exception {
+
+    long start = System.currentTimeMillis();
+    final ClasspathIndex index = new ClasspathIndex(classpath);
+    TestUtil.logMsg("Indexed " + index.getClassCount()
+        + " classes of the classpath in "
+        + (System.currentTimeMillis() - start) + " ms, verifying with "
+        + threads + " threads");
+
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<SigTestResult>> results = new ArrayList<Future<SigTestResult>>();
+      if (packagesUnderTest != null) {
+        for (final String packageName : packagesUnderTest) {
+          results.add(executor.submit(() -> {
+            SigTestResult packageResult = new SigTestResult();
+            validatePackage(packageListFile, mapFile, signatureRepositoryDir,
+                packageName, index.getClasspath(packageName), classpath,
+                packageResult);
+            return packageResult;
+          }));
+        }
+      }
+      if (classesUnderTest != null) {
+        for (final String className : classesUnderTest) {
+          results.add(executor.submit(() -> {
+            SigTestResult classResult = new SigTestResult();
+            validateClass(packageListFile, mapFile, signatureRepositoryDir,
+                className, index.getClasspath(className), classpath,
+                classResult);
+            return classResult;
+          }));
+        }
+      }
+      if (unaccountedTechPkgs != null) {
+        for (final String packageName : unaccountedTechPkgs) {
+          if (isIgnorePackageUnderTest(packageName,
+              arrayOptionalPkgsToIgnore)) {
+            TestUtil.logMsg("Ignoring special optional technology package: "
+                + packageName);
+            continue;
+          }
+          // a package missing from the index may still be found in
+          // reflective mode, so it is searched with the whole classpath
+          final String packageClasspath = index.containsPackage(packageName)
+              ? index.getClasspath(packageName)
+              : classpath;
+          results.add(executor.submit(() -> {
+            SigTestResult packageResult = new SigTestResult();
+            checkUnaccountedPackage(packageListFile, mapFile,
+                signatureRepositoryDir, packageName, packageClasspath,
+                packageResult);
+            return packageResult;
+          }));
+        }
+      }
+
+      for (Future<SigTestResult> future : results) {
+        try {
+          result.merge(future.get());
+        } catch (ExecutionException e) {
+          if (e.getCause() instanceof Exception) {
+            throw (Exception) e.getCause();
+          }
+          throw e;
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+      try {
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+      } finally {
+        try {
+          concurrentRunsDone();
+        } finally {
+          index.close();
+        }
+      }
+    }
+
+    TestUtil.logMsg("Verified in " + (System.currentTimeMillis() - start)
+        + " ms");
+
+  } // END executeConcurrently
+
+  private void validatePackage(String packageListFile, String mapFile,
+      String signatureRepositoryDir, String packageName, String classpath,
+      String fullClasspath, SigTestResult result) throws Exception {
+
+    TestUtil.logMsg(
+        "********** BEGIN VALIDATE PACKAGE '" + packageName + "' **********\n");
+
+    TestUtil.logMsg(
+        "********** VALIDATE IN STATIC MODE - TO CHECK CONSANT VALUES ****");
+    TestUtil.logMsg("Static mode supports checks of static constants values ");
+
+    if (verify(packageListFile, mapFile, signatureRepositoryDir, packageName,
+        classpath, fullClasspath, true)) {
+      TestUtil.logMsg("********** Package '" + packageName
+          + "' - PASSED (STATIC MODE) **********");
+      result.addPassedPkg(packageName + "(static mode)");
+    } else {
+      result.addFailedPkg(packageName + "(static mode)");
+      TestUtil.logMsg("********** Package '" + packageName
+          + "' - FAILED (STATIC MODE) **********");
+    }
+
+    TestUtil.logMsg("\n\n");
+    TestUtil.logMsg("********** VALIDATE IN REFLECTIVE MODE  ****");
+    TestUtil.logMsg(
+        "Reflective mode supports verification within containers (ie ejb, servlet, etc)");
+
+    if (verify(packageListFile, mapFile, signatureRepositoryDir, packageName,
+        classpath, fullClasspath, false)) {
+      TestUtil.logMsg("********** Package '" + packageName
+          + "' - PASSED (REFLECTION MODE) **********");
+      result.addPassedPkg(packageName + "(reflection mode)");
+    } else {
+      result.addFailedPkg(packageName + "(reflection mode)");
+      TestUtil.logMsg("********** Package '" + packageName
+          + "' - FAILED (REFLECTION MODE) **********");
+    }
+
+    TestUtil.logMsg(
+        "********** END VALIDATE PACKAGE '" + packageName + "' **********\n");
+
+    TestUtil.logMsg("\n");
+    TestUtil.logMsg("\n");
+
+  } // END validatePackage
+
+  private void validateClass(String packageListFile, String mapFile,
+      String signatureRepositoryDir, String className, String classpath,
+      String fullClasspath, SigTestResult result) throws Exception {
+
+    TestUtil.logMsg(
+        "********** BEGIN VALIDATE CLASS '" + className + "' **********\n");
+
+    TestUtil.logMsg(
+        "********** VALIDATE IN STATIC MODE - TO CHECK CONSANT VALUES ****");
+    TestUtil.logMsg("Static mode supports checks of static constants values ");
+
+    if (verify(packageListFile, mapFile, signatureRepositoryDir, className,
+        classpath, fullClasspath, true)) {
+      TestUtil.logMsg("********** Class '" + className
+          + "' - PASSED (STATIC MODE) **********");
+      result.addPassedClass(className + "(static mode)");
+    } else {
+      TestUtil.logMsg("********** Class '" + className
+          + "' - FAILED (STATIC MODE) **********");
+      result.addFailedClass(className + "(static mode)");
+    }
+
+    TestUtil.logMsg("\n\n");
+    TestUtil.logMsg("********** VALIDATE IN REFLECTIVE MODE  ****");
+    TestUtil.logMsg(
+        "Reflective mode supports verification within containers (ie ejb, servlet, etc)");
+
+    if (verify(packageListFile, mapFile, signatureRepositoryDir, className,
+        classpath, fullClasspath, false)) {
+      TestUtil.logMsg("********** Class '" + className
+          + "' - PASSED (REFLECTION MODE) **********");
+      result.addPassedClass(className + "(reflection mode)");
+    } else {
+      TestUtil.logMsg("********** Class '" + className
+          + "' - FAILED (REFLECTION MODE) **********");
+      result.addFailedClass(className + "(reflection mode)");
+    }
+
+    TestUtil.logMsg(
+        "********** END VALIDATE CLASS '" + className + "' **********\n");
+
+    TestUtil.logMsg("\n");
+    TestUtil.logMsg("\n");
+
+  } // END validateClass
+
+  private void checkUnaccountedPackage(String packageListFile, String mapFile,
+      String signatureRepositoryDir, String packageName, String classpath,
+      SigTestResult result) throws Exception {
+
+    TestUtil.logMsg("\n\n");
+    TestUtil.logMsg(
+        "********** CHECK IF OPTIONAL TECHNOLOGIES EXIST IN REFLECTIVE MODE  ****");
+    TestUtil.logMsg(
+        "Reflective mode supports verification within containers (ie ejb, servlet, etc)");
+
+    String[] args3 = createTestArguments(packageListFile, mapFile,
+        signatureRepositoryDir, packageName, classpath, false);
+    dumpTestArguments(args3);
+
+    // - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+    // - - - -
+    // NOTE: this is the opposite of above in that *if* we find that an
+    // undeclared
+    // optional technology package exists - then we want to raise a red
+    // flag.
+    // The user would have to either remove the technology from the impl if
+    // they do not want to include it in their impl -OR- they must
+    // explicitly
+    // set javaee.level (in ts.jte) to include that Optional Technology AND
+    // after setting this property, they have to pass all related TCK tests.
+    if (runPackageSearch(packageName, args3)) {
+      // if this passed we have an issue because it should not exist - thus
+      // should NOT pass.
+      TestUtil.logMsg("********** Package '" + packageName
+          + "' - WAS FOUND BUT SHOULD NOT BE (REFLECTION MODE) **********");
+      String err = "ERROR:  An area of concern has been identified.  ";
+      err += "You must run sigtests with (ts.jte) javaee.level set to ";
+      err += "include all optional technology keywords.  Whole and/or ";
+      err += "partial implementations of Optional Technologies ";
+      err += "must be implemented according to the specs AND must pass ";
+      err += "all related TCK tests.  To properly pass the ";
+      err += "signature tests - you must identify all Optional Technology ";
+      err += "areas (via javaee.level) that you wish to pass signature tests for.";
+      TestUtil.logMsg(err);
+      result.addFailedPkg(packageName
+          + " (Undeclared Optional Technology package found in reflection mode)");
+    } else {
+      TestUtil.logMsg("********** Undeclared Optional Technology package '"
+          + packageName + "' - PASSED (REFLECTION MODE) **********");
+    }
+
+  } // END checkUnaccountedPackage
+
+  /*
+   * Runs the signature test of a package or class with the given classpath. A
+   * failure with a part of the classpath is checked again with the whole
+   * classpath, so that a class missing from the index can not fail the test.
+   */
+  private boolean verify(String packageListFile, String mapFile,
+      String signatureRepositoryDir, String packageOrClassName,
+      String classpath, String fullClasspath, boolean bStaticMode)
+      throws Exception {
+
+    String[] args = createTestArguments(packageListFile, mapFile,
+        signatureRepositoryDir, packageOrClassName, classpath, bStaticMode);
+    dumpTestArguments(args);
+
+    if (runSignatureTest(packageOrClassName, args)) {
+      return true;
+    }
+    if (classpath.equals(fullClasspath)) {
+      return false;
+    }
+
+    TestUtil.logMsg("Verifying '" + packageOrClassName
+        + "' again with the whole classpath");
+    args = createTestArguments(packageListFile, mapFile,
+        signatureRepositoryDir, packageOrClassName, fullClasspath,
+        bStaticMode);
+    dumpTestArguments(args);
+    return runSignatureTest(packageOrClassName, args);
+
+  } // END verify
+
   /*
    * This returns true is the passed in packageName matches one of the packages
    * that are listed in the arrayOptionalPkgsToIgnore. arrayOptionalPkgsToIgnore
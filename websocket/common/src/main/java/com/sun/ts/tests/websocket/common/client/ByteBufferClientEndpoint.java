@@ -24,6 +24,6 @@ public class ByteBufferClientEndpoint extends ClientEndpoint<ByteBuffer> {
 
 	@Override
 	protected void appendMessage(ByteBuffer message) {
-		getMessageBuilder().append(IOUtil.byteBufferToString(message));
+		getEndpointData().getMessageBuilder().append(IOUtil.byteBufferToString(message));
 	}
 }
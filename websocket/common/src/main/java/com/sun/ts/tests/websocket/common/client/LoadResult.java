@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.ts.tests.websocket.common.client;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The figures of a load run of {@link WebSocketTestCase}: the messages received
+ * per second over all the sessions, the latency percentiles, and the client heap
+ * taken by each open session.
+ */
+public class LoadResult {
+
+	private final int sessions;
+
+	private final long memoryPerSession;
+
+	private long received;
+
+	private long elapsed;
+
+	private long[] latencies = new long[0];
+
+	public LoadResult(int sessions, long memoryPerSession) {
+		this.sessions = sessions;
+		this.memoryPerSession = memoryPerSession;
+	}
+
+	/**
+	 * @param received  the number of messages received by all the sessions
+	 * @param elapsed   the duration of the run, in nanoseconds
+	 * @param latencies the time until each reply, or until each broadcast reached
+	 *                  every session, in nanoseconds
+	 */
+	void setMeasurements(long received, long elapsed, long[] latencies) {
+		this.received = received;
+		this.elapsed = elapsed;
+		this.latencies = latencies.clone();
+		Arrays.sort(this.latencies);
+	}
+
+	public int getSessions() {
+		return sessions;
+	}
+
+	public long getMemoryPerSession() {
+		return memoryPerSession;
+	}
+
+	public long getReceived() {
+		return received;
+	}
+
+	public double getMessagesPerSecond() {
+		return elapsed == 0 ? 0 : received * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+	}
+
+	/**
+	 * @param percentile from 0 to 100
+	 * @return the latency in microseconds
+	 */
+	public long getLatency(double percentile) {
+		if (latencies.length == 0)
+			return 0;
+		int rank = (int) Math.ceil(percentile / 100 * latencies.length);
+		return TimeUnit.NANOSECONDS.toMicros(latencies[Math.max(0, rank - 1)]);
+	}
+
+	/**
+	 * @return the heap used by this JVM after a garbage collection, in bytes
+	 */
+	public static long usedMemory() {
+		Runtime runtime = Runtime.getRuntime();
+		System.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d sessions: %d messages, %.0f msg/s, latency p50 %d us, p99 %d us, max %d us, "
+				+ "%d bytes per session", sessions, received, getMessagesPerSecond(), getLatency(50), getLatency(99),
+				getLatency(100), memoryPerSession);
+	}
+}
@@ -18,11 +18,19 @@
 package com.sun.ts.tests.websocket.common.client;
 
 import java.lang.System.Logger;
+import java.io.IOException;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import com.sun.ts.tests.common.webclient.TestFailureException;
 import com.sun.ts.tests.common.webclient.WebTestCase;
@@ -31,7 +39,10 @@ import com.sun.ts.tests.common.webclient.http.HttpResponse;
 import com.sun.ts.tests.common.webclient.validation.ValidationFactory;
 import com.sun.ts.tests.common.webclient.validation.ValidationStrategy;
 import com.sun.ts.tests.websocket.common.client.ClientEndpoint.ClientEndpointData;
+import com.sun.ts.tests.websocket.common.client.ClientEndpoint.EndpointData;
+import com.sun.ts.tests.websocket.common.client.WebSocketCommonClient.Entity;
 import com.sun.ts.tests.websocket.common.client.WebSocketCommonClient.Property;
+import com.sun.ts.tests.websocket.common.util.IOUtil;
 
 import jakarta.websocket.ClientEndpointConfig;
 import jakarta.websocket.ClientEndpointConfig.Configurator;
@@ -126,6 +137,19 @@ public class WebSocketTestCase extends WebTestCase {
 	 */
 	protected int countDownLatchCount = 1;
 
+	/**
+	 * The number of sessions opened at once to the endpoint
+	 */
+	protected int sessionCount = 1;
+
+	/**
+	 * The sessions opened when sessionCount is greater than 1, and the data of
+	 * their endpoints, in the same order
+	 */
+	protected List<Session> sessions = null;
+
+	protected List<EndpointData> sessionData = null;
+
 	/**
 	 * ClientEndpointConfig to be used
 	 */
@@ -146,6 +170,8 @@ public class WebSocketTestCase extends WebTestCase {
 		strategy = ValidationFactory.getInstance(TOKENIZED_STRATEGY);
 		configurators = new LinkedList<>();
 		slaveClientCallbacks = new LinkedList<>();
+		sessions = new ArrayList<>();
+		sessionData = new ArrayList<>();
 		ClientEndpointData.resetData();
 		logTrace("A new test case has been created");
 	}
@@ -170,15 +196,14 @@ public class WebSocketTestCase extends WebTestCase {
 			logMsg("Connecting to", path);
 			if (slaveClientCallbacks.size() != 0)
 				clientCallback = createMasterEndpointCallback();
-			if (client.entity != null) {
-				if (clientCallback != null)
-					ClientEndpointData.callback = clientCallback;
-				else
-					ClientEndpointData.callback = new SendMessageCallback(client.entity);
-			}
 			client.setupWebSocketContainerBeforeConnect(clientContainer);
-			newCountDown();
-			session = connectToServer(clientContainer, path);
+			if (isConcurrent()) {
+				connectConcurrently(clientContainer, path);
+			} else {
+				ClientEndpointData.setCallback(createSessionCallback());
+				newCountDown();
+				session = connectToServer(clientContainer, path);
+			}
 			awaitCountDown();
 		} catch (Throwable t) {
 			String message = t.getMessage();
@@ -200,9 +225,18 @@ public class WebSocketTestCase extends WebTestCase {
 	 * @throws TestFailureException
 	 */
 	protected void validate() throws TestFailureException {
-
-		if (!strategy.validate(this)) {
-			throw new TestFailureException("Test FAILED!");
+		if (sessionData.isEmpty()) {
+			if (!strategy.validate(this)) {
+				throw new TestFailureException("Test FAILED!");
+			}
+			return;
+		}
+		// the response of each session in turn
+		for (int i = 0; i != sessionData.size(); i++) {
+			_response = new ApacheResponseAdapter(client._hostname, client._port, textCaser, sessionData.get(i));
+			if (!strategy.validate(this)) {
+				throw new TestFailureException("Test FAILED on session " + sessions.get(i).getId() + "!");
+			}
 		}
 	}
 
@@ -270,6 +304,199 @@ public class WebSocketTestCase extends WebTestCase {
 		return session;
 	}
 
+	/**
+	 * The callback of the endpoint of a session, null when no entity is sent
+	 */
+	protected EndpointCallback createSessionCallback() {
+		if (client.entity == null)
+			return null;
+		return clientCallback != null ? clientCallback : new SendMessageCallback(client.entity);
+	}
+
+	/**
+	 * Multiple sessions need an endpoint instance each, which can only be created
+	 * from the ClientEndpoint class
+	 */
+	protected boolean isConcurrent() {
+		if (sessionCount < 2)
+			return false;
+		if (endpointInstance != null || annotatedEndpoint != null) {
+			logMsg("The endpoint instance is connected to a single session instead of", sessionCount);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Opens sessionCount sessions to the server endpoint at the same time, each
+	 * with a new instance of the ClientEndpoint class and {@link EndpointData} of
+	 * its own. The connections take at most ws_wait seconds altogether.
+	 */
+	protected void connectConcurrently(WebSocketContainer clientContainer, String path) throws Exception {
+		logMsg("Opening", sessionCount, "sessions");
+		URI uri = new URI(path);
+		List<Future<Session>> connects = new ArrayList<>(sessionCount);
+		ExecutorService executor = Executors.newFixedThreadPool(sessionCount);
+		try {
+			for (int i = 0; i != sessionCount; i++) {
+				ClientEndpoint<?> instance = endpoint.getDeclaredConstructor().newInstance();
+				EndpointData data = new EndpointData();
+				data.setCallback(createSessionCallback());
+				data.newCountDown(countDownLatchCount);
+				instance.setEndpointData(data);
+				sessionData.add(data);
+				connects.add(executor.submit(() -> clientContainer.connectToServer(instance, clientEndpointConfig, uri)));
+			}
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(client._ws_wait);
+			for (Future<Session> connect : connects) {
+				Session connected = connect.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+				logTrace("Connection session id:", connected.getId());
+				sessions.add(connected);
+			}
+		} finally {
+			executor.shutdownNow();
+			if (sessions.size() != connects.size())
+				keepConnected(connects);
+		}
+		session = sessions.get(0);
+	}
+
+	// after a failure, so that the sessions opened still get closed
+	private void keepConnected(List<Future<Session>> connects) {
+		List<EndpointData> connectedData = new ArrayList<>();
+		sessions.clear();
+		for (int i = 0; i != connects.size(); i++) {
+			Future<Session> connect = connects.get(i);
+			try {
+				if (connect.isDone() && !connect.isCancelled()) {
+					sessions.add(connect.get());
+					connectedData.add(sessionData.get(i));
+				}
+			} catch (Exception e) {
+				// not connected
+			}
+		}
+		sessionData.clear();
+		sessionData.addAll(connectedData);
+	}
+
+	/**
+	 * Closes the sessions opened by {@link #connectConcurrently}, and waits at most
+	 * the given time altogether for their onClose
+	 */
+	protected void closeSessions(long seconds) {
+		List<EndpointData> closing = new ArrayList<>();
+		for (int i = 0; i != sessions.size(); i++) {
+			Session opened = sessions.get(i);
+			if (opened.isOpen()) {
+				EndpointData data = sessionData.get(i);
+				data.newOnCloseCountDown();
+				logTrace("session.close() on session id", opened.getId());
+				try {
+					opened.close();
+					closing.add(data);
+				} catch (IOException e) {
+					logMsg("Cannot close session", opened.getId(), e);
+				}
+			}
+		}
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+		for (EndpointData data : closing)
+			data.awaitOnClose(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+		sessions.clear();
+		sessionData.clear();
+	}
+
+	// ---------------------------------------------------------------------
+	// Load mode
+
+	/**
+	 * Each open session sends the entity the given number of times from a thread
+	 * of its own, each time waiting at most ws_wait seconds for the reply to come
+	 * back before the next send. The reply has to be the entity itself.
+	 */
+	protected void roundTrips(int messages, LoadResult result) throws Exception {
+		List<Session> opened = getSessions();
+		List<EndpointData> data = getSessionData();
+		String expected = getEntityText(client.entity);
+		long[] latencies = new long[opened.size() * messages];
+		List<Future<?>> runs = new ArrayList<>(opened.size());
+		ExecutorService executor = Executors.newFixedThreadPool(opened.size());
+		long start = System.nanoTime();
+		try {
+			for (int i = 0; i != opened.size(); i++) {
+				Session sender = opened.get(i);
+				EndpointData senderData = data.get(i);
+				int offset = i * messages;
+				runs.add(executor.submit(() -> {
+					for (int j = 0; j != messages; j++) {
+						senderData.getMessageBuilder().setLength(0);
+						senderData.newCountDown(1);
+						long sent = System.nanoTime();
+						send(sender, client.entity);
+						awaitReply(sender, senderData, expected);
+						latencies[offset + j] = System.nanoTime() - sent;
+					}
+					return null;
+				}));
+			}
+			for (Future<?> run : runs)
+				run.get();
+		} finally {
+			executor.shutdownNow();
+		}
+		result.setMeasurements(latencies.length, System.nanoTime() - start, latencies);
+	}
+
+	/**
+	 * The first session sends the entity the given number of times to an endpoint
+	 * that sends every message it receives to all its sessions. Each send waits at
+	 * most ws_wait seconds until every open session has received the message.
+	 */
+	protected void broadcast(int messages, LoadResult result) throws Exception {
+		List<Session> opened = getSessions();
+		List<EndpointData> data = getSessionData();
+		String expected = getEntityText(client.entity);
+		long[] latencies = new long[messages];
+		long start = System.nanoTime();
+		for (int j = 0; j != messages; j++) {
+			for (EndpointData receiver : data) {
+				receiver.getMessageBuilder().setLength(0);
+				receiver.newCountDown(1);
+			}
+			long sent = System.nanoTime();
+			send(opened.get(0), client.entity);
+			for (int i = 0; i != opened.size(); i++)
+				awaitReply(opened.get(i), data.get(i), expected);
+			latencies[j] = System.nanoTime() - sent;
+		}
+		result.setMeasurements((long) messages * opened.size(), System.nanoTime() - start, latencies);
+	}
+
+	private void awaitReply(Session session, EndpointData data, String expected) throws TestFailureException {
+		if (!data.awaitCountDown(client._ws_wait))
+			throw new TestFailureException("No message on session " + session.getId() + " in " + client._ws_wait
+					+ " seconds");
+		if (data.getError() != null)
+			throw new TestFailureException("Error on session " + session.getId(), data.getError());
+		if (!expected.contentEquals(data.getMessageBuilder()))
+			throw new TestFailureException("Unexpected message on session " + session.getId());
+	}
+
+	// the whole message, without the logging of SendMessageCallback
+	private static void send(Session session, Entity entity) throws IOException {
+		if (entity.isInstance(ByteBuffer.class))
+			session.getBasicRemote().sendBinary(entity.getEntityAt(ByteBuffer.class, 0));
+		else
+			session.getBasicRemote().sendText(entity.getEntityAt(String.class, 0));
+	}
+
+	private static String getEntityText(Entity entity) {
+		if (entity.isInstance(ByteBuffer.class))
+			return IOUtil.byteBufferToString(entity.getEntityAt(ByteBuffer.class, 0));
+		return entity.getEntityAt(String.class, 0);
+	}
+
 	protected void addAllConfiguratorsToClientEndpointConfig() {
 		if (!configurators.isEmpty()) {
 			ClientEndpointConfig.Configurator masterConfigurator = createMasterConfigurator();
@@ -374,11 +601,22 @@ public class WebSocketTestCase extends WebTestCase {
 
 	protected void awaitCountDown() {
 		logTrace("Setting CountDownLatch to", client._ws_wait, "seconds, should be hit", countDownLatchCount, "times");
-		ClientEndpointData.awaitCountDown(client._ws_wait);
+		if (sessionData.isEmpty()) {
+			ClientEndpointData.awaitCountDown(client._ws_wait);
+			return;
+		}
+		// the same time as for one session, for all of them
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(client._ws_wait);
+		for (EndpointData data : sessionData)
+			data.awaitCountDown(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
 	}
 
 	protected void newCountDown() {
-		ClientEndpointData.newCountDown(countDownLatchCount);
+		if (sessionData.isEmpty())
+			ClientEndpointData.newCountDown(countDownLatchCount);
+		else
+			for (EndpointData data : sessionData)
+				data.newCountDown(countDownLatchCount);
 	}
 
 	// ---------------------------------------------------------------------
@@ -460,12 +698,20 @@ public class WebSocketTestCase extends WebTestCase {
 		this.countDownLatchCount = countDownLatchCount;
 	}
 
+	protected void setSessionCount(int sessionCount) {
+		this.sessionCount = sessionCount;
+	}
+
 	protected int getCountDownLatchTotalCount() {
-		return countDownLatchCount;
+		return countDownLatchCount * Math.max(1, sessionData.size());
 	}
 
 	protected long getCountDownLatchRemainingHits() {
-		long hits = ClientEndpointData.getCount();
+		if (sessionData.isEmpty())
+			return ClientEndpointData.getCount();
+		long hits = 0;
+		for (EndpointData data : sessionData)
+			hits += data.getCount();
 		return hits;
 	}
 
@@ -481,13 +727,33 @@ public class WebSocketTestCase extends WebTestCase {
 		return session;
 	}
 
+	/**
+	 * @return the sessions opened at once, or the single session
+	 */
+	protected List<Session> getSessions() {
+		if (sessions.isEmpty())
+			return session == null ? Collections.emptyList() : Collections.singletonList(session);
+		return Collections.unmodifiableList(sessions);
+	}
+
+	protected List<EndpointData> getSessionData() {
+		if (sessionData.isEmpty())
+			return Collections.singletonList(ClientEndpointData.getData());
+		return Collections.unmodifiableList(sessionData);
+	}
+
+	// the data of the first session when more have been opened
+	private EndpointData getEndpointData() {
+		return sessionData.isEmpty() ? ClientEndpointData.getData() : sessionData.get(0);
+	}
+
 	protected String getResponseAsString() {
-		return ClientEndpoint.getMessageBuilder().toString();
+		return getEndpointData().getMessageBuilder().toString();
 	}
 
 	@SuppressWarnings({ "unchecked", "unused" })
 	protected <T> T getLastResponse(Class<T> type) {
-		return (T) ClientEndpointData.lastMessage;
+		return (T) getEndpointData().getOriginalMessage();
 	}
 
 	protected void //
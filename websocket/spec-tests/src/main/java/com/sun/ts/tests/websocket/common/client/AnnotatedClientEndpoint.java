@@ -70,14 +70,14 @@ public abstract class AnnotatedClientEndpoint<DATATYPE> {
 	}
 
 	public CountDownLatch getCountDownLatch() {
-		return ClientEndpoint.getCountDownLatch();
+		return clientEndpoint.getEndpointData().getCountDownLatch();
 	}
 
 	public StringBuffer getMessageBuilder() {
-		return ClientEndpoint.getMessageBuilder();
+		return clientEndpoint.getEndpointData().getMessageBuilder();
 	}
 
 	public Throwable getLastError() {
-		return ClientEndpoint.getLastError();
+		return clientEndpoint.getEndpointData().getError();
 	}
 }
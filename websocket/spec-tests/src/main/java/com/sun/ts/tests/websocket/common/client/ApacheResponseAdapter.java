@@ -22,6 +22,7 @@ import org.apache.commons.httpclient.Header;
 
 import com.sun.ts.tests.common.webclient.http.HttpResponse;
 import com.sun.ts.tests.websocket.common.client.ClientEndpoint.ClientEndpointData;
+import com.sun.ts.tests.websocket.common.client.ClientEndpoint.EndpointData;
 import com.sun.ts.tests.websocket.common.util.IOUtil;
 
 public class ApacheResponseAdapter extends HttpResponse {
@@ -36,22 +37,31 @@ public class ApacheResponseAdapter extends HttpResponse {
 		this.caser = caser;
 	}
 
+	/**
+	 * The response received by the endpoint of one of several sessions
+	 */
+	public ApacheResponseAdapter(String host, int port, TextCaser caser, EndpointData data) {
+		this(host, port, caser);
+		this.data = data;
+	}
+
 	private TextCaser caser = null;
 
+	private EndpointData data = ClientEndpointData.getData();
+
 	/**
 	 * Simulates HTTP status code, 500 on error, 200 on ok
 	 */
 	@Override
 	public String getStatusCode() {
-		if (ClientEndpointData.getError() != null)
-			WebSocketTestCase.logMsg("Unexpected error on client endpoint:",
-					IOUtil.printStackTrace(ClientEndpointData.getError()));
-		return ClientEndpointData.getError() == null ? "200" : "500";
+		if (data.getError() != null)
+			WebSocketTestCase.logMsg("Unexpected error on client endpoint:", IOUtil.printStackTrace(data.getError()));
+		return data.getError() == null ? "200" : "500";
 	}
 
 	@Override
 	public String getResponseBodyAsString() throws IOException {
-		return caser.getCasedText(ClientEndpointData.getResponseAsString());
+		return caser.getCasedText(data.getResponseAsString());
 	}
 
 	@Override
@@ -31,43 +31,43 @@ import jakarta.websocket.WebSocketContainer;
 public abstract class ClientEndpoint<T extends Object> extends Endpoint implements MessageHandler.Whole<T> {
 
 	/**
-	 * This structure is static, because the original API was unable to set an
-	 * instance of endpoint when connecting to server, the only available option as
-	 * an argument of
-	 * {@link WebSocketContainer#connectToServer(Class, ClientEndpointConfig, java.net.URI)}
-	 * was Class. The instance of endpoint was created by websocket API, and no
-	 * information could be injected into the instance.
+	 * The state of the client endpoint of one session: the received messages,
+	 * the error, the callback and the latches the test waits on.
 	 */
-	public static class ClientEndpointData {
-		protected static volatile StringBuffer sb = new StringBuffer();
+	public static class EndpointData {
+		protected volatile StringBuffer sb = new StringBuffer();
 
-		protected static volatile Throwable websocketError = null;
+		protected volatile Throwable websocketError = null;
 
-		protected static EndpointCallback callback;
+		protected EndpointCallback callback;
 
-		protected static volatile CountDownLatch messageLatch;
+		protected volatile CountDownLatch messageLatch;
 
-		protected static volatile Object lastMessage = null;
+		protected volatile Object lastMessage = null;
 
-		protected static final Object LOCK = new Object();
+		protected final Object lock = new Object();
 
-		protected static volatile CountDownLatch onCloseLatch = null;
+		protected volatile CountDownLatch onCloseLatch = null;
 
-		public static Throwable getError() {
+		public Throwable getError() {
 			return websocketError;
 		}
 
-		private static void setError(Throwable error) {
+		void setError(Throwable error) {
 			websocketError = error;
 		}
 
-		public static String getResponseAsString() {
+		public String getResponseAsString() {
 			WebSocketTestCase.logMsg("Response:", sb.toString());
 			return sb.toString();
 		}
 
-		public static void resetData() {
-			synchronized (LOCK) {
+		public StringBuffer getMessageBuilder() {
+			return sb;
+		}
+
+		public void resetData() {
+			synchronized (lock) {
 				WebSocketCommonClient.logTrace("Reseting callback and message", "");
 				sb = new StringBuffer();
 				websocketError = null;
@@ -78,44 +78,159 @@ public abstract class ClientEndpoint<T extends Object> extends Endpoint implemen
 			}
 		}
 
-		public static void newCountDown(int count) {
+		public EndpointCallback getCallback() {
+			synchronized (lock) {
+				return callback;
+			}
+		}
+
+		public void setCallback(EndpointCallback callback) {
+			synchronized (lock) {
+				this.callback = callback;
+			}
+		}
+
+		public CountDownLatch getCountDownLatch() {
+			return messageLatch;
+		}
+
+		public void newCountDown(int count) {
 			messageLatch = new CountDownLatch(count);
-		};
+		}
+
+		/**
+		 * @return false when the time elapsed before all the messages arrived
+		 */
+		public boolean awaitCountDown(long seconds) {
+			return awaitCountDown(seconds, TimeUnit.SECONDS);
+		}
 
-		public static void awaitCountDown(int seconds) {
+		public boolean awaitCountDown(long timeout, TimeUnit unit) {
 			try {
-				messageLatch.await(seconds, TimeUnit.SECONDS);
+				return messageLatch.await(timeout, unit);
 			} catch (InterruptedException e) {
 				throw new RuntimeException(e);
 			}
 		}
 
-		public static void newOnCloseCountDown() {
-			if (onCloseLatch == null)
-				onCloseLatch = new CountDownLatch(1);
+		public void newOnCloseCountDown() {
+			synchronized (lock) {
+				if (onCloseLatch == null)
+					onCloseLatch = new CountDownLatch(1);
+			}
 		}
 
-		public static long getCount() {
+		public long getCount() {
 			return messageLatch.getCount();
 		}
 
-		public static void awaitOnClose() {
+		/**
+		 * @return false when onClose has not been called in time
+		 */
+		public boolean awaitOnClose(long seconds) {
+			return awaitOnClose(seconds, TimeUnit.SECONDS);
+		}
+
+		public boolean awaitOnClose(long timeout, TimeUnit unit) {
 			try {
-				onCloseLatch.await(2000L, TimeUnit.SECONDS);
+				if (onCloseLatch.await(timeout, unit))
+					return true;
+				WebSocketCommonClient.logMsg("[WebSocketCommonClient] onClose has not been called in", timeout,
+						unit.toString().toLowerCase());
 			} catch (InterruptedException e) {
 				e.printStackTrace(); // If it does not wait,
 				// the test should still pass
 			}
+			return false;
 		}
 
-		public static Object getOriginalMessage() {
+		public Object getOriginalMessage() {
 			return lastMessage;
 		}
 
-		private static void setOriginalMessage(Object message) {
+		void setOriginalMessage(Object message) {
 			lastMessage = message;
 		}
+	}
+
+	/**
+	 * This structure is static, because the original API was unable to set an
+	 * instance of endpoint when connecting to server, the only available option as
+	 * an argument of
+	 * {@link WebSocketContainer#connectToServer(Class, ClientEndpointConfig, java.net.URI)}
+	 * was Class. The instance of endpoint was created by websocket API, and no
+	 * information could be injected into the instance.
+	 * </p>
+	 * It holds the {@link EndpointData} of every endpoint that has not been given
+	 * data of its own by {@link ClientEndpoint#setEndpointData}, so there is one
+	 * such session at a time. The {@link EndpointCallback}s, and the tests that use
+	 * the static accessors of {@link ClientEndpoint}, only see this data, which is
+	 * why ws_sessions only applies to the clients that declare support for it.
+	 */
+	public static class ClientEndpointData {
+		static final EndpointData DATA = new EndpointData();
+
+		public static EndpointData getData() {
+			return DATA;
+		}
+
+		public static Throwable getError() {
+			return DATA.getError();
+		}
+
+		public static String getResponseAsString() {
+			return DATA.getResponseAsString();
+		}
+
+		public static void resetData() {
+			DATA.resetData();
+		}
+
+		public static void setCallback(EndpointCallback callback) {
+			DATA.setCallback(callback);
+		}
+
+		public static void newCountDown(int count) {
+			DATA.newCountDown(count);
+		};
+
+		public static boolean awaitCountDown(int seconds) {
+			return DATA.awaitCountDown(seconds);
+		}
+
+		public static void newOnCloseCountDown() {
+			DATA.newOnCloseCountDown();
+		}
+
+		public static long getCount() {
+			return DATA.getCount();
+		}
+
+		public static boolean awaitOnClose(long seconds) {
+			return DATA.awaitOnClose(seconds);
+		}
+
+		public static Object getOriginalMessage() {
+			return DATA.getOriginalMessage();
+		}
+
+	}
+
+	private volatile EndpointData data;
+
+	/**
+	 * Gives this endpoint instance data of its own, so that it can be connected
+	 * while other sessions are open. Subclasses have to reach the data through
+	 * {@link #getEndpointData()}, the static {@link #getCountDownLatch()} and
+	 * {@link #getMessageBuilder()} only see the shared {@link ClientEndpointData}.
+	 */
+	public void setEndpointData(EndpointData data) {
+		this.data = data;
+	}
 
+	public EndpointData getEndpointData() {
+		EndpointData data = this.data;
+		return data == null ? ClientEndpointData.DATA : data;
 	}
 
 	/**
@@ -137,73 +252,76 @@ public abstract class ClientEndpoint<T extends Object> extends Endpoint implemen
 				session.addMessageHandler(this);
 		} else
 			WebSocketCommonClient.logTrace("Session is closed!!!!", "");
-		synchronized (ClientEndpointData.LOCK) {
-			if (ClientEndpointData.callback != null && session.isOpen())
-				ClientEndpointData.callback.onOpen(session, config);
+		EndpointData data = getEndpointData();
+		synchronized (data.lock) {
+			if (data.callback != null && session.isOpen())
+				data.callback.onOpen(session, config);
 		}
 	}
 
 	@Override
 	public void onError(Session session, Throwable t) {
-		ClientEndpointData.setError(t);
+		EndpointData data = getEndpointData();
+		data.setError(t);
 		t.printStackTrace();
-		synchronized (ClientEndpointData.LOCK) {
-			if (ClientEndpointData.callback != null)
-				ClientEndpointData.callback.onError(session, t);
+		synchronized (data.lock) {
+			if (data.callback != null)
+				data.callback.onError(session, t);
 		}
 	}
 
 	protected void appendMessage(T message) {
-		ClientEndpointData.sb.append(message.toString());
+		getEndpointData().sb.append(message.toString());
 	}
 
 	@Override
 	public void onMessage(T message) {
-		ClientEndpointData.setOriginalMessage(message);
+		EndpointData data = getEndpointData();
+		data.setOriginalMessage(message);
 		appendMessage(message);
-		WebSocketCommonClient.logTrace("Received message so far", ClientEndpointData.sb.toString());
-		synchronized (ClientEndpointData.LOCK) {
-			if (ClientEndpointData.callback != null)
-				ClientEndpointData.callback.onMessage(message);
+		WebSocketCommonClient.logTrace("Received message so far", data.sb.toString());
+		synchronized (data.lock) {
+			if (data.callback != null)
+				data.callback.onMessage(message);
 		}
 		WebSocketTestCase.logTrace("CountDownLatch hit");
-		if (ClientEndpointData.messageLatch.getCount() == 0)
+		if (data.messageLatch.getCount() == 0)
 			throw new IllegalStateException("CountDownLatch.getCount == 0 already");
-		ClientEndpointData.messageLatch.countDown();
+		data.messageLatch.countDown();
 	}
 
 	@Override
 	public void onClose(Session session, CloseReason closeReason) {
-		synchronized (ClientEndpointData.LOCK) {
+		EndpointData data = getEndpointData();
+		synchronized (data.lock) {
 			WebSocketTestCase.logTrace("On close on session id", session.getId(), "reason", closeReason);
-			if (ClientEndpointData.lastMessage == null)
+			if (data.lastMessage == null)
 				WebSocketTestCase.logTrace("onClose has been called before a message was received");
 			else
 				WebSocketTestCase.logTrace("onClose has been called");
-			if (ClientEndpointData.callback != null)
-				ClientEndpointData.callback.onClose(session, closeReason);
+			if (data.callback != null)
+				data.callback.onClose(session, closeReason);
 			// onCloseLatch == null when close has not been called by client
-			if (ClientEndpointData.onCloseLatch == null)
-				ClientEndpointData.newOnCloseCountDown();
-			ClientEndpointData.onCloseLatch.countDown();
+			data.newOnCloseCountDown();
+			data.onCloseLatch.countDown();
 		}
 	}
 
 	public static CountDownLatch getCountDownLatch() {
-		return ClientEndpointData.messageLatch;
+		return ClientEndpointData.DATA.getCountDownLatch();
 	}
 
 	public static StringBuffer getMessageBuilder() {
-		return ClientEndpointData.sb;
+		return ClientEndpointData.DATA.getMessageBuilder();
 	}
 
 	@SuppressWarnings({ "unchecked", "unused" })
 	public T getLastMessage(Class<T> messageType) {
-		return (T) ClientEndpointData.lastMessage;
+		return (T) getEndpointData().lastMessage;
 	}
 
 	public static Throwable getLastError() {
-		return ClientEndpointData.websocketError;
+		return ClientEndpointData.DATA.getError();
 	}
 
 }
@@ -52,6 +52,10 @@ public class EndpointCallback {
 	public void onClose(Session session, CloseReason closeReason) {
 	}
 
+	/*
+	 * A callback can serve the endpoints of several sessions, so it only sees the
+	 * shared ClientEndpointData
+	 */
 	public CountDownLatch getCountDownLatch() {
 		return ClientEndpoint.getCountDownLatch();
 	}
@@ -84,6 +84,13 @@ public abstract class WebSocketCommonClient {
 	 */
 	protected static final String WSWAIT = "ws_wait";
 
+	/**
+	 * ws_sessions the number of sessions opened at once by each invocation of
+	 * the clients that support it, see {@link #isSessionCountSupported()},
+	 * optional.
+	 */
+	protected static final String WSSESSIONS = "ws_sessions";
+
 	/**
 	 * Single invocation incremental test properties
 	 */
@@ -114,6 +121,11 @@ public abstract class WebSocketCommonClient {
 	 */
 	protected int _ws_wait = 0;
 
+	/**
+	 * Property from ts.jte, 1 when not set
+	 */
+	protected int _ws_sessions = 1;
+
 	/**
 	 * The test case of given specified websocket message type
 	 */
@@ -341,6 +353,64 @@ public abstract class WebSocketCommonClient {
 		invokeAgain(cleanup);
 	}
 
+	/**
+	 * Load mode: opens the sessions set by {@link #setSessionCount(int)} and checks
+	 * the reply to the content on each of them as {@link #invoke()} does, then each
+	 * session sends the content the given number of times more and waits for the
+	 * reply every time. The sessions are closed by {@link #cleanup()}.
+	 * 
+	 * @param endpoint the endpoint the request is built to go to.
+	 * @param content  the content to be set as setEntity(content), a String or a
+	 *                 ByteBuffer replied unchanged by the endpoint
+	 * @param search   a String the first reply on each session would be searched
+	 *                 for
+	 * @param messages the number of round trips of each session
+	 * @return the messages per second, latency of a round trip and client memory
+	 *         per session
+	 * @throws Exception when invocation fails
+	 */
+	protected LoadResult invokeRoundTrips(String endpoint, Object content, String search, int messages)
+			throws Exception {
+		long memory = LoadResult.usedMemory();
+		invoke(endpoint, content, search, false);
+		LoadResult result = newLoadResult(memory);
+		getTestCase().roundTrips(messages, result);
+		return result;
+	}
+
+	/**
+	 * Load mode: opens the sessions set by {@link #setSessionCount(int)} to an
+	 * endpoint that sends each message it receives to all its sessions, then the
+	 * first session sends the content the given number of times and waits every
+	 * time until all the sessions have received it. The sessions are closed by
+	 * {@link #cleanup()}.
+	 * 
+	 * @param endpoint the endpoint the request is built to go to.
+	 * @param content  the content to be broadcast
+	 * @param messages the number of messages sent
+	 * @return the messages received per second by all the sessions together, the
+	 *         latency until a message has reached every session, and client memory
+	 *         per session
+	 * @throws Exception when invocation fails
+	 */
+	protected LoadResult invokeBroadcast(String endpoint, Object content, int messages) throws Exception {
+		long memory = LoadResult.usedMemory();
+		// nothing is sent while the sessions open
+		entity = null;
+		setCountDownLatchCount(0);
+		setProperty(Property.REQUEST, buildRequest(endpoint));
+		invoke(false);
+		LoadResult result = newLoadResult(memory);
+		setEntity(content);
+		getTestCase().broadcast(messages, result);
+		return result;
+	}
+
+	private LoadResult newLoadResult(long memoryBefore) {
+		int sessions = getTestCase().getSessions().size();
+		return new LoadResult(sessions, Math.max(0, LoadResult.usedMemory() - memoryBefore) / sessions);
+	}
+
 	/**
 	 * <PRE>
 	 * Invokes a test based on the properties
@@ -425,7 +495,8 @@ public abstract class WebSocketCommonClient {
 		if (again) {
 			testCase.newCountDown();
 			SendMessageCallback callback = new SendMessageCallback(entity);
-			callback.onOpen(getSession(), null);
+			for (Session session : getSessions())
+				callback.onOpen(session, null);
 			testCase.awaitCountDown();
 		} else
 			testCase.execute();
@@ -524,6 +595,7 @@ public abstract class WebSocketCommonClient {
 	protected WebSocketTestCase getTestCase() {
 		if (testCase == null || isTestCaseAfterInvocation) {
 			testCase = new WebSocketTestCase(this);
+			testCase.setSessionCount(isSessionCountSupported() ? _ws_sessions : 1);
 			isTestCaseAfterInvocation = false;
 		}
 		return testCase;
@@ -548,18 +620,18 @@ public abstract class WebSocketCommonClient {
 	public void cleanup() throws Exception {
 		TEST_PROPS.clear();
 		isTestCaseAfterInvocation = true;
+		if (testCase != null)
+			testCase.closeSessions(_ws_wait);
 		if (testCase != null && testCase.session != null) {
 			if (testCase.session.isOpen()) {
 				ClientEndpointData.newOnCloseCountDown();
 				logTrace("[WebSocketCommonClient] session.close() on session id", testCase.session.getId());
 				testCase.session.close();
-				ClientEndpointData.awaitOnClose();
+				ClientEndpointData.awaitOnClose(_ws_wait);
 			}
 			testCase.session = null;
 		}
-		synchronized (ClientEndpointData.LOCK) {
-			ClientEndpointData.callback = null;
-		}
+		ClientEndpointData.setCallback(null);
 		logger.log(Logger.Level.DEBUG, "[WebSocketCommonClient] Test cleanup OK");
 	}
 
@@ -588,6 +660,9 @@ public abstract class WebSocketCommonClient {
 		assertFalse(isNullOrEmpty(wswait), "[WebSocketCommonClient] 'ws_wait' must be set in the properties");
 		_ws_wait = Integer.parseInt(wswait.trim());
 		assertTrue(_ws_wait > 0, "[WebSocketCommonClient] 'ws_wait' (in seconds) must be set greater than 0");
+		String wssessions = System.getProperty(WSSESSIONS);
+		_ws_sessions = isNullOrEmpty(wssessions) ? 1 : Integer.parseInt(wssessions.trim());
+		assertTrue(_ws_sessions > 0, "[WebSocketCommonClient] 'ws_sessions' must be greater than 0");
 
 		logger.log(Logger.Level.DEBUG, "[WebSocketCommonClient] Test setup OK");
 		TEST_PROPS = new Hashtable<>();
@@ -915,6 +990,28 @@ public abstract class WebSocketCommonClient {
 		getTestCase().setCountDownLatchCount(countDownLatchCount);
 	}
 
+	/**
+	 * Opens the given number of sessions to the endpoint at once instead of one.
+	 * Each session gets the entity and is validated against the search strings.
+	 * Only endpoints set by {@link #setClientEndpoint} can be connected more than
+	 * once.
+	 */
+	protected void setSessionCount(int sessionCount) {
+		getTestCase().setSessionCount(sessionCount);
+	}
+
+	/**
+	 * Whether ws_sessions applies to this client. The endpoints of a client that
+	 * supports it must keep their data per session, so they must not use the
+	 * static {@link ClientEndpoint#getCountDownLatch()},
+	 * {@link ClientEndpoint#getMessageBuilder()} or {@link ClientEndpointData}
+	 * that all the sessions share. Most clients do, so the default is false and
+	 * each invocation opens a single session.
+	 */
+	protected boolean isSessionCountSupported() {
+		return false;
+	}
+
 	/**
 	 * set ClientEndpoint class. This endpoint class can be overriden by client
 	 * endpoint instance set by {@link #setClientEndpointInstance}
@@ -982,6 +1079,12 @@ public abstract class WebSocketCommonClient {
 		return session;
 	}
 
+	protected List<Session> getSessions() throws Exception {
+		List<Session> sessions = getTestCase().getSessions();
+		assertFalse(sessions.isEmpty(), "Session is null! Has been closed?");
+		return sessions;
+	}
+
 	protected String getResponseAsString() {
 		return getTestCase().getResponseAsString();
 	}
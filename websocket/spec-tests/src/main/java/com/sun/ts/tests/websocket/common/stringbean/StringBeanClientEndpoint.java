@@ -21,6 +21,6 @@ import com.sun.ts.tests.websocket.common.client.ClientEndpoint;
 public class StringBeanClientEndpoint extends ClientEndpoint<StringBean> {
 	@Override
 	protected void appendMessage(StringBean message) {
-		getMessageBuilder().append(message.get());
+		getEndpointData().getMessageBuilder().append(message.get());
 	}
 }
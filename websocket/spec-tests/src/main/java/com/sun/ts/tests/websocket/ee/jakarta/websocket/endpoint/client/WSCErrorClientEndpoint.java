@@ -58,7 +58,7 @@ public class WSCErrorClientEndpoint extends StringClientEndpoint {
 		String msg = WebSocketCommonClient.getCauseMessage(t);
 		if (EXCEPTION.equals(msg)) {
 			onErrorCalled = true;
-			getCountDownLatch().countDown();
+			getEndpointData().getCountDownLatch().countDown();
 		} else
 			super.onError(session, t);
 	}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.ts.tests.websocket.ee.jakarta.websocket.load;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit5.ArquillianExtension;
+import org.jboss.shrinkwrap.api.Filters;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import com.sun.ts.tests.websocket.common.client.ByteBufferClientEndpoint;
+import com.sun.ts.tests.websocket.common.client.ClientEndpoint;
+import com.sun.ts.tests.websocket.common.client.LoadResult;
+import com.sun.ts.tests.websocket.common.client.StringClientEndpoint;
+import com.sun.ts.tests.websocket.common.client.WebSocketCommonClient;
+import com.sun.ts.tests.websocket.common.stringbean.StringBean;
+import com.sun.ts.tests.websocket.common.stringbean.StringBeanBinaryStreamDecoder;
+import com.sun.ts.tests.websocket.common.stringbean.StringBeanBinaryStreamEncoder;
+import com.sun.ts.tests.websocket.common.stringbean.StringBeanTextStreamDecoder;
+import com.sun.ts.tests.websocket.common.stringbean.StringBeanTextStreamEncoder;
+import com.sun.ts.tests.websocket.common.util.IOUtil;
+
+/**
+ * The load mode of the websocket tests, not part of the TCK. It only runs with
+ * -Dws_load=true, and reports the messages per second, latency percentiles and
+ * client memory per session for each endpoint style and message size. The load
+ * is set by ws_load_sessions (10), ws_load_messages (1000) and ws_load_sizes
+ * (16,1024,65536).
+ */
+@ExtendWith(ArquillianExtension.class)
+@EnabledIfSystemProperty(named = "ws_load", matches = "true")
+public class WSClientIT extends WebSocketCommonClient {
+
+	private static final String WSLOADSESSIONS = "ws_load_sessions";
+
+	private static final String WSLOADMESSAGES = "ws_load_messages";
+
+	private static final String WSLOADSIZES = "ws_load_sizes";
+
+	private static final String PATTERN = "0123456789abcdefghijklmnopqrstuvwxyz";
+
+	@Deployment(testable = false)
+	public static WebArchive createDeployment() throws IOException {
+		WebArchive archive = ShrinkWrap.create(WebArchive.class, "wsc_ee_load_web.war");
+		archive.addClasses(StringBean.class, StringBeanBinaryStreamDecoder.class, StringBeanBinaryStreamEncoder.class,
+				StringBeanTextStreamDecoder.class, StringBeanTextStreamEncoder.class);
+		archive.addClasses(IOUtil.class);
+		archive.addPackages(false, Filters.exclude(WSClientIT.class),
+				"com.sun.ts.tests.websocket.ee.jakarta.websocket.load");
+
+		return archive;
+	};
+
+	public WSClientIT() throws Exception {
+		setContextRoot("wsc_ee_load_web");
+	}
+
+	// the load endpoints keep their data per session
+	@Override
+	protected boolean isSessionCountSupported() {
+		return true;
+	}
+
+	/* Run test */
+	/*
+	 * @testName: textLoadTest
+	 *
+	 * @test_Strategy: Round trips of text messages to an endpoint that replies
+	 * with the String it receives
+	 */
+	@Test
+	public void textLoadTest() throws Exception {
+		runRoundTrips("text", StringClientEndpoint.class, false);
+	}
+
+	/*
+	 * @testName: binaryLoadTest
+	 *
+	 * @test_Strategy: Round trips of binary messages to an endpoint that replies
+	 * with the ByteBuffer it receives
+	 */
+	@Test
+	public void binaryLoadTest() throws Exception {
+		runRoundTrips("binary", ByteBufferClientEndpoint.class, true);
+	}
+
+	/*
+	 * @testName: textStreamLoadTest
+	 *
+	 * @test_Strategy: Round trips of text messages to an endpoint that decodes
+	 * and encodes them with StringBeanTextStreamDecoder and
+	 * StringBeanTextStreamEncoder
+	 */
+	@Test
+	public void textStreamLoadTest() throws Exception {
+		runRoundTrips("textstream", StringClientEndpoint.class, false);
+	}
+
+	/*
+	 * @testName: binaryStreamLoadTest
+	 *
+	 * @test_Strategy: Round trips of binary messages to an endpoint that decodes
+	 * and encodes them with StringBeanBinaryStreamDecoder and
+	 * StringBeanBinaryStreamEncoder
+	 */
+	@Test
+	public void binaryStreamLoadTest() throws Exception {
+		runRoundTrips("binarystream", ByteBufferClientEndpoint.class, true);
+	}
+
+	/*
+	 * @testName: broadcastLoadTest
+	 *
+	 * @test_Strategy: One session sends text messages to an endpoint that sends
+	 * each of them to all its sessions
+	 */
+	@Test
+	public void broadcastLoadTest() throws Exception {
+		for (int size : getSizes()) {
+			setSessionCount(getLoadProperty(WSLOADSESSIONS, 10));
+			LoadResult result = invokeBroadcast("broadcast", createText(size), getLoadProperty(WSLOADMESSAGES, 1000));
+			logMsg("[Load] broadcast", size, "bytes:", result);
+			cleanup();
+		}
+	}
+
+	// ---------------------------------------------------------------------
+
+	private void runRoundTrips(String endpoint, Class<? extends ClientEndpoint<?>> clientEndpoint, boolean binary)
+			throws Exception {
+		for (int size : getSizes()) {
+			String text = createText(size);
+			setClientEndpoint(clientEndpoint);
+			setSessionCount(getLoadProperty(WSLOADSESSIONS, 10));
+			Object content = binary ? ByteBuffer.wrap(text.getBytes()) : text;
+			LoadResult result = invokeRoundTrips(endpoint, content, text.substring(0, Math.min(size, 16)),
+					getLoadProperty(WSLOADMESSAGES, 1000));
+			logMsg("[Load]", endpoint, size, "bytes:", result);
+			cleanup();
+		}
+	}
+
+	private static String createText(int size) {
+		StringBuilder sb = new StringBuilder(size);
+		while (sb.length() < size)
+			sb.append(PATTERN, 0, Math.min(PATTERN.length(), size - sb.length()));
+		return sb.toString();
+	}
+
+	private static int[] getSizes() {
+		String value = System.getProperty(WSLOADSIZES);
+		String[] sizes = (isNullOrEmpty(value) ? "16,1024,65536" : value).split(",");
+		int[] ret = new int[sizes.length];
+		for (int i = 0; i != sizes.length; i++)
+			ret[i] = Integer.parseInt(sizes[i].trim());
+		return ret;
+	}
+
+	private static int getLoadProperty(String name, int defaultValue) {
+		String value = System.getProperty(name);
+		return isNullOrEmpty(value) ? defaultValue : Integer.parseInt(value.trim());
+	}
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.ts.tests.websocket.ee.jakarta.websocket.load;
+
+import java.io.IOException;
+import java.lang.System.Logger;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.sun.ts.tests.websocket.common.util.IOUtil;
+
+import jakarta.websocket.OnClose;
+import jakarta.websocket.OnError;
+import jakarta.websocket.OnMessage;
+import jakarta.websocket.OnOpen;
+import jakarta.websocket.Session;
+import jakarta.websocket.server.ServerEndpoint;
+
+/**
+ * Sends every message it receives to all the sessions open to it
+ */
+@ServerEndpoint("/broadcast")
+public class WSLoadBroadcastServer {
+
+	private static final Logger logger = System.getLogger(WSLoadBroadcastServer.class.getName());
+
+	private static final Set<Session> SESSIONS = ConcurrentHashMap.newKeySet();
+
+	@OnOpen
+	public void onOpen(Session session) {
+		SESSIONS.add(session);
+	}
+
+	@OnClose
+	public void onClose(Session session) {
+		SESSIONS.remove(session);
+	}
+
+	@OnMessage
+	public void broadcast(String data) throws IOException {
+		for (Session session : SESSIONS) {
+			// a session cannot send two messages at once
+			synchronized (session) {
+				if (session.isOpen())
+					session.getBasicRemote().sendText(data);
+			}
+		}
+	}
+
+	@OnError
+	public void onError(Session session, Throwable t) throws IOException {
+		logger.log(Logger.Level.INFO,"@OnError in" + getClass().getName());
+		t.printStackTrace(); // Write to error log, too
+		String message = IOUtil.printStackTrace(t);
+		session.getBasicRemote().sendText(message);
+	}
+
+}
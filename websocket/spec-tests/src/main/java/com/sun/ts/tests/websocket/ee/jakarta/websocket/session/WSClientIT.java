@@ -1726,8 +1726,8 @@ public class WSClientIT extends WebSocketCommonClient {
 
 		@Override
 		public void onMessage(String message) {
-			getMessageBuilder().append("========First TextMessageHander received=").append(message);
-			getCountDownLatch().countDown();
+			getEndpointData().getMessageBuilder().append("========First TextMessageHander received=").append(message);
+			getEndpointData().getCountDownLatch().countDown();
 		}
 
 		@Override
@@ -1738,12 +1738,13 @@ public class WSClientIT extends WebSocketCommonClient {
 
 					@Override
 					public void onMessage(String message) {
-						getMessageBuilder().append("========Second TextMessageHander received=").append(message);
-						getCountDownLatch().countDown();
+						getEndpointData().getMessageBuilder().append("========Second TextMessageHander received=")
+								.append(message);
+						getEndpointData().getCountDownLatch().countDown();
 					}
 				});
 			} catch (IllegalStateException ile) {
-				getMessageBuilder()
+				getEndpointData().getMessageBuilder()
 						.append("========Expected IllegalStateException thrown by Second TextMessageHandler");
 				// ile.printStackTrace();
 			}
@@ -1761,8 +1762,9 @@ public class WSClientIT extends WebSocketCommonClient {
 		public void onMessage(ByteBuffer message) {
 			String message_string = IOUtil.byteBufferToString(message);
 
-			getMessageBuilder().append("========First Basic ByteBuffer MessageHander received=").append(message_string);
-			getCountDownLatch().countDown();
+			getEndpointData().getMessageBuilder().append("========First Basic ByteBuffer MessageHander received=")
+					.append(message_string);
+			getEndpointData().getCountDownLatch().countDown();
 		}
 
 		@Override
@@ -1776,13 +1778,13 @@ public class WSClientIT extends WebSocketCommonClient {
 					@Override
 					public void onMessage(ByteBuffer data) {
 						String message_string = IOUtil.byteBufferToString(data);
-						getMessageBuilder().append("========Second Basic ByteBuffer MessageHander received=")
+						getEndpointData().getMessageBuilder().append("========Second Basic ByteBuffer MessageHander received=")
 								.append(message_string);
-						getCountDownLatch().countDown();
+						getEndpointData().getCountDownLatch().countDown();
 					}
 				});
 			} catch (IllegalStateException ile) {
-				getMessageBuilder()
+				getEndpointData().getMessageBuilder()
 						.append("========Expected IllegalStateException thrown by Second ByteBuffer MessageHandler");
 				// ile.printStackTrace();
 			}